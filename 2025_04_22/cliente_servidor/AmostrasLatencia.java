@@ -0,0 +1,120 @@
+/**
+ * AmostrasLatencia - Coleta de latências e cálculo de percentis
+ *
+ * Armazena latências em nanossegundos em um vetor que cresce sob demanda
+ * e calcula média e percentis exatos sobre as amostras ordenadas.
+ * Cada thread deve usar sua própria instância; os resultados são combinados
+ * ao final com {@link #adicionarTodas(AmostrasLatencia)}.
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+import java.util.Arrays;
+
+/**
+ * Conjunto de amostras de latência (não é thread-safe).
+ */
+public class AmostrasLatencia {
+
+    // ==================== CONSTANTES ====================
+
+    /** Capacidade inicial do vetor de amostras */
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Latências registradas, em nanossegundos */
+    private long[] amostras = new long[CAPACIDADE_INICIAL];
+
+    /** Quantidade de amostras válidas */
+    private int quantidade;
+
+    /** Indica se o vetor já está ordenado */
+    private boolean ordenado = true;
+
+    // ==================== MÉTODOS PRINCIPAIS ====================
+
+    /**
+     * Registra uma latência.
+     *
+     * @param nanos Latência em nanossegundos
+     */
+    public void registrar(long nanos) {
+        if (quantidade == amostras.length) {
+            amostras = Arrays.copyOf(amostras, amostras.length * 2);
+        }
+        amostras[quantidade++] = nanos;
+        ordenado = false;
+    }
+
+    /**
+     * Acrescenta todas as amostras de outro conjunto.
+     *
+     * @param outras Amostras a serem combinadas
+     */
+    public void adicionarTodas(AmostrasLatencia outras) {
+        for (int i = 0; i < outras.quantidade; i++) {
+            registrar(outras.amostras[i]);
+        }
+    }
+
+    /**
+     * Calcula um percentil pelo método do posto mais próximo.
+     *
+     * @param percentil Percentil desejado (0-100)
+     * @return Latência em nanossegundos (0 se não houver amostras)
+     */
+    public long percentil(double percentil) {
+        if (quantidade == 0) {
+            return 0;
+        }
+        if (!ordenado) {
+            Arrays.sort(amostras, 0, quantidade);
+            ordenado = true;
+        }
+        int posicao = (int) Math.ceil(percentil / 100.0 * quantidade) - 1;
+        return amostras[Math.max(0, Math.min(quantidade - 1, posicao))];
+    }
+
+    /**
+     * Calcula a média das amostras.
+     *
+     * @return Média em nanossegundos (0 se não houver amostras)
+     */
+    public double media() {
+        if (quantidade == 0) {
+            return 0;
+        }
+        double soma = 0;
+        for (int i = 0; i < quantidade; i++) {
+            soma += amostras[i];
+        }
+        return soma / quantidade;
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna a quantidade de amostras.
+     *
+     * @return Número de amostras registradas
+     */
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Gera um resumo com média e percentis em microssegundos.
+     *
+     * @return Resumo formatado em uma linha
+     */
+    public String resumo() {
+        return String.format("n=%d média=%.1fµs p50=%.1fµs p90=%.1fµs p99=%.1fµs p99.9=%.1fµs máx=%.1fµs",
+                quantidade, media() / 1000.0,
+                percentil(50) / 1000.0, percentil(90) / 1000.0,
+                percentil(99) / 1000.0, percentil(99.9) / 1000.0,
+                percentil(100) / 1000.0);
+    }
+}
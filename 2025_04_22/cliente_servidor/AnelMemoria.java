@@ -0,0 +1,284 @@
+/**
+ * AnelMemoria - Buffer circular de bytes com um produtor e um consumidor
+ *
+ * O anel ocupa uma região de um ByteBuffer (normalmente um MappedByteBuffer
+ * compartilhado entre dois processos) e é dividido em:
+ * - Bloco de controle: posição de escrita, posição de leitura e indicadores
+ *   de encerramento, cada posição em sua própria linha de cache (64 bytes)
+ * - Área de dados: capacidade em potência de dois, indexada por posição & máscara
+ *
+ * As posições crescem indefinidamente (long), de modo que ocupação = escrita - leitura.
+ * O produtor copia os bytes e só depois publica a nova posição de escrita com
+ * semântica release; o consumidor lê essa posição com acquire antes de copiar,
+ * e o mesmo vale no sentido inverso para liberar espaço. Não há travas: cada
+ * posição tem um único escritor.
+ *
+ * Quando não há dados (ou espaço), o lado que espera segue uma EstrategiaEspera.
+ * Como os processos não compartilham monitores, nenhuma estratégia acorda o par;
+ * elas apenas trocam latência por uso de CPU.
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Anel SPSC sobre uma região de memória.
+ */
+public final class AnelMemoria {
+
+    // ==================== CONSTANTES ====================
+
+    /** Tamanho de uma linha de cache, usado para separar as posições */
+    static final int LINHA_CACHE = 64;
+
+    /** Tamanho do bloco de controle que precede os dados de cada anel */
+    public static final int TAMANHO_CONTROLE = 3 * LINHA_CACHE;
+
+    /** Deslocamento da posição de escrita (produtor) no bloco de controle */
+    private static final int POSICAO_ESCRITA = 0;
+
+    /** Deslocamento da posição de leitura (consumidor) no bloco de controle */
+    private static final int POSICAO_LEITURA = LINHA_CACHE;
+
+    /** Deslocamento do indicador de produtor encerrado */
+    private static final int PRODUTOR_FECHADO = 2 * LINHA_CACHE;
+
+    /** Deslocamento do indicador de consumidor encerrado */
+    private static final int CONSUMIDOR_FECHADO = 2 * LINHA_CACHE + Long.BYTES;
+
+    /** Acesso atômico a longs alinhados dentro de ByteBuffers diretos */
+    static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    // ==================== ESTRATÉGIAS DE ESPERA ====================
+
+    /**
+     * Como aguardar enquanto o anel está vazio (leitura) ou cheio (escrita).
+     */
+    public enum EstrategiaEspera {
+        /** Giro contínuo: menor latência, ocupa um núcleo inteiro por thread em espera */
+        GIRO,
+        /** Gira brevemente e depois cede o processador a outras threads */
+        CEDER,
+        /** Gira brevemente e depois estaciona a thread por alguns microssegundos (1 ms em esperas longas) */
+        ESTACIONAR;
+
+        /** Tentativas de giro antes de ceder ou estacionar */
+        private static final int GIROS_INICIAIS = 200;
+
+        /** Tempo de cada estacionamento, em nanossegundos */
+        private static final long PAUSA_NANOS = 20_000;
+
+        /** Estacionamentos curtos antes de passar a PAUSA_LONGA_NANOS (algumas centenas de ms parado) */
+        private static final int PAUSAS_CURTAS = 10_000;
+
+        /** Estacionamento de uma espera longa: um par ocioso ou morto quase não custa CPU */
+        private static final long PAUSA_LONGA_NANOS = 1_000_000;
+
+        /**
+         * Aguarda uma rodada.
+         *
+         * @param tentativa Número de rodadas já aguardadas nesta espera
+         * @throws InterruptedIOException se a thread for interrompida
+         */
+        void aguardar(int tentativa) throws InterruptedIOException {
+            if (tentativa < 0) {
+                tentativa = Integer.MAX_VALUE; // Contador estourado em uma espera de semanas
+            }
+            if (this == GIRO || tentativa < GIROS_INICIAIS) {
+                Thread.onSpinWait();
+            } else if (this == CEDER) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(tentativa < GIROS_INICIAIS + PAUSAS_CURTAS ? PAUSA_NANOS : PAUSA_LONGA_NANOS);
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedIOException("Espera no anel interrompida");
+            }
+        }
+
+        /**
+         * Interpreta o nome de uma estratégia, sem diferenciar maiúsculas.
+         *
+         * @param nome Nome da estratégia (giro, ceder ou estacionar)
+         * @return Estratégia correspondente
+         * @throws IllegalArgumentException se o nome não for reconhecido
+         */
+        public static EstrategiaEspera interpretar(String nome) {
+            return valueOf(nome.trim().toUpperCase());
+        }
+    }
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Memória que contém o anel */
+    private final ByteBuffer memoria;
+
+    /** Início do bloco de controle */
+    private final int controle;
+
+    /** Início da área de dados */
+    private final int dados;
+
+    /** Capacidade da área de dados, em bytes */
+    private final int capacidade;
+
+    /** Máscara para converter posição em índice */
+    private final int mascara;
+
+    /** Estratégia usada quando o anel está vazio ou cheio */
+    private final EstrategiaEspera espera;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria a visão de um anel já presente (ou recém-zerado) na memória.
+     *
+     * @param memoria ByteBuffer direto que contém o anel
+     * @param inicio Deslocamento do bloco de controle (múltiplo de 64)
+     * @param capacidade Capacidade da área de dados (potência de dois)
+     * @param espera Estratégia de espera
+     * @throws IllegalArgumentException se o alinhamento ou a capacidade forem inválidos
+     */
+    public AnelMemoria(ByteBuffer memoria, int inicio, int capacidade, EstrategiaEspera espera) {
+        if (!memoria.isDirect() || inicio % LINHA_CACHE != 0) {
+            throw new IllegalArgumentException("Anel exige memória direta alinhada em " + LINHA_CACHE + " bytes");
+        }
+        if (capacidade <= 0 || Integer.bitCount(capacidade) != 1) {
+            throw new IllegalArgumentException("Capacidade do anel deve ser potência de dois");
+        }
+        this.memoria = memoria;
+        this.controle = inicio;
+        this.dados = inicio + TAMANHO_CONTROLE;
+        this.capacidade = capacidade;
+        this.mascara = capacidade - 1;
+        this.espera = espera;
+    }
+
+    // ==================== PRODUTOR ====================
+
+    /**
+     * Escreve todos os bytes, aguardando espaço quando o anel está cheio.
+     *
+     * @param origem Bytes a escrever
+     * @param deslocamento Início em origem
+     * @param tamanho Quantidade de bytes
+     * @throws IOException se o consumidor encerrar ou a thread for interrompida
+     */
+    public void escrever(byte[] origem, int deslocamento, int tamanho) throws IOException {
+        long escrita = (long) LONGS.getOpaque(memoria, controle + POSICAO_ESCRITA);
+        int tentativa = 0;
+
+        while (tamanho > 0) {
+            long leitura = (long) LONGS.getAcquire(memoria, controle + POSICAO_LEITURA);
+            int livre = capacidade - (int) (escrita - leitura);
+            if (livre == 0) {
+                if (isFechado(CONSUMIDOR_FECHADO)) {
+                    throw new IOException("Conexão encerrada pelo par");
+                }
+                espera.aguardar(tentativa++);
+                continue;
+            }
+            tentativa = 0;
+
+            int indice = (int) (escrita & mascara);
+            int bloco = Math.min(Math.min(livre, tamanho), capacidade - indice);
+            memoria.put(dados + indice, origem, deslocamento, bloco);
+            escrita += bloco;
+            LONGS.setRelease(memoria, controle + POSICAO_ESCRITA, escrita);
+
+            deslocamento += bloco;
+            tamanho -= bloco;
+        }
+    }
+
+    /**
+     * Indica ao consumidor que não haverá mais bytes.
+     */
+    public void fecharProdutor() {
+        LONGS.setRelease(memoria, controle + PRODUTOR_FECHADO, 1L);
+    }
+
+    // ==================== CONSUMIDOR ====================
+
+    /**
+     * Lê até tamanho bytes, aguardando enquanto o anel está vazio.
+     *
+     * @param destino Vetor de destino
+     * @param deslocamento Início em destino
+     * @param tamanho Máximo de bytes a ler
+     * @return Bytes lidos, ou -1 se o produtor encerrou e o anel está vazio
+     * @throws IOException se a thread for interrompida
+     */
+    public int ler(byte[] destino, int deslocamento, int tamanho) throws IOException {
+        if (tamanho == 0) {
+            return 0;
+        }
+        long leitura = (long) LONGS.getOpaque(memoria, controle + POSICAO_LEITURA);
+        int tentativa = 0;
+
+        while (true) {
+            long escrita = (long) LONGS.getAcquire(memoria, controle + POSICAO_ESCRITA);
+            int disponivel = (int) (escrita - leitura);
+            if (disponivel > 0) {
+                int indice = (int) (leitura & mascara);
+                int bloco = Math.min(Math.min(disponivel, tamanho), capacidade - indice);
+                memoria.get(dados + indice, destino, deslocamento, bloco);
+                LONGS.setRelease(memoria, controle + POSICAO_LEITURA, leitura + bloco);
+                return bloco;
+            }
+            // Confere novamente a posição após ver o indicador, para não perder os últimos bytes
+            if (isFechado(PRODUTOR_FECHADO)
+                    && (long) LONGS.getAcquire(memoria, controle + POSICAO_ESCRITA) == leitura) {
+                return -1;
+            }
+            espera.aguardar(tentativa++);
+        }
+    }
+
+    /**
+     * Quantidade de bytes prontos para leitura.
+     *
+     * @return Bytes disponíveis
+     */
+    public int disponivel() {
+        long escrita = (long) LONGS.getAcquire(memoria, controle + POSICAO_ESCRITA);
+        long leitura = (long) LONGS.getOpaque(memoria, controle + POSICAO_LEITURA);
+        return (int) (escrita - leitura);
+    }
+
+    /**
+     * Indica ao produtor que os bytes não serão mais lidos.
+     */
+    public void fecharConsumidor() {
+        LONGS.setRelease(memoria, controle + CONSUMIDOR_FECHADO, 1L);
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Lê um indicador de encerramento.
+     */
+    private boolean isFechado(int deslocamento) {
+        return (long) LONGS.getAcquire(memoria, controle + deslocamento) != 0L;
+    }
+
+    /**
+     * Bytes ocupados por um anel (controle + dados).
+     *
+     * @param capacidade Capacidade da área de dados
+     * @return Tamanho total
+     */
+    public static int tamanhoTotal(int capacidade) {
+        return TAMANHO_CONTROLE + capacidade;
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * ArmazemChaveValor - Armazenamento chave-valor concorrente em memória
+ *
+ * Compartilhado por todas as threads do Servidor4. Usa ConcurrentHashMap,
+ * cujas leituras não bloqueiam e cujas escritas travam apenas o bin da chave
+ * (travamento particionado). Cada valor é uma String ou, para chaves usadas
+ * como contador, uma célula AtomicLong: depois de criada, cada INCR é um
+ * único addAndGet, sem boxing nem nova alocação.
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Armazenamento chave-valor thread-safe com contadores primitivos.
+ */
+public class ArmazemChaveValor {
+
+    // ==================== CONSTANTES ====================
+
+    /** Capacidade inicial do mapa */
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Valores: String ou AtomicLong (contador) */
+    private final ConcurrentHashMap<String, Object> valores = new ConcurrentHashMap<>(CAPACIDADE_INICIAL);
+
+    // ==================== OPERAÇÕES ====================
+
+    /**
+     * Obtém o valor de uma chave.
+     *
+     * @param chave Chave consultada
+     * @return Valor textual, ou null se a chave não existir
+     */
+    public String obter(String chave) {
+        Object valor = valores.get(chave);
+        if (valor instanceof AtomicLong) {
+            return Long.toString(((AtomicLong) valor).get());
+        }
+        return (String) valor;
+    }
+
+    /**
+     * Define o valor de uma chave, substituindo o anterior (inclusive contadores).
+     *
+     * @param chave Chave a definir
+     * @param valor Novo valor
+     */
+    public void definir(String chave, String valor) {
+        valores.put(chave, valor);
+    }
+
+    /**
+     * Remove uma chave.
+     *
+     * @param chave Chave a remover
+     * @return true se a chave existia
+     */
+    public boolean remover(String chave) {
+        return valores.remove(chave) != null;
+    }
+
+    /**
+     * Incrementa atomicamente o contador de uma chave.
+     *
+     * Chaves inexistentes começam em zero. Um valor textual numérico é
+     * convertido uma única vez em contador; depois disso o incremento não aloca.
+     *
+     * @param chave Chave do contador
+     * @param delta Valor a somar
+     * @return Valor após o incremento
+     * @throws IllegalArgumentException se o valor atual não for um inteiro
+     */
+    public long incrementar(String chave, long delta) {
+        while (true) {
+            Object atual = valores.get(chave);
+
+            if (atual instanceof AtomicLong) {
+                return ((AtomicLong) atual).addAndGet(delta);
+            }
+
+            if (atual == null) {
+                AtomicLong contador = new AtomicLong(delta);
+                if (valores.putIfAbsent(chave, contador) == null) {
+                    return delta;
+                }
+                continue; // outra thread criou a chave; tenta novamente
+            }
+
+            long inicial;
+            try {
+                inicial = Long.parseLong((String) atual);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor da chave '" + chave + "' não é um inteiro");
+            }
+            AtomicLong contador = new AtomicLong(inicial + delta);
+            if (valores.replace(chave, atual, contador)) {
+                return inicial + delta;
+            }
+        }
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna o número de chaves armazenadas.
+     *
+     * @return Quantidade de chaves
+     */
+    public int tamanho() {
+        return valores.size();
+    }
+}
@@ -0,0 +1,296 @@
+/**
+ * BalanceadorCarga - Seleção de servidores no lado do cliente
+ *
+ * Mantém o estado observado de cada instância do Servidor4 (requisições em
+ * andamento e latência suavizada por EWMA) e escolhe o servidor de cada nova
+ * sessão por "power of two choices" (P2C): sorteia dois servidores disponíveis
+ * e fica com o de menor custo, onde custo = (latência EWMA + 1) * (em andamento + 1).
+ *
+ * Servidores que falham são ejetados por um período que cresce exponencialmente
+ * com as falhas consecutivas e voltam a ser tentados quando o período expira.
+ * A estratégia round-robin está disponível para comparação.
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Balanceador de carga thread-safe compartilhado pelas sessões de um cliente.
+ */
+public class BalanceadorCarga {
+
+    // ==================== CONSTANTES ====================
+
+    /** Peso da amostra mais recente na média móvel exponencial */
+    private static final double PESO_EWMA = 0.3;
+
+    /** Período de ejeção após a primeira falha */
+    private static final long EJECAO_BASE_MS = 500;
+
+    /** Período máximo de ejeção */
+    private static final long EJECAO_MAXIMA_MS = 30_000;
+
+    /** Logger para registrar ejeções */
+    private static final Logger LOGGER = Logger.getLogger(BalanceadorCarga.class.getName());
+
+    /**
+     * Estratégias de seleção de servidor.
+     */
+    public enum Estrategia {
+        /** Melhor de duas escolhas aleatórias por latência e carga */
+        P2C,
+        /** Rodízio simples, ignorando latência e carga */
+        ROUND_ROBIN
+    }
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Servidores conhecidos */
+    private final NoServidor[] nos;
+
+    /** Estratégia de seleção */
+    private final Estrategia estrategia;
+
+    /** Posição do rodízio */
+    private final AtomicInteger proximoRodizio = new AtomicInteger();
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria um balanceador para a lista de servidores informada.
+     *
+     * @param enderecos Endereços dos servidores
+     * @param estrategia Estratégia de seleção
+     * @throws IllegalArgumentException se a lista estiver vazia
+     */
+    public BalanceadorCarga(List<InetSocketAddress> enderecos, Estrategia estrategia) {
+        if (enderecos == null || enderecos.isEmpty()) {
+            throw new IllegalArgumentException("Lista de servidores não pode ser vazia");
+        }
+        this.nos = new NoServidor[enderecos.size()];
+        for (int i = 0; i < nos.length; i++) {
+            nos[i] = new NoServidor(enderecos.get(i));
+        }
+        this.estrategia = estrategia;
+    }
+
+    /**
+     * Interpreta uma lista no formato "host:porta,host:porta,...".
+     *
+     * @param lista Texto com os servidores
+     * @return Lista de endereços
+     * @throws IllegalArgumentException se algum item for inválido
+     */
+    public static List<InetSocketAddress> interpretarLista(String lista) {
+        List<InetSocketAddress> enderecos = new ArrayList<>();
+        for (String item : lista.split(",")) {
+            String texto = item.trim();
+            int separador = texto.lastIndexOf(':');
+            if (separador <= 0 || separador == texto.length() - 1) {
+                throw new IllegalArgumentException("Servidor inválido (use host:porta): " + texto);
+            }
+            try {
+                int porta = Integer.parseInt(texto.substring(separador + 1));
+                if (porta < 1 || porta > 65535) {
+                    throw new IllegalArgumentException("Porta deve estar entre 1 e 65535: " + texto);
+                }
+                enderecos.add(new InetSocketAddress(texto.substring(0, separador), porta));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Porta inválida: " + texto);
+            }
+        }
+        return enderecos;
+    }
+
+    // ==================== SELEÇÃO ====================
+
+    /**
+     * Escolhe o servidor para uma nova sessão.
+     *
+     * Se todos os servidores estiverem ejetados, retorna aquele cuja ejeção
+     * termina primeiro, para que o cliente continue tentando.
+     *
+     * @return Servidor escolhido
+     */
+    public NoServidor selecionar() {
+        long agora = System.nanoTime();
+        int[] disponiveis = new int[nos.length];
+        int quantidade = 0;
+        for (int i = 0; i < nos.length; i++) {
+            if (nos[i].disponivel(agora)) {
+                disponiveis[quantidade++] = i;
+            }
+        }
+
+        if (quantidade == 0) {
+            NoServidor candidato = nos[0];
+            for (NoServidor no : nos) {
+                if (no.ejetadoAteNanos - candidato.ejetadoAteNanos < 0) {
+                    candidato = no;
+                }
+            }
+            return candidato;
+        }
+
+        if (estrategia == Estrategia.ROUND_ROBIN) {
+            int posicao = Math.floorMod(proximoRodizio.getAndIncrement(), quantidade);
+            return nos[disponiveis[posicao]];
+        }
+
+        if (quantidade == 1) {
+            return nos[disponiveis[0]];
+        }
+
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        int primeiro = aleatorio.nextInt(quantidade);
+        int segundo = aleatorio.nextInt(quantidade - 1);
+        if (segundo >= primeiro) {
+            segundo++;
+        }
+        NoServidor a = nos[disponiveis[primeiro]];
+        NoServidor b = nos[disponiveis[segundo]];
+        return a.custo() <= b.custo() ? a : b;
+    }
+
+    /**
+     * Registra o início de uma requisição no servidor.
+     *
+     * @param no Servidor da requisição
+     */
+    public void iniciarRequisicao(NoServidor no) {
+        no.emAndamento.incrementAndGet();
+    }
+
+    /**
+     * Registra a conclusão bem-sucedida de uma requisição.
+     *
+     * @param no Servidor da requisição
+     * @param latenciaNanos Latência observada
+     */
+    public void concluirRequisicao(NoServidor no, long latenciaNanos) {
+        no.emAndamento.decrementAndGet();
+        no.requisicoes.incrementAndGet();
+        no.registrarLatencia(latenciaNanos);
+    }
+
+    /**
+     * Registra uma falha (conexão ou comunicação) e ejeta o servidor.
+     *
+     * @param no Servidor que falhou
+     * @param requisicaoPendente true se havia uma requisição em andamento
+     * @param causa Falha observada
+     */
+    public void registrarFalha(NoServidor no, boolean requisicaoPendente, IOException causa) {
+        if (requisicaoPendente) {
+            no.emAndamento.decrementAndGet();
+        }
+        long ejecaoMs = no.registrarFalha();
+        LOGGER.warning("Servidor " + no.endereco + " ejetado por " + ejecaoMs + " ms: " + causa.getMessage());
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna a estratégia de seleção.
+     *
+     * @return Estratégia configurada
+     */
+    public Estrategia getEstrategia() {
+        return estrategia;
+    }
+
+    /**
+     * Gera relatório com a distribuição de sessões e o estado de cada servidor.
+     *
+     * @return Relatório formatado em várias linhas
+     */
+    public String gerarRelatorio() {
+        StringBuilder relatorio = new StringBuilder("Balanceamento (" + estrategia + "):");
+        for (NoServidor no : nos) {
+            relatorio.append(String.format("%n  - %s: sessões=%d requisições=%d falhas=%d EWMA=%.1fµs",
+                    no.endereco, no.sessoes.get(), no.requisicoes.get(), no.falhas.get(),
+                    no.getEwmaLatenciaNanos() / 1000.0));
+        }
+        return relatorio.toString();
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * Estado observado de um servidor.
+     */
+    public static final class NoServidor {
+
+        /** Endereço do servidor */
+        final InetSocketAddress endereco;
+
+        /** Requisições enviadas e ainda sem resposta */
+        final AtomicInteger emAndamento = new AtomicInteger();
+
+        /** Contadores para o relatório */
+        final AtomicLong sessoes = new AtomicLong();
+        final AtomicLong requisicoes = new AtomicLong();
+        final AtomicLong falhas = new AtomicLong();
+
+        /** Instante (System.nanoTime) em que a ejeção termina */
+        private volatile long ejetadoAteNanos;
+
+        /** Latência suavizada em nanossegundos (protegida por this) */
+        private double ewmaLatenciaNanos;
+
+        /** Falhas consecutivas desde o último sucesso (protegida por this) */
+        private int falhasConsecutivas;
+
+        NoServidor(InetSocketAddress endereco) {
+            this.endereco = endereco;
+            this.ejetadoAteNanos = System.nanoTime();
+        }
+
+        boolean disponivel(long agoraNanos) {
+            return agoraNanos - ejetadoAteNanos >= 0;
+        }
+
+        double custo() {
+            return (getEwmaLatenciaNanos() + 1) * (emAndamento.get() + 1);
+        }
+
+        synchronized double getEwmaLatenciaNanos() {
+            return ewmaLatenciaNanos;
+        }
+
+        synchronized void registrarLatencia(long latenciaNanos) {
+            falhasConsecutivas = 0;
+            ewmaLatenciaNanos = ewmaLatenciaNanos == 0 ? latenciaNanos
+                    : PESO_EWMA * latenciaNanos + (1 - PESO_EWMA) * ewmaLatenciaNanos;
+        }
+
+        synchronized long registrarFalha() {
+            falhas.incrementAndGet();
+            falhasConsecutivas++;
+            long ejecaoMs = Math.min(EJECAO_MAXIMA_MS,
+                    EJECAO_BASE_MS << Math.min(falhasConsecutivas - 1, 16));
+            ejetadoAteNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ejecaoMs);
+            return ejecaoMs;
+        }
+
+        /**
+         * Retorna o endereço do servidor.
+         *
+         * @return Endereço do servidor
+         */
+        public InetSocketAddress getEndereco() {
+            return endereco;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * BenchmarkChaveValor - Vazão dos comandos GET/SET/INCR com muitas conexões
+ *
+ * Inicia um Servidor4 no próprio processo (sem exibir cada mensagem) e abre
+ * várias conexões simultâneas usando o protocolo binário. Cada conexão executa
+ * uma mistura de leituras (GET) e escritas (SET e INCR, meio a meio) durante
+ * um tempo fixo. Ao final exibe a vazão total, a latência por comando e
+ * confere se a soma dos contadores corresponde ao número de INCR executados.
+ *
+ * Argumentos: [conexoes] [segundos] [percentualLeitura] [porta]
+ * Exemplo: java BenchmarkChaveValor 64 10 90 4601
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Benchmark de vazão do armazenamento chave-valor via rede.
+ */
+public class BenchmarkChaveValor {
+
+    // ==================== CONSTANTES ====================
+
+    /** Número de chaves textuais usadas por GET e SET */
+    private static final int QUANTIDADE_CHAVES = 10_000;
+
+    /** Número de contadores disputados pelos INCR */
+    private static final int QUANTIDADE_CONTADORES = 100;
+
+    /** Duração do aquecimento, em segundos */
+    private static final int SEGUNDOS_AQUECIMENTO = 2;
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do benchmark.
+     *
+     * @param args [conexoes] [segundos] [percentualLeitura] [porta]
+     * @throws Exception se o servidor não puder ser iniciado
+     */
+    public static void main(String[] args) throws Exception {
+        int conexoes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int percentualLeitura = args.length > 2 ? Integer.parseInt(args[2]) : 90;
+        int porta = args.length > 3 ? Integer.parseInt(args[3]) : 4601;
+
+        Logger.getLogger(ServidorThread.class.getName()).setLevel(Level.WARNING);
+
+        Servidor4 servidor = new Servidor4(
+                new ConfiguracaoServidor(porta, CompressorMensagens.LIMIAR_PADRAO, 0, false));
+        Thread threadServidor = new Thread(servidor::iniciarServidor, "Servidor4-Benchmark");
+        threadServidor.setDaemon(true);
+        threadServidor.start();
+        Thread.sleep(500);
+
+        System.out.println("=== Benchmark Chave-Valor ===");
+        System.out.println("Conexões: " + conexoes + " | Duração: " + segundos + " s | Leituras: " +
+                           percentualLeitura + "% | Chaves: " + QUANTIDADE_CHAVES);
+
+        popularChaves(porta);
+
+        System.out.println("Aquecendo por " + SEGUNDOS_AQUECIMENTO + " s...");
+        executarRodada(porta, conexoes, SEGUNDOS_AQUECIMENTO, percentualLeitura);
+        long incrementosAquecimento = somarContadores(porta);
+
+        Resultado resultado = executarRodada(porta, conexoes, segundos, percentualLeitura);
+        long somaContadores = somarContadores(porta) - incrementosAquecimento;
+
+        long total = resultado.leituras.sum() + resultado.escritas.sum() + resultado.incrementos.sum();
+        System.out.println("\n=== Resultado ===");
+        System.out.printf("Vazão: %.0f comandos/s (GET %d, SET %d, INCR %d)%n",
+                total / (double) segundos, resultado.leituras.sum(),
+                resultado.escritas.sum(), resultado.incrementos.sum());
+        System.out.println("Latência por comando: " + resultado.latencias.resumo());
+        System.out.println("Chaves no armazenamento: " + servidor.getArmazem().tamanho());
+        System.out.println("Soma dos contadores: " + somaContadores + " (esperado " +
+                           resultado.incrementos.sum() + ") " +
+                           (somaContadores == resultado.incrementos.sum() ? "✓" : "✗"));
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Executa uma rodada com todas as conexões pelo tempo indicado.
+     */
+    private static Resultado executarRodada(int porta, int conexoes, int segundos, int percentualLeitura)
+            throws InterruptedException {
+        Resultado resultado = new Resultado();
+        long fim = System.nanoTime() + segundos * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        List<AmostrasLatencia> amostrasPorConexao = new ArrayList<>();
+
+        for (int i = 0; i < conexoes; i++) {
+            AmostrasLatencia amostras = new AmostrasLatencia();
+            amostrasPorConexao.add(amostras);
+            Thread thread = new Thread(() -> executarConexao(porta, fim, percentualLeitura, resultado, amostras),
+                                       "Conexao-Benchmark-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (AmostrasLatencia amostras : amostrasPorConexao) {
+            resultado.latencias.adicionarTodas(amostras);
+        }
+        return resultado;
+    }
+
+    /**
+     * Laço de uma conexão: envia comandos até o fim da rodada.
+     */
+    private static void executarConexao(int porta, long fimNanos, int percentualLeitura,
+                                        Resultado resultado, AmostrasLatencia amostras) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+
+        try (Conexao conexao = new Conexao(porta)) {
+            while (System.nanoTime() < fimNanos) {
+                String comando;
+                LongAdder contador;
+                int sorteio = aleatorio.nextInt(100);
+                if (sorteio < percentualLeitura) {
+                    comando = "GET chave:" + aleatorio.nextInt(QUANTIDADE_CHAVES);
+                    contador = resultado.leituras;
+                } else if ((sorteio & 1) == 0) {
+                    comando = "SET chave:" + aleatorio.nextInt(QUANTIDADE_CHAVES) + " valor-" + sorteio;
+                    contador = resultado.escritas;
+                } else {
+                    comando = "INCR contador:" + aleatorio.nextInt(QUANTIDADE_CONTADORES);
+                    contador = resultado.incrementos;
+                }
+
+                long inicio = System.nanoTime();
+                String resposta = conexao.enviar(comando);
+                amostras.registrar(System.nanoTime() - inicio);
+                if (resposta.startsWith(ProcessadorComandos.PREFIXO_ERRO)) {
+                    throw new IOException("Resposta de erro: " + resposta);
+                }
+                contador.increment();
+            }
+        } catch (IOException e) {
+            System.err.println("Conexão do benchmark falhou: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cria as chaves textuais e zera os contadores antes da medição.
+     */
+    private static void popularChaves(int porta) throws IOException {
+        try (Conexao conexao = new Conexao(porta)) {
+            for (int i = 0; i < QUANTIDADE_CHAVES; i++) {
+                conexao.enviar("SET chave:" + i + " valor-inicial");
+            }
+            for (int i = 0; i < QUANTIDADE_CONTADORES; i++) {
+                conexao.enviar("SET contador:" + i + " 0");
+            }
+        }
+    }
+
+    /**
+     * Soma os valores de todos os contadores.
+     */
+    private static long somarContadores(int porta) throws IOException {
+        long soma = 0;
+        try (Conexao conexao = new Conexao(porta)) {
+            for (int i = 0; i < QUANTIDADE_CONTADORES; i++) {
+                String resposta = conexao.enviar("GET contador:" + i);
+                soma += Long.parseLong(resposta.substring(ProcessadorComandos.PREFIXO_VALOR.length()));
+            }
+        }
+        return soma;
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * Contadores e latências de uma rodada.
+     */
+    private static class Resultado {
+        final LongAdder leituras = new LongAdder();
+        final LongAdder escritas = new LongAdder();
+        final LongAdder incrementos = new LongAdder();
+        final AmostrasLatencia latencias = new AmostrasLatencia();
+    }
+
+    /**
+     * Conexão do benchmark usando o protocolo binário.
+     */
+    private static class Conexao implements Closeable {
+        private final Socket socket;
+        private final DataInputStream entrada;
+        private final DataOutputStream saida;
+
+        Conexao(int porta) throws IOException {
+            socket = new Socket();
+            socket.connect(new InetSocketAddress("127.0.0.1", porta), 1000);
+            socket.setTcpNoDelay(true);
+            entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            saida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            ProtocoloBinario.negociarCliente(entrada, saida, ProtocoloBinario.VERSAO_BINARIA);
+        }
+
+        String enviar(String comando) throws IOException {
+            ProtocoloBinario.escreverTexto(saida, comando);
+            return ProtocoloBinario.lerTexto(entrada);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                ProtocoloBinario.escreverTexto(saida, "terminar");
+                ProtocoloBinario.lerTexto(entrada);
+            } finally {
+                socket.close();
+            }
+        }
+    }
+}
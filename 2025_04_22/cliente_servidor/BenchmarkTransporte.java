@@ -0,0 +1,274 @@
+/**
+ * BenchmarkTransporte - Comparação entre TCP de loopback, socket Unix e memória compartilhada
+ *
+ * Inicia três Servidor4 em processos separados (sem exibir cada mensagem),
+ * escutando em TCP 127.0.0.1, em um socket Unix e em um diretório de memória
+ * compartilhada, e executa o mesmo protocolo binário (versão 2) contra cada um.
+ * A memória compartilhada é medida com as três estratégias de espera:
+ * - Latência: uma conexão envia mensagens em ping-pong e mede cada ida e volta
+ * - Vazão: várias conexões simultâneas enviam mensagens durante um tempo fixo
+ *
+ * Os cenários ficam em uma lista de conectores, de modo que novos meios de
+ * transporte possam ser comparados sem alterar as medições.
+ *
+ * Observação: a estratégia vale para o lado cliente; o servidor sempre
+ * estaciona (um cliente morto não pode prender um núcleo do servidor). A
+ * estratégia GIRO mantém um núcleo ocupado por conexão no cliente; com menos
+ * núcleos livres que threads em espera, a latência piora em vez de melhorar.
+ *
+ * Argumentos: [mensagens] [conexoes] [segundos] [tamanho] [porta]
+ * Exemplo: java BenchmarkTransporte 50000 4 5 128 4701
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark de latência e vazão por meio de transporte.
+ */
+public class BenchmarkTransporte {
+
+    // ==================== CONSTANTES ====================
+
+    /** Mensagens de aquecimento por cenário antes da medição de latência */
+    private static final int MENSAGENS_AQUECIMENTO = 20_000;
+
+    /** Tempo máximo para cada servidor começar a aceitar conexões */
+    private static final int TIMEOUT_INICIALIZACAO_MS = 10_000;
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do benchmark.
+     *
+     * @param args [mensagens] [conexoes] [segundos] [tamanho] [porta]
+     * @throws Exception se algum servidor não puder ser iniciado
+     */
+    public static void main(String[] args) throws Exception {
+        int mensagens = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int conexoes = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int tamanho = args.length > 3 ? Integer.parseInt(args[3]) : 128;
+        int porta = args.length > 4 ? Integer.parseInt(args[4]) : 4701;
+
+        Path temporario = Files.createTempDirectory("benchmark-transporte");
+        Path caminhoUnix = temporario.resolve("servidor4.sock");
+        Path diretorioMemoria = temporario.resolve("memoria");
+
+        List<Cenario> cenarios = Arrays.asList(
+                new Cenario("TCP loopback", () -> conectarTcp(porta)),
+                new Cenario("Socket Unix", () -> Transporte.conectarUnix(caminhoUnix)),
+                cenarioMemoria(diretorioMemoria, AnelMemoria.EstrategiaEspera.GIRO),
+                cenarioMemoria(diretorioMemoria, AnelMemoria.EstrategiaEspera.CEDER),
+                cenarioMemoria(diretorioMemoria, AnelMemoria.EstrategiaEspera.ESTACIONAR));
+
+        List<Process> servidores = new ArrayList<>();
+        try {
+            servidores.add(iniciarServidor(String.valueOf(porta)));
+            servidores.add(iniciarServidor(Transporte.PREFIXO_UNIX + caminhoUnix));
+            servidores.add(iniciarServidor(Transporte.PREFIXO_MEMORIA + diretorioMemoria));
+            aguardarServidor(cenarios.get(0).conector);
+            aguardarServidor(cenarios.get(1).conector);
+            aguardarServidor(cenarios.get(2).conector);
+
+            executarCenarios(cenarios, mensagens, conexoes, segundos, tamanho);
+        } finally {
+            for (Process servidor : servidores) {
+                servidor.destroy();
+                servidor.waitFor();
+            }
+            Files.deleteIfExists(caminhoUnix);
+            Files.deleteIfExists(diretorioMemoria);
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    /**
+     * Mede latência e vazão de cada cenário, em sequência.
+     */
+    private static void executarCenarios(List<Cenario> cenarios, int mensagens, int conexoes,
+                                         int segundos, int tamanho)
+            throws IOException, InterruptedException {
+        String mensagem = "x".repeat(tamanho);
+        System.out.println("=== Benchmark de Transporte ===");
+        System.out.println("Mensagem: " + tamanho + " bytes | Ping-pong: " + mensagens +
+                           " mensagens | Vazão: " + conexoes + " conexões x " + segundos + " s");
+        System.out.println("Processadores disponíveis: " + Runtime.getRuntime().availableProcessors());
+
+        for (Cenario cenario : cenarios) {
+            System.out.println("\n--- " + cenario.nome + " ---");
+            medirLatencia(cenario.conector, Math.min(MENSAGENS_AQUECIMENTO, mensagens), mensagem);
+            AmostrasLatencia latencias = medirLatencia(cenario.conector, mensagens, mensagem);
+            System.out.println("Latência ida e volta: " + latencias.resumo());
+
+            LongAdder total = medirVazao(cenario.conector, conexoes, segundos, mensagem);
+            System.out.printf("Vazão: %.0f mensagens/s (%.1f MB/s de carga útil)%n",
+                              total.sum() / (double) segundos,
+                              total.sum() * (double) tamanho / segundos / (1024 * 1024));
+        }
+    }
+
+    // ==================== MEDIÇÕES ====================
+
+    /**
+     * Envia mensagens em ping-pong por uma única conexão.
+     */
+    private static AmostrasLatencia medirLatencia(Conector conector, int mensagens, String mensagem)
+            throws IOException {
+        AmostrasLatencia amostras = new AmostrasLatencia();
+        try (Conexao conexao = new Conexao(conector.conectar())) {
+            for (int i = 0; i < mensagens; i++) {
+                long inicio = System.nanoTime();
+                conexao.enviar(mensagem);
+                amostras.registrar(System.nanoTime() - inicio);
+            }
+        }
+        return amostras;
+    }
+
+    /**
+     * Envia mensagens por várias conexões simultâneas até o fim do tempo.
+     */
+    private static LongAdder medirVazao(Conector conector, int conexoes, int segundos, String mensagem)
+            throws InterruptedException {
+        LongAdder total = new LongAdder();
+        long fim = System.nanoTime() + segundos * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < conexoes; i++) {
+            Thread thread = new Thread(() -> {
+                try (Conexao conexao = new Conexao(conector.conectar())) {
+                    while (System.nanoTime() < fim) {
+                        conexao.enviar(mensagem);
+                        total.increment();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Conexão do benchmark falhou: " + e.getMessage());
+                }
+            }, "Conexao-Transporte-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return total;
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Inicia um Servidor4 em um processo separado, com a saída descartada.
+     */
+    private static Process iniciarServidor(String endereco) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder construtor = new ProcessBuilder(java,
+                "-cp", System.getProperty("java.class.path"),
+                "Servidor4", endereco, String.valueOf(CompressorMensagens.LIMIAR_PADRAO), "0", "false");
+        construtor.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        construtor.redirectError(ProcessBuilder.Redirect.DISCARD);
+        return construtor.start();
+    }
+
+    /**
+     * Aguarda até que o servidor do cenário aceite uma sessão completa.
+     */
+    private static void aguardarServidor(Conector conector) throws IOException, InterruptedException {
+        long limite = System.currentTimeMillis() + TIMEOUT_INICIALIZACAO_MS;
+        while (true) {
+            try {
+                new Conexao(conector.conectar()).close();
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > limite) {
+                    throw new IOException("Servidor não iniciou a tempo", e);
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    /**
+     * Cenário de memória compartilhada com a estratégia de espera informada.
+     */
+    private static Cenario cenarioMemoria(Path diretorio, AnelMemoria.EstrategiaEspera espera) {
+        return new Cenario("Memória compartilhada (" + espera + ")",
+                () -> TransporteMemoriaCompartilhada.conectar(
+                        diretorio, TransporteMemoriaCompartilhada.CAPACIDADE_PADRAO, espera));
+    }
+
+    /**
+     * Conecta por TCP a 127.0.0.1 sem o algoritmo de Nagle.
+     */
+    private static Transporte conectarTcp(int porta) throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress("127.0.0.1", porta), 1000);
+        socket.setTcpNoDelay(true);
+        return Transporte.tcp(socket);
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * Abre uma nova conexão de um cenário.
+     */
+    @FunctionalInterface
+    interface Conector {
+        Transporte conectar() throws IOException;
+    }
+
+    /**
+     * Meio de transporte medido.
+     */
+    private static class Cenario {
+        final String nome;
+        final Conector conector;
+
+        Cenario(String nome, Conector conector) {
+            this.nome = nome;
+            this.conector = conector;
+        }
+    }
+
+    /**
+     * Conexão do benchmark usando o protocolo binário.
+     */
+    private static class Conexao implements Closeable {
+        private final Transporte transporte;
+        private final DataInputStream entrada;
+        private final DataOutputStream saida;
+
+        Conexao(Transporte transporte) throws IOException {
+            this.transporte = transporte;
+            entrada = new DataInputStream(new BufferedInputStream(transporte.getEntrada()));
+            saida = new DataOutputStream(new BufferedOutputStream(transporte.getSaida()));
+            ProtocoloBinario.negociarCliente(entrada, saida, ProtocoloBinario.VERSAO_BINARIA);
+        }
+
+        String enviar(String mensagem) throws IOException {
+            ProtocoloBinario.escreverTexto(saida, mensagem);
+            return ProtocoloBinario.lerTexto(entrada);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                ProtocoloBinario.escreverTexto(saida, "terminar");
+                ProtocoloBinario.lerTexto(entrada);
+            } finally {
+                transporte.close();
+            }
+        }
+    }
+}
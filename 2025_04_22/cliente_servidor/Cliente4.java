@@ -1,7 +1,9 @@
 
 import java.net.*;
 import java.io.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.zip.Deflater;
 
 /**
  * Cliente TCP Interativo
@@ -15,6 +17,13 @@ import java.util.*;
  * - Comunicação bidirecional contínua
  * - Interface interativa para envio de mensagens
  * - Comando "terminar" para encerrar graciosamente
+ * - Protocolo de quadros binários opcional (mensagens acima de 64 KB)
+ * - Compressão Deflate opcional por mensagem acima de um limiar
+ * - Prazo opcional por requisição: o servidor descarta o que expirar e, por TCP,
+ *   o cliente desiste da sessão se a resposta não chegar dentro do prazo
+ * - Comando "/arquivo caminho" para enviar arquivos grandes em blocos
+ * - Conexão por socket Unix (endereço "unix:caminho") no mesmo host
+ * - Conexão por memória compartilhada (endereço "shm:diretorio") no mesmo host
  * - Tratamento robusto de exceções de rede
  * 
  * @author Andre
@@ -32,6 +41,12 @@ public class Cliente4 {
     /** Comando para encerrar a sessão */
     private static final String COMANDO_TERMINAR = "terminar";
     
+    /** Prefixo do comando que envia o conteúdo de um arquivo como mensagem */
+    private static final String COMANDO_ARQUIVO = "/arquivo ";
+    
+    /** Prazo padrão de cada requisição no protocolo com prazo, em milissegundos */
+    private static final int PRAZO_PADRAO_MS = 5000;
+    
     /**
      * Método principal que executa o cliente TCP interativo.
      * 
@@ -47,7 +62,7 @@ public class Cliente4 {
      * Executa a lógica principal do cliente interativo.
      */
     public void executarCliente() {
-        Socket socket = null;
+        Transporte transporte = null;
         DataInputStream inputStream = null;
         DataOutputStream outputStream = null;
         
@@ -56,23 +71,48 @@ public class Cliente4 {
             
             // Obtém configurações de conexão do usuário
             String enderecoIP = obterEnderecoIP();
-            int porta = obterPorta();
+            boolean unix = enderecoIP.startsWith(Transporte.PREFIXO_UNIX);
+            boolean memoria = enderecoIP.startsWith(Transporte.PREFIXO_MEMORIA);
+            int porta = unix || memoria ? 0 : obterPorta();
+            int versaoProtocolo = obterVersaoProtocolo();
+            int limiarCompressao = versaoProtocolo >= ProtocoloBinario.VERSAO_COMPRIMIDA
+                    ? obterLimiarCompressao() : CompressorMensagens.LIMIAR_PADRAO;
+            int prazoMs = versaoProtocolo >= ProtocoloBinario.VERSAO_PRAZO ? obterPrazo() : 0;
             
             // Estabelece conexão
-            socket = conectarServidor(enderecoIP, porta);
+            if (unix) {
+                transporte = conectarServidorUnix(enderecoIP);
+            } else if (memoria) {
+                transporte = conectarServidorMemoria(enderecoIP);
+            } else {
+                Socket socket = conectarServidor(enderecoIP, porta);
+                socket.setSoTimeout(prazoMs); // 0 = sem limite de espera pela resposta
+                transporte = Transporte.tcp(socket);
+            }
             
             // Configura streams de comunicação
-            inputStream = new DataInputStream(socket.getInputStream());
-            outputStream = new DataOutputStream(socket.getOutputStream());
+            inputStream = new DataInputStream(new BufferedInputStream(
+                    transporte.getEntrada(), ProtocoloBinario.TAMANHO_BLOCO));
+            outputStream = new DataOutputStream(new BufferedOutputStream(
+                    transporte.getSaida(), ProtocoloBinario.TAMANHO_BLOCO));
+            
+            // Negocia protocolo binário (o legado não usa handshake)
+            if (versaoProtocolo != ProtocoloBinario.VERSAO_LEGADO) {
+                versaoProtocolo = ProtocoloBinario.negociarCliente(inputStream, outputStream, versaoProtocolo);
+                System.out.println("🤝 Protocolo negociado: versão " + versaoProtocolo);
+            }
+            if (versaoProtocolo < ProtocoloBinario.VERSAO_PRAZO) {
+                prazoMs = 0; // servidor antigo não entende o campo de prazo
+            }
             
             // Inicia loop de comunicação
-            executarComunicacao(inputStream, outputStream);
+            executarComunicacao(inputStream, outputStream, versaoProtocolo, limiarCompressao, prazoMs);
             
         } catch (Exception e) {
             System.err.println("❌ Erro durante execução: " + e.getMessage());
         } finally {
             // Fecha recursos
-            fecharRecursos(socket, inputStream, outputStream);
+            fecharRecursos(transporte, inputStream, outputStream);
             scanner.close();
         }
     }
@@ -97,11 +137,22 @@ public class Cliente4 {
     private String obterEnderecoIP() {
         String ip;
         do {
-            System.out.print("Digite o IP do servidor (ex: 127.0.0.1): ");
+            System.out.print("Digite o IP do servidor (ex: 127.0.0.1, unix:/tmp/servidor4.sock " +
+                             "ou shm:/dev/shm/servidor4): ");
             ip = scanner.nextLine().trim();
             
             if (ip.isEmpty()) {
                 System.out.println("⚠️  Endereço IP não pode estar vazio!");
+            } else if (ip.startsWith(Transporte.PREFIXO_UNIX)) {
+                if (ip.length() > Transporte.PREFIXO_UNIX.length()) {
+                    break;
+                }
+                System.out.println("⚠️  Informe o caminho do socket após 'unix:'!");
+            } else if (ip.startsWith(Transporte.PREFIXO_MEMORIA)) {
+                if (ip.length() > Transporte.PREFIXO_MEMORIA.length()) {
+                    break;
+                }
+                System.out.println("⚠️  Informe o diretório do servidor após 'shm:'!");
             } else if (!validarFormatoIP(ip)) {
                 System.out.println("⚠️  Formato de IP inválido!");
             } else {
@@ -140,6 +191,81 @@ public class Cliente4 {
         return porta;
     }
     
+    /**
+     * Obtém do usuário a versão do protocolo de comunicação.
+     * 
+     * @return versão escolhida (padrão: protocolo binário)
+     */
+    private int obterVersaoProtocolo() {
+        do {
+            System.out.print("Protocolo [1=legado (writeUTF), 2=quadros binários, " +
+                             "3=quadros comprimidos, 4=quadros com prazo] (padrão 2): ");
+            String opcao = scanner.nextLine().trim();
+            
+            if (opcao.isEmpty() || opcao.equals("2")) {
+                return ProtocoloBinario.VERSAO_BINARIA;
+            } else if (opcao.equals("1")) {
+                return ProtocoloBinario.VERSAO_LEGADO;
+            } else if (opcao.equals("3")) {
+                return ProtocoloBinario.VERSAO_COMPRIMIDA;
+            } else if (opcao.equals("4")) {
+                return ProtocoloBinario.VERSAO_PRAZO;
+            }
+            System.out.println("⚠️  Opção inválida!");
+        } while (true);
+    }
+    
+    /**
+     * Obtém do usuário o limiar de compressão.
+     * 
+     * @return tamanho mínimo (bytes) para comprimir mensagens
+     */
+    private int obterLimiarCompressao() {
+        do {
+            System.out.print("Limiar de compressão em bytes (padrão " + 
+                             CompressorMensagens.LIMIAR_PADRAO + "): ");
+            String valor = scanner.nextLine().trim();
+            
+            if (valor.isEmpty()) {
+                return CompressorMensagens.LIMIAR_PADRAO;
+            }
+            try {
+                int limiar = Integer.parseInt(valor);
+                if (limiar >= 0) {
+                    return limiar;
+                }
+                System.out.println("⚠️  Limiar não pode ser negativo!");
+            } catch (NumberFormatException e) {
+                System.out.println("⚠️  Por favor, digite um número válido!");
+            }
+        } while (true);
+    }
+    
+    /**
+     * Obtém do usuário o prazo de cada requisição.
+     * 
+     * @return prazo em milissegundos
+     */
+    private int obterPrazo() {
+        do {
+            System.out.print("Prazo de cada requisição em ms (padrão " + PRAZO_PADRAO_MS + "): ");
+            String valor = scanner.nextLine().trim();
+            
+            if (valor.isEmpty()) {
+                return PRAZO_PADRAO_MS;
+            }
+            try {
+                int prazo = Integer.parseInt(valor);
+                if (prazo > 0) {
+                    return prazo;
+                }
+                System.out.println("⚠️  Prazo deve ser positivo!");
+            } catch (NumberFormatException e) {
+                System.out.println("⚠️  Por favor, digite um número válido!");
+            }
+        } while (true);
+    }
+    
     /**
      * Estabelece conexão com o servidor.
      * 
@@ -168,17 +294,75 @@ public class Cliente4 {
         }
     }
     
+    /**
+     * Estabelece conexão com o servidor por socket Unix.
+     * 
+     * @param endereco endereço no formato unix:caminho
+     * @return transporte conectado
+     * @throws IOException em caso de erro de conexão
+     */
+    private Transporte conectarServidorUnix(String endereco) throws IOException {
+        Path caminho = Paths.get(endereco.substring(Transporte.PREFIXO_UNIX.length()));
+        System.out.println("\n📡 Conectando ao socket Unix " + caminho + "...");
+        
+        try {
+            Transporte transporte = Transporte.conectarUnix(caminho);
+            System.out.println("✅ Conexão estabelecida com sucesso!");
+            return transporte;
+            
+        } catch (ConnectException | NoSuchFileException e) {
+            throw new IOException("Falha ao conectar: Servidor não encontrado em " + caminho);
+        }
+    }
+    
+    /**
+     * Estabelece conexão com o servidor por memória compartilhada.
+     * 
+     * Usa a estratégia de espera ESTACIONAR, adequada a uma sessão interativa
+     * (as threads em espera não ocupam um núcleo inteiro).
+     * 
+     * @param endereco endereço no formato shm:diretorio
+     * @return transporte conectado
+     * @throws IOException em caso de erro de conexão
+     */
+    private Transporte conectarServidorMemoria(String endereco) throws IOException {
+        Path diretorio = Paths.get(endereco.substring(Transporte.PREFIXO_MEMORIA.length()));
+        System.out.println("\n📡 Conectando por memória compartilhada em " + diretorio + "...");
+        
+        Transporte transporte = TransporteMemoriaCompartilhada.conectar(
+                diretorio, TransporteMemoriaCompartilhada.CAPACIDADE_PADRAO,
+                AnelMemoria.EstrategiaEspera.ESTACIONAR);
+        System.out.println("✅ Conexão estabelecida com sucesso!");
+        return transporte;
+    }
+    
     /**
      * Executa o loop principal de comunicação com o servidor.
      * 
      * @param inputStream stream de entrada para receber dados
      * @param outputStream stream de saída para enviar dados
+     * @param versaoProtocolo versão de protocolo negociada
+     * @param limiarCompressao tamanho mínimo (bytes) para comprimir mensagens
+     * @param prazoMs prazo de cada requisição (0: sem prazo)
      * @throws IOException em caso de erro de comunicação
      */
     private void executarComunicacao(DataInputStream inputStream, 
-                                   DataOutputStream outputStream) throws IOException {
+                                   DataOutputStream outputStream,
+                                   int versaoProtocolo,
+                                   int limiarCompressao,
+                                   int prazoMs) throws IOException {
+        boolean binario = versaoProtocolo != ProtocoloBinario.VERSAO_LEGADO;
+        byte[] bloco = new byte[ProtocoloBinario.TAMANHO_BLOCO];
+        CompressorMensagens compressor = null;
+        if (versaoProtocolo >= ProtocoloBinario.VERSAO_COMPRIMIDA) {
+            compressor = new CompressorMensagens(limiarCompressao, Deflater.DEFAULT_COMPRESSION);
+        }
+        
         System.out.println("\n💬 Sessão de comunicação iniciada!");
         System.out.println("Digite suas mensagens ('" + COMANDO_TERMINAR + "' para sair):");
+        if (binario) {
+            System.out.println("Use '" + COMANDO_ARQUIVO + "<caminho>' para enviar um arquivo.");
+        }
         System.out.println("-----------------------------------------");
         
         int contadorMensagens = 0;
@@ -196,11 +380,35 @@ public class Cliente4 {
                 }
                 
                 // Envia mensagem para o servidor
-                outputStream.writeUTF(mensagem);
+                if (!binario) {
+                    outputStream.writeUTF(mensagem);
+                    outputStream.flush();
+                } else if (mensagem.startsWith(COMANDO_ARQUIVO)) {
+                    String caminho = mensagem.substring(COMANDO_ARQUIVO.length()).trim();
+                    if (!Files.isRegularFile(Paths.get(caminho))) {
+                        System.out.println("⚠️  Arquivo não encontrado: " + caminho);
+                        contadorMensagens--;
+                        continue;
+                    }
+                    if (compressor != null) {
+                        outputStream.writeByte(0); // arquivos seguem sem compressão
+                    }
+                    enviarArquivo(caminho, outputStream, bloco);
+                } else if (compressor != null) {
+                    compressor.escreverTexto(outputStream, mensagem, prazoMs);
+                } else {
+                    ProtocoloBinario.escreverTexto(outputStream, mensagem);
+                }
                 System.out.println("📤 Mensagem enviada para o servidor");
                 
                 // Recebe confirmação do servidor
-                String resposta = inputStream.readUTF();
+                String resposta;
+                if (compressor != null) {
+                    resposta = compressor.lerTexto(inputStream);
+                } else {
+                    resposta = binario ? ProtocoloBinario.lerTexto(inputStream) 
+                                       : inputStream.readUTF();
+                }
                 System.out.println("📥 Resposta do servidor: " + resposta);
                 
                 // Verifica comando de terminar
@@ -209,6 +417,10 @@ public class Cliente4 {
                     break;
                 }
                 
+            } catch (SocketTimeoutException e) {
+                // Uma resposta atrasada desalinharia as próximas; a sessão é encerrada
+                System.err.println("⏱️  Sem resposta dentro do prazo de " + prazoMs + " ms - desistindo");
+                break;
             } catch (IOException e) {
                 System.err.println("❌ Erro de comunicação: " + e.getMessage());
                 break;
@@ -216,6 +428,34 @@ public class Cliente4 {
         }
         
         System.out.println("📊 Total de mensagens enviadas: " + (contadorMensagens - 1));
+        
+        if (compressor != null) {
+            System.out.println("📊 " + compressor.gerarRelatorio());
+            compressor.encerrar();
+        }
+    }
+    
+    /**
+     * Envia o conteúdo de um arquivo como um único quadro, em blocos de tamanho fixo.
+     * 
+     * @param caminho caminho do arquivo a ser enviado
+     * @param outputStream stream de saída para enviar dados
+     * @param bloco buffer reutilizável para a transferência
+     * @throws IOException em caso de erro de leitura ou de comunicação
+     */
+    private void enviarArquivo(String caminho, DataOutputStream outputStream, 
+                               byte[] bloco) throws IOException {
+        Path arquivo = Paths.get(caminho);
+        long tamanho = Files.size(arquivo);
+        long inicio = System.nanoTime();
+        
+        try (InputStream origem = Files.newInputStream(arquivo)) {
+            ProtocoloBinario.escreverCorpo(origem, tamanho, outputStream, bloco);
+        }
+        
+        long duracaoMs = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+        System.out.println("📦 Arquivo " + arquivo.getFileName() + " enviado: " + tamanho + 
+                           " bytes em " + duracaoMs + " ms");
     }
     
     /**
@@ -236,11 +476,11 @@ public class Cliente4 {
     /**
      * Fecha todos os recursos de rede de forma segura.
      * 
-     * @param socket socket a ser fechado
+     * @param transporte conexão a ser fechada
      * @param inputStream stream de entrada a ser fechada
      * @param outputStream stream de saída a ser fechada
      */
-    private void fecharRecursos(Socket socket, DataInputStream inputStream, 
+    private void fecharRecursos(Transporte transporte, DataInputStream inputStream, 
                                DataOutputStream outputStream) {
         try {
             if (inputStream != null) {
@@ -259,8 +499,8 @@ public class Cliente4 {
         }
         
         try {
-            if (socket != null && !socket.isClosed()) {
-                socket.close();
+            if (transporte != null && transporte.isAberto()) {
+                transporte.close();
                 System.out.println("🔌 Conexão encerrada.");
             }
         } catch (IOException e) {
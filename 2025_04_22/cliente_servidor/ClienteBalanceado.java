@@ -0,0 +1,242 @@
+/**
+ * ClienteBalanceado - Cliente TCP que distribui sessões entre vários servidores
+ *
+ * Em vez de um único IP e porta, recebe uma lista de instâncias do Servidor4
+ * e usa o BalanceadorCarga para escolher o servidor de cada sessão. Cada
+ * sessão abre uma conexão, negocia o protocolo binário, envia um lote de
+ * mensagens (medindo a latência de cada confirmação) e encerra com "terminar".
+ *
+ * Argumentos: <servidores> [sessoes] [mensagens] [estrategia] [threads]
+ * Exemplo: java ClienteBalanceado 127.0.0.1:4321,127.0.0.1:4322 200 10 P2C 8
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+import java.io.*;
+import java.net.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cliente com balanceamento de carga no lado do cliente.
+ */
+public class ClienteBalanceado {
+
+    // ==================== CONSTANTES ====================
+
+    /** Timeout de conexão em milissegundos */
+    private static final int TIMEOUT_CONEXAO = 1000;
+
+    /** Timeout de espera por confirmação em milissegundos */
+    private static final int TIMEOUT_RESPOSTA = 5000;
+
+    /** Número máximo de servidores tentados por sessão */
+    private static final int TENTATIVAS_POR_SESSAO = 3;
+
+    /** Comando para encerrar a sessão */
+    private static final String COMANDO_TERMINAR = "terminar";
+
+    /** Logger para registrar eventos do cliente */
+    private static final Logger LOGGER = Logger.getLogger(ClienteBalanceado.class.getName());
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Balanceador compartilhado por todas as sessões */
+    private final BalanceadorCarga balanceador;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria um cliente que usa o balanceador informado.
+     *
+     * @param balanceador Balanceador de carga
+     */
+    public ClienteBalanceado(BalanceadorCarga balanceador) {
+        this.balanceador = balanceador;
+    }
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do cliente balanceado.
+     *
+     * Argumentos aceitos:
+     * - args[0]: Lista de servidores host:porta separados por vírgula
+     * - args[1]: Número de sessões (opcional, padrão: 100)
+     * - args[2]: Mensagens por sessão (opcional, padrão: 10)
+     * - args[3]: Estratégia P2C ou ROUND_ROBIN (opcional, padrão: P2C)
+     * - args[4]: Sessões simultâneas (opcional, padrão: 4)
+     *
+     * @param args Argumentos da linha de comando
+     */
+    public static void main(String[] args) {
+        try {
+            if (args.length < 1) {
+                throw new IllegalArgumentException("Informe a lista de servidores");
+            }
+            List<InetSocketAddress> servidores = BalanceadorCarga.interpretarLista(args[0]);
+            int sessoes = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+            int mensagens = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+            BalanceadorCarga.Estrategia estrategia = args.length > 3
+                    ? BalanceadorCarga.Estrategia.valueOf(args[3].trim().toUpperCase())
+                    : BalanceadorCarga.Estrategia.P2C;
+            int threads = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+            if (sessoes < 1 || mensagens < 1 || threads < 1) {
+                throw new IllegalArgumentException("Sessões, mensagens e threads devem ser positivos");
+            }
+
+            ClienteBalanceado cliente = new ClienteBalanceado(new BalanceadorCarga(servidores, estrategia));
+            System.out.println("=== Cliente com Balanceamento de Carga ===");
+            System.out.println("Servidores: " + servidores);
+            System.out.println("Estratégia: " + estrategia);
+            System.out.println("Sessões: " + sessoes + " x " + mensagens + " mensagens, " + threads + " simultâneas");
+
+            AmostrasLatencia latencias = cliente.executarCarga(sessoes, mensagens, threads);
+
+            System.out.println("\nLatência por mensagem: " + latencias.resumo());
+            System.out.println(cliente.balanceador.gerarRelatorio());
+
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erro nos argumentos: " + e.getMessage());
+            exibirAjuda();
+            System.exit(1);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Erro inesperado no cliente", e);
+            System.err.println("Erro inesperado: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // ==================== MÉTODOS PRINCIPAIS ====================
+
+    /**
+     * Executa várias sessões em paralelo e combina as latências observadas.
+     *
+     * @param sessoes Número total de sessões
+     * @param mensagensPorSessao Mensagens enviadas em cada sessão
+     * @param threads Sessões simultâneas
+     * @return Latências de todas as mensagens confirmadas
+     * @throws InterruptedException se a thread for interrompida durante a espera
+     */
+    public AmostrasLatencia executarCarga(int sessoes, int mensagensPorSessao, int threads)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<AmostrasLatencia> porThread = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<AmostrasLatencia> amostrasLocais = ThreadLocal.withInitial(() -> {
+            AmostrasLatencia amostras = new AmostrasLatencia();
+            porThread.add(amostras);
+            return amostras;
+        });
+
+        List<String> mensagens = new ArrayList<>();
+        for (int i = 1; i <= mensagensPorSessao; i++) {
+            mensagens.add("Mensagem balanceada #" + i);
+        }
+
+        for (int i = 0; i < sessoes; i++) {
+            executor.execute(() -> {
+                try {
+                    executarSessao(mensagens, amostrasLocais.get());
+                } catch (IOException e) {
+                    LOGGER.warning("Sessão abandonada: " + e.getMessage());
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+
+        AmostrasLatencia total = new AmostrasLatencia();
+        for (AmostrasLatencia amostras : porThread) {
+            total.adicionarTodas(amostras);
+        }
+        return total;
+    }
+
+    /**
+     * Executa uma sessão no servidor escolhido pelo balanceador.
+     *
+     * Falhas de conexão ou comunicação ejetam o servidor e a sessão é
+     * repetida em outro, até {@link #TENTATIVAS_POR_SESSAO} tentativas.
+     *
+     * @param mensagens Mensagens a enviar
+     * @param amostras Destino das latências observadas
+     * @return Servidor que atendeu a sessão
+     * @throws IOException se todas as tentativas falharem
+     */
+    public BalanceadorCarga.NoServidor executarSessao(List<String> mensagens, AmostrasLatencia amostras)
+            throws IOException {
+        IOException ultimaFalha = null;
+
+        for (int tentativa = 0; tentativa < TENTATIVAS_POR_SESSAO; tentativa++) {
+            BalanceadorCarga.NoServidor no = balanceador.selecionar();
+            boolean pendente = false;
+
+            try (Socket socket = new Socket()) {
+                socket.connect(no.getEndereco(), TIMEOUT_CONEXAO);
+                socket.setSoTimeout(TIMEOUT_RESPOSTA);
+                socket.setTcpNoDelay(true);
+                no.sessoes.incrementAndGet();
+
+                DataInputStream entrada = new DataInputStream(new BufferedInputStream(
+                        socket.getInputStream(), ProtocoloBinario.TAMANHO_BLOCO));
+                DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(
+                        socket.getOutputStream(), ProtocoloBinario.TAMANHO_BLOCO));
+                ProtocoloBinario.negociarCliente(entrada, saida, ProtocoloBinario.VERSAO_BINARIA);
+
+                for (String mensagem : mensagens) {
+                    balanceador.iniciarRequisicao(no);
+                    pendente = true;
+                    long inicio = System.nanoTime();
+                    ProtocoloBinario.escreverTexto(saida, mensagem);
+                    ProtocoloBinario.lerTexto(entrada);
+                    long latencia = System.nanoTime() - inicio;
+                    pendente = false;
+                    balanceador.concluirRequisicao(no, latencia);
+                    amostras.registrar(latencia);
+                }
+
+                ProtocoloBinario.escreverTexto(saida, COMANDO_TERMINAR);
+                ProtocoloBinario.lerTexto(entrada);
+                return no;
+
+            } catch (IOException e) {
+                balanceador.registrarFalha(no, pendente, e);
+                ultimaFalha = e;
+            }
+        }
+
+        throw new IOException("Sessão falhou em " + TENTATIVAS_POR_SESSAO + " servidores", ultimaFalha);
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Retorna o balanceador usado pelo cliente.
+     *
+     * @return Balanceador de carga
+     */
+    public BalanceadorCarga getBalanceador() {
+        return balanceador;
+    }
+
+    /**
+     * Exibe ajuda sobre uso do programa.
+     */
+    private static void exibirAjuda() {
+        System.out.println("\nUso: java ClienteBalanceado <servidores> [sessoes] [mensagens] [estrategia] [threads]");
+        System.out.println("  servidores: Lista host:porta separada por vírgulas");
+        System.out.println("  sessoes:    Número de sessões (padrão: 100)");
+        System.out.println("  mensagens:  Mensagens por sessão (padrão: 10)");
+        System.out.println("  estrategia: P2C ou ROUND_ROBIN (padrão: P2C)");
+        System.out.println("  threads:    Sessões simultâneas (padrão: 4)");
+        System.out.println("\nExemplos:");
+        System.out.println("  java ClienteBalanceado 127.0.0.1:4321,127.0.0.1:4322");
+        System.out.println("  java ClienteBalanceado 127.0.0.1:4321,127.0.0.1:4322 500 20 ROUND_ROBIN 8");
+    }
+}
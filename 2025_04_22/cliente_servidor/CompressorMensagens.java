@@ -0,0 +1,330 @@
+/**
+ * CompressorMensagens - Compressão Deflate por mensagem com limiar de tamanho
+ *
+ * Cada conexão mantém uma única instância de Deflater e uma de Inflater,
+ * reinicializadas com reset() entre mensagens, para que o estado nativo do
+ * zlib não seja recriado a cada mensagem. Mensagens menores que o limiar
+ * configurado, ou que não diminuem ao serem comprimidas, seguem sem compressão.
+ *
+ * Formato do quadro (ProtocoloBinario.VERSAO_COMPRIMIDA e VERSAO_PRAZO):
+ * - 1 byte de flags (FLAG_COMPRIMIDO, FLAG_PRAZO)
+ * - se FLAG_PRAZO: varint com o prazo da requisição em milissegundos
+ * - varint com o tamanho do corpo transmitido
+ * - se comprimido: varint com o tamanho original, seguido do corpo Deflate
+ *
+ * As estatísticas acumuladas (razão de compressão e tempo de CPU) permitem
+ * avaliar se a troca de CPU por banda compensa em cada cenário.
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressor de mensagens associado a uma única conexão (não é thread-safe).
+ */
+public class CompressorMensagens {
+
+    // ==================== CONSTANTES ====================
+
+    /** Limiar padrão: mensagens menores que isto não são comprimidas */
+    public static final int LIMIAR_PADRAO = 256;
+
+    /** Bean para medir o tempo de CPU da thread corrente */
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Compressor reutilizado por todas as mensagens da conexão */
+    private final Deflater deflater;
+
+    /** Descompressor reutilizado por todas as mensagens da conexão */
+    private final Inflater inflater;
+
+    /** Tamanho mínimo (bytes UTF-8) para tentar comprimir */
+    private final int limiar;
+
+    /** Buffer de saída da compressão, reutilizado entre mensagens */
+    private byte[] bufferComprimido = new byte[ProtocoloBinario.TAMANHO_BLOCO];
+
+    /** Indica se o tempo de CPU por thread está disponível na JVM */
+    private final boolean cpuThreadDisponivel;
+
+    // Estatísticas de envio
+    private long mensagensComprimidas;
+    private long mensagensAbaixoLimiar;
+    private long mensagensSemGanho;
+    private long bytesAvaliados;
+    private long bytesOriginaisComprimidos;
+    private long bytesTransmitidosComprimidos;
+    private long nanosCompressao;
+
+    // Estatísticas de recepção
+    private long mensagensDescomprimidas;
+    private long nanosDescompressao;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria um compressor com o limiar e nível padrão.
+     */
+    public CompressorMensagens() {
+        this(LIMIAR_PADRAO, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Cria um compressor com limiar e nível de compressão configuráveis.
+     *
+     * @param limiar Tamanho mínimo em bytes para tentar comprimir
+     * @param nivel Nível do Deflater (0-9 ou Deflater.DEFAULT_COMPRESSION)
+     * @throws IllegalArgumentException se o limiar for negativo
+     */
+    public CompressorMensagens(int limiar, int nivel) {
+        if (limiar < 0) {
+            throw new IllegalArgumentException("Limiar de compressão não pode ser negativo: " + limiar);
+        }
+        this.limiar = limiar;
+        this.deflater = new Deflater(nivel);
+        this.inflater = new Inflater();
+        this.cpuThreadDisponivel = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+    }
+
+    // ==================== ESCRITA ====================
+
+    /**
+     * Envia um texto como quadro, comprimindo-o se estiver acima do limiar.
+     *
+     * @param saida Stream de saída da conexão
+     * @param texto Texto a ser enviado
+     * @throws IOException se houver erro de escrita
+     */
+    public void escreverTexto(DataOutputStream saida, String texto) throws IOException {
+        escreverTexto(saida, texto, 0);
+    }
+
+    /**
+     * Envia um texto como quadro com prazo (ProtocoloBinario.VERSAO_PRAZO).
+     *
+     * @param saida Stream de saída da conexão
+     * @param texto Texto a ser enviado
+     * @param prazoMs Tempo que o remetente aceita esperar pela resposta (0: sem prazo)
+     * @throws IOException se houver erro de escrita
+     */
+    public void escreverTexto(DataOutputStream saida, String texto, long prazoMs) throws IOException {
+        byte[] dados = texto.getBytes(StandardCharsets.UTF_8);
+
+        if (dados.length < limiar || dados.length > ProtocoloBinario.LIMITE_QUADRO_TEXTO) {
+            mensagensAbaixoLimiar++;
+            escreverSemCompressao(saida, dados, prazoMs);
+            return;
+        }
+
+        long inicio = tempoCpu();
+        int tamanhoComprimido = comprimir(dados);
+        nanosCompressao += tempoCpu() - inicio;
+        bytesAvaliados += dados.length;
+
+        if (tamanhoComprimido >= dados.length) {
+            mensagensSemGanho++;
+            escreverSemCompressao(saida, dados, prazoMs);
+            return;
+        }
+
+        mensagensComprimidas++;
+        bytesOriginaisComprimidos += dados.length;
+        bytesTransmitidosComprimidos += tamanhoComprimido;
+
+        escreverFlags(saida, ProtocoloBinario.FLAG_COMPRIMIDO, prazoMs);
+        ProtocoloBinario.escreverVarint(saida, tamanhoComprimido);
+        ProtocoloBinario.escreverVarint(saida, dados.length);
+        saida.write(bufferComprimido, 0, tamanhoComprimido);
+        saida.flush();
+    }
+
+    /**
+     * Envia um quadro sem compressão.
+     *
+     * @param saida Stream de saída da conexão
+     * @param dados Bytes do corpo
+     * @param prazoMs Prazo da requisição (0: sem prazo)
+     * @throws IOException se houver erro de escrita
+     */
+    private void escreverSemCompressao(DataOutputStream saida, byte[] dados, long prazoMs)
+            throws IOException {
+        escreverFlags(saida, 0, prazoMs);
+        ProtocoloBinario.escreverVarint(saida, dados.length);
+        saida.write(dados);
+        saida.flush();
+    }
+
+    /**
+     * Escreve o byte de flags e, se houver prazo, o campo de prazo.
+     */
+    private void escreverFlags(DataOutputStream saida, int flags, long prazoMs) throws IOException {
+        if (prazoMs > 0) {
+            saida.writeByte(flags | ProtocoloBinario.FLAG_PRAZO);
+            ProtocoloBinario.escreverVarint(saida, prazoMs);
+        } else {
+            saida.writeByte(flags);
+        }
+    }
+
+    /**
+     * Comprime os dados no buffer reutilizável, ampliando-o se necessário.
+     *
+     * @param dados Bytes originais
+     * @return Número de bytes comprimidos em {@link #bufferComprimido}
+     */
+    private int comprimir(byte[] dados) {
+        deflater.reset();
+        deflater.setInput(dados);
+        deflater.finish();
+
+        int total = 0;
+        while (!deflater.finished()) {
+            if (total == bufferComprimido.length) {
+                byte[] maior = new byte[bufferComprimido.length * 2];
+                System.arraycopy(bufferComprimido, 0, maior, 0, total);
+                bufferComprimido = maior;
+            }
+            total += deflater.deflate(bufferComprimido, total, bufferComprimido.length - total);
+        }
+        return total;
+    }
+
+    // ==================== LEITURA ====================
+
+    /**
+     * Lê um quadro de texto completo (flags, tamanho e corpo).
+     *
+     * @param entrada Stream de entrada da conexão
+     * @return Texto decodificado
+     * @throws IOException se houver erro de leitura ou corpo inválido
+     */
+    public String lerTexto(DataInputStream entrada) throws IOException {
+        int flags = entrada.readUnsignedByte();
+        long tamanho = ProtocoloBinario.lerVarint(entrada);
+        return lerCorpoTexto(entrada, flags, tamanho);
+    }
+
+    /**
+     * Lê o corpo de um quadro cujos flags e tamanho já foram consumidos.
+     *
+     * @param entrada Stream de entrada da conexão
+     * @param flags Flags do quadro
+     * @param tamanho Tamanho do corpo transmitido
+     * @return Texto decodificado
+     * @throws IOException se houver erro de leitura ou corpo inválido
+     */
+    public String lerCorpoTexto(DataInputStream entrada, int flags, long tamanho) throws IOException {
+        if ((flags & ProtocoloBinario.FLAG_COMPRIMIDO) == 0) {
+            return ProtocoloBinario.lerCorpoTexto(entrada, tamanho);
+        }
+
+        long tamanhoOriginal = ProtocoloBinario.lerVarint(entrada);
+        if (tamanho > ProtocoloBinario.LIMITE_QUADRO_TEXTO
+                || tamanhoOriginal > ProtocoloBinario.LIMITE_QUADRO_TEXTO) {
+            throw new IOException("Quadro comprimido excede o limite de " +
+                                  ProtocoloBinario.LIMITE_QUADRO_TEXTO + " bytes");
+        }
+
+        byte[] comprimido = new byte[(int) tamanho];
+        entrada.readFully(comprimido);
+        byte[] original = new byte[(int) tamanhoOriginal];
+
+        long inicio = tempoCpu();
+        try {
+            inflater.reset();
+            inflater.setInput(comprimido);
+            int total = 0;
+            while (total < original.length && !inflater.finished()) {
+                int produzidos = inflater.inflate(original, total, original.length - total);
+                if (produzidos == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                total += produzidos;
+            }
+            if (total != original.length) {
+                throw new IOException("Corpo comprimido truncado: " + total + " de " +
+                                      original.length + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corpo comprimido inválido: " + e.getMessage(), e);
+        } finally {
+            nanosDescompressao += tempoCpu() - inicio;
+        }
+
+        mensagensDescomprimidas++;
+        return new String(original, StandardCharsets.UTF_8);
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Retorna o tempo de CPU da thread corrente (ou o relógio monotônico, se indisponível).
+     *
+     * @return Tempo em nanossegundos
+     */
+    private long tempoCpu() {
+        return cpuThreadDisponivel ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Libera o estado nativo do zlib. O compressor não pode ser usado depois disso.
+     */
+    public void encerrar() {
+        deflater.end();
+        inflater.end();
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna o limiar de compressão configurado.
+     *
+     * @return Limiar em bytes
+     */
+    public int getLimiar() {
+        return limiar;
+    }
+
+    /**
+     * Retorna a razão entre bytes originais e transmitidos das mensagens comprimidas.
+     *
+     * @return Razão de compressão (1.0 se nenhuma mensagem foi comprimida)
+     */
+    public double getRazaoCompressao() {
+        return bytesTransmitidosComprimidos == 0 ? 1.0
+                : (double) bytesOriginaisComprimidos / bytesTransmitidosComprimidos;
+    }
+
+    /**
+     * Gera relatório com razão de compressão e custo de CPU.
+     *
+     * @return Relatório formatado em várias linhas
+     */
+    public String gerarRelatorio() {
+        long economia = bytesOriginaisComprimidos - bytesTransmitidosComprimidos;
+        String unidade = cpuThreadDisponivel ? "CPU" : "tempo de relógio";
+        return String.format(
+                "Compressão (limiar %d bytes):%n" +
+                "  - Mensagens comprimidas: %d | abaixo do limiar: %d | sem ganho: %d%n" +
+                "  - Bytes: %d originais -> %d transmitidos (razão %.2fx, economia de %d bytes)%n" +
+                "  - Custo (%s): compressão %.1f µs total (%.1f ns/byte), descompressão %.1f µs em %d mensagens",
+                limiar,
+                mensagensComprimidas, mensagensAbaixoLimiar, mensagensSemGanho,
+                bytesOriginaisComprimidos, bytesTransmitidosComprimidos, getRazaoCompressao(), economia,
+                unidade,
+                nanosCompressao / 1000.0,
+                bytesAvaliados == 0 ? 0.0 : (double) nanosCompressao / bytesAvaliados,
+                nanosDescompressao / 1000.0, mensagensDescomprimidas);
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * ConfiguracaoServidor - Parâmetros compartilhados por Servidor4 e ServidorThread
+ *
+ * Agrupa as opções do servidor TCP concorrente em um único objeto imutável,
+ * repassado a cada thread de atendimento.
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+import java.nio.file.Path;
+
+/**
+ * Configuração imutável do servidor TCP concorrente.
+ */
+public class ConfiguracaoServidor {
+
+    // ==================== CONSTANTES ====================
+
+    /** Porta padrão do servidor */
+    public static final int PORTA_PADRAO = 4321;
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Porta onde o servidor escuta */
+    final int porta;
+
+    /** Tamanho mínimo (bytes) para comprimir mensagens no protocolo comprimido */
+    final int limiarCompressao;
+
+    /** Atraso simulado de processamento por mensagem, em milissegundos */
+    final int atrasoProcessamentoMs;
+
+    /** Indica se cada mensagem recebida é exibida no console e no log */
+    final boolean detalharMensagens;
+
+    /** Caminho do socket Unix; null quando o servidor escuta em TCP */
+    final Path caminhoUnix;
+
+    /** Diretório de conexões por memória compartilhada; null quando não usado */
+    final Path diretorioMemoria;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria uma configuração que exibe cada mensagem recebida.
+     *
+     * @param porta Porta do servidor (1-65535)
+     * @param limiarCompressao Tamanho mínimo em bytes para comprimir mensagens
+     * @param atrasoProcessamentoMs Atraso simulado por mensagem (0 desativa)
+     * @throws IllegalArgumentException se algum valor estiver fora do intervalo válido
+     */
+    public ConfiguracaoServidor(int porta, int limiarCompressao, int atrasoProcessamentoMs) {
+        this(porta, limiarCompressao, atrasoProcessamentoMs, true);
+    }
+
+    /**
+     * Cria uma configuração.
+     *
+     * @param porta Porta do servidor (1-65535)
+     * @param limiarCompressao Tamanho mínimo em bytes para comprimir mensagens
+     * @param atrasoProcessamentoMs Atraso simulado por mensagem (0 desativa)
+     * @param detalharMensagens false para não exibir cada mensagem (útil em benchmarks)
+     * @throws IllegalArgumentException se algum valor estiver fora do intervalo válido
+     */
+    public ConfiguracaoServidor(int porta, int limiarCompressao, int atrasoProcessamentoMs,
+                                boolean detalharMensagens) {
+        this(porta, limiarCompressao, atrasoProcessamentoMs, detalharMensagens, null, null);
+    }
+
+    /**
+     * Construtor completo, usado pelas variantes "com...".
+     */
+    private ConfiguracaoServidor(int porta, int limiarCompressao, int atrasoProcessamentoMs,
+                                 boolean detalharMensagens, Path caminhoUnix, Path diretorioMemoria) {
+        if (porta < 1 || porta > 65535) {
+            throw new IllegalArgumentException("Porta deve estar entre 1 e 65535");
+        }
+        if (limiarCompressao < 0) {
+            throw new IllegalArgumentException("Limiar de compressão não pode ser negativo");
+        }
+        if (atrasoProcessamentoMs < 0) {
+            throw new IllegalArgumentException("Atraso de processamento não pode ser negativo");
+        }
+        this.porta = porta;
+        this.limiarCompressao = limiarCompressao;
+        this.atrasoProcessamentoMs = atrasoProcessamentoMs;
+        this.detalharMensagens = detalharMensagens;
+        this.caminhoUnix = caminhoUnix;
+        this.diretorioMemoria = diretorioMemoria;
+    }
+
+    /**
+     * Retorna uma cópia desta configuração que escuta em um socket Unix.
+     *
+     * @param caminho Caminho do arquivo de socket
+     * @return Nova configuração
+     */
+    public ConfiguracaoServidor comSocketUnix(Path caminho) {
+        return new ConfiguracaoServidor(porta, limiarCompressao, atrasoProcessamentoMs,
+                                        detalharMensagens, caminho, null);
+    }
+
+    /**
+     * Retorna uma cópia desta configuração que atende por memória compartilhada.
+     *
+     * @param diretorio Diretório onde os clientes criam os arquivos de conexão
+     * @return Nova configuração
+     */
+    public ConfiguracaoServidor comMemoriaCompartilhada(Path diretorio) {
+        return new ConfiguracaoServidor(porta, limiarCompressao, atrasoProcessamentoMs,
+                                        detalharMensagens, null, diretorio);
+    }
+
+    /**
+     * Retorna a configuração padrão (porta 4321, limiar padrão, sem atraso).
+     *
+     * @return Configuração padrão
+     */
+    public static ConfiguracaoServidor padrao() {
+        return new ConfiguracaoServidor(PORTA_PADRAO, CompressorMensagens.LIMIAR_PADRAO, 0);
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * ProcessadorComandos - Interpretação dos comandos chave-valor do ServidorThread
+ *
+ * Estende a verificação de COMANDO_TERMINAR com um pequeno conjunto de comandos
+ * sobre o ArmazemChaveValor compartilhado:
+ *
+ *   GET chave            -> "VALOR v" ou "NULO"
+ *   SET chave valor...   -> "OK" (o valor pode conter espaços)
+ *   DEL chave            -> "INTEIRO 1" se removida, "INTEIRO 0" caso contrário
+ *   INCR chave [delta]   -> "INTEIRO n" (delta padrão: 1)
+ *
+ * Erros de sintaxe ou de tipo retornam "ERRO descrição". Os nomes dos comandos
+ * devem estar em maiúsculas; qualquer outra mensagem segue o fluxo normal de
+ * confirmação, de modo que clientes de chat continuam funcionando.
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+/**
+ * Interpretador de comandos GET/SET/DEL/INCR.
+ */
+public final class ProcessadorComandos {
+
+    // ==================== CONSTANTES ====================
+
+    /** Resposta de sucesso do SET */
+    public static final String RESPOSTA_OK = "OK";
+
+    /** Resposta de chave inexistente */
+    public static final String RESPOSTA_NULO = "NULO";
+
+    /** Prefixo de resposta com valor textual */
+    public static final String PREFIXO_VALOR = "VALOR ";
+
+    /** Prefixo de resposta inteira */
+    public static final String PREFIXO_INTEIRO = "INTEIRO ";
+
+    /** Prefixo de resposta de erro */
+    public static final String PREFIXO_ERRO = "ERRO ";
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Classe utilitária - não deve ser instanciada.
+     */
+    private ProcessadorComandos() {
+    }
+
+    // ==================== MÉTODOS PRINCIPAIS ====================
+
+    /**
+     * Executa a mensagem como comando, se ela for um.
+     *
+     * @param mensagem Mensagem recebida do cliente
+     * @param armazem Armazenamento compartilhado
+     * @return Resposta do comando, ou null se a mensagem não for um comando
+     */
+    public static String processar(String mensagem, ArmazemChaveValor armazem) {
+        int fimComando = mensagem.indexOf(' ');
+        String comando = fimComando < 0 ? mensagem : mensagem.substring(0, fimComando);
+
+        switch (comando) {
+            case "GET":
+            case "SET":
+            case "DEL":
+            case "INCR":
+                break;
+            default:
+                return null;
+        }
+
+        if (fimComando < 0) {
+            return PREFIXO_ERRO + "uso: " + comando + " chave";
+        }
+
+        int inicioChave = fimComando + 1;
+        int fimChave = mensagem.indexOf(' ', inicioChave);
+        String chave = fimChave < 0 ? mensagem.substring(inicioChave) : mensagem.substring(inicioChave, fimChave);
+        String argumento = fimChave < 0 ? null : mensagem.substring(fimChave + 1);
+
+        if (chave.isEmpty()) {
+            return PREFIXO_ERRO + "chave vazia";
+        }
+
+        switch (comando) {
+            case "GET": {
+                String valor = armazem.obter(chave);
+                return valor == null ? RESPOSTA_NULO : PREFIXO_VALOR + valor;
+            }
+            case "SET":
+                if (argumento == null) {
+                    return PREFIXO_ERRO + "uso: SET chave valor";
+                }
+                armazem.definir(chave, argumento);
+                return RESPOSTA_OK;
+            case "DEL":
+                return PREFIXO_INTEIRO + (armazem.remover(chave) ? 1 : 0);
+            default: // INCR
+                try {
+                    long delta = argumento == null ? 1 : Long.parseLong(argumento.trim());
+                    return PREFIXO_INTEIRO + armazem.incrementar(chave, delta);
+                } catch (NumberFormatException e) {
+                    return PREFIXO_ERRO + "incremento não é um inteiro";
+                } catch (IllegalArgumentException e) {
+                    return PREFIXO_ERRO + e.getMessage();
+                }
+        }
+    }
+}
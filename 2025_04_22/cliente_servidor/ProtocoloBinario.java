@@ -0,0 +1,251 @@
+/**
+ * ProtocoloBinario - Protocolo de quadros binários com prefixo de tamanho
+ *
+ * O protocolo legado (writeUTF/readUTF) limita cada mensagem a 65535 bytes
+ * codificados e obriga os dois lados a materializar a string inteira em memória.
+ * Este protocolo envia cada mensagem como um quadro: tamanho em varint
+ * (LEB128 sem sinal) seguido dos bytes brutos (UTF-8 para texto).
+ *
+ * Negociação (handshake):
+ * - O cliente envia 0x00 0x00 seguido de um byte com a versão desejada.
+ *   Dois zeros correspondem a um writeUTF de string vazia, que o Cliente4
+ *   legado nunca envia (mensagens vazias são rejeitadas antes do envio).
+ * - O servidor responde com um byte contendo a versão aceita.
+ * - Se os dois primeiros bytes não forem zero, o servidor assume o protocolo
+ *   legado e os bytes lidos são devolvidos ao stream (mark/reset).
+ *
+ * Corpos grandes são transferidos em blocos de tamanho fixo, de modo que
+ * payloads de vários megabytes trafegam com memória constante.
+ *
+ * Na versão VERSAO_COMPRIMIDA cada quadro é precedido por um byte de flags,
+ * que indica se o corpo foi comprimido (ver CompressorMensagens).
+ *
+ * Na versão VERSAO_PRAZO o byte de flags pode trazer FLAG_PRAZO, seguido de um
+ * varint com o tempo (em milissegundos) que o cliente aceita esperar. O prazo é
+ * relativo, convertido em instante local pelo servidor na chegada do quadro,
+ * para não depender de relógios sincronizados.
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utilitários de negociação, codificação de varint e transferência de quadros.
+ */
+public final class ProtocoloBinario {
+
+    // ==================== CONSTANTES ====================
+
+    /** Protocolo legado baseado em writeUTF/readUTF */
+    public static final int VERSAO_LEGADO = 1;
+
+    /** Protocolo de quadros: varint de tamanho + bytes brutos */
+    public static final int VERSAO_BINARIA = 2;
+
+    /** Protocolo de quadros com byte de flags e compressão opcional por mensagem */
+    public static final int VERSAO_COMPRIMIDA = 3;
+
+    /** Protocolo de quadros com flags, compressão e prazo opcional por requisição */
+    public static final int VERSAO_PRAZO = 4;
+
+    /** Maior versão suportada por esta implementação */
+    public static final int VERSAO_MAXIMA = VERSAO_PRAZO;
+
+    /** Flag de quadro: corpo comprimido com Deflate */
+    public static final int FLAG_COMPRIMIDO = 0x01;
+
+    /** Flag de quadro: um varint com o prazo em milissegundos precede o tamanho */
+    public static final int FLAG_PRAZO = 0x02;
+
+    /** Resposta enviada no lugar do resultado quando o prazo expira no servidor */
+    public static final String RESPOSTA_PRAZO_EXPIRADO = "ERRO prazo expirado";
+
+    /** Tamanho dos blocos usados na transferência de corpos grandes */
+    public static final int TAMANHO_BLOCO = 8192;
+
+    /** Quadros até este tamanho são decodificados como texto; maiores são transmitidos em blocos */
+    public static final int LIMITE_QUADRO_TEXTO = 64 * 1024;
+
+    /** Número máximo de bytes de um varint de 64 bits */
+    private static final int MAXIMO_BYTES_VARINT = 10;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Classe utilitária - não deve ser instanciada.
+     */
+    private ProtocoloBinario() {
+    }
+
+    // ==================== NEGOCIAÇÃO ====================
+
+    /**
+     * Executa o handshake do lado do cliente.
+     *
+     * @param entrada Stream de entrada da conexão
+     * @param saida Stream de saída da conexão
+     * @param versaoDesejada Versão solicitada ao servidor
+     * @return Versão aceita pelo servidor
+     * @throws IOException se houver erro de comunicação ou resposta inválida
+     */
+    public static int negociarCliente(DataInputStream entrada, DataOutputStream saida,
+                                      int versaoDesejada) throws IOException {
+        saida.writeShort(0);
+        saida.writeByte(versaoDesejada);
+        saida.flush();
+
+        int versaoAceita = entrada.readUnsignedByte();
+        if (versaoAceita < VERSAO_LEGADO || versaoAceita > versaoDesejada) {
+            throw new IOException("Versão de protocolo inválida recebida do servidor: " + versaoAceita);
+        }
+        return versaoAceita;
+    }
+
+    /**
+     * Detecta e responde ao handshake do lado do servidor.
+     *
+     * Caso o cliente não envie o handshake, os bytes inspecionados são
+     * devolvidos ao stream e o protocolo legado é assumido.
+     *
+     * @param entrada Stream de entrada com suporte a mark/reset
+     * @param saida Stream de saída da conexão
+     * @return Versão de protocolo a ser usada na conexão
+     * @throws IOException se houver erro de comunicação
+     */
+    public static int negociarServidor(BufferedInputStream entrada, DataOutputStream saida)
+            throws IOException {
+        entrada.mark(2);
+        int primeiro = entrada.read();
+        int segundo = entrada.read();
+
+        if (primeiro != 0 || segundo != 0) {
+            entrada.reset();
+            return VERSAO_LEGADO;
+        }
+
+        int versaoSolicitada = entrada.read();
+        if (versaoSolicitada < 0) {
+            throw new EOFException("Conexão encerrada durante o handshake");
+        }
+
+        int versaoAceita = Math.max(VERSAO_LEGADO, Math.min(versaoSolicitada, VERSAO_MAXIMA));
+        saida.writeByte(versaoAceita);
+        saida.flush();
+        return versaoAceita;
+    }
+
+    // ==================== VARINT ====================
+
+    /**
+     * Escreve um valor não negativo como varint (LEB128 sem sinal).
+     *
+     * @param saida Destino dos bytes
+     * @param valor Valor a ser codificado
+     * @throws IOException se houver erro de escrita
+     */
+    public static void escreverVarint(DataOutput saida, long valor) throws IOException {
+        if (valor < 0) {
+            throw new IllegalArgumentException("Varint não suporta valores negativos: " + valor);
+        }
+        while ((valor & ~0x7FL) != 0) {
+            saida.writeByte((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        saida.writeByte((int) valor);
+    }
+
+    /**
+     * Lê um varint (LEB128 sem sinal).
+     *
+     * @param entrada Origem dos bytes
+     * @return Valor decodificado
+     * @throws IOException se o varint estiver malformado ou o stream terminar
+     */
+    public static long lerVarint(DataInput entrada) throws IOException {
+        long valor = 0;
+        for (int i = 0; i < MAXIMO_BYTES_VARINT; i++) {
+            int b = entrada.readUnsignedByte();
+            valor |= (long) (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                if (valor < 0) {
+                    throw new IOException("Varint fora do intervalo suportado");
+                }
+                return valor;
+            }
+        }
+        throw new IOException("Varint malformado: mais de " + MAXIMO_BYTES_VARINT + " bytes");
+    }
+
+    // ==================== QUADROS ====================
+
+    /**
+     * Envia um texto como quadro UTF-8.
+     *
+     * @param saida Stream de saída da conexão
+     * @param texto Texto a ser enviado
+     * @throws IOException se houver erro de escrita
+     */
+    public static void escreverTexto(DataOutputStream saida, String texto) throws IOException {
+        byte[] dados = texto.getBytes(StandardCharsets.UTF_8);
+        escreverVarint(saida, dados.length);
+        saida.write(dados);
+        saida.flush();
+    }
+
+    /**
+     * Lê um quadro de texto completo.
+     *
+     * @param entrada Stream de entrada da conexão
+     * @return Texto decodificado
+     * @throws IOException se o quadro exceder {@link #LIMITE_QUADRO_TEXTO} ou houver erro de leitura
+     */
+    public static String lerTexto(DataInputStream entrada) throws IOException {
+        return lerCorpoTexto(entrada, lerVarint(entrada));
+    }
+
+    /**
+     * Lê o corpo de um quadro cujo tamanho já foi consumido.
+     *
+     * @param entrada Stream de entrada da conexão
+     * @param tamanho Tamanho do corpo em bytes
+     * @return Texto decodificado
+     * @throws IOException se o corpo exceder {@link #LIMITE_QUADRO_TEXTO} ou houver erro de leitura
+     */
+    public static String lerCorpoTexto(DataInputStream entrada, long tamanho) throws IOException {
+        if (tamanho > LIMITE_QUADRO_TEXTO) {
+            throw new IOException("Quadro de texto excede o limite de " + LIMITE_QUADRO_TEXTO +
+                                  " bytes: " + tamanho);
+        }
+        byte[] dados = new byte[(int) tamanho];
+        entrada.readFully(dados);
+        return new String(dados, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Envia um quadro cujo corpo é lido de outro stream, em blocos de tamanho fixo.
+     *
+     * @param origem Stream com o conteúdo do corpo
+     * @param tamanho Número exato de bytes a transferir
+     * @param saida Stream de saída da conexão
+     * @param bloco Buffer reutilizável para a transferência
+     * @throws IOException se a origem terminar antes do esperado ou houver erro de escrita
+     */
+    public static void escreverCorpo(InputStream origem, long tamanho, DataOutputStream saida,
+                                     byte[] bloco) throws IOException {
+        escreverVarint(saida, tamanho);
+        long restante = tamanho;
+        while (restante > 0) {
+            int lidos = origem.read(bloco, 0, (int) Math.min(bloco.length, restante));
+            if (lidos < 0) {
+                throw new EOFException("Origem terminou com " + restante + " bytes pendentes");
+            }
+            saida.write(bloco, 0, lidos);
+            restante -= lidos;
+        }
+        saida.flush();
+    }
+}
@@ -1,5 +1,10 @@
 import java.net.*;
 import java.io.*;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Servidor TCP Concorrente
@@ -11,7 +16,12 @@ import java.io.*;
  * Funcionalidades:
  * - Servidor multi-threaded para múltiplos clientes simultâneos
  * - Thread dedicada para cada cliente (usando ServidorThread)
- * - Escuta contínua na porta 4321
+ * - Escuta contínua na porta 4321 (configurável)
+ * - Limiar de compressão configurável para clientes do protocolo comprimido
+ * - Atraso de processamento simulado (para testes de balanceamento de carga)
+ * - Cache chave-valor compartilhado (comandos GET/SET/DEL/INCR)
+ * - Escuta opcional em socket Unix para clientes no mesmo host
+ * - Conexões opcionais por memória compartilhada (anéis em arquivo mapeado)
  * - Logs detalhados de conexões
  * - Tratamento robusto de exceções
  * 
@@ -21,8 +31,11 @@ import java.io.*;
  */
 public class Servidor4 {
 
-    /** Porta padrão onde o servidor irá escutar */
-    private static final int PORTA_SERVIDOR = 4321;
+    /** Configuração desta instância (porta, compressão, atraso simulado) */
+    private final ConfiguracaoServidor configuracao;
+
+    /** Armazenamento chave-valor compartilhado por todos os clientes */
+    private final ArmazemChaveValor armazem = new ArmazemChaveValor();
 
     /** Backlog máximo de conexões pendentes */
     private static final int BACKLOG_MAXIMO = 300;
@@ -30,25 +43,102 @@ public class Servidor4 {
     /** Contador de clientes conectados */
     private static int contadorClientes = 0;
 
+    /**
+     * Cria o servidor com a configuração padrão.
+     */
+    public Servidor4() {
+        this(ConfiguracaoServidor.padrao());
+    }
+
+    /**
+     * Cria o servidor com a configuração informada.
+     * 
+     * @param configuracao porta, limiar de compressão e atraso simulado
+     */
+    public Servidor4(ConfiguracaoServidor configuracao) {
+        this.configuracao = configuracao;
+    }
+
     /**
      * Método principal que inicia o servidor TCP concorrente.
      * 
-     * @param args argumentos da linha de comando (não utilizados)
+     * Argumentos aceitos:
+     * - args[0]: Porta do servidor, unix:caminho ou shm:diretorio (opcional, padrão: 4321)
+     * - args[1]: Limiar de compressão em bytes (opcional, padrão: 256)
+     * - args[2]: Atraso simulado por mensagem em ms (opcional, padrão: 0)
+     * - args[3]: Exibir cada mensagem recebida, true/false (opcional, padrão: true)
+     * 
+     * @param args argumentos da linha de comando
      */
     public static void main(String[] args) {
-        Servidor4 servidor = new Servidor4();
+        ConfiguracaoServidor configuracao = null;
+
+        try {
+            boolean unix = args.length > 0 && args[0].startsWith(Transporte.PREFIXO_UNIX);
+            boolean memoria = args.length > 0 && args[0].startsWith(Transporte.PREFIXO_MEMORIA);
+            int porta = args.length > 0 && !unix && !memoria ? Integer.parseInt(args[0]) 
+                                                             : ConfiguracaoServidor.PORTA_PADRAO;
+            int limiarCompressao = args.length > 1 ? Integer.parseInt(args[1]) 
+                                                   : CompressorMensagens.LIMIAR_PADRAO;
+            int atrasoMs = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+            boolean detalhar = args.length <= 3 || Boolean.parseBoolean(args[3]);
+            configuracao = new ConfiguracaoServidor(porta, limiarCompressao, atrasoMs, detalhar);
+            if (unix) {
+                configuracao = configuracao.comSocketUnix(
+                        Paths.get(args[0].substring(Transporte.PREFIXO_UNIX.length())));
+            } else if (memoria) {
+                configuracao = configuracao.comMemoriaCompartilhada(
+                        Paths.get(args[0].substring(Transporte.PREFIXO_MEMORIA.length())));
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Erro: Argumentos devem ser números válidos");
+            exibirAjuda();
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erro: " + e.getMessage());
+            exibirAjuda();
+            System.exit(1);
+        }
+
+        Servidor4 servidor = new Servidor4(configuracao);
         servidor.iniciarServidor();
     }
 
+    /**
+     * Exibe ajuda sobre uso do programa.
+     */
+    private static void exibirAjuda() {
+        System.out.println("\nUso: java Servidor4 [porta|unix:caminho|shm:diretorio] [limiar] [atraso] [detalhar]");
+        System.out.println("  porta:  Porta do servidor (padrão: 4321), socket Unix ou diretório de memória compartilhada");
+        System.out.println("  limiar: Tamanho mínimo em bytes para comprimir mensagens (padrão: 256)");
+        System.out.println("  atraso: Atraso simulado de processamento por mensagem em ms (padrão: 0)");
+        System.out.println("  detalhar: Exibir cada mensagem recebida, true/false (padrão: true)");
+        System.out.println("\nExemplos:");
+        System.out.println("  java Servidor4");
+        System.out.println("  java Servidor4 4322 1024");
+        System.out.println("  java Servidor4 4323 256 20");
+        System.out.println("  java Servidor4 unix:/tmp/servidor4.sock");
+        System.out.println("  java Servidor4 shm:/dev/shm/servidor4 256 0 false");
+    }
+
     /**
      * Inicia o servidor e entra no loop principal de aceitação de conexões.
      */
     public void iniciarServidor() {
+        if (configuracao.caminhoUnix != null) {
+            iniciarServidorUnix();
+            return;
+        }
+        if (configuracao.diretorioMemoria != null) {
+            iniciarServidorMemoria();
+            return;
+        }
+
         ServerSocket serverSocket = null;
 
         try {
             // Cria socket do servidor
-            serverSocket = new ServerSocket(PORTA_SERVIDOR, BACKLOG_MAXIMO);
+            serverSocket = new ServerSocket(configuracao.porta, BACKLOG_MAXIMO);
 
             exibirInformacaoInicializacao();
 
@@ -60,10 +150,11 @@ public class Servidor4 {
                     contadorClientes++;
 
                     // Log da nova conexão
-                    logNovaConexao(clienteSocket);
+                    logNovaConexao(clienteSocket.getInetAddress().getHostAddress() + ":" + 
+                                   clienteSocket.getPort());
 
                     // Cria e inicia thread dedicada para o cliente
-                    criarThreadCliente(clienteSocket);
+                    criarThreadCliente(Transporte.tcp(clienteSocket));
 
                 } catch (IOException e) {
                     System.err.println("❌ Erro ao aceitar conexão: " + e.getMessage());
@@ -74,13 +165,82 @@ public class Servidor4 {
         } catch (IOException e) {
             System.err.println("💥 Erro fatal ao iniciar servidor!");
             System.err.println("Detalhes: " + e.getMessage());
-            System.err.println("Verifique se a porta " + PORTA_SERVIDOR + " não está em uso.");
+            System.err.println("Verifique se a porta " + configuracao.porta + " não está em uso.");
         } finally {
             // Garante fechamento do servidor
             fecharServidor(serverSocket);
         }
     }
 
+    /**
+     * Inicia o servidor em um socket Unix e entra no loop de aceitação.
+     * 
+     * Os clientes são atendidos pelo mesmo ServidorThread, com os mesmos protocolos.
+     */
+    private void iniciarServidorUnix() {
+        Path caminho = configuracao.caminhoUnix;
+
+        try (ServerSocketChannel servidorUnix = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            // Remove arquivo de socket deixado por execução anterior
+            Files.deleteIfExists(caminho);
+            servidorUnix.bind(UnixDomainSocketAddress.of(caminho), BACKLOG_MAXIMO);
+
+            exibirInformacaoInicializacao();
+
+            while (true) {
+                try {
+                    SocketChannel canalCliente = servidorUnix.accept();
+                    contadorClientes++;
+
+                    logNovaConexao(Transporte.PREFIXO_UNIX + caminho);
+                    criarThreadCliente(Transporte.canal(canalCliente));
+
+                } catch (IOException e) {
+                    System.err.println("❌ Erro ao aceitar conexão: " + e.getMessage());
+                }
+            }
+
+        } catch (IOException e) {
+            System.err.println("💥 Erro fatal ao iniciar servidor!");
+            System.err.println("Detalhes: " + e.getMessage());
+            System.err.println("Verifique se o caminho " + caminho + " pode ser criado.");
+        } finally {
+            try {
+                Files.deleteIfExists(caminho);
+            } catch (IOException e) {
+                System.err.println("⚠️  Erro ao remover socket Unix: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Atende clientes que se conectam por memória compartilhada.
+     * 
+     * Cada cliente cria um arquivo de conexão no diretório configurado; o servidor
+     * varre o diretório e atende cada conexão aceita com um ServidorThread.
+     */
+    private void iniciarServidorMemoria() {
+        Path diretorio = configuracao.diretorioMemoria;
+
+        try {
+            TransporteMemoriaCompartilhada.prepararDiretorio(diretorio);
+            exibirInformacaoInicializacao();
+
+            while (true) {
+                TransporteMemoriaCompartilhada transporte = TransporteMemoriaCompartilhada.aceitar(diretorio);
+                contadorClientes++;
+
+                logNovaConexao(transporte.getDescricao());
+                criarThreadCliente(transporte);
+            }
+
+        } catch (IOException e) {
+            System.err.println("💥 Erro fatal ao iniciar servidor!");
+            System.err.println("Detalhes: " + e.getMessage());
+            System.err.println("Verifique se o diretório " + diretorio + " pode ser criado.");
+        }
+    }
+
     /**
      * Exibe informações de inicialização do servidor.
      */
@@ -88,8 +248,18 @@ public class Servidor4 {
         System.out.println("=========================================");
         System.out.println("    SERVIDOR TCP CONCORRENTE ATIVO     ");
         System.out.println("=========================================");
-        System.out.println("🌐 Porta: " + PORTA_SERVIDOR);
+        if (configuracao.caminhoUnix != null) {
+            System.out.println("🌐 Socket Unix: " + configuracao.caminhoUnix);
+        } else if (configuracao.diretorioMemoria != null) {
+            System.out.println("🌐 Memória compartilhada: " + configuracao.diretorioMemoria);
+        } else {
+            System.out.println("🌐 Porta: " + configuracao.porta);
+        }
         System.out.println("👥 Backlog máximo: " + BACKLOG_MAXIMO);
+        System.out.println("🗜️  Limiar de compressão: " + configuracao.limiarCompressao + " bytes");
+        if (configuracao.atrasoProcessamentoMs > 0) {
+            System.out.println("🐢 Atraso simulado: " + configuracao.atrasoProcessamentoMs + " ms/mensagem");
+        }
         System.out.println("🔄 Modo: Multi-threaded");
         System.out.println("⏰ Iniciado em: " + java.time.LocalDateTime.now());
         System.out.println("=========================================");
@@ -101,15 +271,13 @@ public class Servidor4 {
     /**
      * Registra informações sobre nova conexão de cliente.
      * 
-     * @param clienteSocket socket do cliente conectado
+     * @param enderecoCliente endereço do cliente conectado
      */
-    private void logNovaConexao(Socket clienteSocket) {
-        String enderecoCliente = clienteSocket.getInetAddress().getHostAddress();
-        int portaCliente = clienteSocket.getPort();
+    private void logNovaConexao(String enderecoCliente) {
         String timestamp = java.time.LocalDateTime.now().toString();
 
         System.out.println("\n🆕 NOVA CONEXÃO #" + contadorClientes);
-        System.out.println("   📍 Cliente: " + enderecoCliente + ":" + portaCliente);
+        System.out.println("   📍 Cliente: " + enderecoCliente);
         System.out.println("   ⏰ Timestamp: " + timestamp);
         System.out.println("   👥 Total de clientes ativos: " + contadorClientes);
     }
@@ -117,11 +285,11 @@ public class Servidor4 {
     /**
      * Cria e inicia uma thread dedicada para atender o cliente.
      * 
-     * @param clienteSocket socket do cliente a ser atendido
+     * @param transporte conexão do cliente a ser atendido (TCP, Unix ou memória compartilhada)
      */
-    private void criarThreadCliente(Socket clienteSocket) {
+    private void criarThreadCliente(Transporte transporte) {
         try { // Cria thread dedicada para o cliente
-            ServidorThread threadCliente = new ServidorThread(clienteSocket);
+            ServidorThread threadCliente = new ServidorThread(transporte, configuracao, armazem);
 
             // Inicia a thread
             threadCliente.start();
@@ -134,7 +302,7 @@ public class Servidor4 {
 
             // Fecha socket do cliente se não foi possível criar thread
             try {
-                clienteSocket.close();
+                transporte.close();
                 contadorClientes--; // Decrementa contador
             } catch (IOException ex) {
                 System.err.println("⚠️  Erro ao fechar socket do cliente: " + ex.getMessage());
@@ -159,6 +327,15 @@ public class Servidor4 {
         }
     }
 
+    /**
+     * Retorna o armazenamento chave-valor compartilhado pelo servidor.
+     * 
+     * @return armazenamento chave-valor
+     */
+    public ArmazemChaveValor getArmazem() {
+        return armazem;
+    }
+
     /**
      * Método para obter estatísticas do servidor.
      * 
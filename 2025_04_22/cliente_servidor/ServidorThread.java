@@ -7,6 +7,11 @@
  * 
  * Funcionalidades:
  * - Recebe mensagens do cliente via socket TCP
+ * - Negocia protocolo legado (writeUTF) ou de quadros binários (ProtocoloBinario)
+ * - Compressão opcional por mensagem acima de um limiar (CompressorMensagens)
+ * - Comandos GET/SET/DEL/INCR sobre um armazenamento compartilhado (ProcessadorComandos)
+ * - Prazo opcional por requisição: requisições expiradas são descartadas antes
+ *   ou durante o processamento e respondidas com RESPOSTA_PRAZO_EXPIRADO
  * - Envia confirmações de recebimento
  * - Gerencia encerramento gracioso da conexão
  * - Trata exceções de comunicação de rede
@@ -18,6 +23,11 @@
 
 import java.net.*;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -35,17 +45,35 @@ public class ServidorThread extends Thread {
     /** Comando para encerrar a comunicação */
     private static final String COMANDO_TERMINAR = "terminar";
     
+    /** Quantidade de bytes exibidos como prévia de corpos grandes */
+    private static final int BYTES_PREVIA = 80;
+    
     /** Logger para registrar eventos da thread */
     private static final Logger LOGGER = Logger.getLogger(ServidorThread.class.getName());
     
+    /** Armazenamento usado pelas threads criadas sem um armazenamento explícito */
+    private static final ArmazemChaveValor ARMAZEM_PADRAO = new ArmazemChaveValor();
+    
+    /** Valor de prazo usado para requisições sem prazo */
+    private static final long SEM_PRAZO = Long.MAX_VALUE;
+    
+    /** Requisições descartadas por prazo expirado, somadas entre todas as threads */
+    private static final LongAdder REQUISICOES_EXPIRADAS = new LongAdder();
+    
     // ==================== ATRIBUTOS ====================
     
-    /** Socket de comunicação com o cliente */
-    private final Socket socketCliente;
+    /** Meio de comunicação com o cliente (socket TCP ou socket Unix) */
+    private final Transporte transporte;
     
     /** Identificador único da thread para logs */
     private final String identificadorThread;
     
+    /** Configuração do servidor (compressão, atraso simulado) */
+    private final ConfiguracaoServidor configuracao;
+    
+    /** Armazenamento chave-valor compartilhado entre as threads do servidor */
+    private final ArmazemChaveValor armazem;
+    
     // ==================== CONSTRUTORES ====================
     
     /**
@@ -55,17 +83,48 @@ public class ServidorThread extends Thread {
      * @throws IllegalArgumentException se o socket for nulo
      */
     public ServidorThread(Socket socketCliente) {
+        this(socketCliente, ConfiguracaoServidor.padrao(), ARMAZEM_PADRAO);
+    }
+    
+    /**
+     * Construtor da thread do servidor com configuração e armazenamento explícitos.
+     * 
+     * @param socketCliente Socket estabelecido com o cliente
+     * @param configuracao Configuração do servidor
+     * @param armazem Armazenamento chave-valor compartilhado
+     * @throws IllegalArgumentException se algum parâmetro for nulo
+     */
+    public ServidorThread(Socket socketCliente, ConfiguracaoServidor configuracao,
+                          ArmazemChaveValor armazem) {
+        this(socketCliente == null ? null : Transporte.tcp(socketCliente), configuracao, armazem);
+    }
+    
+    /**
+     * Construtor da thread do servidor sobre um transporte qualquer (ex.: socket Unix).
+     * 
+     * @param transporte Meio de comunicação já conectado ao cliente
+     * @param configuracao Configuração do servidor
+     * @param armazem Armazenamento chave-valor compartilhado
+     * @throws IllegalArgumentException se algum parâmetro for nulo
+     */
+    public ServidorThread(Transporte transporte, ConfiguracaoServidor configuracao,
+                          ArmazemChaveValor armazem) {
         super();
         
-        if (socketCliente == null) {
+        if (transporte == null) {
             throw new IllegalArgumentException("Socket do cliente não pode ser nulo");
         }
+        if (configuracao == null || armazem == null) {
+            throw new IllegalArgumentException("Configuração e armazenamento não podem ser nulos");
+        }
         
-        this.socketCliente = socketCliente;
+        this.transporte = transporte;
+        this.configuracao = configuracao;
+        this.armazem = armazem;
         this.identificadorThread = "Thread-" + Thread.currentThread().getId() + 
-                                 "-" + socketCliente.getRemoteSocketAddress();
+                                 "-" + transporte.getDescricao();
         
-        LOGGER.info("Nova thread criada para cliente: " + socketCliente.getRemoteSocketAddress());
+        LOGGER.info("Nova thread criada para cliente: " + transporte.getDescricao());
     }
     
     // ==================== MÉTODOS PRINCIPAIS ====================
@@ -89,18 +148,29 @@ public class ServidorThread extends Thread {
         
         try {
             // Inicializar streams de comunicação
-            outputStream = new DataOutputStream(socketCliente.getOutputStream());
-            inputStream = new DataInputStream(socketCliente.getInputStream());
+            BufferedInputStream entradaBufferizada = new BufferedInputStream(
+                    transporte.getEntrada(), ProtocoloBinario.TAMANHO_BLOCO);
+            outputStream = new DataOutputStream(new BufferedOutputStream(
+                    transporte.getSaida(), ProtocoloBinario.TAMANHO_BLOCO));
+            inputStream = new DataInputStream(entradaBufferizada);
             
             LOGGER.info(identificadorThread + " - Streams inicializados com sucesso");
             
+            // Negociar versão do protocolo (clientes legados não enviam handshake)
+            int versaoProtocolo = ProtocoloBinario.negociarServidor(entradaBufferizada, outputStream);
+            LOGGER.info(identificadorThread + " - Protocolo negociado: versão " + versaoProtocolo);
+            
             // Loop principal de comunicação
-            executarLoopComunicacao(inputStream, outputStream);
+            if (versaoProtocolo >= ProtocoloBinario.VERSAO_BINARIA) {
+                executarLoopBinario(inputStream, outputStream, versaoProtocolo);
+            } else {
+                executarLoopComunicacao(inputStream, outputStream);
+            }
             
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, identificadorThread + " - Erro de I/O na comunicação", e);
             System.err.println("Erro de comunicação com cliente " + 
-                             socketCliente.getRemoteSocketAddress() + ": " + e.getMessage());
+                             transporte.getDescricao() + ": " + e.getMessage());
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, identificadorThread + " - Erro inesperado", e);
             System.err.println("Erro inesperado na thread: " + e.getMessage());
@@ -133,12 +203,12 @@ public class ServidorThread extends Thread {
                 contadorMensagens++;
                 
                 // Registrar mensagem recebida
-                System.out.println("\n" + identificadorThread + " - Mensagem #" + contadorMensagens + 
-                                 " recebida: " + mensagemRecebida);
-                LOGGER.info(identificadorThread + " - Mensagem recebida: " + mensagemRecebida);
+                registrarMensagem(contadorMensagens, mensagemRecebida);
+                
+                simularProcessamento();
                 
-                // Enviar confirmação
-                outputStream.writeUTF(MENSAGEM_CONFIRMACAO + " #" + contadorMensagens);
+                // Enviar confirmação (ou resposta do comando chave-valor)
+                outputStream.writeUTF(gerarResposta(contadorMensagens, mensagemRecebida));
                 outputStream.flush();
                 
                 // Verificar comando de encerramento
@@ -164,6 +234,243 @@ public class ServidorThread extends Thread {
         System.out.println(identificadorThread + " - Total de mensagens processadas: " + contadorMensagens);
     }
     
+    /**
+     * Executa o loop de comunicação usando o protocolo de quadros binários.
+     * 
+     * Quadros até {@link ProtocoloBinario#LIMITE_QUADRO_TEXTO} bytes são tratados
+     * como mensagens de texto. Quadros maiores são consumidos em blocos de tamanho
+     * fixo, registrando apenas tamanho, CRC32 e uma prévia do conteúdo.
+     * Na versão comprimida, um único compressor é reutilizado durante toda a conexão.
+     * Quadros com FLAG_PRAZO têm o prazo convertido em instante local na chegada.
+     * 
+     * @param inputStream Stream de entrada para receber quadros
+     * @param outputStream Stream de saída para enviar confirmações
+     * @param versaoProtocolo Versão negociada (binária ou comprimida)
+     * @throws IOException se houver erro de comunicação
+     */
+    private void executarLoopBinario(DataInputStream inputStream,
+                                     DataOutputStream outputStream,
+                                     int versaoProtocolo) throws IOException {
+        
+        CompressorMensagens compressor = null;
+        if (versaoProtocolo >= ProtocoloBinario.VERSAO_COMPRIMIDA) {
+            compressor = new CompressorMensagens(configuracao.limiarCompressao, Deflater.DEFAULT_COMPRESSION);
+        }
+        
+        try {
+            executarLoopQuadros(inputStream, outputStream, compressor);
+        } finally {
+            if (compressor != null) {
+                System.out.println(identificadorThread + " - " + compressor.gerarRelatorio());
+                LOGGER.info(identificadorThread + " - " + compressor.gerarRelatorio());
+                compressor.encerrar();
+            }
+        }
+    }
+    
+    /**
+     * Lê quadros até o comando de encerramento ou a desconexão do cliente.
+     * 
+     * @param inputStream Stream de entrada para receber quadros
+     * @param outputStream Stream de saída para enviar confirmações
+     * @param compressor Compressor da conexão, ou null se os quadros não têm flags
+     * @throws IOException se houver erro de comunicação
+     */
+    private void executarLoopQuadros(DataInputStream inputStream,
+                                     DataOutputStream outputStream,
+                                     CompressorMensagens compressor) throws IOException {
+        
+        byte[] bloco = new byte[ProtocoloBinario.TAMANHO_BLOCO];
+        int contadorMensagens = 0;
+        int contadorExpiradas = 0;
+        
+        while (true) {
+            int flags = 0;
+            long prazoNanos = SEM_PRAZO;
+            long tamanhoQuadro;
+            try {
+                if (compressor != null) {
+                    flags = inputStream.readUnsignedByte();
+                }
+                if ((flags & ProtocoloBinario.FLAG_PRAZO) != 0) {
+                    long prazoMs = ProtocoloBinario.lerVarint(inputStream);
+                    prazoNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(prazoMs);
+                }
+                tamanhoQuadro = ProtocoloBinario.lerVarint(inputStream);
+            } catch (EOFException e) {
+                System.out.println(identificadorThread + " - Cliente desconectou");
+                LOGGER.info(identificadorThread + " - Cliente encerrou a conexão");
+                break;
+            }
+            contadorMensagens++;
+            
+            boolean comprimido = (flags & ProtocoloBinario.FLAG_COMPRIMIDO) != 0;
+            if (!comprimido && tamanhoQuadro > ProtocoloBinario.LIMITE_QUADRO_TEXTO) {
+                // Corpo grande: transmitido em blocos, sem materializar a mensagem
+                String resumo = consumirCorpoGrande(inputStream, tamanhoQuadro, bloco);
+                System.out.println("\n" + identificadorThread + " - Mensagem #" + contadorMensagens + 
+                                 " recebida em blocos: " + resumo);
+                LOGGER.info(identificadorThread + " - Corpo grande recebido: " + resumo);
+                
+                enviarTexto(outputStream, compressor, MENSAGEM_CONFIRMACAO + " #" + 
+                            contadorMensagens + " (" + tamanhoQuadro + " bytes)");
+                continue;
+            }
+            
+            String mensagemRecebida = compressor != null
+                    ? compressor.lerCorpoTexto(inputStream, flags, tamanhoQuadro)
+                    : ProtocoloBinario.lerCorpoTexto(inputStream, tamanhoQuadro);
+            
+            // Registrar mensagem recebida
+            registrarMensagem(contadorMensagens, mensagemRecebida);
+            
+            // Prazo conferido antes do trabalho e respeitado durante ele
+            if (isExpirado(prazoNanos) || !simularProcessamento(prazoNanos)) {
+                contadorExpiradas++;
+                REQUISICOES_EXPIRADAS.increment();
+                LOGGER.fine(identificadorThread + " - Mensagem #" + contadorMensagens + " descartada: prazo expirado");
+                enviarTexto(outputStream, compressor, ProtocoloBinario.RESPOSTA_PRAZO_EXPIRADO);
+            } else {
+                // Enviar confirmação (ou resposta do comando chave-valor)
+                enviarTexto(outputStream, compressor, gerarResposta(contadorMensagens, mensagemRecebida));
+            }
+            
+            // Verificar comando de encerramento
+            if (COMANDO_TERMINAR.equalsIgnoreCase(mensagemRecebida.trim())) {
+                System.out.println(identificadorThread + " - Comando de encerramento recebido");
+                LOGGER.info(identificadorThread + " - Encerrando comunicação por solicitação do cliente");
+                break;
+            }
+        }
+        
+        System.out.println(identificadorThread + " - Total de mensagens processadas: " + contadorMensagens +
+                           (contadorExpiradas > 0 ? " (" + contadorExpiradas + " descartadas por prazo)" : ""));
+    }
+    
+    /**
+     * Registra a mensagem recebida no console e no log, se o detalhamento estiver ativo.
+     * 
+     * @param numero Número da mensagem na conexão
+     * @param mensagem Texto recebido
+     */
+    private void registrarMensagem(int numero, String mensagem) {
+        if (!configuracao.detalharMensagens) {
+            return;
+        }
+        System.out.println("\n" + identificadorThread + " - Mensagem #" + numero + 
+                         " recebida: " + mensagem);
+        LOGGER.info(identificadorThread + " - Mensagem recebida: " + mensagem);
+    }
+    
+    /**
+     * Gera a resposta de uma mensagem: resultado do comando chave-valor ou confirmação.
+     * 
+     * @param numero Número da mensagem na conexão
+     * @param mensagem Texto recebido
+     * @return Texto a ser enviado ao cliente
+     */
+    private String gerarResposta(int numero, String mensagem) {
+        String respostaComando = ProcessadorComandos.processar(mensagem, armazem);
+        return respostaComando != null ? respostaComando : MENSAGEM_CONFIRMACAO + " #" + numero;
+    }
+    
+    /**
+     * Aplica o atraso de processamento configurado (usado para simular servidores lentos).
+     * 
+     * @throws InterruptedIOException se a thread for interrompida durante o atraso
+     */
+    private void simularProcessamento() throws InterruptedIOException {
+        simularProcessamento(SEM_PRAZO);
+    }
+    
+    /**
+     * Aplica o atraso de processamento, desde que ele caiba no prazo.
+     * 
+     * Como o custo do trabalho simulado é conhecido, uma requisição cujo tempo
+     * restante é menor que o atraso é recusada sem iniciar o trabalho: consumi-lo
+     * apenas atrasaria as próximas requisições da conexão. Ao final o prazo é
+     * conferido de novo, descartando o resultado se ele já não for útil.
+     * 
+     * @param prazoNanos Instante (System.nanoTime) em que o cliente desiste
+     * @return true se o processamento terminou dentro do prazo
+     * @throws InterruptedIOException se a thread for interrompida durante o atraso
+     */
+    private boolean simularProcessamento(long prazoNanos) throws InterruptedIOException {
+        long atrasoMs = configuracao.atrasoProcessamentoMs;
+        if (atrasoMs <= 0) {
+            return true;
+        }
+        if (prazoNanos != SEM_PRAZO
+                && prazoNanos - System.nanoTime() < TimeUnit.MILLISECONDS.toNanos(atrasoMs)) {
+            return false;
+        }
+        try {
+            Thread.sleep(atrasoMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Thread interrompida durante o processamento");
+        }
+        return !isExpirado(prazoNanos);
+    }
+    
+    /**
+     * Verifica se o prazo de uma requisição já passou.
+     * 
+     * @param prazoNanos Instante do prazo, ou SEM_PRAZO
+     * @return true se expirado
+     */
+    private static boolean isExpirado(long prazoNanos) {
+        return prazoNanos != SEM_PRAZO && System.nanoTime() - prazoNanos >= 0;
+    }
+    
+    /**
+     * Envia um quadro de texto, comprimido ou não conforme a versão negociada.
+     * 
+     * @param outputStream Stream de saída da conexão
+     * @param compressor Compressor da conexão, ou null na versão sem flags
+     * @param texto Texto a ser enviado
+     * @throws IOException se houver erro de escrita
+     */
+    private void enviarTexto(DataOutputStream outputStream, CompressorMensagens compressor,
+                             String texto) throws IOException {
+        if (compressor != null) {
+            compressor.escreverTexto(outputStream, texto);
+        } else {
+            ProtocoloBinario.escreverTexto(outputStream, texto);
+        }
+    }
+    
+    /**
+     * Consome um corpo grande em blocos de tamanho fixo.
+     * 
+     * @param inputStream Stream de entrada posicionado no início do corpo
+     * @param tamanho Tamanho do corpo em bytes
+     * @param bloco Buffer reutilizável para leitura
+     * @return Resumo com tamanho, CRC32 e prévia do conteúdo
+     * @throws IOException se o stream terminar antes do fim do corpo
+     */
+    private String consumirCorpoGrande(DataInputStream inputStream, long tamanho, 
+                                       byte[] bloco) throws IOException {
+        CRC32 crc = new CRC32();
+        String previa = null;
+        long restante = tamanho;
+        
+        while (restante > 0) {
+            int lidos = inputStream.read(bloco, 0, (int) Math.min(bloco.length, restante));
+            if (lidos < 0) {
+                throw new EOFException("Conexão encerrada com " + restante + " bytes pendentes no quadro");
+            }
+            if (previa == null) {
+                previa = new String(bloco, 0, Math.min(lidos, BYTES_PREVIA), StandardCharsets.UTF_8);
+            }
+            crc.update(bloco, 0, lidos);
+            restante -= lidos;
+        }
+        
+        return tamanho + " bytes, CRC32=" + Long.toHexString(crc.getValue()) + 
+               ", início=\"" + previa + "...\"";
+    }
+    
     /**
      * Fecha todos os recursos de rede de forma segura.
      * 
@@ -193,9 +500,9 @@ public class ServidorThread extends Thread {
         }
         
         // Fechar socket
-        if (socketCliente != null && !socketCliente.isClosed()) {
+        if (transporte.isAberto()) {
             try {
-                socketCliente.close();
+                transporte.close();
                 LOGGER.info(identificadorThread + " - Socket fechado com sucesso");
                 System.out.println(identificadorThread + " - Conexão encerrada");
             } catch (IOException e) {
@@ -213,8 +520,8 @@ public class ServidorThread extends Thread {
      * @return String com endereço do cliente ou "Desconhecido" se socket inválido
      */
     public String getInfoCliente() {
-        if (socketCliente != null && !socketCliente.isClosed()) {
-            return socketCliente.getRemoteSocketAddress().toString();
+        if (transporte.isAberto()) {
+            return transporte.getDescricao();
         }
         return "Cliente desconhecido";
     }
@@ -225,6 +532,15 @@ public class ServidorThread extends Thread {
      * @return true se a conexão está ativa, false caso contrário
      */
     public boolean isConexaoAtiva() {
-        return socketCliente != null && !socketCliente.isClosed() && socketCliente.isConnected();
+        return transporte.isAberto();
+    }
+    
+    /**
+     * Retorna quantas requisições foram descartadas por prazo expirado em todas as conexões.
+     * 
+     * @return Total de requisições expiradas
+     */
+    public static long getRequisicoesExpiradas() {
+        return REQUISICOES_EXPIRADAS.sum();
     }
 }
\ No newline at end of file
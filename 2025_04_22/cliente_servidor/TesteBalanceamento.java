@@ -0,0 +1,155 @@
+/**
+ * TesteBalanceamento - Comparação local entre round-robin e P2C
+ *
+ * Inicia várias instâncias do Servidor4 em processos separados, sendo uma
+ * delas lenta (atraso simulado por mensagem) e outra inexistente (porta sem
+ * servidor, para exercitar a ejeção). Em seguida executa a mesma carga com
+ * as estratégias ROUND_ROBIN e P2C e compara a latência de cauda.
+ *
+ * Argumentos: [sessoes] [mensagens] [threads]
+ * Exemplo: java TesteBalanceamento 400 10 8
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Teste multiprocesso do balanceamento de carga no cliente.
+ */
+public class TesteBalanceamento {
+
+    // ==================== CONSTANTES ====================
+
+    /** Primeira porta usada pelos servidores do teste */
+    private static final int PORTA_BASE = 4501;
+
+    /** Atraso (ms) de cada servidor iniciado; o último é o servidor lento */
+    private static final int[] ATRASOS_MS = {1, 1, 20};
+
+    /** Tempo máximo de espera pela inicialização de cada servidor */
+    private static final long TIMEOUT_INICIALIZACAO_MS = 10_000;
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do teste.
+     *
+     * @param args [sessoes] [mensagens] [threads]
+     * @throws Exception se os servidores não puderem ser iniciados
+     */
+    public static void main(String[] args) throws Exception {
+        int sessoes = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int mensagens = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        // Ejeções são esperadas (servidor inexistente); evita poluir a saída
+        Logger.getLogger(BalanceadorCarga.class.getName()).setLevel(Level.SEVERE);
+        Logger.getLogger(ClienteBalanceado.class.getName()).setLevel(Level.SEVERE);
+
+        System.out.println("=== Teste de Balanceamento: ROUND_ROBIN x P2C ===");
+        List<Process> processos = new ArrayList<>();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> processos.forEach(Process::destroy),
+                "ShutdownHook-TesteBalanceamento"));
+
+        try {
+            List<InetSocketAddress> servidores = new ArrayList<>();
+            for (int i = 0; i < ATRASOS_MS.length; i++) {
+                int porta = PORTA_BASE + i;
+                processos.add(iniciarServidor(porta, ATRASOS_MS[i]));
+                aguardarServidor(porta);
+                servidores.add(new InetSocketAddress("127.0.0.1", porta));
+                System.out.println("✓ Servidor4 na porta " + porta + " (atraso " + ATRASOS_MS[i] + " ms)");
+            }
+            int portaInexistente = PORTA_BASE + ATRASOS_MS.length;
+            servidores.add(new InetSocketAddress("127.0.0.1", portaInexistente));
+            System.out.println("✓ Porta " + portaInexistente + " sem servidor (deve ser ejetada)");
+            System.out.println("Carga: " + sessoes + " sessões x " + mensagens + " mensagens, " +
+                               threads + " simultâneas\n");
+
+            // Aquecimento (JIT nos servidores e no cliente), descartado
+            new ClienteBalanceado(new BalanceadorCarga(servidores, BalanceadorCarga.Estrategia.ROUND_ROBIN))
+                    .executarCarga(Math.max(1, sessoes / 4), mensagens, threads);
+
+            AmostrasLatencia rodizio = executar(servidores, BalanceadorCarga.Estrategia.ROUND_ROBIN,
+                                                sessoes, mensagens, threads);
+            AmostrasLatencia p2c = executar(servidores, BalanceadorCarga.Estrategia.P2C,
+                                            sessoes, mensagens, threads);
+
+            System.out.println("=== Resultado ===");
+            System.out.printf("p99:   ROUND_ROBIN %.1f ms  |  P2C %.1f ms%n",
+                    rodizio.percentil(99) / 1e6, p2c.percentil(99) / 1e6);
+            System.out.printf("p99.9: ROUND_ROBIN %.1f ms  |  P2C %.1f ms%n",
+                    rodizio.percentil(99.9) / 1e6, p2c.percentil(99.9) / 1e6);
+
+        } finally {
+            for (Process processo : processos) {
+                processo.destroy();
+            }
+        }
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Executa a carga com uma estratégia e exibe o resultado.
+     */
+    private static AmostrasLatencia executar(List<InetSocketAddress> servidores,
+                                             BalanceadorCarga.Estrategia estrategia,
+                                             int sessoes, int mensagens, int threads)
+            throws InterruptedException {
+        ClienteBalanceado cliente = new ClienteBalanceado(new BalanceadorCarga(servidores, estrategia));
+        long inicio = System.nanoTime();
+        AmostrasLatencia latencias = cliente.executarCarga(sessoes, mensagens, threads);
+        long duracaoMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        System.out.println("--- " + estrategia + " (" + duracaoMs + " ms) ---");
+        System.out.println("Latência: " + latencias.resumo());
+        System.out.println(cliente.getBalanceador().gerarRelatorio());
+        System.out.println();
+        return latencias;
+    }
+
+    /**
+     * Inicia um Servidor4 em um processo separado, com a saída descartada.
+     */
+    private static Process iniciarServidor(int porta, int atrasoMs) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder construtor = new ProcessBuilder(java,
+                "-cp", System.getProperty("java.class.path"),
+                "Servidor4", String.valueOf(porta),
+                String.valueOf(CompressorMensagens.LIMIAR_PADRAO), String.valueOf(atrasoMs));
+        construtor.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        construtor.redirectError(ProcessBuilder.Redirect.DISCARD);
+        return construtor.start();
+    }
+
+    /**
+     * Aguarda até que o servidor aceite conexões.
+     */
+    private static void aguardarServidor(int porta) throws IOException, InterruptedException {
+        long limite = System.currentTimeMillis() + TIMEOUT_INICIALIZACAO_MS;
+        while (true) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", porta), 200);
+                // Envia handshake e encerra, para não deixar uma sessão pendurada
+                socket.getOutputStream().write(new byte[] {0, 0, ProtocoloBinario.VERSAO_BINARIA});
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > limite) {
+                    throw new IOException("Servidor na porta " + porta + " não iniciou a tempo", e);
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+}
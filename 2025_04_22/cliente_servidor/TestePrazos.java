@@ -0,0 +1,294 @@
+/**
+ * TestePrazos - Vazão útil (goodput) com e sem propagação de prazo
+ *
+ * Inicia um Servidor4 no próprio processo com atraso simulado por mensagem e
+ * gera requisições em malha aberta (taxa fixa, independente das respostas)
+ * acima da capacidade do servidor. As requisições aguardam em uma fila do
+ * cliente e são atendidas por algumas conexões síncronas.
+ *
+ * Cada requisição só é útil se a resposta chegar até prazoMs após a sua
+ * criação. Três rodadas são comparadas:
+ * - Sem prazo (versão 3): tudo é enviado e processado; a fila cresce e quase
+ *   todas as respostas chegam tarde, desperdiçando o trabalho do servidor
+ * - Prazo só no servidor (versão 4): o cliente envia tudo, com o tempo
+ *   restante no quadro (o menor prazo, 1 ms, para o que já venceu na fila);
+ *   o ganho vem apenas do servidor recusar ou interromper o trabalho que não
+ *   cabe no prazo
+ * - Prazo no cliente e no servidor (versão 4): além disso, o cliente não
+ *   envia o que já expirou na fila
+ *
+ * Argumentos: [taxa] [segundos] [prazoMs] [atrasoMs] [conexoes] [porta]
+ * Exemplo: java TestePrazos 600 5 100 10 4 4801
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Comparação de goodput sob sobrecarga, com e sem prazo por requisição.
+ */
+public class TestePrazos {
+
+    // ==================== CONSTANTES ====================
+
+    /** Marca de fim de carga colocada na fila, uma por conexão */
+    private static final long FIM_CARGA = Long.MIN_VALUE;
+
+    /** Mensagem enviada em cada requisição */
+    private static final String MENSAGEM = "GET prazo";
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do teste.
+     *
+     * @param args [taxa] [segundos] [prazoMs] [atrasoMs] [conexoes] [porta]
+     * @throws Exception se o servidor não puder ser iniciado
+     */
+    public static void main(String[] args) throws Exception {
+        int taxa = args.length > 0 ? Integer.parseInt(args[0]) : 600;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int prazoMs = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int atrasoMs = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int conexoes = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+        int porta = args.length > 5 ? Integer.parseInt(args[5]) : 4801;
+
+        Logger.getLogger(ServidorThread.class.getName()).setLevel(Level.WARNING);
+
+        Servidor4 servidor = new Servidor4(
+                new ConfiguracaoServidor(porta, CompressorMensagens.LIMIAR_PADRAO, atrasoMs, false));
+        Thread threadServidor = new Thread(servidor::iniciarServidor, "Servidor4-Prazos");
+        threadServidor.setDaemon(true);
+        threadServidor.start();
+        Thread.sleep(500);
+
+        int capacidade = conexoes * 1000 / Math.max(1, atrasoMs);
+        System.out.println("=== Teste de Prazos ===");
+        System.out.println("Carga: " + taxa + " req/s por " + segundos + " s | Capacidade: ~" + capacidade +
+                           " req/s (" + conexoes + " conexões x " + atrasoMs + " ms) | Prazo: " + prazoMs + " ms");
+
+        Resultado semPrazo = executarRodada(porta, taxa, segundos, prazoMs, conexoes, false, false);
+        semPrazo.exibir("Sem prazo (versão " + ProtocoloBinario.VERSAO_COMPRIMIDA + ")", segundos);
+
+        Resultado prazoServidor = executarRodada(porta, taxa, segundos, prazoMs, conexoes, true, false);
+        prazoServidor.exibir("Prazo só no servidor (versão " + ProtocoloBinario.VERSAO_PRAZO + ")", segundos);
+
+        Resultado comPrazo = executarRodada(porta, taxa, segundos, prazoMs, conexoes, true, true);
+        comPrazo.exibir("Prazo no cliente e no servidor (versão " + ProtocoloBinario.VERSAO_PRAZO + ")", segundos);
+    }
+
+    // ==================== RODADA ====================
+
+    /**
+     * Gera a carga em malha aberta e aguarda todas as respostas.
+     *
+     * @param comPrazo Envia o prazo restante em cada quadro
+     * @param descartarNoCliente Não envia as requisições que expiraram na fila do cliente
+     */
+    private static Resultado executarRodada(int porta, int taxa, int segundos, int prazoMs,
+                                            int conexoes, boolean comPrazo, boolean descartarNoCliente)
+            throws IOException, InterruptedException {
+        Resultado resultado = new Resultado();
+        BlockingQueue<Long> fila = new LinkedBlockingQueue<>();
+        long expiradasServidorAntes = ServidorThread.getRequisicoesExpiradas();
+
+        List<Trabalhador> trabalhadores = new ArrayList<>();
+        for (int i = 0; i < conexoes; i++) {
+            Trabalhador trabalhador = new Trabalhador(conectar(porta, comPrazo), fila, resultado,
+                                                      comPrazo ? prazoMs : 0, descartarNoCliente,
+                                                      TimeUnit.MILLISECONDS.toNanos(prazoMs));
+            trabalhadores.add(trabalhador);
+            trabalhador.start();
+        }
+
+        // Instantes de chegada pré-calculados: atrasos do gerador não reduzem a carga
+        long total = (long) taxa * segundos;
+        long intervalo = 1_000_000_000L / taxa;
+        long inicio = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long chegada = inicio + i * intervalo;
+            long espera = chegada - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            }
+            fila.add(chegada);
+        }
+        for (int i = 0; i < conexoes; i++) {
+            fila.add(FIM_CARGA);
+        }
+
+        for (Trabalhador trabalhador : trabalhadores) {
+            trabalhador.join();
+            resultado.latencias.adicionarTodas(trabalhador.latencias);
+        }
+        resultado.duracaoNanos = System.nanoTime() - inicio;
+        resultado.descartadasServidor = ServidorThread.getRequisicoesExpiradas() - expiradasServidorAntes;
+        return resultado;
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Abre uma conexão TCP e negocia a versão com ou sem prazo.
+     */
+    private static Conexao conectar(int porta, boolean comPrazo) throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress("127.0.0.1", porta), 1000);
+        socket.setTcpNoDelay(true);
+        DataInputStream entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        int versao = ProtocoloBinario.negociarCliente(entrada, saida,
+                comPrazo ? ProtocoloBinario.VERSAO_PRAZO : ProtocoloBinario.VERSAO_COMPRIMIDA);
+        if (comPrazo && versao < ProtocoloBinario.VERSAO_PRAZO) {
+            socket.close();
+            throw new IOException("Servidor não aceitou o protocolo com prazo (versão " + versao + ")");
+        }
+        return new Conexao(socket, entrada, saida);
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * Conexão síncrona que consome requisições da fila do cliente.
+     */
+    private static class Trabalhador extends Thread {
+        private final Conexao conexao;
+        private final BlockingQueue<Long> fila;
+        private final Resultado resultado;
+        private final int prazoMs;
+        private final boolean descartarNoCliente;
+        private final long prazoNanos;
+        final AmostrasLatencia latencias = new AmostrasLatencia();
+
+        Trabalhador(Conexao conexao, BlockingQueue<Long> fila, Resultado resultado,
+                    int prazoMs, boolean descartarNoCliente, long prazoNanos) {
+            super("Trabalhador-Prazos");
+            this.conexao = conexao;
+            this.fila = fila;
+            this.resultado = resultado;
+            this.prazoMs = prazoMs;
+            this.descartarNoCliente = descartarNoCliente;
+            this.prazoNanos = prazoNanos;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    long chegada = fila.take();
+                    if (chegada == FIM_CARGA) {
+                        break;
+                    }
+                    atender(chegada);
+                }
+                conexao.close();
+            } catch (IOException e) {
+                System.err.println("Conexão do teste falhou: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Envia uma requisição com o tempo que ainda lhe resta e classifica a resposta.
+         */
+        private void atender(long chegada) throws IOException {
+            long restanteMs = 0;
+            if (prazoMs > 0) {
+                restanteMs = prazoMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - chegada);
+                if (restanteMs <= 0) {
+                    if (descartarNoCliente) {
+                        resultado.descartadasCliente.increment();
+                        return;
+                    }
+                    // Já vencida: vai com o menor prazo do protocolo e o servidor decide
+                    restanteMs = 1;
+                }
+            }
+
+            String resposta = conexao.enviar(MENSAGEM, restanteMs);
+            long latencia = System.nanoTime() - chegada;
+
+            if (ProtocoloBinario.RESPOSTA_PRAZO_EXPIRADO.equals(resposta)) {
+                resultado.respostasExpiradas.increment();
+            } else if (latencia <= prazoNanos) {
+                resultado.uteis.increment();
+                latencias.registrar(latencia);
+            } else {
+                resultado.atrasadas.increment();
+            }
+        }
+    }
+
+    /**
+     * Conexão com o Servidor4 usando quadros com flags.
+     */
+    private static class Conexao implements Closeable {
+        private final Socket socket;
+        private final DataInputStream entrada;
+        private final DataOutputStream saida;
+        private final CompressorMensagens compressor = new CompressorMensagens();
+
+        Conexao(Socket socket, DataInputStream entrada, DataOutputStream saida) {
+            this.socket = socket;
+            this.entrada = entrada;
+            this.saida = saida;
+        }
+
+        String enviar(String mensagem, long prazoMs) throws IOException {
+            compressor.escreverTexto(saida, mensagem, prazoMs);
+            return compressor.lerTexto(entrada);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                compressor.escreverTexto(saida, "terminar");
+                compressor.lerTexto(entrada);
+            } finally {
+                compressor.encerrar();
+                socket.close();
+            }
+        }
+    }
+
+    /**
+     * Contadores de uma rodada.
+     */
+    private static class Resultado {
+        final LongAdder uteis = new LongAdder();
+        final LongAdder atrasadas = new LongAdder();
+        final LongAdder respostasExpiradas = new LongAdder();
+        final LongAdder descartadasCliente = new LongAdder();
+        final AmostrasLatencia latencias = new AmostrasLatencia();
+        long descartadasServidor;
+        long duracaoNanos;
+
+        void exibir(String titulo, int segundos) {
+            System.out.println("\n--- " + titulo + " ---");
+            System.out.printf("Goodput: %.0f respostas úteis/s (%d úteis)%n",
+                              uteis.sum() / (double) segundos, uteis.sum());
+            System.out.println("Respostas após o prazo (trabalho desperdiçado): " + atrasadas.sum());
+            System.out.println("Descartadas no cliente (expiraram na fila): " + descartadasCliente.sum());
+            System.out.println("Descartadas pelo servidor: " + descartadasServidor +
+                               " (respostas \"" + ProtocoloBinario.RESPOSTA_PRAZO_EXPIRADO + "\": " +
+                               respostasExpiradas.sum() + ")");
+            System.out.printf("Tempo até a última resposta: %.1f s%n", duracaoNanos / 1e9);
+            System.out.println("Latência das respostas úteis: " + latencias.resumo());
+        }
+    }
+}
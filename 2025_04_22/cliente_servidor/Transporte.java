@@ -0,0 +1,193 @@
+/**
+ * Transporte - Abstração do meio usado por uma conexão cliente-servidor
+ *
+ * Permite que ServidorThread e Cliente4 executem os mesmos protocolos
+ * (legado, binário e comprimido) sobre meios diferentes:
+ * - TCP: Socket convencional (inclusive loopback)
+ * - Unix: SocketChannel com UnixDomainSocketAddress (JDK 16+), que evita a
+ *   pilha TCP quando cliente e servidor estão no mesmo host
+ * - Memória compartilhada: anéis em arquivo mapeado (TransporteMemoriaCompartilhada)
+ *
+ * Os streams de um SocketChannel bloqueante serializam leitura e escrita,
+ * o que é compatível com os protocolos de requisição/confirmação usados aqui.
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+import java.io.*;
+import java.net.*;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Meio de comunicação de uma conexão.
+ */
+public interface Transporte extends Closeable {
+
+    /** Prefixo que identifica endereços de socket Unix (ex.: unix:/tmp/servidor4.sock) */
+    String PREFIXO_UNIX = "unix:";
+
+    /** Prefixo que identifica diretórios de memória compartilhada (ex.: shm:/dev/shm/servidor4) */
+    String PREFIXO_MEMORIA = "shm:";
+
+    /**
+     * Retorna o stream de entrada da conexão.
+     *
+     * @return Stream de entrada
+     * @throws IOException se o stream não puder ser obtido
+     */
+    InputStream getEntrada() throws IOException;
+
+    /**
+     * Retorna o stream de saída da conexão.
+     *
+     * @return Stream de saída
+     * @throws IOException se o stream não puder ser obtido
+     */
+    OutputStream getSaida() throws IOException;
+
+    /**
+     * Descreve o ponto remoto, para logs.
+     *
+     * @return Descrição do ponto remoto
+     */
+    String getDescricao();
+
+    /**
+     * Verifica se a conexão ainda está aberta.
+     *
+     * @return true se aberta
+     */
+    boolean isAberto();
+
+    // ==================== FÁBRICAS ====================
+
+    /**
+     * Cria um transporte sobre um Socket TCP.
+     *
+     * @param socket Socket conectado
+     * @return Transporte TCP
+     */
+    static Transporte tcp(Socket socket) {
+        return new TransporteTcp(socket);
+    }
+
+    /**
+     * Cria um transporte sobre um SocketChannel (TCP ou Unix).
+     *
+     * @param canal Canal conectado em modo bloqueante
+     * @return Transporte baseado em canal
+     */
+    static Transporte canal(SocketChannel canal) {
+        return new TransporteCanal(canal);
+    }
+
+    /**
+     * Conecta a um socket Unix.
+     *
+     * @param caminho Caminho do arquivo de socket
+     * @return Transporte conectado
+     * @throws IOException se a conexão falhar
+     */
+    static Transporte conectarUnix(Path caminho) throws IOException {
+        SocketChannel canal = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            canal.connect(UnixDomainSocketAddress.of(caminho));
+            return new TransporteCanal(canal);
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    // ==================== IMPLEMENTAÇÕES ====================
+
+    /**
+     * Transporte sobre Socket TCP.
+     */
+    final class TransporteTcp implements Transporte {
+        private final Socket socket;
+
+        TransporteTcp(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public InputStream getEntrada() throws IOException {
+            return socket.getInputStream();
+        }
+
+        @Override
+        public OutputStream getSaida() throws IOException {
+            return socket.getOutputStream();
+        }
+
+        @Override
+        public String getDescricao() {
+            return String.valueOf(socket.getRemoteSocketAddress());
+        }
+
+        @Override
+        public boolean isAberto() {
+            return !socket.isClosed() && socket.isConnected();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * Transporte sobre SocketChannel bloqueante.
+     */
+    final class TransporteCanal implements Transporte {
+        private final SocketChannel canal;
+        private final String descricao;
+
+        TransporteCanal(SocketChannel canal) {
+            this.canal = canal;
+            String remoto;
+            try {
+                SocketAddress endereco = canal.getRemoteAddress();
+                remoto = endereco instanceof UnixDomainSocketAddress
+                        ? PREFIXO_UNIX + ((UnixDomainSocketAddress) endereco).getPath()
+                        : String.valueOf(endereco);
+                if (remoto.equals(PREFIXO_UNIX)) {
+                    remoto = PREFIXO_UNIX + "(cliente anônimo)";
+                }
+            } catch (IOException e) {
+                remoto = "canal desconhecido";
+            }
+            this.descricao = remoto;
+        }
+
+        @Override
+        public InputStream getEntrada() {
+            return Channels.newInputStream(canal);
+        }
+
+        @Override
+        public OutputStream getSaida() {
+            return Channels.newOutputStream(canal);
+        }
+
+        @Override
+        public String getDescricao() {
+            return descricao;
+        }
+
+        @Override
+        public boolean isAberto() {
+            return canal.isOpen() && canal.isConnected();
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+}
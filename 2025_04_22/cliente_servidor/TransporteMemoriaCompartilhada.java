@@ -0,0 +1,346 @@
+/**
+ * TransporteMemoriaCompartilhada - Conexão entre processos por arquivo mapeado em memória
+ *
+ * Cada conexão é um arquivo mapeado pelos dois processos, com dois AnelMemoria
+ * (um por sentido). Os streams expostos são bytes puros, por isso ServidorThread
+ * e Cliente4 executam os protocolos legado, binário e comprimido sem alterações.
+ *
+ * Layout do arquivo:
+ *   0    mágico, capacidade de cada anel, estratégia de espera escolhida pelo cliente
+ *   64   estado da conexão (PRONTO, ACEITO, ABANDONADO)
+ *   128  anel cliente -> servidor (controle + dados)
+ *   ...  anel servidor -> cliente (controle + dados)
+ *
+ * Estabelecimento da conexão (o "servidor" é um diretório):
+ * 1. O cliente cria conexao-<pid>-<n>.tmp, inicializa o cabeçalho e marca PRONTO
+ * 2. Renomeia atomicamente para .anel, tornando o arquivo visível ao servidor
+ * 3. O servidor varre o diretório, troca PRONTO por ACEITO (compareAndSet) e
+ *    remove o nome do arquivo; o mapeamento continua válido nos dois processos
+ * 4. Se o servidor não aceitar a tempo, o cliente troca PRONTO por ABANDONADO
+ *
+ * Limitação: não há aviso quando o processo par morre sem fechar a conexão;
+ * o lado que espera continua aguardando (como um socket sem keepalive). Por
+ * isso a estratégia do cabeçalho vale só para o cliente: o servidor sempre
+ * espera com ESPERA_SERVIDOR, que estaciona a thread, e um cliente que morre
+ * (ou que escolheu GIRO) não mantém uma thread do servidor girando em um
+ * núcleo para sempre.
+ *
+ * @author Sistema de Comunicação TCP
+ * @version 1.0
+ * @since 2025-04-22
+ */
+
+import java.io.*;
+import java.net.ConnectException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Transporte sobre anéis em memória compartilhada.
+ */
+public final class TransporteMemoriaCompartilhada implements Transporte {
+
+    // ==================== CONSTANTES ====================
+
+    /** Capacidade padrão de cada anel, em bytes */
+    public static final int CAPACIDADE_PADRAO = 64 * 1024;
+
+    /** Extensão dos arquivos de conexão visíveis ao servidor */
+    private static final String EXTENSAO_CONEXAO = ".anel";
+
+    /** Extensão dos arquivos ainda em inicialização */
+    private static final String EXTENSAO_TEMPORARIA = ".tmp";
+
+    /** Valor mágico que identifica um arquivo de conexão válido */
+    private static final long MAGICO = 0x414E454C_53443235L; // "ANELSD25"
+
+    /** Deslocamentos do cabeçalho */
+    private static final int OFFSET_MAGICO = 0;
+    private static final int OFFSET_CAPACIDADE = 8;
+    private static final int OFFSET_ESTRATEGIA = 16;
+    private static final int OFFSET_ESTADO = AnelMemoria.LINHA_CACHE;
+    private static final int OFFSET_ANEIS = 2 * AnelMemoria.LINHA_CACHE;
+
+    /** Estratégia de espera do lado servidor, qualquer que seja a escolhida pelo cliente */
+    private static final AnelMemoria.EstrategiaEspera ESPERA_SERVIDOR = AnelMemoria.EstrategiaEspera.ESTACIONAR;
+
+    /** Estados da conexão */
+    private static final long ESTADO_PRONTO = 1;
+    private static final long ESTADO_ACEITO = 2;
+    private static final long ESTADO_ABANDONADO = 3;
+
+    /** Tempo máximo que o cliente aguarda o aceite do servidor */
+    private static final int TIMEOUT_CONEXAO_MS = 1000;
+
+    /** Intervalo entre varreduras do diretório pelo servidor */
+    private static final long INTERVALO_VARREDURA_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** Sequência local usada nos nomes dos arquivos de conexão */
+    private static final AtomicInteger SEQUENCIA = new AtomicInteger();
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Anel de onde este lado lê */
+    private final AnelMemoria anelEntrada;
+
+    /** Anel onde este lado escreve */
+    private final AnelMemoria anelSaida;
+
+    /** Stream de entrada sobre o anel de entrada */
+    private final InputStream entrada;
+
+    /** Stream de saída sobre o anel de saída */
+    private final OutputStream saida;
+
+    /** Descrição da conexão, para logs */
+    private final String descricao;
+
+    /** Indica se este lado ainda não fechou a conexão */
+    private volatile boolean aberto = true;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria o transporte sobre um arquivo já mapeado.
+     */
+    private TransporteMemoriaCompartilhada(MappedByteBuffer memoria, boolean ladoCliente,
+                                           String descricao) {
+        int capacidade = (int) (long) AnelMemoria.LONGS.get(memoria, OFFSET_CAPACIDADE);
+        AnelMemoria.EstrategiaEspera espera = ladoCliente
+                ? AnelMemoria.EstrategiaEspera.values()[(int) (long) AnelMemoria.LONGS.get(memoria, OFFSET_ESTRATEGIA)]
+                : ESPERA_SERVIDOR;
+
+        AnelMemoria clienteServidor = new AnelMemoria(memoria, OFFSET_ANEIS, capacidade, espera);
+        AnelMemoria servidorCliente = new AnelMemoria(
+                memoria, OFFSET_ANEIS + AnelMemoria.tamanhoTotal(capacidade), capacidade, espera);
+
+        this.anelEntrada = ladoCliente ? servidorCliente : clienteServidor;
+        this.anelSaida = ladoCliente ? clienteServidor : servidorCliente;
+        this.entrada = new EntradaAnel();
+        this.saida = new SaidaAnel();
+        this.descricao = descricao;
+    }
+
+    // ==================== LADO CLIENTE ====================
+
+    /**
+     * Conecta a um servidor que atende no diretório informado.
+     *
+     * @param diretorio Diretório de conexões do servidor
+     * @param capacidade Capacidade de cada anel (potência de dois, mínimo 64)
+     * @param espera Estratégia de espera do cliente (o servidor usa sempre ESPERA_SERVIDOR)
+     * @return Transporte conectado
+     * @throws IOException se o diretório não existir ou o servidor não aceitar a tempo
+     */
+    public static TransporteMemoriaCompartilhada conectar(Path diretorio, int capacidade,
+                                                          AnelMemoria.EstrategiaEspera espera)
+            throws IOException {
+        if (capacidade < AnelMemoria.LINHA_CACHE || Integer.bitCount(capacidade) != 1) {
+            throw new IllegalArgumentException("Capacidade deve ser potência de dois e no mínimo " +
+                                               AnelMemoria.LINHA_CACHE);
+        }
+        if (!Files.isDirectory(diretorio)) {
+            throw new ConnectException("Nenhum servidor em " + diretorio);
+        }
+
+        String nome = "conexao-" + ProcessHandle.current().pid() + "-" + SEQUENCIA.incrementAndGet();
+        Path temporario = diretorio.resolve(nome + EXTENSAO_TEMPORARIA);
+        Path arquivo = diretorio.resolve(nome + EXTENSAO_CONEXAO);
+        MappedByteBuffer memoria;
+
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE_NEW,
+                                                  StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            memoria = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanhoArquivo(capacidade));
+        }
+        AnelMemoria.LONGS.set(memoria, OFFSET_MAGICO, MAGICO);
+        AnelMemoria.LONGS.set(memoria, OFFSET_CAPACIDADE, (long) capacidade);
+        AnelMemoria.LONGS.set(memoria, OFFSET_ESTRATEGIA, (long) espera.ordinal());
+        AnelMemoria.LONGS.setRelease(memoria, OFFSET_ESTADO, ESTADO_PRONTO);
+
+        Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE);
+
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_CONEXAO_MS);
+        while ((long) AnelMemoria.LONGS.getAcquire(memoria, OFFSET_ESTADO) != ESTADO_ACEITO) {
+            if (System.nanoTime() > limite
+                    && AnelMemoria.LONGS.compareAndSet(memoria, OFFSET_ESTADO, ESTADO_PRONTO, ESTADO_ABANDONADO)) {
+                Files.deleteIfExists(arquivo);
+                throw new ConnectException("Servidor não aceitou a conexão em " + TIMEOUT_CONEXAO_MS + "ms");
+            }
+            LockSupport.parkNanos(INTERVALO_VARREDURA_NANOS / 10);
+        }
+
+        return new TransporteMemoriaCompartilhada(memoria, true, Transporte.PREFIXO_MEMORIA + arquivo);
+    }
+
+    // ==================== LADO SERVIDOR ====================
+
+    /**
+     * Prepara o diretório de conexões, removendo arquivos de execuções anteriores.
+     *
+     * @param diretorio Diretório de conexões
+     * @throws IOException se o diretório não puder ser criado ou limpo
+     */
+    public static void prepararDiretorio(Path diretorio) throws IOException {
+        Files.createDirectories(diretorio);
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "conexao-*")) {
+            for (Path arquivo : arquivos) {
+                Files.deleteIfExists(arquivo);
+            }
+        }
+    }
+
+    /**
+     * Aguarda a próxima conexão de cliente no diretório.
+     *
+     * @param diretorio Diretório de conexões
+     * @return Transporte conectado ao cliente
+     * @throws IOException se o diretório não puder ser lido
+     * @throws InterruptedIOException se a thread for interrompida
+     */
+    public static TransporteMemoriaCompartilhada aceitar(Path diretorio) throws IOException {
+        while (true) {
+            try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "*" + EXTENSAO_CONEXAO)) {
+                for (Path arquivo : arquivos) {
+                    TransporteMemoriaCompartilhada transporte = tentarAceitar(arquivo);
+                    if (transporte != null) {
+                        return transporte;
+                    }
+                }
+            }
+            LockSupport.parkNanos(INTERVALO_VARREDURA_NANOS);
+            if (Thread.interrupted()) {
+                throw new InterruptedIOException("Aceitação de conexões interrompida");
+            }
+        }
+    }
+
+    /**
+     * Tenta aceitar um arquivo de conexão; retorna null se ele não estiver disponível.
+     */
+    private static TransporteMemoriaCompartilhada tentarAceitar(Path arquivo) {
+        MappedByteBuffer memoria;
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (canal.size() < OFFSET_ANEIS) {
+                return null;
+            }
+            memoria = canal.map(FileChannel.MapMode.READ_WRITE, 0, canal.size());
+        } catch (IOException e) {
+            return null; // Removido pelo cliente (abandono) ou por outra varredura
+        }
+
+        long capacidade = (long) AnelMemoria.LONGS.get(memoria, OFFSET_CAPACIDADE);
+        long estrategia = (long) AnelMemoria.LONGS.get(memoria, OFFSET_ESTRATEGIA);
+        boolean valido = (long) AnelMemoria.LONGS.get(memoria, OFFSET_MAGICO) == MAGICO
+                && capacidade >= AnelMemoria.LINHA_CACHE && capacidade <= Integer.MAX_VALUE / 4
+                && memoria.capacity() == tamanhoArquivo((int) capacidade)
+                && estrategia >= 0 && estrategia < AnelMemoria.EstrategiaEspera.values().length;
+        boolean aceito = valido
+                && AnelMemoria.LONGS.compareAndSet(memoria, OFFSET_ESTADO, ESTADO_PRONTO, ESTADO_ACEITO);
+
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            // O arquivo será removido na próxima preparação do diretório
+        }
+        return aceito ? new TransporteMemoriaCompartilhada(memoria, false, Transporte.PREFIXO_MEMORIA + arquivo)
+                      : null;
+    }
+
+    // ==================== TRANSPORTE ====================
+
+    @Override
+    public InputStream getEntrada() {
+        return entrada;
+    }
+
+    @Override
+    public OutputStream getSaida() {
+        return saida;
+    }
+
+    @Override
+    public String getDescricao() {
+        return descricao;
+    }
+
+    @Override
+    public boolean isAberto() {
+        return aberto;
+    }
+
+    /**
+     * Encerra os dois sentidos; o mapeamento é liberado quando coletado.
+     */
+    @Override
+    public void close() {
+        aberto = false;
+        anelSaida.fecharProdutor();
+        anelEntrada.fecharConsumidor();
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Tamanho do arquivo de conexão para a capacidade informada.
+     */
+    private static int tamanhoArquivo(int capacidade) {
+        return OFFSET_ANEIS + 2 * AnelMemoria.tamanhoTotal(capacidade);
+    }
+
+    // ==================== STREAMS ====================
+
+    /**
+     * InputStream que lê do anel de entrada.
+     */
+    private final class EntradaAnel extends InputStream {
+        private final byte[] umByte = new byte[1];
+
+        @Override
+        public int read() throws IOException {
+            return read(umByte, 0, 1) < 0 ? -1 : umByte[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] destino, int deslocamento, int tamanho) throws IOException {
+            return anelEntrada.ler(destino, deslocamento, tamanho);
+        }
+
+        @Override
+        public int available() {
+            return anelEntrada.disponivel();
+        }
+
+        @Override
+        public void close() {
+            anelEntrada.fecharConsumidor();
+        }
+    }
+
+    /**
+     * OutputStream que escreve no anel de saída; os bytes ficam visíveis ao par
+     * assim que escritos, por isso flush não tem efeito.
+     */
+    private final class SaidaAnel extends OutputStream {
+        private final byte[] umByte = new byte[1];
+
+        @Override
+        public void write(int valor) throws IOException {
+            umByte[0] = (byte) valor;
+            anelSaida.escrever(umByte, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] origem, int deslocamento, int tamanho) throws IOException {
+            anelSaida.escrever(origem, deslocamento, tamanho);
+        }
+
+        @Override
+        public void close() {
+            anelSaida.fecharProdutor();
+        }
+    }
+}
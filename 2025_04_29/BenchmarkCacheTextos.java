@@ -0,0 +1,157 @@
+/**
+ * BenchmarkCacheTextos - Heap, GC e taxa de acertos do CacheTextos
+ *
+ * Codifica N mensagens no formato compacto cujos textos seguem uma
+ * distribuição de Zipf sobre D textos distintos (poucos textos muito
+ * frequentes e uma cauda longa, como no tráfego real) e as decodifica
+ * retendo todas, como um servidor que guarda as mensagens recebidas. A
+ * decodificação é repetida sem cache e com caches de várias capacidades.
+ *
+ * Para cada configuração são reportados:
+ * - taxa de acertos do cache
+ * - tempo de decodificação por mensagem
+ * - heap ocupado pelas mensagens retidas (medido após System.gc())
+ * - coletas e tempo de GC durante a decodificação
+ *
+ * Argumentos: [mensagens] [distintos] [expoente]
+ * Exemplo: java -Xmx2g BenchmarkCacheTextos 2000000 100000 1.0
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Comparação da decodificação com e sem cache de textos.
+ */
+public class BenchmarkCacheTextos {
+
+    // ==================== CONSTANTES ====================
+
+    /** Capacidades avaliadas (0 = sem cache) */
+    private static final int[] CAPACIDADES = {0, 1024, 16_384, 65_536, 262_144};
+
+    /** Semente da escolha dos textos */
+    private static final long SEMENTE = 42;
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do benchmark.
+     *
+     * @param args [mensagens] [distintos] [expoente]
+     * @throws IOException se a codificação falhar
+     */
+    public static void main(String[] args) throws IOException {
+        int mensagens = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int distintos = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        double expoente = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+
+        byte[] trafego = gerarTrafego(mensagens, distintos, expoente);
+        System.out.println("=== Benchmark do Cache de Textos ===");
+        System.out.printf("Mensagens: %d | Textos distintos: %d | Zipf s=%.2f | Tráfego: %.1f MB%n%n",
+                          mensagens, distintos, expoente, trafego.length / (1024.0 * 1024.0));
+        System.out.println(String.format("%10s %10s %12s %14s %10s %10s", "cache", "acertos", "decodificar",
+                                         "heap retido", "coletas", "GC"));
+
+        // Aquecimento do JIT, sem medir
+        decodificar(trafego, mensagens, new CacheTextos(CacheTextos.CAPACIDADE_PADRAO));
+        decodificar(trafego, mensagens, null);
+
+        for (int capacidade : CAPACIDADES) {
+            medir(trafego, mensagens, capacidade == 0 ? null : new CacheTextos(capacidade));
+        }
+    }
+
+    // ==================== MEDIÇÃO ====================
+
+    /**
+     * Decodifica o tráfego retendo as mensagens e exibe uma linha da tabela.
+     */
+    private static void medir(byte[] trafego, int mensagens, CacheTextos cache) throws IOException {
+        long heapAntes = heapOcupado();
+        long[] gcAntes = estatisticasGc();
+        long inicio = System.nanoTime();
+        List<MensagemTeste> retidas = decodificar(trafego, mensagens, cache);
+        long nanos = System.nanoTime() - inicio;
+        long[] gcDepois = estatisticasGc();
+        long heapRetido = heapOcupado() - heapAntes;
+
+        System.out.println(String.format("%10s %9.1f%% %9.0f ns %11.1f MB %10d %7d ms",
+                cache == null ? "nenhum" : String.valueOf(cache.getCapacidade()),
+                cache == null ? 0.0 : 100 * cache.getTaxaAcertos(), (double) nanos / mensagens,
+                heapRetido / (1024.0 * 1024.0), gcDepois[0] - gcAntes[0], gcDepois[1] - gcAntes[1]));
+        if (retidas.size() != mensagens) {
+            throw new IllegalStateException("Decodificadas " + retidas.size() + " de " + mensagens);
+        }
+    }
+
+    /**
+     * Decodifica todas as mensagens do tráfego e as retém em uma lista.
+     */
+    private static List<MensagemTeste> decodificar(byte[] trafego, int mensagens, CacheTextos cache)
+            throws IOException {
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(trafego));
+        List<MensagemTeste> retidas = new ArrayList<>(mensagens);
+        for (int i = 0; i < mensagens; i++) {
+            entrada.readUnsignedByte();
+            retidas.add(CodecMensagem.lerCorpo(entrada, cache));
+        }
+        return retidas;
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Codifica as mensagens, escolhendo o texto de cada uma pela distribuição de Zipf.
+     */
+    private static byte[] gerarTrafego(int mensagens, int distintos, double expoente) throws IOException {
+        double[] acumulada = new double[distintos];
+        double soma = 0;
+        for (int i = 0; i < distintos; i++) {
+            soma += 1 / Math.pow(i + 1, expoente);
+            acumulada[i] = soma;
+        }
+        SplittableRandom aleatorio = new SplittableRandom(SEMENTE);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(mensagens * 48);
+        DataOutputStream saida = new DataOutputStream(bytes);
+        for (int i = 0; i < mensagens; i++) {
+            int posicao = Arrays.binarySearch(acumulada, aleatorio.nextDouble() * soma);
+            int texto = posicao >= 0 ? posicao : Math.min(-posicao - 1, distintos - 1);
+            CodecMensagem.escrever(saida, new MensagemTeste("Pedido " + (100_000 + texto) +
+                                                            " confirmado, entrega em 3 dias úteis"));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Heap ocupado após coletas completas.
+     */
+    private static long heapOcupado() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Número de coletas e tempo total de GC, somados entre os coletores.
+     */
+    private static long[] estatisticasGc() {
+        long[] totais = new long[2];
+        for (GarbageCollectorMXBean coletor : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totais[0] += Math.max(coletor.getCollectionCount(), 0);
+            totais[1] += Math.max(coletor.getCollectionTime(), 0);
+        }
+        return totais;
+    }
+}
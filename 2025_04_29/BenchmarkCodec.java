@@ -0,0 +1,140 @@
+/**
+ * BenchmarkCodec - Serialização Java x formato compacto para MensagemTeste
+ *
+ * Para alguns textos representativos, mede:
+ * - Bytes enviados por conexão (stream completo, com cabeçalho e descritor de classe)
+ * - Tempo médio de codificação e de decodificação por mensagem (ns/op)
+ *
+ * Cada medição é precedida por um aquecimento com o mesmo número de
+ * iterações, para que o JIT já tenha compilado os dois caminhos.
+ *
+ * Argumentos: [iteracoes]
+ * Exemplo: java BenchmarkCodec 200000
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+
+/**
+ * Comparação de tamanho e custo entre os dois formatos de MensagemTeste.
+ */
+public class BenchmarkCodec {
+
+    // ==================== CONSTANTES ====================
+
+    /** Textos medidos: curto, longo ASCII e com caracteres multibyte */
+    private static final String[] TEXTOS = {
+        "Mensagem de teste enviada pelo Cliente5",
+        "x".repeat(1024),
+        "Comunicação distribuída ✓ 分散システム ".repeat(8)
+    };
+
+    /** Evita que o JIT elimine o trabalho medido */
+    private static volatile long sumidouro;
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do benchmark.
+     *
+     * @param args [iteracoes]
+     * @throws Exception se a serialização falhar
+     */
+    public static void main(String[] args) throws Exception {
+        int iteracoes = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        System.out.println("=== Benchmark de Codificação de MensagemTeste ===");
+        System.out.println("Iterações por medição: " + iteracoes);
+        System.out.printf("%n%-12s %-10s %8s %14s %14s%n", "Texto", "Formato", "Bytes", "Codificar", "Decodificar");
+
+        for (String texto : TEXTOS) {
+            MensagemTeste mensagem = new MensagemTeste(texto);
+            String rotulo = texto.length() + " chars";
+
+            byte[] java = serializarJava(mensagem);
+            byte[] compacto = CodecMensagem.codificar(mensagem);
+            conferir(mensagem, desserializarJava(java));
+            conferir(mensagem, CodecMensagem.decodificar(compacto));
+
+            exibir(rotulo, "java", java.length,
+                   medir(() -> serializarJava(mensagem).length, iteracoes),
+                   medir(() -> desserializarJava(java).getTexto().length(), iteracoes));
+            exibir(rotulo, "compacto", compacto.length,
+                   medir(() -> CodecMensagem.codificar(mensagem).length, iteracoes),
+                   medir(() -> CodecMensagem.decodificar(compacto).getTexto().length(), iteracoes));
+        }
+    }
+
+    // ==================== MEDIÇÕES ====================
+
+    /**
+     * Executa a operação uma rodada para aquecimento e outra para medição.
+     *
+     * @param operacao Operação medida; o retorno é acumulado para não ser eliminado
+     * @param iteracoes Iterações por rodada
+     * @return Tempo médio por operação na segunda rodada, em ns
+     * @throws Exception se a operação falhar
+     */
+    private static double medir(Operacao operacao, int iteracoes) throws Exception {
+        double nsPorOperacao = 0;
+        for (int rodada = 0; rodada < 2; rodada++) {
+            long soma = 0;
+            long inicio = System.nanoTime();
+            for (int i = 0; i < iteracoes; i++) {
+                soma += operacao.executar();
+            }
+            nsPorOperacao = (System.nanoTime() - inicio) / (double) iteracoes;
+            sumidouro += soma;
+        }
+        return nsPorOperacao;
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Serializa a mensagem como o Cliente5 faz em cada conexão.
+     */
+    private static byte[] serializarJava(MensagemTeste mensagem) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream saida = new ObjectOutputStream(bytes)) {
+            saida.writeObject(mensagem);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Desserializa um stream completo, como o Servidor5 faz em cada conexão.
+     */
+    private static MensagemTeste desserializarJava(byte[] dados) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream entrada = new ObjectInputStream(new ByteArrayInputStream(dados))) {
+            return (MensagemTeste) entrada.readObject();
+        }
+    }
+
+    /**
+     * Confere que a decodificação reproduz a mensagem original.
+     */
+    private static void conferir(MensagemTeste esperada, MensagemTeste obtida) {
+        if (!esperada.equals(obtida)) {
+            throw new IllegalStateException("Decodificação divergente: " + obtida);
+        }
+    }
+
+    /**
+     * Operação medida pelo benchmark.
+     */
+    @FunctionalInterface
+    private interface Operacao {
+        long executar() throws Exception;
+    }
+
+    /**
+     * Exibe uma linha da tabela de resultados.
+     */
+    private static void exibir(String rotulo, String formato, int bytes, double nsCodificar, double nsDecodificar) {
+        System.out.printf("%-12s %-10s %8d %11.0f ns %11.0f ns%n", rotulo, formato, bytes, nsCodificar, nsDecodificar);
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * BenchmarkDespacho - Custo de despacho com 50 tipos de mensagem
+ *
+ * Cadastra 50 tipos em um RegistroTipos, codifica um fluxo de mensagens com
+ * tipos sorteados uniformemente e mede, por mensagem, o custo de decodificar
+ * e entregar cada uma ao tratador do seu tipo em três estratégias:
+ *
+ * - id -> vetor:       RegistroTipos.despachar (acesso a vetor pelo id)
+ * - classe -> mapa:    decodificação pelo id e despacho pela classe do objeto,
+ *                      como o caminho de serialização Java do Servidor5
+ * - cadeia instanceof: decodificação pelo id e teste do objeto contra cada
+ *                      tipo, na ordem de cadastro (if/else com instanceof)
+ *
+ * A decodificação sozinha é medida à parte e descontada, isolando o despacho.
+ *
+ * Argumentos: [mensagens] [rodadas]
+ * Exemplo: java BenchmarkDespacho 2000000 5
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.LongFunction;
+
+/**
+ * Comparação do despacho por id com as alternativas por classe.
+ */
+public class BenchmarkDespacho {
+
+    // ==================== CONSTANTES ====================
+
+    /** Número de tipos cadastrados */
+    private static final int TIPOS = 50;
+
+    /** Origem repassada aos tratadores */
+    private static final String ORIGEM = "[Benchmark]";
+
+    /** Construtores dos tipos, na ordem dos ids */
+    private static final List<LongFunction<Evento>> FABRICAS = List.of(
+            Evento00::new, Evento01::new, Evento02::new, Evento03::new, Evento04::new,
+            Evento05::new, Evento06::new, Evento07::new, Evento08::new, Evento09::new,
+            Evento10::new, Evento11::new, Evento12::new, Evento13::new, Evento14::new,
+            Evento15::new, Evento16::new, Evento17::new, Evento18::new, Evento19::new,
+            Evento20::new, Evento21::new, Evento22::new, Evento23::new, Evento24::new,
+            Evento25::new, Evento26::new, Evento27::new, Evento28::new, Evento29::new,
+            Evento30::new, Evento31::new, Evento32::new, Evento33::new, Evento34::new,
+            Evento35::new, Evento36::new, Evento37::new, Evento38::new, Evento39::new,
+            Evento40::new, Evento41::new, Evento42::new, Evento43::new, Evento44::new,
+            Evento45::new, Evento46::new, Evento47::new, Evento48::new, Evento49::new);
+
+    // ==================== TIPOS DE MENSAGEM ====================
+
+    /** Contrato comum dos tipos do benchmark: um único campo numérico */
+    private interface Evento {
+        long valor();
+    }
+
+    private record Evento00(long valor) implements Evento { }
+    private record Evento01(long valor) implements Evento { }
+    private record Evento02(long valor) implements Evento { }
+    private record Evento03(long valor) implements Evento { }
+    private record Evento04(long valor) implements Evento { }
+    private record Evento05(long valor) implements Evento { }
+    private record Evento06(long valor) implements Evento { }
+    private record Evento07(long valor) implements Evento { }
+    private record Evento08(long valor) implements Evento { }
+    private record Evento09(long valor) implements Evento { }
+    private record Evento10(long valor) implements Evento { }
+    private record Evento11(long valor) implements Evento { }
+    private record Evento12(long valor) implements Evento { }
+    private record Evento13(long valor) implements Evento { }
+    private record Evento14(long valor) implements Evento { }
+    private record Evento15(long valor) implements Evento { }
+    private record Evento16(long valor) implements Evento { }
+    private record Evento17(long valor) implements Evento { }
+    private record Evento18(long valor) implements Evento { }
+    private record Evento19(long valor) implements Evento { }
+    private record Evento20(long valor) implements Evento { }
+    private record Evento21(long valor) implements Evento { }
+    private record Evento22(long valor) implements Evento { }
+    private record Evento23(long valor) implements Evento { }
+    private record Evento24(long valor) implements Evento { }
+    private record Evento25(long valor) implements Evento { }
+    private record Evento26(long valor) implements Evento { }
+    private record Evento27(long valor) implements Evento { }
+    private record Evento28(long valor) implements Evento { }
+    private record Evento29(long valor) implements Evento { }
+    private record Evento30(long valor) implements Evento { }
+    private record Evento31(long valor) implements Evento { }
+    private record Evento32(long valor) implements Evento { }
+    private record Evento33(long valor) implements Evento { }
+    private record Evento34(long valor) implements Evento { }
+    private record Evento35(long valor) implements Evento { }
+    private record Evento36(long valor) implements Evento { }
+    private record Evento37(long valor) implements Evento { }
+    private record Evento38(long valor) implements Evento { }
+    private record Evento39(long valor) implements Evento { }
+    private record Evento40(long valor) implements Evento { }
+    private record Evento41(long valor) implements Evento { }
+    private record Evento42(long valor) implements Evento { }
+    private record Evento43(long valor) implements Evento { }
+    private record Evento44(long valor) implements Evento { }
+    private record Evento45(long valor) implements Evento { }
+    private record Evento46(long valor) implements Evento { }
+    private record Evento47(long valor) implements Evento { }
+    private record Evento48(long valor) implements Evento { }
+    private record Evento49(long valor) implements Evento { }
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Soma dos valores tratados por tipo, para conferir as estratégias */
+    private static final long[] SOMAS = new long[TIPOS];
+
+    /** Classes na ordem dos ids, para a cadeia de instanceof */
+    private static final Class<?>[] CLASSES = new Class<?>[TIPOS];
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do benchmark.
+     *
+     * @param args [mensagens] [rodadas]
+     * @throws IOException se a codificação falhar
+     */
+    public static void main(String[] args) throws IOException {
+        int mensagens = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int rodadas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        RegistroTipos registro = new RegistroTipos();
+        for (int id = 0; id < TIPOS; id++) {
+            cadastrar(registro, id, FABRICAS.get(id));
+        }
+        byte[] fluxo = codificarFluxo(registro, mensagens);
+
+        System.out.println("=== Benchmark de Despacho por Tipo ===");
+        System.out.println("Tipos: " + registro.getQuantidadeTipos() + " | Mensagens: " + mensagens +
+                           " (" + fluxo.length + " bytes) | Rodadas: " + rodadas);
+
+        // A última rodada é a exibida; as anteriores aquecem o JIT
+        double[] nanos = new double[4];
+        long[] somas = new long[4];
+        for (int rodada = 1; rodada <= rodadas; rodada++) {
+            for (int estrategia = 0; estrategia < nanos.length; estrategia++) {
+                Arrays.fill(SOMAS, 0);
+                long inicio = System.nanoTime();
+                somas[estrategia] = executar(estrategia, registro, fluxo, mensagens);
+                nanos[estrategia] = (double) (System.nanoTime() - inicio) / mensagens;
+            }
+        }
+
+        System.out.printf("%nSó decodificação:  %6.1f ns/msg%n", nanos[0]);
+        String[] nomes = {"id -> vetor:       ", "classe -> mapa:    ", "cadeia instanceof: "};
+        for (int i = 0; i < nomes.length; i++) {
+            System.out.printf("%s %6.1f ns/msg (despacho %5.1f ns)%n", nomes[i], nanos[i + 1],
+                              Math.max(nanos[i + 1] - nanos[0], 0));
+        }
+        for (int i = 1; i < somas.length; i++) {
+            if (somas[i] != somas[0]) {
+                throw new IllegalStateException("Estratégia " + i + " somou " + somas[i] + ", esperado " + somas[0]);
+            }
+        }
+        System.out.println("✓ Todas as estratégias trataram as mesmas mensagens");
+    }
+
+    // ==================== MEDIÇÕES ====================
+
+    /**
+     * Percorre o fluxo com uma estratégia e retorna a soma dos valores tratados.
+     */
+    private static long executar(int estrategia, RegistroTipos registro, byte[] fluxo, int mensagens)
+            throws IOException {
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(fluxo));
+        long soma = 0;
+        for (int i = 0; i < mensagens; i++) {
+            if (entrada.readUnsignedByte() != CodecMensagem.TIPO_REGISTRADO) {
+                throw new StreamCorruptedException("Registro inesperado na mensagem " + i);
+            }
+            switch (estrategia) {
+                case 0:
+                    soma += ((Evento) registro.ler(entrada)).valor();
+                    break;
+                case 1:
+                    registro.despachar(entrada, ORIGEM);
+                    break;
+                case 2:
+                    registro.tratarObjeto(registro.ler(entrada), ORIGEM);
+                    break;
+                default:
+                    tratarPorCadeia(registro.ler(entrada));
+                    break;
+            }
+        }
+        if (estrategia == 0) {
+            return soma;
+        }
+        for (long parcial : SOMAS) {
+            soma += parcial;
+        }
+        return soma;
+    }
+
+    /**
+     * Despacho equivalente a um if/else com um instanceof por tipo, na ordem de cadastro.
+     */
+    private static void tratarPorCadeia(Object objeto) {
+        for (int id = 0; id < CLASSES.length; id++) {
+            if (CLASSES[id].isInstance(objeto)) {
+                SOMAS[id] += ((Evento) objeto).valor();
+                return;
+            }
+        }
+        throw new IllegalStateException("Tipo inesperado: " + objeto.getClass());
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Cadastra um tipo com codec de um long e tratador que acumula o valor.
+     */
+    private static <T extends Evento> void cadastrar(RegistroTipos registro, int id, LongFunction<T> fabrica) {
+        @SuppressWarnings("unchecked")
+        Class<T> classe = (Class<T>) fabrica.apply(0).getClass();
+        CLASSES[id] = classe;
+        registro.registrar(id, classe, (saida, evento) -> saida.writeLong(evento.valor()),
+                           entrada -> fabrica.apply(entrada.readLong()),
+                           (evento, origem) -> SOMAS[id] += evento.valor());
+    }
+
+    /**
+     * Codifica as mensagens com tipos sorteados (semente fixa).
+     */
+    private static byte[] codificarFluxo(RegistroTipos registro, int mensagens) throws IOException {
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(mensagens * 10);
+        DataOutputStream saida = new DataOutputStream(bytes);
+        for (int i = 0; i < mensagens; i++) {
+            registro.escrever(saida, FABRICAS.get(aleatorio.nextInt(TIPOS)).apply(i));
+        }
+        saida.flush();
+        return bytes.toByteArray();
+    }
+}
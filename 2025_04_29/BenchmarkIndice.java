@@ -0,0 +1,196 @@
+/**
+ * BenchmarkIndice - Latência de consulta do IndiceMensagens
+ *
+ * Grava N mensagens distintas no jornal (o índice as acompanha durante a
+ * gravação) e mede a latência de consultas aleatórias, separando acertos
+ * (texto gravado, conferido no jornal) e falhas (texto ausente). Em seguida
+ * mede a reabertura com o índice fechado de forma limpa e a reconstrução
+ * completa a partir do jornal, depois de apagar o arquivo do índice.
+ *
+ * São reportados:
+ * - Indexação: mensagens/s durante a gravação
+ * - Consulta: percentis de latência (p50, p99, p99,9 e máximo) de acertos e falhas
+ * - Abertura: tempo da reabertura limpa e da reconstrução
+ *
+ * Argumentos: [mensagens] [consultas] [diretorio]
+ * Exemplo: java BenchmarkIndice 10000000 1000000 /var/tmp/indice
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Medição de indexação, consulta e reconstrução do índice.
+ */
+public class BenchmarkIndice {
+
+    // ==================== CONSTANTES ====================
+
+    /** Prefixo do texto das mensagens gravadas */
+    private static final String PREFIXO = "mensagem #";
+
+    /** Consultas descartadas antes da medição, para aquecer o JIT */
+    private static final int CONSULTAS_AQUECIMENTO = 100_000;
+
+    /** Nome do arquivo do índice dentro do diretório */
+    private static final String ARQUIVO_INDICE = "indice.idx";
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do benchmark.
+     *
+     * @param args [mensagens] [consultas] [diretorio]
+     * @throws Exception se o jornal ou o índice falharem
+     */
+    public static void main(String[] args) throws Exception {
+        int mensagens = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int consultas = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        boolean temporario = args.length <= 2;
+        Path diretorio = temporario ? Files.createTempDirectory("indice-") : Paths.get(args[2]);
+        Path arquivoIndice = diretorio.resolve(ARQUIVO_INDICE);
+
+        System.out.println("=== Benchmark do Índice de Mensagens ===");
+        System.out.println("Diretório: " + diretorio);
+        System.out.println("Mensagens: " + mensagens + " | Consultas: " + consultas + " acertos + " +
+                           consultas + " falhas");
+
+        try {
+            JornalMensagens jornal = JornalMensagens.abrir(diretorio, JornalMensagens.TAMANHO_SEGMENTO_PADRAO,
+                                                           JornalMensagens.Durabilidade.NENHUMA, null);
+            IndiceMensagens indice = IndiceMensagens.abrir(arquivoIndice, jornal,
+                                                           IndiceMensagens.CAPACIDADE_INICIAL_PADRAO);
+            long anteriores = jornal.getUltimaSequencia();
+            medirIndexacao(jornal, indice, mensagens);
+            medirConsultas(indice, (int) Math.min(anteriores + mensagens, Integer.MAX_VALUE), consultas);
+            System.out.println("             " + indice.gerarRelatorio());
+            indice.close();
+            jornal.close();
+
+            medirAbertura(diretorio, arquivoIndice, "Reabertura");
+            Files.delete(arquivoIndice);
+            medirAbertura(diretorio, arquivoIndice, "Reconstrução");
+        } finally {
+            if (temporario) {
+                apagarDiretorio(diretorio);
+            }
+        }
+    }
+
+    // ==================== MEDIÇÕES ====================
+
+    /**
+     * Grava as mensagens no jornal, indexadas pelo ouvinte do índice.
+     */
+    private static void medirIndexacao(JornalMensagens jornal, IndiceMensagens indice, int mensagens)
+            throws IOException {
+        long base = jornal.getUltimaSequencia();
+        long inicio = System.nanoTime();
+        for (int i = 1; i <= mensagens; i++) {
+            jornal.anexar(ByteBuffer.wrap(texto(base + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        double segundos = Math.max(System.nanoTime() - inicio, 1) / 1e9;
+        System.out.printf("%nIndexação:   %.0f msg/s (%d entradas em %.2f s)%n",
+                          mensagens / segundos, indice.getEntradas(), segundos);
+    }
+
+    /**
+     * Consulta textos gravados e ausentes em ordem aleatória e exibe os percentis.
+     */
+    private static void medirConsultas(IndiceMensagens indice, int gravadas, int consultas) throws IOException {
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        for (int i = 0; i < CONSULTAS_AQUECIMENTO; i++) {
+            indice.buscar(texto(1 + aleatorio.nextInt(gravadas)));
+            indice.buscar(texto(gravadas + 1 + aleatorio.nextInt(gravadas)));
+        }
+
+        long[] acertos = new long[consultas];
+        long[] falhas = new long[consultas];
+        for (int i = 0; i < consultas; i++) {
+            // Textos gerados antes de medir: a latência é só a da consulta
+            String presente = texto(1 + aleatorio.nextInt(gravadas));
+            String ausente = texto(gravadas + 1 + aleatorio.nextInt(gravadas));
+
+            long inicio = System.nanoTime();
+            List<Long> encontrados = indice.buscar(presente);
+            acertos[i] = System.nanoTime() - inicio;
+            if (encontrados.size() != 1) {
+                throw new IllegalStateException("\"" + presente + "\" encontrado " + encontrados.size() + " vez(es)");
+            }
+
+            inicio = System.nanoTime();
+            encontrados = indice.buscar(ausente);
+            falhas[i] = System.nanoTime() - inicio;
+            if (!encontrados.isEmpty()) {
+                throw new IllegalStateException("\"" + ausente + "\" não foi gravado e foi encontrado");
+            }
+        }
+        System.out.println("Consulta:    " + percentis("acerto", acertos));
+        System.out.println("             " + percentis("falha ", falhas));
+        System.out.println("✓ Todos os acertos conferidos no jornal, nenhuma falha encontrada");
+    }
+
+    /**
+     * Reabre jornal e índice e exibe quanto do jornal precisou ser indexado.
+     */
+    private static void medirAbertura(Path diretorio, Path arquivoIndice, String descricao) throws IOException {
+        JornalMensagens jornal = JornalMensagens.abrir(diretorio, JornalMensagens.TAMANHO_SEGMENTO_PADRAO,
+                                                       JornalMensagens.Durabilidade.NENHUMA, null);
+        IndiceMensagens indice = IndiceMensagens.abrir(arquivoIndice, jornal,
+                                                       IndiceMensagens.CAPACIDADE_INICIAL_PADRAO);
+        long reconstruidos = indice.getRegistrosReconstruidos();
+        double milissegundos = indice.getNanosReconstrucao() / 1e6;
+        System.out.printf("%-13s %.1f ms, %d registro(s) indexado(s) (%.0f msg/s), jornal recuperado em %.1f ms%n",
+                          descricao + ":", milissegundos, reconstruidos,
+                          reconstruidos / Math.max(milissegundos / 1000, 1e-9), jornal.getNanosRecuperacao() / 1e6);
+        if (indice.getEntradas() != jornal.getUltimaSequencia()) {
+            throw new IllegalStateException("Índice com " + indice.getEntradas() + " entradas, jornal com " +
+                                            jornal.getUltimaSequencia());
+        }
+        indice.close();
+        jornal.close();
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Texto da i-ésima mensagem.
+     */
+    private static String texto(long numero) {
+        return PREFIXO + numero;
+    }
+
+    /**
+     * Formata os percentis de latência, em microssegundos.
+     */
+    private static String percentis(String descricao, long[] nanos) {
+        Arrays.sort(nanos);
+        return String.format("%s p50 %.2f µs | p99 %.2f µs | p99,9 %.2f µs | máx %.1f µs", descricao,
+                             nanos[(int) (nanos.length * 0.50)] / 1e3, nanos[(int) (nanos.length * 0.99)] / 1e3,
+                             nanos[(int) (nanos.length * 0.999)] / 1e3, nanos[nanos.length - 1] / 1e3);
+    }
+
+    /**
+     * Remove o diretório temporário, com segmentos e índice.
+     */
+    private static void apagarDiretorio(Path diretorio) throws IOException {
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            for (Path arquivo : (Iterable<Path>) arquivos.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(arquivo);
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * BenchmarkJornal - Vazão de gravação e de recuperação do JornalMensagens
+ *
+ * Várias threads gravam mensagens concorrentemente no jornal, cada uma
+ * esperando a durabilidade configurada, como as threads do Servidor5 fariam.
+ * Em seguida o jornal é fechado e reaberto, medindo a recuperação sequencial.
+ *
+ * São reportados:
+ * - Gravação: mensagens/s, MB/s, número de force() e mensagens por force()
+ * - Recuperação: mensagens/s e MB/s da leitura com verificação de CRC
+ *
+ * Com durabilidade "grupo", o número de mensagens por force() mostra quantas
+ * gravações concorrentes cada sincronização com o disco cobriu.
+ *
+ * Argumentos: [durabilidade] [threads] [mensagensPorThread] [bytesPorMensagem] [diretorio]
+ * Exemplo: java BenchmarkJornal grupo 8 20000 100 /var/tmp/jornal
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * Medição de vazão do jornal em um nível de durabilidade.
+ */
+public class BenchmarkJornal {
+
+    // ==================== CONSTANTES ====================
+
+    /** Bytes em um megabyte, para as taxas em MB/s */
+    private static final double MEGABYTE = 1024.0 * 1024.0;
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do benchmark.
+     *
+     * @param args [durabilidade] [threads] [mensagensPorThread] [bytesPorMensagem] [diretorio]
+     * @throws Exception se o jornal falhar
+     */
+    public static void main(String[] args) throws Exception {
+        JornalMensagens.Durabilidade durabilidade = args.length > 0
+                ? JornalMensagens.Durabilidade.valueOf(args[0].toUpperCase())
+                : JornalMensagens.Durabilidade.GRUPO;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int mensagensPorThread = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        int bytesPorMensagem = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        boolean temporario = args.length <= 4;
+        Path diretorio = temporario ? Files.createTempDirectory("jornal-") : Paths.get(args[4]);
+
+        System.out.println("=== Benchmark do Jornal de Mensagens ===");
+        System.out.println("Diretório: " + diretorio);
+        System.out.println("Durabilidade: " + durabilidade + " | Threads: " + threads + " | Mensagens: " +
+                           threads + " x " + mensagensPorThread + " de " + bytesPorMensagem + " bytes");
+
+        try {
+            long anteriores = medirGravacao(diretorio, durabilidade, threads, mensagensPorThread, bytesPorMensagem);
+            medirRecuperacao(diretorio, anteriores + (long) threads * mensagensPorThread);
+        } finally {
+            if (temporario) {
+                apagarDiretorio(diretorio);
+            }
+        }
+    }
+
+    // ==================== MEDIÇÕES ====================
+
+    /**
+     * Grava as mensagens com várias threads e exibe a vazão.
+     *
+     * @return Registros que já existiam no jornal antes da gravação
+     */
+    private static long medirGravacao(Path diretorio, JornalMensagens.Durabilidade durabilidade, int threads,
+                                      int mensagensPorThread, int bytesPorMensagem)
+            throws IOException, InterruptedException {
+        JornalMensagens jornal = JornalMensagens.abrir(diretorio, JornalMensagens.TAMANHO_SEGMENTO_PADRAO,
+                                                       durabilidade, null);
+        long anteriores = jornal.getUltimaSequencia();
+        CountDownLatch largada = new CountDownLatch(1);
+        Thread[] gravadores = new Thread[threads];
+        IOException[] falha = new IOException[1];
+
+        for (int t = 0; t < threads; t++) {
+            byte[] texto = gerarTexto(t, bytesPorMensagem);
+            gravadores[t] = new Thread(() -> {
+                try {
+                    largada.await();
+                    for (int i = 0; i < mensagensPorThread; i++) {
+                        jornal.gravar(ByteBuffer.wrap(texto));
+                    }
+                } catch (IOException e) {
+                    falha[0] = e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "Gravador-" + t);
+            gravadores[t].start();
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Thread gravador : gravadores) {
+            gravador.join();
+        }
+        long nanos = System.nanoTime() - inicio;
+        jornal.close();
+        if (falha[0] != null) {
+            throw falha[0];
+        }
+
+        double segundos = nanos / 1e9;
+        System.out.printf("%nGravação:    %.0f msg/s, %.1f MB/s em %.2f s%n",
+                          jornal.getMensagensGravadas() / segundos,
+                          jornal.getBytesGravados() / MEGABYTE / segundos, segundos);
+        System.out.println("             " + jornal.gerarRelatorio());
+        return anteriores;
+    }
+
+    /**
+     * Reabre o jornal, percorre todos os registros e exibe a vazão da recuperação.
+     */
+    private static void medirRecuperacao(Path diretorio, long esperadas) throws IOException {
+        long[] bytesVistos = new long[1];
+        JornalMensagens jornal = JornalMensagens.abrir(diretorio, JornalMensagens.TAMANHO_SEGMENTO_PADRAO,
+                JornalMensagens.Durabilidade.NENHUMA,
+                (sequencia, endereco, mensagem) -> bytesVistos[0] += mensagem.tamanhoBytes());
+        jornal.close();
+
+        double segundos = Math.max(jornal.getNanosRecuperacao(), 1) / 1e9;
+        System.out.printf("Recuperação: %.0f msg/s, %.1f MB/s (%d mensagens em %.1f ms)%n",
+                          jornal.getMensagensRecuperadas() / segundos,
+                          jornal.getBytesRecuperados() / MEGABYTE / segundos,
+                          jornal.getMensagensRecuperadas(), segundos * 1000);
+        if (jornal.getMensagensRecuperadas() != esperadas || bytesVistos[0] != jornal.getBytesRecuperados()) {
+            throw new IllegalStateException("Recuperadas " + jornal.getMensagensRecuperadas() +
+                                            " mensagens, esperadas " + esperadas);
+        }
+        System.out.println("✓ Todas as mensagens recuperadas com CRC válido");
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Gera o texto ASCII gravado por uma thread.
+     */
+    private static byte[] gerarTexto(int thread, int bytes) {
+        StringBuilder texto = new StringBuilder("Gravador-" + thread + " ");
+        while (texto.length() < bytes) {
+            texto.append((char) ('a' + texto.length() % 26));
+        }
+        texto.setLength(bytes);
+        return texto.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Remove o diretório temporário e seus segmentos.
+     */
+    private static void apagarDiretorio(Path diretorio) throws IOException {
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            for (Path arquivo : (Iterable<Path>) arquivos.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(arquivo);
+            }
+        }
+    }
+}
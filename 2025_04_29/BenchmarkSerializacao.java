@@ -0,0 +1,264 @@
+/**
+ * BenchmarkSerializacao - Ida e volta de MensagemTeste em três formatos
+ *
+ * Mede a codificação seguida da decodificação (ida e volta) de uma
+ * MensagemTeste com:
+ * - java:     ObjectOutputStream/ObjectInputStream, um stream por mensagem
+ * - data:     DataOutputStream.writeUTF/DataInputStream.readUTF
+ * - compacto: CodecMensagem (tipo, varint e UTF-8)
+ *
+ * Os textos variam de 16 caracteres a 64 K caracteres, em ASCII e com
+ * caracteres multibyte. Para cada caso são reportados:
+ * - Vazão em operações por segundo (média e desvio entre as iterações)
+ * - Bytes alocados por operação (contador de alocação da thread)
+ * - Tamanho serializado
+ *
+ * A execução segue o modelo do JMH: iterações de aquecimento descartadas,
+ * iterações de medição com duração fixa e resultados consumidos por um
+ * sumidouro, para que o JIT não elimine o trabalho. writeUTF não aceita
+ * textos acima de 65535 bytes codificados; esses casos aparecem como "n/d".
+ *
+ * Argumentos: [msPorIteracao] [aquecimento] [medicao] [filtro]
+ * Exemplo: java BenchmarkSerializacao 1000 3 5 compacto
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Suíte de benchmarks de serialização de MensagemTeste.
+ */
+public class BenchmarkSerializacao {
+
+    // ==================== CONSTANTES ====================
+
+    /** Tamanhos de texto medidos, em caracteres */
+    private static final int[] TAMANHOS = {16, 256, 4 * 1024, 64 * 1024};
+
+    /** Trecho repetido nos textos multibyte (acentos, símbolos e CJK) */
+    private static final String TRECHO_MULTIBYTE = "ação-ç✓分散";
+
+    /** Operações executadas entre duas leituras do relógio */
+    private static final int OPERACOES_POR_LOTE = 64;
+
+    /** Contador de bytes alocados pela thread corrente */
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** Evita que o JIT elimine o trabalho medido */
+    private static volatile long sumidouro;
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal da suíte.
+     *
+     * @param args [msPorIteracao] [aquecimento] [medicao] [filtro]
+     * @throws Exception se algum formato falhar
+     */
+    public static void main(String[] args) throws Exception {
+        long msPorIteracao = args.length > 0 ? Long.parseLong(args[0]) : 500;
+        int aquecimento = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int medicao = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        String filtro = args.length > 3 ? args[3] : "";
+
+        List<Formato> formatos = List.of(
+                new Formato("java", BenchmarkSerializacao::serializarJava,
+                            BenchmarkSerializacao::desserializarJava),
+                new Formato("data", BenchmarkSerializacao::escreverUtf,
+                            BenchmarkSerializacao::lerUtf),
+                new Formato("compacto", CodecMensagem::codificar, CodecMensagem::decodificar));
+
+        System.out.println("=== Benchmark de Serialização de MensagemTeste ===");
+        System.out.println("Iterações: " + aquecimento + " de aquecimento + " + medicao + " de medição, " +
+                           msPorIteracao + " ms cada");
+        System.out.printf("%n%-9s %-9s %7s %8s %22s %12s%n",
+                          "Formato", "Texto", "Chars", "Bytes", "Vazão (ops/s)", "Alocação");
+
+        for (boolean multibyte : new boolean[] {false, true}) {
+            for (int tamanho : TAMANHOS) {
+                MensagemTeste mensagem = new MensagemTeste(gerarTexto(tamanho, multibyte));
+                for (Formato formato : formatos) {
+                    if (!formato.nome.contains(filtro)) {
+                        continue;
+                    }
+                    executarCaso(formato, mensagem, multibyte ? "multibyte" : "ascii", tamanho,
+                                 msPorIteracao, aquecimento, medicao);
+                }
+            }
+        }
+    }
+
+    // ==================== EXECUÇÃO ====================
+
+    /**
+     * Executa e exibe um caso (formato x texto).
+     */
+    private static void executarCaso(Formato formato, MensagemTeste mensagem, String tipoTexto, int chars,
+                                     long msPorIteracao, int aquecimento, int medicao) throws Exception {
+        byte[] serializado;
+        try {
+            serializado = formato.codificador.codificar(mensagem);
+        } catch (UTFDataFormatException e) {
+            System.out.printf("%-9s %-9s %7d %8s %22s %12s%n", formato.nome, tipoTexto, chars, "n/d", "n/d", "n/d");
+            return;
+        }
+        if (!mensagem.equals(formato.decodificador.decodificar(serializado))) {
+            throw new IllegalStateException("Ida e volta divergente no formato " + formato.nome);
+        }
+
+        for (int i = 0; i < aquecimento; i++) {
+            executarIteracao(formato, mensagem, msPorIteracao);
+        }
+        double[] vazoes = new double[medicao];
+        long operacoes = 0;
+        long alocados = 0;
+        for (int i = 0; i < medicao; i++) {
+            Iteracao iteracao = executarIteracao(formato, mensagem, msPorIteracao);
+            vazoes[i] = iteracao.operacoes * 1e9 / iteracao.nanos;
+            operacoes += iteracao.operacoes;
+            alocados += iteracao.bytesAlocados;
+        }
+
+        double media = 0;
+        for (double vazao : vazoes) {
+            media += vazao / vazoes.length;
+        }
+        double variancia = 0;
+        for (double vazao : vazoes) {
+            variancia += (vazao - media) * (vazao - media) / Math.max(1, vazoes.length - 1);
+        }
+        System.out.printf("%-9s %-9s %7d %8d %12.0f ± %7.0f %10.0f B%n", formato.nome, tipoTexto, chars,
+                          serializado.length, media, Math.sqrt(variancia), alocados / (double) operacoes);
+    }
+
+    /**
+     * Executa idas e voltas em lotes até completar a duração da iteração.
+     */
+    private static Iteracao executarIteracao(Formato formato, MensagemTeste mensagem, long msPorIteracao)
+            throws Exception {
+        long duracao = msPorIteracao * 1_000_000L;
+        long soma = 0;
+        long operacoes = 0;
+        long alocadosInicio = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        long inicio = System.nanoTime();
+        long decorrido;
+        do {
+            for (int i = 0; i < OPERACOES_POR_LOTE; i++) {
+                byte[] dados = formato.codificador.codificar(mensagem);
+                soma += dados.length + formato.decodificador.decodificar(dados).getTexto().length();
+            }
+            operacoes += OPERACOES_POR_LOTE;
+            decorrido = System.nanoTime() - inicio;
+        } while (decorrido < duracao);
+        long alocados = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - alocadosInicio;
+        sumidouro += soma;
+        return new Iteracao(operacoes, decorrido, alocados);
+    }
+
+    // ==================== FORMATOS ====================
+
+    /**
+     * Serialização Java com um stream novo por mensagem, como Cliente5 e Servidor5.
+     */
+    private static byte[] serializarJava(MensagemTeste mensagem) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream saida = new ObjectOutputStream(bytes)) {
+            saida.writeObject(mensagem);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Leitura de um stream completo com ObjectInputStream.
+     */
+    private static MensagemTeste desserializarJava(byte[] dados) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream entrada = new ObjectInputStream(new ByteArrayInputStream(dados))) {
+            return (MensagemTeste) entrada.readObject();
+        }
+    }
+
+    /**
+     * Texto em UTF-8 modificado com prefixo de 2 bytes (writeUTF).
+     */
+    private static byte[] escreverUtf(MensagemTeste mensagem) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream saida = new DataOutputStream(bytes);
+        saida.writeUTF(mensagem.getTexto());
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Leitura com readUTF.
+     */
+    private static MensagemTeste lerUtf(byte[] dados) throws IOException {
+        return new MensagemTeste(new DataInputStream(new ByteArrayInputStream(dados)).readUTF());
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Gera um texto determinístico com o número de caracteres indicado.
+     */
+    private static String gerarTexto(int chars, boolean multibyte) {
+        StringBuilder texto = new StringBuilder(chars);
+        String base = multibyte ? TRECHO_MULTIBYTE : "abcdefghij";
+        while (texto.length() < chars) {
+            texto.append(base, 0, Math.min(base.length(), chars - texto.length()));
+        }
+        return texto.toString();
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * Converte uma mensagem em bytes.
+     */
+    @FunctionalInterface
+    private interface Codificador {
+        byte[] codificar(MensagemTeste mensagem) throws IOException;
+    }
+
+    /**
+     * Reconstrói uma mensagem a partir dos bytes.
+     */
+    @FunctionalInterface
+    private interface Decodificador {
+        MensagemTeste decodificar(byte[] dados) throws Exception;
+    }
+
+    /**
+     * Formato medido.
+     */
+    private static class Formato {
+        final String nome;
+        final Codificador codificador;
+        final Decodificador decodificador;
+
+        Formato(String nome, Codificador codificador, Decodificador decodificador) {
+            this.nome = nome;
+            this.codificador = codificador;
+            this.decodificador = decodificador;
+        }
+    }
+
+    /**
+     * Resultado de uma iteração.
+     */
+    private static class Iteracao {
+        final long operacoes;
+        final long nanos;
+        final long bytesAlocados;
+
+        Iteracao(long operacoes, long nanos, long bytesAlocados) {
+            this.operacoes = operacoes;
+            this.nanos = nanos;
+            this.bytesAlocados = bytesAlocados;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/**
+ * CacheTextos - Textos canônicos para mensagens recebidas repetidas
+ *
+ * O tráfego real repete os mesmos textos muitas vezes, e cada mensagem
+ * decodificada criaria uma String nova no heap. Este cache guarda uma String
+ * por texto e a devolve sempre que os mesmos bytes UTF-8 chegam de novo: a
+ * consulta é feita sobre os bytes recebidos, antes de decodificar, de modo
+ * que um acerto não cria String nenhuma e as mensagens retidas compartilham
+ * a mesma instância.
+ *
+ * O cache é limitado e usa a política CLOCK: cada entrada tem um bit de
+ * referência, ligado a cada acerto; para abrir espaço, o ponteiro percorre
+ * as entradas em círculo, desligando os bits ligados, e substitui a primeira
+ * com o bit desligado. Entradas novas começam com o bit desligado: um texto
+ * visto uma única vez é o primeiro a sair e não desloca os textos frequentes.
+ *
+ * As entradas são divididas em segmentos pelo hash dos bytes, cada um com a
+ * sua trava, para que várias conexões (ou trabalhadores de decodificação)
+ * consultem o cache em paralelo. Textos maiores que TAMANHO_MAXIMO_TEXTO são
+ * decodificados sem passar pelo cache.
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache limitado de Strings indexado pelos bytes UTF-8.
+ */
+public class CacheTextos {
+
+    // ==================== CONSTANTES ====================
+
+    /** Capacidade usada quando o cache é ativado sem tamanho */
+    public static final int CAPACIDADE_PADRAO = 65_536;
+
+    /** Maior número de entradas aceito */
+    public static final int CAPACIDADE_MAXIMA = 1 << 24;
+
+    /** Maior texto guardado, em bytes: textos longos raramente se repetem e ocupariam o cache */
+    public static final int TAMANHO_MAXIMO_TEXTO = 512;
+
+    /** Número de segmentos (potência de dois) */
+    private static final int SEGMENTOS = 16;
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Segmentos, escolhidos pelos bits altos do hash */
+    private final Segmento[] segmentos;
+
+    /** Capacidade total (soma dos segmentos) */
+    private final int capacidade;
+
+    /** Textos longos demais, decodificados sem consultar os segmentos */
+    private final LongAdder ignorados = new LongAdder();
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria um cache vazio.
+     *
+     * @param capacidade Número máximo de textos guardados
+     * @throws IllegalArgumentException se a capacidade estiver fora de 1..CAPACIDADE_MAXIMA
+     */
+    public CacheTextos(int capacidade) {
+        if (capacidade < 1 || capacidade > CAPACIDADE_MAXIMA) {
+            throw new IllegalArgumentException("Capacidade do cache deve estar entre 1 e " + CAPACIDADE_MAXIMA +
+                                               ": " + capacidade);
+        }
+        int quantidade = Math.min(SEGMENTOS, Integer.highestOneBit(capacidade));
+        int capacidadeSegmento = (capacidade + quantidade - 1) / quantidade;
+        this.segmentos = new Segmento[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            segmentos[i] = new Segmento(capacidadeSegmento);
+        }
+        this.capacidade = capacidadeSegmento * quantidade;
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Retorna a String canônica de um texto em UTF-8, decodificando-o só se
+     * ainda não estiver no cache.
+     *
+     * @param dados Vetor com o texto
+     * @param inicio Posição do primeiro byte
+     * @param tamanho Número de bytes
+     * @return Texto decodificado, a mesma instância para os mesmos bytes enquanto estiver no cache
+     */
+    public String canonizar(byte[] dados, int inicio, int tamanho) {
+        if (tamanho > TAMANHO_MAXIMO_TEXTO) {
+            ignorados.increment();
+            return new String(dados, inicio, tamanho, StandardCharsets.UTF_8);
+        }
+        int hash = calcularHash(dados, inicio, tamanho);
+        return segmentos[hash >>> 28 & (segmentos.length - 1)].canonizar(dados, inicio, tamanho, hash);
+    }
+
+    /**
+     * Retorna a String canônica do texto entre a posição e o limite do buffer,
+     * sem alterá-los.
+     *
+     * @param textoUtf8 Buffer com o texto
+     * @return Texto decodificado
+     */
+    public String canonizar(ByteBuffer textoUtf8) {
+        if (textoUtf8.hasArray()) {
+            return canonizar(textoUtf8.array(), textoUtf8.arrayOffset() + textoUtf8.position(),
+                             textoUtf8.remaining());
+        }
+        byte[] copia = new byte[textoUtf8.remaining()];
+        textoUtf8.duplicate().get(copia);
+        return canonizar(copia, 0, copia.length);
+    }
+
+    /**
+     * Hash dos bytes, misturado para que bits altos (segmento) e baixos
+     * (posição na tabela) dependam de todos os bytes.
+     */
+    private static int calcularHash(byte[] dados, int inicio, int tamanho) {
+        int hash = 1;
+        for (int i = inicio, fim = inicio + tamanho; i < fim; i++) {
+            hash = 31 * hash + dados[i];
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ hash >>> 16;
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna o número máximo de textos guardados.
+     *
+     * @return Capacidade total
+     */
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    /**
+     * Retorna o número de textos guardados.
+     *
+     * @return Entradas ocupadas
+     */
+    public int getEntradas() {
+        int total = 0;
+        for (Segmento segmento : segmentos) {
+            total += segmento.getOcupadas();
+        }
+        return total;
+    }
+
+    /**
+     * Retorna a fração das consultas respondidas pelo cache, incluindo os
+     * textos longos demais para serem guardados.
+     *
+     * @return Taxa de acertos entre 0 e 1 (0 sem consultas)
+     */
+    public double getTaxaAcertos() {
+        long[] totais = somarEstatisticas();
+        return totais[0] == 0 ? 0.0 : (double) totais[1] / totais[0];
+    }
+
+    /**
+     * Gera um resumo de ocupação, acertos e substituições.
+     *
+     * @return Relatório em uma linha
+     */
+    public String gerarRelatorio() {
+        long[] totais = somarEstatisticas();
+        return String.format("%d/%d texto(s), %d consulta(s), %.1f%% de acertos, %d substituição(ões), " +
+                             "%d texto(s) longo(s) fora do cache", getEntradas(), capacidade, totais[0],
+                             totais[0] == 0 ? 0.0 : 100.0 * totais[1] / totais[0], totais[2], totais[3]);
+    }
+
+    /**
+     * Soma consultas, acertos e substituições dos segmentos e os textos ignorados.
+     */
+    private long[] somarEstatisticas() {
+        long[] totais = new long[4];
+        for (Segmento segmento : segmentos) {
+            segmento.somarEstatisticas(totais);
+        }
+        totais[3] = ignorados.sum();
+        totais[0] += totais[3];
+        return totais;
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * Parte do cache com trava própria: entradas em vetores paralelos, uma
+     * tabela de espalhamento encadeada pelos índices e o ponteiro do CLOCK.
+     */
+    private static final class Segmento {
+
+        /** Bytes UTF-8 de cada entrada, comparados nas consultas */
+        private final byte[][] chaves;
+
+        /** String canônica de cada entrada */
+        private final String[] textos;
+
+        /** Hash de cada entrada */
+        private final int[] hashes;
+
+        /** Bit de referência do CLOCK */
+        private final boolean[] referenciadas;
+
+        /** Próxima entrada na mesma posição da tabela (índice + 1; 0 = fim) */
+        private final int[] proximas;
+
+        /** Primeira entrada de cada posição da tabela (índice + 1; 0 = vazia) */
+        private final int[] tabela;
+
+        /** Entradas ocupadas; até encher, a próxima entrada livre */
+        private int ocupadas;
+
+        /** Posição do ponteiro do CLOCK */
+        private int ponteiro;
+
+        /** Estatísticas (guardadas pela trava do segmento) */
+        private long consultas;
+        private long acertos;
+        private long substituicoes;
+
+        Segmento(int capacidade) {
+            this.chaves = new byte[capacidade][];
+            this.textos = new String[capacidade];
+            this.hashes = new int[capacidade];
+            this.referenciadas = new boolean[capacidade];
+            this.proximas = new int[capacidade];
+            this.tabela = new int[Integer.highestOneBit(capacidade * 2 - 1) << 1];
+        }
+
+        synchronized String canonizar(byte[] dados, int inicio, int tamanho, int hash) {
+            consultas++;
+            int posicao = hash & (tabela.length - 1);
+            for (int entrada = tabela[posicao] - 1; entrada >= 0; entrada = proximas[entrada] - 1) {
+                if (hashes[entrada] == hash
+                        && Arrays.equals(chaves[entrada], 0, chaves[entrada].length, dados, inicio, inicio + tamanho)) {
+                    acertos++;
+                    referenciadas[entrada] = true;
+                    return textos[entrada];
+                }
+            }
+
+            String texto = new String(dados, inicio, tamanho, StandardCharsets.UTF_8);
+            int entrada = ocupadas < textos.length ? ocupadas++ : substituir();
+            chaves[entrada] = Arrays.copyOfRange(dados, inicio, inicio + tamanho);
+            textos[entrada] = texto;
+            hashes[entrada] = hash;
+            referenciadas[entrada] = false;
+            proximas[entrada] = tabela[posicao];
+            tabela[posicao] = entrada + 1;
+            return texto;
+        }
+
+        /**
+         * Avança o ponteiro até uma entrada sem referência e a retira da tabela.
+         */
+        private int substituir() {
+            while (referenciadas[ponteiro]) {
+                referenciadas[ponteiro] = false;
+                ponteiro = ponteiro + 1 == textos.length ? 0 : ponteiro + 1;
+            }
+            int vitima = ponteiro;
+            ponteiro = ponteiro + 1 == textos.length ? 0 : ponteiro + 1;
+
+            int posicao = hashes[vitima] & (tabela.length - 1);
+            if (tabela[posicao] == vitima + 1) {
+                tabela[posicao] = proximas[vitima];
+            } else {
+                int anterior = tabela[posicao] - 1;
+                while (proximas[anterior] != vitima + 1) {
+                    anterior = proximas[anterior] - 1;
+                }
+                proximas[anterior] = proximas[vitima];
+            }
+            substituicoes++;
+            return vitima;
+        }
+
+        synchronized int getOcupadas() {
+            return ocupadas;
+        }
+
+        synchronized void somarEstatisticas(long[] totais) {
+            totais[0] += consultas;
+            totais[1] += acertos;
+            totais[2] += substituicoes;
+        }
+    }
+}
@@ -10,6 +10,20 @@
  * - Serialização e envio de objetos
  * - Tratamento de exceções de rede
  * - Configuração de endereço e porta do servidor
+ * - Conexão por socket Unix (endereço "unix:caminho") no mesmo host
+ * - Formato compacto opcional (CodecMensagem) no lugar da serialização Java
+ * - Envio de muitas mensagens pela mesma conexão, com reset() periódico do
+ *   ObjectOutputStream para limitar a tabela de referências
+ * - Envio em lotes (LoteMensagens), com compressão opcional e uma confirmação
+ *   do servidor por lote
+ * - Consulta das mensagens persistidas pelo servidor (formato "consulta"),
+ *   exibindo os endereços no jornal e a latência de cada consulta
+ * - Envio pelo cadastro de tipos (formato "registro"): cada mensagem leva o id
+ *   do tipo em RegistroTipos
+ * - Mensagens comprimidas individualmente com um dicionário treinado
+ *   (formato "comprimido", ver DicionarioCompressao e CompressorMensagens)
+ * - Serialização Java com um stream próprio por mensagem (formato "objeto"),
+ *   que o servidor pode desserializar em paralelo (ver PipelineDecodificacao)
  * 
  * @author Sistema de Comunicação por Objetos
  * @version 2.0
@@ -18,6 +32,12 @@
 
 import java.net.*;
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -34,24 +54,78 @@ public class Cliente5 {
     /** Porta padrão do servidor */
     private static final int PORTA_SERVIDOR_PADRAO = 4321;
     
+    /** Prefixo que identifica endereços de socket Unix (ex.: unix:/tmp/servidor5.sock) */
+    private static final String PREFIXO_UNIX = "unix:";
+    
     /** Timeout para conexão em milissegundos */
     private static final int TIMEOUT_CONEXAO = 5000;
     
     /** Mensagem padrão a ser enviada */
     private static final String MENSAGEM_PADRAO = "Mensagem de teste enviada pelo Cliente5";
     
+    /** Formato de envio por serialização Java (ObjectOutputStream) */
+    private static final String FORMATO_JAVA = "java";
+    
+    /** Formato de envio compacto (CodecMensagem) */
+    private static final String FORMATO_COMPACTO = "compacto";
+    
+    /** Formato compacto em lotes (LoteMensagens) */
+    private static final String FORMATO_LOTE = "lote";
+    
+    /** Formato compacto em lotes com corpo comprimido */
+    private static final String FORMATO_LOTE_COMPRIMIDO = "lote-comprimido";
+    
+    /** Consulta pelo texto das mensagens persistidas (IndiceMensagens) */
+    private static final String FORMATO_CONSULTA = "consulta";
+    
+    /** Formato compacto com o id do tipo em RegistroTipos */
+    private static final String FORMATO_REGISTRO = "registro";
+    
+    /** Formato compacto com cada mensagem comprimida com dicionário */
+    private static final String FORMATO_COMPRIMIDO = "comprimido";
+    
+    /** Serialização Java em registros do formato compacto, um stream por mensagem */
+    private static final String FORMATO_OBJETO = "objeto";
+    
+    /**
+     * Mensagens entre dois reset() do ObjectOutputStream. Sem reset, o stream
+     * guarda uma referência para cada objeto enviado (para reenviá-lo como
+     * handle) e a memória dos dois lados cresce sem limite; cada reset obriga
+     * a reenviar o descritor da classe na mensagem seguinte.
+     */
+    private static final int MENSAGENS_ENTRE_RESETS = 1024;
+    
     /** Logger para registrar eventos do cliente */
     private static final Logger LOGGER = Logger.getLogger(Cliente5.class.getName());
     
+    // ==================== ATRIBUTOS ====================
+    
+    /** Tipos de mensagem que o cliente sabe codificar no formato "registro" */
+    private final RegistroTipos registroTipos = new RegistroTipos();
+    
+    // ==================== CONSTRUTORES ====================
+    
+    /**
+     * Cria um cliente com MensagemTeste cadastrada no registro de tipos.
+     */
+    public Cliente5() {
+        registroTipos.registrar(MensagemTeste.ID_TIPO, MensagemTeste.class, CodecMensagem::escreverCorpo,
+                                CodecMensagem::lerCorpo, (mensagem, origem) -> mensagem.exibir());
+    }
+    
     // ==================== MÉTODO PRINCIPAL ====================
     
     /**
      * Método principal do cliente.
      * 
      * Argumentos aceitos:
-     * - args[0]: Endereço do servidor (opcional, padrão: localhost)
+     * - args[0]: Endereço do servidor ou unix:caminho (opcional, padrão: localhost)
      * - args[1]: Porta do servidor (opcional, padrão: 4321)
      * - args[2]: Mensagem a enviar (opcional, padrão: mensagem teste)
+     * - args[3]: Formato: java, compacto, lote, lote-comprimido, consulta, registro ou comprimido
+     *            (opcional, padrão: java)
+     * - args[4]: Quantidade de mensagens na mesma conexão (opcional, padrão: 1)
+     * - args[5]: Arquivo do dicionário do formato comprimido (opcional, sem dicionário)
      * 
      * @param args Argumentos da linha de comando
      */
@@ -86,32 +160,72 @@ public class Cliente5 {
      */
     private void executarComunicacao(ConfiguracaoCliente config) throws IOException {
         System.out.println("=== Cliente de Comunicação por Objetos ===");
-        System.out.println("Servidor: " + config.endereco + ":" + config.porta);
+        boolean unix = config.endereco.startsWith(PREFIXO_UNIX);
+        System.out.println("Servidor: " + (unix ? config.endereco : config.endereco + ":" + config.porta));
         System.out.println("Mensagem: " + config.mensagem);
+        System.out.println("Formato: " + config.formato);
+        if (config.quantidade > 1) {
+            System.out.println("Quantidade: " + config.quantidade + " mensagens");
+        }
         System.out.println("Timeout: " + TIMEOUT_CONEXAO + "ms");
         System.out.println();
         
-        Socket socket = null;
-        ObjectOutputStream outputStream = null;
+        Closeable conexao = null;
+        OutputStream outputStream = null;
         
         try {
             // Estabelecer conexão com o servidor
-            socket = estabelecerConexao(config.endereco, config.porta);
-            
-            // Criar stream de saída para objetos
-            outputStream = new ObjectOutputStream(socket.getOutputStream());
-            LOGGER.info("ObjectOutputStream criado com sucesso");
+            OutputStream saidaConexao;
+            InputStream entradaConexao;
+            if (unix) {
+                SocketChannel canal = estabelecerConexaoUnix(
+                        Paths.get(config.endereco.substring(PREFIXO_UNIX.length())));
+                conexao = canal;
+                saidaConexao = Channels.newOutputStream(canal);
+                entradaConexao = Channels.newInputStream(canal);
+            } else {
+                Socket socket = estabelecerConexao(config.endereco, config.porta);
+                conexao = socket;
+                saidaConexao = socket.getOutputStream();
+                entradaConexao = socket.getInputStream();
+            }
             
             // Criar e enviar objeto mensagem
             MensagemTeste mensagem = new MensagemTeste(config.mensagem);
-            enviarMensagem(outputStream, mensagem);
+            if (config.formato.startsWith(FORMATO_LOTE)) {
+                DataOutputStream saidaLotes = new DataOutputStream(new BufferedOutputStream(saidaConexao));
+                outputStream = saidaLotes;
+                enviarLotes(saidaLotes, new DataInputStream(new BufferedInputStream(entradaConexao)), config);
+            } else if (FORMATO_CONSULTA.equals(config.formato)) {
+                DataOutputStream saidaConsultas = new DataOutputStream(new BufferedOutputStream(saidaConexao));
+                outputStream = saidaConsultas;
+                consultar(saidaConsultas, new DataInputStream(new BufferedInputStream(entradaConexao)), config);
+            } else if (FORMATO_COMPACTO.equals(config.formato) || FORMATO_REGISTRO.equals(config.formato)
+                    || FORMATO_COMPRIMIDO.equals(config.formato) || FORMATO_OBJETO.equals(config.formato)) {
+                DataOutputStream saidaCompacta = new DataOutputStream(new BufferedOutputStream(saidaConexao));
+                outputStream = saidaCompacta;
+                if (config.quantidade > 1 || !FORMATO_COMPACTO.equals(config.formato)) {
+                    enviarFluxo(saidaCompacta, config);
+                } else {
+                    enviarMensagemCompacta(saidaCompacta, mensagem);
+                }
+            } else {
+                ObjectOutputStream saidaObjetos = new ObjectOutputStream(new BufferedOutputStream(saidaConexao));
+                outputStream = saidaObjetos;
+                LOGGER.info("ObjectOutputStream criado com sucesso");
+                if (config.quantidade > 1) {
+                    enviarFluxo(saidaObjetos, config);
+                } else {
+                    enviarMensagem(saidaObjetos, mensagem);
+                }
+            }
             
             System.out.println("✓ Objeto enviado com sucesso!");
             System.out.println("✓ Comunicação concluída");
             
         } finally {
             // Fechar recursos
-            fecharRecursos(outputStream, socket);
+            fecharRecursos(outputStream, conexao);
         }
     }
     
@@ -131,6 +245,8 @@ public class Cliente5 {
         
         try {
             socket.connect(enderecoServidor, TIMEOUT_CONEXAO);
+            // Cada lote espera a confirmação: não segurar o fim do lote (Nagle)
+            socket.setTcpNoDelay(true);
             System.out.println(" ✓ Conectado!");
             
             LOGGER.info("Conexão estabelecida com " + enderecoServidor);
@@ -145,6 +261,31 @@ public class Cliente5 {
         }
     }
     
+    /**
+     * Estabelece conexão com o servidor por socket Unix.
+     * 
+     * @param caminho Caminho do arquivo de socket
+     * @return Canal conectado em modo bloqueante
+     * @throws IOException se houver erro na conexão
+     */
+    private SocketChannel estabelecerConexaoUnix(Path caminho) throws IOException {
+        System.out.print("Conectando ao socket Unix " + caminho + "...");
+        
+        SocketChannel canal = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            canal.connect(UnixDomainSocketAddress.of(caminho));
+            System.out.println(" ✓ Conectado!");
+            
+            LOGGER.info("Conexão estabelecida com " + PREFIXO_UNIX + caminho);
+            return canal;
+            
+        } catch (IOException e) {
+            System.out.println(" ✗ Falhou!");
+            canal.close();
+            throw new IOException("Não foi possível conectar ao servidor: " + e.getMessage(), e);
+        }
+    }
+    
     /**
      * Envia objeto mensagem para o servidor.
      * 
@@ -169,29 +310,192 @@ public class Cliente5 {
         }
     }
     
+    /**
+     * Envia várias mensagens pela mesma conexão e exibe a taxa obtida.
+     * 
+     * Cada mensagem tem um texto próprio (sufixo com o número de sequência),
+     * para que a serialização Java não a reenvie como referência a um objeto
+     * já transmitido.
+     * 
+     * @param outputStream ObjectOutputStream ou DataOutputStream (formatos compacto, registro, comprimido e objeto)
+     * @param config Configuração com texto base, quantidade e formato
+     * @throws IOException se houver erro no envio
+     */
+    private void enviarFluxo(OutputStream outputStream, ConfiguracaoCliente config) throws IOException {
+        System.out.print("Enviando " + config.quantidade + " mensagens...");
+        ObjectOutputStream saidaObjetos = outputStream instanceof ObjectOutputStream
+                ? (ObjectOutputStream) outputStream : null;
+        boolean registro = FORMATO_REGISTRO.equals(config.formato);
+        boolean objeto = FORMATO_OBJETO.equals(config.formato);
+        CompressorMensagens compressor = null;
+        if (FORMATO_COMPRIMIDO.equals(config.formato)) {
+            compressor = new CompressorMensagens(config.dicionario != null
+                    ? DicionarioCompressao.carregar(config.dicionario) : null, Map.of());
+        }
+        long inicio = System.nanoTime();
+        
+        try {
+            for (int i = 1; i <= config.quantidade; i++) {
+                String texto = config.quantidade > 1 ? config.mensagem + " #" + i : config.mensagem;
+                MensagemTeste mensagem = new MensagemTeste(texto);
+                if (saidaObjetos != null) {
+                    saidaObjetos.writeObject(mensagem);
+                    if (i % MENSAGENS_ENTRE_RESETS == 0) {
+                        saidaObjetos.reset();
+                    }
+                } else if (registro) {
+                    registroTipos.escrever((DataOutputStream) outputStream, mensagem);
+                } else if (objeto) {
+                    CodecMensagem.escreverObjeto((DataOutputStream) outputStream, mensagem);
+                } else if (compressor != null) {
+                    compressor.escrever((DataOutputStream) outputStream, mensagem);
+                } else {
+                    CodecMensagem.escrever((DataOutputStream) outputStream, mensagem);
+                }
+            }
+            outputStream.flush();
+            
+        } catch (IOException e) {
+            System.out.println(" ✗ Erro!");
+            throw new IOException("Erro ao enviar mensagens: " + e.getMessage(), e);
+        } finally {
+            if (compressor != null) {
+                compressor.close();
+            }
+        }
+        
+        double segundos = Math.max(System.nanoTime() - inicio, 1) / 1e9;
+        System.out.printf(" ✓ Enviadas em %.1f ms (%.0f msg/s)%n", segundos * 1000, config.quantidade / segundos);
+        if (compressor != null) {
+            System.out.println("Compressão: " + compressor.gerarRelatorio());
+        }
+        LOGGER.info(config.quantidade + " mensagens enviadas no formato " + config.formato);
+    }
+    
+    /**
+     * Envia as mensagens em lotes, cada um confirmado pelo servidor.
+     * 
+     * O agrupador envia um lote ao atingir o limite de mensagens ou de bytes,
+     * ou quando a primeira mensagem espera mais que o tempo de linger.
+     * 
+     * @param outputStream Stream de saída da conexão
+     * @param inputStream Stream de entrada da conexão, para as confirmações
+     * @param config Configuração com texto base, quantidade e formato
+     * @throws IOException se houver erro no envio ou na confirmação
+     */
+    private void enviarLotes(DataOutputStream outputStream, DataInputStream inputStream,
+                             ConfiguracaoCliente config) throws IOException {
+        System.out.print("Enviando " + config.quantidade + " mensagem(ns) em lotes...");
+        LoteMensagens lotes = new LoteMensagens(outputStream, inputStream,
+                                                FORMATO_LOTE_COMPRIMIDO.equals(config.formato));
+        long inicio = System.nanoTime();
+        
+        try {
+            for (int i = 1; i <= config.quantidade; i++) {
+                String texto = config.quantidade > 1 ? config.mensagem + " #" + i : config.mensagem;
+                lotes.adicionar(new MensagemTeste(texto));
+            }
+            lotes.descarregar();
+            
+        } catch (IOException e) {
+            System.out.println(" ✗ Erro!");
+            throw new IOException("Erro ao enviar lotes: " + e.getMessage(), e);
+        } finally {
+            lotes.close();
+        }
+        
+        double segundos = Math.max(System.nanoTime() - inicio, 1) / 1e9;
+        System.out.printf(" ✓ Confirmadas em %.1f ms (%.0f msg/s)%n", segundos * 1000, config.quantidade / segundos);
+        System.out.println("Lotes: " + lotes.gerarRelatorio());
+        LOGGER.info(config.quantidade + " mensagens enviadas em " + lotes.getLotesEnviados() + " lotes");
+    }
+    
+    /**
+     * Consulta o servidor pelo texto da mensagem, repetindo a consulta a
+     * quantidade configurada de vezes, e exibe os endereços e a latência.
+     * 
+     * @param outputStream Stream de saída da conexão
+     * @param inputStream Stream de entrada da conexão, para os resultados
+     * @param config Configuração com o texto e o número de consultas
+     * @throws IOException se houver erro na consulta
+     */
+    private void consultar(DataOutputStream outputStream, DataInputStream inputStream,
+                           ConfiguracaoCliente config) throws IOException {
+        System.out.print("Consultando \"" + config.mensagem + "\"...");
+        List<Long> enderecos = List.of();
+        long menorNanos = Long.MAX_VALUE;
+        long inicio = System.nanoTime();
+        
+        try {
+            for (int i = 0; i < config.quantidade; i++) {
+                long inicioConsulta = System.nanoTime();
+                IndiceMensagens.escreverConsulta(outputStream, config.mensagem);
+                outputStream.flush();
+                enderecos = IndiceMensagens.lerResultado(inputStream);
+                menorNanos = Math.min(menorNanos, System.nanoTime() - inicioConsulta);
+            }
+            
+        } catch (IOException e) {
+            System.out.println(" ✗ Erro!");
+            throw new IOException("Erro na consulta: " + e.getMessage(), e);
+        }
+        
+        double mediaMicros = (System.nanoTime() - inicio) / 1e3 / config.quantidade;
+        System.out.printf(" ✓ %d ocorrência(s) (média %.1f µs, menor %.1f µs por consulta)%n",
+                          enderecos.size(), mediaMicros, menorNanos / 1e3);
+        for (long endereco : enderecos) {
+            System.out.println("  " + JornalMensagens.formatarEndereco(endereco));
+        }
+        LOGGER.info(config.quantidade + " consulta(s) com " + enderecos.size() + " ocorrência(s)");
+    }
+    
+    /**
+     * Envia a mensagem no formato compacto (tipo, varint de tamanho e UTF-8).
+     * 
+     * @param outputStream Stream de saída da conexão
+     * @param mensagem Mensagem a ser enviada
+     * @throws IOException se houver erro no envio
+     */
+    private void enviarMensagemCompacta(DataOutputStream outputStream, MensagemTeste mensagem)
+            throws IOException {
+        System.out.print("Enviando mensagem no formato compacto...");
+        
+        try {
+            int bytes = CodecMensagem.escrever(outputStream, mensagem);
+            outputStream.flush();
+            System.out.println(" ✓ Enviado! (" + bytes + " bytes)");
+            
+            LOGGER.info("Mensagem compacta enviada: " + mensagem + " (" + bytes + " bytes)");
+            
+        } catch (IOException e) {
+            System.out.println(" ✗ Erro!");
+            throw new IOException("Erro ao enviar mensagem: " + e.getMessage(), e);
+        }
+    }
+    
     /**
      * Fecha todos os recursos de rede de forma segura.
      * 
      * @param outputStream Stream de saída a ser fechado
-     * @param socket Socket a ser fechado
+     * @param conexao Socket ou canal a ser fechado
      */
-    private void fecharRecursos(ObjectOutputStream outputStream, Socket socket) {
+    private void fecharRecursos(OutputStream outputStream, Closeable conexao) {
         System.out.print("Fechando conexão...");
         
         // Fechar stream
         if (outputStream != null) {
             try {
                 outputStream.close();
-                LOGGER.fine("ObjectOutputStream fechado");
+                LOGGER.fine("Stream de saída fechado");
             } catch (IOException e) {
-                LOGGER.log(Level.WARNING, "Erro ao fechar ObjectOutputStream", e);
+                LOGGER.log(Level.WARNING, "Erro ao fechar stream de saída", e);
             }
         }
         
-        // Fechar socket
-        if (socket != null && !socket.isClosed()) {
+        // Fechar socket (fechar novamente um socket ou canal já fechado não tem efeito)
+        if (conexao != null) {
             try {
-                socket.close();
+                conexao.close();
                 System.out.println(" ✓ Conexão fechada!");
                 LOGGER.info("Socket fechado com sucesso");
             } catch (IOException e) {
@@ -214,6 +518,9 @@ public class Cliente5 {
         String endereco = ENDERECO_SERVIDOR_PADRAO;
         int porta = PORTA_SERVIDOR_PADRAO;
         String mensagem = MENSAGEM_PADRAO;
+        String formato = FORMATO_JAVA;
+        int quantidade = 1;
+        Path dicionario = null;
         
         try {
             if (args.length > 0 && !args[0].trim().isEmpty()) {
@@ -231,26 +538,63 @@ public class Cliente5 {
                 mensagem = args[2].trim();
             }
             
+            if (args.length > 3) {
+                formato = args[3].trim().toLowerCase();
+                if (!formato.equals(FORMATO_JAVA) && !formato.equals(FORMATO_COMPACTO)
+                        && !formato.equals(FORMATO_LOTE) && !formato.equals(FORMATO_LOTE_COMPRIMIDO)
+                        && !formato.equals(FORMATO_CONSULTA) && !formato.equals(FORMATO_REGISTRO)
+                        && !formato.equals(FORMATO_COMPRIMIDO) && !formato.equals(FORMATO_OBJETO)) {
+                    throw new IllegalArgumentException("Formato deve ser " + FORMATO_JAVA + ", " +
+                                                       FORMATO_COMPACTO + ", " + FORMATO_LOTE + ", " +
+                                                       FORMATO_LOTE_COMPRIMIDO + ", " + FORMATO_CONSULTA + ", " +
+                                                       FORMATO_REGISTRO + ", " + FORMATO_COMPRIMIDO + " ou " +
+                                                       FORMATO_OBJETO);
+                }
+            }
+            
+            if (args.length > 4) {
+                quantidade = Integer.parseInt(args[4]);
+                if (quantidade < 1) {
+                    throw new IllegalArgumentException("Quantidade deve ser pelo menos 1");
+                }
+            }
+            
+            if (args.length > 5 && !args[5].trim().isEmpty()) {
+                dicionario = Paths.get(args[5].trim());
+            }
+            
         } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Porta deve ser um número válido");
+            throw new IllegalArgumentException("Porta e quantidade devem ser números válidos");
         }
         
-        return new ConfiguracaoCliente(endereco, porta, mensagem);
+        return new ConfiguracaoCliente(endereco, porta, mensagem, formato, quantidade, dicionario);
     }
     
     /**
      * Exibe ajuda sobre uso do programa.
      */
     private static void exibirAjuda() {
-        System.out.println("\nUso: java Cliente5 [endereço] [porta] [mensagem]");
-        System.out.println("  endereço: Endereço do servidor (padrão: localhost)");
+        System.out.println("\nUso: java Cliente5 [endereço] [porta] [mensagem] [formato] [quantidade] [dicionario]");
+        System.out.println("  endereço: Endereço do servidor ou unix:caminho (padrão: localhost)");
         System.out.println("  porta:    Porta do servidor (padrão: 4321)");
         System.out.println("  mensagem: Mensagem a enviar (padrão: mensagem teste)");
+        System.out.println("  formato:  java (ObjectOutputStream), compacto, lote, lote-comprimido, consulta,");
+        System.out.println("            registro, comprimido ou objeto (padrão: java)");
+        System.out.println("  quantidade: Mensagens enviadas na mesma conexão (padrão: 1)");
+        System.out.println("  dicionario: Arquivo .dic usado pelo formato comprimido (padrão: sem dicionário)");
         System.out.println("\nExemplos:");
         System.out.println("  java Cliente5");
         System.out.println("  java Cliente5 192.168.1.100");
         System.out.println("  java Cliente5 localhost 8080");
         System.out.println("  java Cliente5 servidor.com 4321 \"Olá servidor!\"");
+        System.out.println("  java Cliente5 unix:/tmp/servidor5.sock");
+        System.out.println("  java Cliente5 localhost 4321 \"Olá servidor!\" compacto");
+        System.out.println("  java Cliente5 localhost 4321 teste java 1000000");
+        System.out.println("  java Cliente5 localhost 4321 teste lote-comprimido 1000000");
+        System.out.println("  java Cliente5 localhost 4321 \"teste #42\" consulta 1000");
+        System.out.println("  java Cliente5 localhost 4321 teste registro 1000");
+        System.out.println("  java Cliente5 localhost 4321 teste objeto 100000");
+        System.out.println("  java Cliente5 localhost 4321 \"Pedido enviado\" comprimido 1000 dicionarios/v1.dic");
     }
     
     // ==================== CLASSES AUXILIARES ====================
@@ -262,11 +606,18 @@ public class Cliente5 {
         final String endereco;
         final int porta;
         final String mensagem;
+        final String formato;
+        final int quantidade;
+        final Path dicionario;
         
-        ConfiguracaoCliente(String endereco, int porta, String mensagem) {
+        ConfiguracaoCliente(String endereco, int porta, String mensagem, String formato, int quantidade,
+                            Path dicionario) {
             this.endereco = endereco;
             this.porta = porta;
             this.mensagem = mensagem;
+            this.formato = formato;
+            this.quantidade = quantidade;
+            this.dicionario = dicionario;
         }
     }
 }
\ No newline at end of file
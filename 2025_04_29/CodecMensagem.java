@@ -0,0 +1,416 @@
+/**
+ * CodecMensagem - Codificação binária compacta de MensagemTeste
+ *
+ * A serialização Java envia, a cada conexão, o cabeçalho do stream, o
+ * descritor completo da classe e o serialVersionUID, e lê os campos por
+ * reflexão, apenas para transportar um texto curto. Este codec escreve só o
+ * necessário:
+ *
+ *   1 byte      tipo (TIPO_MENSAGEM_TESTE)
+ *   varint      tamanho do texto em bytes (LEB128 sem sinal)
+ *   N bytes     texto em UTF-8
+ *
+ * O primeiro byte nunca é 0xAC, de modo que o servidor distingue este formato
+ * do stream de serialização Java (que começa com 0xACED) olhando um único byte.
+ *
+ * Outros tipos de registro compartilham o mesmo byte inicial: lotes de
+ * mensagens e confirmações de lote (ver LoteMensagens), consultas e seus
+ * resultados (ver IndiceMensagens), e mensagens de qualquer tipo cadastrado
+ * em RegistroTipos, identificadas por um id numérico, e mensagens comprimidas
+ * com dicionário (ver CompressorMensagens).
+ *
+ * Objetos de qualquer classe serializável também podem viajar pela
+ * serialização Java, um por registro, delimitados pelo tamanho:
+ *
+ *   1 byte      tipo (TIPO_OBJETO_SERIALIZADO)
+ *   varint      tamanho do stream em bytes
+ *   N bytes     stream completo de ObjectOutputStream com um único objeto
+ *
+ * Ao contrário de um stream Java contínuo, cujos objetos referenciam
+ * descritores e objetos anteriores, cada registro se desserializa sozinho:
+ * o servidor separa os registros sem desserializá-los e pode decodificá-los
+ * em paralelo (ver PipelineDecodificacao).
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codificador e decodificador do formato compacto.
+ */
+public final class CodecMensagem {
+
+    // ==================== CONSTANTES ====================
+
+    /** Tipo de registro: MensagemTeste */
+    public static final int TIPO_MENSAGEM_TESTE = 0x01;
+
+    /** Tipo de registro: lote de mensagens (LoteMensagens) */
+    public static final int TIPO_LOTE = 0x02;
+
+    /** Tipo de registro: confirmação de um lote, enviada pelo servidor */
+    public static final int TIPO_CONFIRMACAO = 0x03;
+
+    /** Tipo de registro: consulta de mensagens persistidas pelo texto */
+    public static final int TIPO_CONSULTA = 0x04;
+
+    /** Tipo de registro: endereços encontrados por uma consulta, enviados pelo servidor */
+    public static final int TIPO_RESULTADO_CONSULTA = 0x05;
+
+    /** Tipo de registro: mensagem de um tipo cadastrado em RegistroTipos (seguido do id do tipo) */
+    public static final int TIPO_REGISTRADO = 0x06;
+
+    /** Tipo de registro: MensagemTeste comprimida com dicionário (CompressorMensagens) */
+    public static final int TIPO_MENSAGEM_COMPRIMIDA = 0x07;
+
+    /** Tipo de registro: objeto serializável em um stream Java próprio, delimitado pelo tamanho */
+    public static final int TIPO_OBJETO_SERIALIZADO = 0x08;
+
+    /** Primeiro byte de um stream de serialização Java (STREAM_MAGIC = 0xACED) */
+    public static final int INICIO_SERIALIZACAO_JAVA = 0xAC;
+
+    /** Maior texto aceito na decodificação, para não alocar a partir de dados corrompidos */
+    public static final int TAMANHO_MAXIMO_TEXTO = 16 * 1024 * 1024;
+
+    /** Número máximo de bytes de um varint de 32 bits */
+    public static final int MAXIMO_BYTES_VARINT = 5;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Classe utilitária - não deve ser instanciada.
+     */
+    private CodecMensagem() {
+    }
+
+    // ==================== CODIFICAÇÃO ====================
+
+    /**
+     * Escreve uma mensagem no formato compacto.
+     *
+     * @param saida Destino
+     * @param mensagem Mensagem a codificar
+     * @return Número de bytes escritos
+     * @throws IOException se houver erro de escrita
+     */
+    public static int escrever(DataOutput saida, MensagemTeste mensagem) throws IOException {
+        saida.writeByte(TIPO_MENSAGEM_TESTE);
+        return 1 + escreverCorpo(saida, mensagem);
+    }
+
+    /**
+     * Escreve o tamanho e o texto de uma mensagem, sem o byte de tipo
+     * (corpo usado também por RegistroTipos).
+     *
+     * @param saida Destino
+     * @param mensagem Mensagem a codificar
+     * @return Número de bytes escritos
+     * @throws IOException se houver erro de escrita
+     */
+    public static int escreverCorpo(DataOutput saida, MensagemTeste mensagem) throws IOException {
+        byte[] texto = mensagem.getTexto().getBytes(StandardCharsets.UTF_8);
+        int bytesTamanho = escreverVarint(saida, texto.length);
+        saida.write(texto);
+        return bytesTamanho + texto.length;
+    }
+
+    /**
+     * Codifica uma mensagem em um vetor de bytes.
+     *
+     * @param mensagem Mensagem a codificar
+     * @return Bytes no formato compacto
+     */
+    public static byte[] codificar(MensagemTeste mensagem) {
+        byte[] texto = mensagem.getTexto().getBytes(StandardCharsets.UTF_8);
+        byte[] resultado = new byte[1 + tamanhoVarint(texto.length) + texto.length];
+        resultado[0] = (byte) TIPO_MENSAGEM_TESTE;
+        int posicao = 1;
+        int valor = texto.length;
+        while ((valor & ~0x7F) != 0) {
+            resultado[posicao++] = (byte) ((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        resultado[posicao++] = (byte) valor;
+        System.arraycopy(texto, 0, resultado, posicao, texto.length);
+        return resultado;
+    }
+
+    /**
+     * Calcula o tamanho da mensagem codificada sem codificá-la.
+     *
+     * @param mensagem Mensagem
+     * @return Bytes ocupados no formato compacto
+     */
+    public static int tamanhoCodificado(MensagemTeste mensagem) {
+        int bytesTexto = tamanhoUtf8(mensagem.getTexto());
+        return 1 + tamanhoVarint(bytesTexto) + bytesTexto;
+    }
+
+    // ==================== DECODIFICAÇÃO ====================
+
+    /**
+     * Lê uma mensagem completa (tipo, tamanho e texto).
+     *
+     * @param entrada Origem
+     * @return Mensagem decodificada
+     * @throws StreamCorruptedException se o tipo ou o tamanho forem inválidos
+     * @throws IOException se houver erro de leitura
+     */
+    public static MensagemTeste ler(DataInput entrada) throws IOException {
+        int tipo = entrada.readUnsignedByte();
+        if (tipo != TIPO_MENSAGEM_TESTE) {
+            throw new StreamCorruptedException("Tipo de registro desconhecido: 0x" + Integer.toHexString(tipo));
+        }
+        return lerCorpo(entrada);
+    }
+
+    /**
+     * Lê o tamanho e o texto de uma mensagem cujo byte de tipo já foi consumido.
+     *
+     * @param entrada Origem posicionada após o tipo
+     * @return Mensagem decodificada
+     * @throws IOException se houver erro de leitura ou tamanho inválido
+     */
+    public static MensagemTeste lerCorpo(DataInput entrada) throws IOException {
+        return lerCorpo(entrada, null);
+    }
+
+    /**
+     * Lê uma mensagem cujo byte de tipo já foi consumido, com o texto
+     * canônico do cache quando os mesmos bytes já foram recebidos.
+     *
+     * @param entrada Origem posicionada após o tipo
+     * @param cache Cache de textos (null para decodificar sempre)
+     * @return Mensagem decodificada
+     * @throws IOException se houver erro de leitura ou tamanho inválido
+     */
+    public static MensagemTeste lerCorpo(DataInput entrada, CacheTextos cache) throws IOException {
+        byte[] texto = new byte[validarTamanho(lerVarint(entrada))];
+        entrada.readFully(texto);
+        return new MensagemTeste(cache != null ? cache.canonizar(texto, 0, texto.length)
+                                               : new String(texto, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lê o tamanho e os bytes de uma mensagem cujo byte de tipo já foi
+     * consumido, sem decodificar o texto.
+     *
+     * @param entrada Origem posicionada após o tipo
+     * @return Visão sobre os bytes lidos
+     * @throws IOException se houver erro de leitura ou tamanho inválido
+     */
+    public static VisaoMensagem lerVisao(DataInput entrada) throws IOException {
+        return lerVisao(entrada, null);
+    }
+
+    /**
+     * Lê uma mensagem sem decodificar o texto; quando decodificado, o texto
+     * vem do cache.
+     *
+     * @param entrada Origem posicionada após o tipo
+     * @param cache Cache de textos (null para decodificar sempre)
+     * @return Visão sobre os bytes lidos
+     * @throws IOException se houver erro de leitura ou tamanho inválido
+     */
+    public static VisaoMensagem lerVisao(DataInput entrada, CacheTextos cache) throws IOException {
+        byte[] texto = new byte[validarTamanho(lerVarint(entrada))];
+        entrada.readFully(texto);
+        return new VisaoMensagem(ByteBuffer.wrap(texto), cache);
+    }
+
+    /**
+     * Decodifica uma mensagem de um vetor de bytes.
+     *
+     * @param dados Bytes no formato compacto
+     * @return Mensagem decodificada
+     * @throws StreamCorruptedException se os dados estiverem truncados ou inválidos
+     */
+    public static MensagemTeste decodificar(byte[] dados) throws StreamCorruptedException {
+        if (dados.length == 0 || (dados[0] & 0xFF) != TIPO_MENSAGEM_TESTE) {
+            throw new StreamCorruptedException("Registro não é uma MensagemTeste compacta");
+        }
+        int posicao = 1;
+        int tamanho = 0;
+        for (int deslocamento = 0; ; deslocamento += 7) {
+            if (posicao >= dados.length || deslocamento >= 7 * MAXIMO_BYTES_VARINT) {
+                throw new StreamCorruptedException("Varint inválido no registro");
+            }
+            int b = dados[posicao++];
+            tamanho |= (b & 0x7F) << deslocamento;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (validarTamanho(tamanho) > dados.length - posicao) {
+            throw new StreamCorruptedException("Registro truncado: faltam " +
+                                               (tamanho - (dados.length - posicao)) + " bytes");
+        }
+        return new MensagemTeste(new String(dados, posicao, tamanho, StandardCharsets.UTF_8));
+    }
+
+    // ==================== OBJETOS SERIALIZADOS ====================
+
+    /**
+     * Escreve um objeto serializado em um stream Java próprio.
+     *
+     * @param saida Destino
+     * @param objeto Objeto serializável
+     * @return Número de bytes escritos
+     * @throws IOException se houver erro na serialização ou na escrita
+     */
+    public static int escreverObjeto(DataOutput saida, Serializable objeto) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream objetos = new ObjectOutputStream(bytes)) {
+            objetos.writeObject(objeto);
+        }
+        saida.writeByte(TIPO_OBJETO_SERIALIZADO);
+        int escritos = 1 + escreverVarint(saida, bytes.size());
+        saida.write(bytes.toByteArray());
+        return escritos + bytes.size();
+    }
+
+    /**
+     * Lê os bytes de um objeto serializado cujo byte de tipo já foi consumido,
+     * sem desserializá-lo.
+     *
+     * @param entrada Origem posicionada após TIPO_OBJETO_SERIALIZADO
+     * @return Stream Java do objeto, a ser lido com lerObjeto()
+     * @throws StreamCorruptedException se o tamanho for inválido
+     * @throws IOException se houver erro de leitura
+     */
+    public static byte[] lerQuadroObjeto(DataInput entrada) throws IOException {
+        byte[] quadro = new byte[validarTamanho(lerVarint(entrada))];
+        entrada.readFully(quadro);
+        return quadro;
+    }
+
+    /**
+     * Desserializa o objeto de um registro lido por lerQuadroObjeto().
+     *
+     * @param quadro Stream Java com um único objeto
+     * @return Objeto desserializado
+     * @throws IOException se o stream for inválido
+     * @throws ClassNotFoundException se a classe do objeto não existir
+     */
+    public static Object lerObjeto(byte[] quadro) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objetos = new ObjectInputStream(new ByteArrayInputStream(quadro))) {
+            return objetos.readObject();
+        }
+    }
+
+    /**
+     * Desserializa o objeto de um registro dentro dos limites de um filtro.
+     *
+     * @param quadro Stream Java com um único objeto
+     * @param filtro Filtro novo, usado só neste registro
+     * @return Objeto desserializado
+     * @throws InvalidClassException se o filtro rejeitar o objeto
+     * @throws InvalidObjectException se o objeto exceder o limite de bytes
+     * @throws IOException se o stream for inválido
+     * @throws ClassNotFoundException se a classe do objeto não existir
+     */
+    public static Object lerObjeto(byte[] quadro, FiltroDesserializacao.Fluxo filtro)
+            throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objetos = new ObjectInputStream(filtro.limitar(new ByteArrayInputStream(quadro)))) {
+            objetos.setObjectInputFilter(filtro);
+            return filtro.ler(objetos);
+        }
+    }
+
+    // ==================== VARINT ====================
+
+    /**
+     * Escreve um inteiro não negativo em LEB128.
+     *
+     * @param saida Destino
+     * @param valor Valor a escrever
+     * @return Número de bytes escritos
+     * @throws IOException se houver erro de escrita
+     */
+    public static int escreverVarint(DataOutput saida, int valor) throws IOException {
+        int bytes = 1;
+        while ((valor & ~0x7F) != 0) {
+            saida.writeByte((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+            bytes++;
+        }
+        saida.writeByte(valor);
+        return bytes;
+    }
+
+    /**
+     * Lê um inteiro codificado em LEB128.
+     *
+     * @param entrada Origem
+     * @return Valor lido
+     * @throws StreamCorruptedException se o varint exceder 5 bytes
+     * @throws IOException se houver erro de leitura
+     */
+    public static int lerVarint(DataInput entrada) throws IOException {
+        int valor = 0;
+        for (int deslocamento = 0; deslocamento < 7 * MAXIMO_BYTES_VARINT; deslocamento += 7) {
+            int b = entrada.readUnsignedByte();
+            valor |= (b & 0x7F) << deslocamento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new StreamCorruptedException("Varint com mais de " + MAXIMO_BYTES_VARINT + " bytes");
+    }
+
+    /**
+     * Quantidade de bytes ocupada por um varint.
+     *
+     * @param valor Valor não negativo
+     * @return Bytes necessários (1 a 5)
+     */
+    public static int tamanhoVarint(int valor) {
+        int bytes = 1;
+        while ((valor & ~0x7F) != 0) {
+            valor >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Conta os bytes UTF-8 de um texto, como String.getBytes os produziria:
+     * pares substitutos ocupam 4 bytes e substitutos isolados viram '?'.
+     */
+    private static int tamanhoUtf8(String texto) {
+        int bytes = texto.length();
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                bytes += 1;
+            } else if (!Character.isSurrogate(c)) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < texto.length()
+                    && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                bytes += 2; // 4 bytes para os dois chars do par
+                i++;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Rejeita tamanhos negativos ou acima do limite (usado também por CompressorMensagens).
+     */
+    static int validarTamanho(int tamanho) throws StreamCorruptedException {
+        if (tamanho < 0 || tamanho > TAMANHO_MAXIMO_TEXTO) {
+            throw new StreamCorruptedException("Tamanho de texto inválido: " + tamanho);
+        }
+        return tamanho;
+    }
+}
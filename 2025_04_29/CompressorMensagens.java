@@ -0,0 +1,260 @@
+/**
+ * CompressorMensagens - Mensagens avulsas comprimidas com dicionário
+ *
+ * Codifica cada MensagemTeste como um fluxo Deflate próprio (sem cabeçalho
+ * zlib), iniciado com um DicionarioCompressao. Cada mensagem continua
+ * decodificável sozinha, na ordem em que chegar, mas aproveita o vocabulário
+ * comum a todas as mensagens.
+ *
+ * Formato (tipo de registro CodecMensagem.TIPO_MENSAGEM_COMPRIMIDA):
+ *
+ *   1 byte      tipo
+ *   varint      id do dicionário (DicionarioCompressao.SEM_DICIONARIO = sem dicionário)
+ *   varint      tamanho do texto original em bytes
+ *   varint      tamanho comprimido
+ *   N bytes     Deflate do texto em UTF-8
+ *
+ * Quando a compressão não reduz o texto, a mensagem é enviada no formato
+ * compacto comum (TIPO_MENSAGEM_TESTE).
+ *
+ * O receptor guarda um catálogo com todas as versões de dicionário aceitas e
+ * escolhe a de cada mensagem pelo id. Deflater e Inflater não são thread-safe:
+ * use um compressor por conexão e feche-o ao final.
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codec por conexão de mensagens comprimidas com dicionário.
+ */
+public class CompressorMensagens implements Closeable {
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Dicionário usado no envio (null para comprimir sem dicionário) */
+    private final DicionarioCompressao dicionarioEnvio;
+
+    /** Dicionários aceitos na recepção, por id */
+    private final Map<Integer, DicionarioCompressao> catalogo;
+
+    /** Compressor Deflate bruto, reiniciado a cada mensagem */
+    private Deflater deflater;
+
+    /** Descompressor Deflate bruto, reiniciado a cada mensagem */
+    private Inflater inflater;
+
+    /** Área de saída do Deflater, ampliada conforme necessário */
+    private byte[] comprimido = new byte[256];
+
+    /** Estatísticas de envio */
+    private long mensagensComprimidas;
+    private long bytesOriginais;
+    private long bytesEnviados;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria um compressor.
+     *
+     * @param dicionarioEnvio Dicionário usado no envio (null para comprimir sem dicionário)
+     * @param catalogo Dicionários aceitos na recepção, por id (vazio se só enviar)
+     */
+    public CompressorMensagens(DicionarioCompressao dicionarioEnvio, Map<Integer, DicionarioCompressao> catalogo) {
+        this.dicionarioEnvio = dicionarioEnvio;
+        this.catalogo = catalogo;
+    }
+
+    // ==================== ENVIO ====================
+
+    /**
+     * Escreve uma mensagem comprimida, ou no formato compacto comum se a
+     * compressão não a reduzir.
+     *
+     * @param saida Destino
+     * @param mensagem Mensagem a enviar
+     * @return Número de bytes escritos
+     * @throws IOException se houver erro de escrita
+     */
+    public int escrever(DataOutput saida, MensagemTeste mensagem) throws IOException {
+        byte[] texto = mensagem.getTexto().getBytes(StandardCharsets.UTF_8);
+        int tamanhoComprimido = comprimir(texto);
+        int id = dicionarioEnvio != null ? dicionarioEnvio.getId() : DicionarioCompressao.SEM_DICIONARIO;
+        int escritos = 1 + CodecMensagem.tamanhoVarint(id) + CodecMensagem.tamanhoVarint(texto.length)
+                       + CodecMensagem.tamanhoVarint(tamanhoComprimido) + tamanhoComprimido;
+        bytesOriginais += texto.length;
+
+        if (escritos >= 1 + CodecMensagem.tamanhoVarint(texto.length) + texto.length) {
+            escritos = CodecMensagem.escrever(saida, mensagem);
+        } else {
+            saida.writeByte(CodecMensagem.TIPO_MENSAGEM_COMPRIMIDA);
+            CodecMensagem.escreverVarint(saida, id);
+            CodecMensagem.escreverVarint(saida, texto.length);
+            CodecMensagem.escreverVarint(saida, tamanhoComprimido);
+            saida.write(comprimido, 0, tamanhoComprimido);
+            mensagensComprimidas++;
+        }
+        bytesEnviados += escritos;
+        return escritos;
+    }
+
+    /**
+     * Comprime o texto em um fluxo Deflate novo, iniciado com o dicionário.
+     *
+     * @return Bytes comprimidos em comprimido[0..n)
+     */
+    private int comprimir(byte[] texto) {
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+        deflater.reset();
+        if (dicionarioEnvio != null) {
+            deflater.setDictionary(dicionarioEnvio.conteudo());
+        }
+        deflater.setInput(texto);
+        deflater.finish();
+        int total = 0;
+        while (!deflater.finished()) {
+            if (total == comprimido.length) {
+                comprimido = Arrays.copyOf(comprimido, comprimido.length * 2);
+            }
+            total += deflater.deflate(comprimido, total, comprimido.length - total);
+        }
+        return total;
+    }
+
+    // ==================== RECEPÇÃO ====================
+
+    /**
+     * Lê os bytes de uma mensagem comprimida cujo byte de tipo já foi
+     * consumido, sem descomprimi-la, para que isso seja feito em outra thread.
+     *
+     * @param entrada Origem posicionada após CodecMensagem.TIPO_MENSAGEM_COMPRIMIDA
+     * @return Cabeçalho e dados da mensagem, a serem lidos com lerCorpo()
+     * @throws StreamCorruptedException se os tamanhos forem inválidos
+     * @throws IOException se houver erro de leitura
+     */
+    public static byte[] lerQuadro(DataInput entrada) throws IOException {
+        int id = CodecMensagem.lerVarint(entrada);
+        int tamanhoOriginal = CodecMensagem.validarTamanho(CodecMensagem.lerVarint(entrada));
+        int tamanhoComprimido = CodecMensagem.validarTamanho(CodecMensagem.lerVarint(entrada));
+        ByteArrayOutputStream cabecalho = new ByteArrayOutputStream(3 * CodecMensagem.MAXIMO_BYTES_VARINT);
+        DataOutputStream saida = new DataOutputStream(cabecalho);
+        CodecMensagem.escreverVarint(saida, id);
+        CodecMensagem.escreverVarint(saida, tamanhoOriginal);
+        CodecMensagem.escreverVarint(saida, tamanhoComprimido);
+
+        byte[] quadro = Arrays.copyOf(cabecalho.toByteArray(), cabecalho.size() + tamanhoComprimido);
+        entrada.readFully(quadro, cabecalho.size(), tamanhoComprimido);
+        return quadro;
+    }
+
+    /**
+     * Lê uma mensagem comprimida cujo byte de tipo já foi consumido.
+     *
+     * @param entrada Origem posicionada após CodecMensagem.TIPO_MENSAGEM_COMPRIMIDA
+     * @return Visão sobre o texto descomprimido
+     * @throws StreamCorruptedException se o dicionário for desconhecido ou os dados inválidos
+     * @throws IOException se houver erro de leitura
+     */
+    public VisaoMensagem lerCorpo(DataInput entrada) throws IOException {
+        return lerCorpo(entrada, null);
+    }
+
+    /**
+     * Lê uma mensagem comprimida; o texto, quando decodificado, vem do cache.
+     *
+     * @param entrada Origem posicionada após CodecMensagem.TIPO_MENSAGEM_COMPRIMIDA
+     * @param cache Cache de textos (null para decodificar sempre)
+     * @return Visão sobre o texto descomprimido
+     * @throws StreamCorruptedException se o dicionário for desconhecido ou os dados inválidos
+     * @throws IOException se houver erro de leitura
+     */
+    public VisaoMensagem lerCorpo(DataInput entrada, CacheTextos cache) throws IOException {
+        int id = CodecMensagem.lerVarint(entrada);
+        int tamanhoOriginal = CodecMensagem.validarTamanho(CodecMensagem.lerVarint(entrada));
+        int tamanhoComprimido = CodecMensagem.validarTamanho(CodecMensagem.lerVarint(entrada));
+        DicionarioCompressao dicionario = null;
+        if (id != DicionarioCompressao.SEM_DICIONARIO) {
+            dicionario = catalogo.get(id);
+            if (dicionario == null) {
+                throw new StreamCorruptedException("Dicionário de compressão desconhecido: id " + id);
+            }
+        }
+        byte[] dados = new byte[tamanhoComprimido];
+        entrada.readFully(dados);
+
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        inflater.reset();
+        if (dicionario != null) {
+            inflater.setDictionary(dicionario.conteudo());
+        }
+        inflater.setInput(dados);
+        byte[] texto = new byte[tamanhoOriginal];
+        int total = 0;
+        try {
+            while (total < tamanhoOriginal) {
+                int lidos = inflater.inflate(texto, total, tamanhoOriginal - total);
+                if (lidos == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                total += lidos;
+            }
+        } catch (DataFormatException e) {
+            throw new StreamCorruptedException("Mensagem comprimida inválida: " + e.getMessage());
+        }
+        if (total != tamanhoOriginal) {
+            throw new StreamCorruptedException("Mensagem descomprimida com " + total + " de " +
+                                               tamanhoOriginal + " bytes");
+        }
+        return new VisaoMensagem(ByteBuffer.wrap(texto), cache);
+    }
+
+    /**
+     * Libera a memória nativa do Deflater e do Inflater.
+     */
+    @Override
+    public void close() {
+        if (deflater != null) {
+            deflater.end();
+        }
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna a razão entre os bytes enviados e os bytes de texto originais.
+     *
+     * @return Fração do tamanho original (menor é melhor), ou 1 sem envios
+     */
+    public double getRazaoCompressao() {
+        return bytesOriginais == 0 ? 1.0 : (double) bytesEnviados / bytesOriginais;
+    }
+
+    /**
+     * Gera um resumo do envio.
+     *
+     * @return Relatório em uma linha
+     */
+    public String gerarRelatorio() {
+        return String.format("%d bytes de texto enviados em %d bytes (%.0f%%), %d mensagem(ns) comprimida(s), " +
+                             "dicionário %s", bytesOriginais, bytesEnviados, 100 * getRazaoCompressao(),
+                             mensagensComprimidas, dicionarioEnvio != null ? dicionarioEnvio.getId() + " (" +
+                             dicionarioEnvio.getTamanho() + " bytes)" : "nenhum");
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * ConfiguracaoServidor5 - Parâmetros do Servidor5
+ *
+ * Agrupa as opções do servidor de objetos em um único objeto imutável: onde
+ * escutar (porta TCP ou socket Unix), o detalhamento das mensagens e os
+ * recursos opcionais (jornal e índice, dicionários de compressão, pool de
+ * decodificação e cache de textos). Cada recurso é acrescentado por uma
+ * variante "com...", que devolve uma cópia da configuração.
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Configuração imutável do Servidor5.
+ */
+public class ConfiguracaoServidor5 {
+
+    // ==================== CONSTANTES ====================
+
+    /** Porta padrão do servidor */
+    public static final int PORTA_PADRAO = 4321;
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Porta onde o servidor escuta */
+    final int porta;
+
+    /** Caminho do socket Unix; null quando o servidor escuta em TCP */
+    final Path caminhoUnix;
+
+    /** Indica se cada mensagem recebida é exibida (desative para medir vazão) */
+    final boolean detalharMensagens;
+
+    /** Jornal já aberto onde as mensagens são persistidas (null sem persistência) */
+    final JornalMensagens jornal;
+
+    /** Índice que acompanha o jornal (null para responder consultas vazias) */
+    final IndiceMensagens indice;
+
+    /** Dicionários de compressão aceitos, por id de versão */
+    final Map<Integer, DicionarioCompressao> dicionarios;
+
+    /** Threads de decodificação do formato compacto (0: decodificado na thread da conexão) */
+    final int trabalhadoresDecodificacao;
+
+    /** Cache dos textos decodificados (null para não usar) */
+    final CacheTextos cacheTextos;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria uma configuração TCP sem recursos opcionais.
+     *
+     * @param porta Porta do servidor (1-65535)
+     * @param detalharMensagens false para exibir apenas o resumo de cada conexão
+     * @throws IllegalArgumentException se a porta estiver fora do intervalo válido
+     */
+    public ConfiguracaoServidor5(int porta, boolean detalharMensagens) {
+        this(porta, null, detalharMensagens, null, null, Map.of(), 0, null);
+    }
+
+    /**
+     * Construtor completo, usado pelas variantes "com...".
+     */
+    private ConfiguracaoServidor5(int porta, Path caminhoUnix, boolean detalharMensagens,
+                                  JornalMensagens jornal, IndiceMensagens indice,
+                                  Map<Integer, DicionarioCompressao> dicionarios,
+                                  int trabalhadoresDecodificacao, CacheTextos cacheTextos) {
+        if (porta < 1 || porta > 65535) {
+            throw new IllegalArgumentException("Porta deve estar entre 1 e 65535");
+        }
+        if (trabalhadoresDecodificacao < 0) {
+            throw new IllegalArgumentException("Threads de decodificação devem ser um número não negativo");
+        }
+        this.porta = porta;
+        this.caminhoUnix = caminhoUnix;
+        this.detalharMensagens = detalharMensagens;
+        this.jornal = jornal;
+        this.indice = indice;
+        this.dicionarios = Map.copyOf(dicionarios);
+        this.trabalhadoresDecodificacao = trabalhadoresDecodificacao;
+        this.cacheTextos = cacheTextos;
+    }
+
+    /**
+     * Retorna uma cópia desta configuração que escuta em um socket Unix.
+     *
+     * @param caminho Caminho do arquivo de socket
+     * @return Nova configuração
+     */
+    public ConfiguracaoServidor5 comSocketUnix(Path caminho) {
+        return new ConfiguracaoServidor5(porta, caminho, detalharMensagens, jornal, indice, dicionarios,
+                                         trabalhadoresDecodificacao, cacheTextos);
+    }
+
+    /**
+     * Retorna uma cópia desta configuração que persiste as mensagens e responde a consultas.
+     *
+     * @param jornal Jornal já aberto; fechado no encerramento do servidor
+     * @param indice Índice que acompanha o jornal (null para responder consultas vazias);
+     *               fechado no encerramento do servidor
+     * @return Nova configuração
+     */
+    public ConfiguracaoServidor5 comJornal(JornalMensagens jornal, IndiceMensagens indice) {
+        return new ConfiguracaoServidor5(porta, caminhoUnix, detalharMensagens, jornal, indice, dicionarios,
+                                         trabalhadoresDecodificacao, cacheTextos);
+    }
+
+    /**
+     * Retorna uma cópia desta configuração que aceita mensagens comprimidas com dicionário.
+     *
+     * @param dicionarios Dicionários de compressão aceitos, por id de versão
+     * @return Nova configuração
+     */
+    public ConfiguracaoServidor5 comDicionarios(Map<Integer, DicionarioCompressao> dicionarios) {
+        return new ConfiguracaoServidor5(porta, caminhoUnix, detalharMensagens, jornal, indice, dicionarios,
+                                         trabalhadoresDecodificacao, cacheTextos);
+    }
+
+    /**
+     * Retorna uma cópia desta configuração que decodifica o formato compacto em um pool de threads.
+     *
+     * @param trabalhadores Threads de decodificação (0 para decodificar na thread da conexão)
+     * @return Nova configuração
+     * @throws IllegalArgumentException se o número de threads for negativo
+     */
+    public ConfiguracaoServidor5 comDecodificadores(int trabalhadores) {
+        return new ConfiguracaoServidor5(porta, caminhoUnix, detalharMensagens, jornal, indice, dicionarios,
+                                         trabalhadores, cacheTextos);
+    }
+
+    /**
+     * Retorna uma cópia desta configuração em que mensagens com o mesmo texto
+     * compartilham a String decodificada.
+     *
+     * @param cacheTextos Cache dos textos decodificados (null para não usar)
+     * @return Nova configuração
+     */
+    public ConfiguracaoServidor5 comCacheTextos(CacheTextos cacheTextos) {
+        return new ConfiguracaoServidor5(porta, caminhoUnix, detalharMensagens, jornal, indice, dicionarios,
+                                         trabalhadoresDecodificacao, cacheTextos);
+    }
+
+    /**
+     * Retorna a configuração padrão (porta 4321, exibindo cada mensagem, sem recursos opcionais).
+     *
+     * @return Configuração padrão
+     */
+    public static ConfiguracaoServidor5 padrao() {
+        return new ConfiguracaoServidor5(PORTA_PADRAO, true);
+    }
+}
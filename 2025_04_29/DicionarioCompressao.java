@@ -0,0 +1,342 @@
+/**
+ * DicionarioCompressao - Dicionário Deflate pré-carregado, treinado no tráfego
+ *
+ * Uma mensagem de 100 bytes comprimida sozinha quase não encolhe: o Deflate
+ * só encontra repetições dentro do próprio texto. Com um dicionário
+ * (Deflater.setDictionary), o texto pode referenciar trechos do dicionário
+ * como se eles o precedessem, e o vocabulário comum às mensagens passa a
+ * custar poucos bits por ocorrência.
+ *
+ * O treinamento escolhe os trechos mais úteis de uma amostra de mensagens:
+ *
+ * 1. Conta, para cada sequência de K bytes, em quantas amostras ela aparece.
+ * 2. Divide as amostras em épocas, uma por segmento do dicionário, e em cada
+ *    época escolhe a janela de SEGMENTO bytes com maior soma de contagens.
+ * 3. Zera as contagens já cobertas, para que os segmentos não se repitam.
+ * 4. Concatena os segmentos do menos ao mais valioso: o Deflate codifica
+ *    distâncias curtas com menos bits, e o fim do dicionário é o mais próximo.
+ *
+ * Cada dicionário tem um id de versão (1 ou mais; 0 significa sem dicionário),
+ * enviado com cada mensagem comprimida: o receptor mantém todas as versões em
+ * uso e um dicionário novo pode ser distribuído sem invalidar o anterior.
+ *
+ * Arquivo (.dic): int mágico, int id, int tamanho e os bytes do dicionário.
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Dicionário imutável de compressão com id de versão.
+ */
+public final class DicionarioCompressao {
+
+    // ==================== CONSTANTES ====================
+
+    /** Maior dicionário útil: a janela do Deflate tem 32 KB */
+    public static final int TAMANHO_MAXIMO = 32 * 1024;
+
+    /** Tamanho padrão de um dicionário treinado */
+    public static final int TAMANHO_PADRAO = 4 * 1024;
+
+    /** Id reservado para compressão sem dicionário */
+    public static final int SEM_DICIONARIO = 0;
+
+    /** Extensão dos arquivos de dicionário */
+    public static final String EXTENSAO = ".dic";
+
+    /** Bytes das sequências contadas no treinamento */
+    private static final int K = 8;
+
+    /** Bytes de cada segmento escolhido para o dicionário */
+    private static final int SEGMENTO = 48;
+
+    /** Número mágico dos arquivos de dicionário ("DIC1") */
+    private static final int MAGICO = 0x44494331;
+
+    /** Logger para registrar eventos do dicionário */
+    private static final Logger LOGGER = Logger.getLogger(DicionarioCompressao.class.getName());
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Id de versão do dicionário */
+    private final int id;
+
+    /** Conteúdo, entregue ao Deflater e ao Inflater */
+    private final byte[] bytes;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria um dicionário a partir do conteúdo.
+     *
+     * @param id Id de versão, maior que zero
+     * @param bytes Conteúdo (copiado), até TAMANHO_MAXIMO bytes
+     * @throws IllegalArgumentException se o id ou o tamanho forem inválidos
+     */
+    public DicionarioCompressao(int id, byte[] bytes) {
+        if (id <= SEM_DICIONARIO) {
+            throw new IllegalArgumentException("Id do dicionário deve ser maior que " + SEM_DICIONARIO + ": " + id);
+        }
+        if (bytes.length == 0 || bytes.length > TAMANHO_MAXIMO) {
+            throw new IllegalArgumentException("Dicionário deve ter de 1 a " + TAMANHO_MAXIMO + " bytes");
+        }
+        this.id = id;
+        this.bytes = bytes.clone();
+    }
+
+    // ==================== TREINAMENTO ====================
+
+    /**
+     * Treina um dicionário a partir de mensagens de amostra.
+     *
+     * @param id Id de versão do novo dicionário
+     * @param amostras Mensagens representativas do tráfego (UTF-8)
+     * @param tamanho Tamanho desejado, até TAMANHO_MAXIMO bytes
+     * @return Dicionário com até o tamanho pedido
+     * @throws IllegalArgumentException se não houver amostras com pelo menos K bytes
+     */
+    public static DicionarioCompressao treinar(int id, List<byte[]> amostras, int tamanho) {
+        if (tamanho < 1 || tamanho > TAMANHO_MAXIMO) {
+            throw new IllegalArgumentException("Tamanho deve estar entre 1 e " + TAMANHO_MAXIMO);
+        }
+        Map<Long, Integer> frequencias = contarSequencias(amostras);
+        if (frequencias.isEmpty()) {
+            throw new IllegalArgumentException("Nenhuma amostra com pelo menos " + K + " bytes");
+        }
+
+        int epocas = Math.max(1, Math.min((tamanho + SEGMENTO - 1) / SEGMENTO, amostras.size()));
+        List<Segmento> escolhidos = new ArrayList<>(epocas);
+        for (int epoca = 0; epoca < epocas; epoca++) {
+            int inicio = (int) ((long) amostras.size() * epoca / epocas);
+            int fim = (int) ((long) amostras.size() * (epoca + 1) / epocas);
+            Segmento melhor = melhorSegmento(amostras.subList(inicio, fim), frequencias);
+            if (melhor != null) {
+                escolhidos.add(melhor);
+                cobrir(melhor.bytes, frequencias);
+            }
+        }
+        if (escolhidos.isEmpty()) {
+            throw new IllegalArgumentException("As amostras não têm sequências repetidas para o dicionário");
+        }
+
+        // Os mais valiosos por último, a menor distância do texto comprimido
+        escolhidos.sort((a, b) -> Long.compare(a.pontuacao, b.pontuacao));
+        ByteArrayOutputStream conteudo = new ByteArrayOutputStream(tamanho);
+        for (Segmento segmento : escolhidos) {
+            conteudo.write(segmento.bytes, 0, segmento.bytes.length);
+        }
+        byte[] dicionario = conteudo.toByteArray();
+        if (dicionario.length > tamanho) {
+            dicionario = Arrays.copyOfRange(dicionario, dicionario.length - tamanho, dicionario.length);
+        }
+        LOGGER.info("Dicionário " + id + " treinado: " + dicionario.length + " bytes, " + escolhidos.size() +
+                    " segmentos de " + amostras.size() + " amostras");
+        return new DicionarioCompressao(id, dicionario);
+    }
+
+    /**
+     * Conta em quantas amostras aparece cada sequência de K bytes.
+     */
+    private static Map<Long, Integer> contarSequencias(List<byte[]> amostras) {
+        Map<Long, Integer> frequencias = new HashMap<>();
+        Set<Long> vistas = new HashSet<>();
+        for (byte[] amostra : amostras) {
+            vistas.clear();
+            for (int i = 0; i + K <= amostra.length; i++) {
+                long chave = sequencia(amostra, i);
+                if (vistas.add(chave)) {
+                    frequencias.merge(chave, 1, Integer::sum);
+                }
+            }
+        }
+        return frequencias;
+    }
+
+    /**
+     * Encontra, nas amostras de uma época, a janela com maior soma das
+     * frequências das sequências que começam nela.
+     */
+    private static Segmento melhorSegmento(List<byte[]> amostras, Map<Long, Integer> frequencias) {
+        Segmento melhor = null;
+        for (byte[] amostra : amostras) {
+            int sequencias = amostra.length - K + 1;
+            if (sequencias <= 0) {
+                continue;
+            }
+            int[] pontos = new int[sequencias];
+            for (int i = 0; i < sequencias; i++) {
+                // Sequências vistas em uma única amostra não se repetem em outras mensagens
+                int frequencia = frequencias.getOrDefault(sequencia(amostra, i), 0);
+                pontos[i] = frequencia > 1 ? frequencia : 0;
+            }
+
+            // Janela deslizante: soma das sequências que começam nos primeiros (janela - K + 1) bytes
+            int largura = Math.min(SEGMENTO, amostra.length) - K + 1;
+            long soma = 0;
+            for (int i = 0; i < largura; i++) {
+                soma += pontos[i];
+            }
+            for (int inicio = 0; ; inicio++) {
+                if (soma > 0 && (melhor == null || soma > melhor.pontuacao)) {
+                    melhor = new Segmento(amostra, inicio, largura + K - 1, soma);
+                }
+                if (inicio + largura >= sequencias) {
+                    break;
+                }
+                soma += pontos[inicio + largura] - pontos[inicio];
+            }
+        }
+        return melhor;
+    }
+
+    /**
+     * Zera a frequência das sequências de um segmento escolhido.
+     */
+    private static void cobrir(byte[] segmento, Map<Long, Integer> frequencias) {
+        for (int i = 0; i + K <= segmento.length; i++) {
+            frequencias.replace(sequencia(segmento, i), 0);
+        }
+    }
+
+    /**
+     * Empacota K = 8 bytes em um long, usado como chave exata.
+     */
+    private static long sequencia(byte[] dados, int inicio) {
+        long chave = 0;
+        for (int i = inicio; i < inicio + K; i++) {
+            chave = (chave << 8) | (dados[i] & 0xFF);
+        }
+        return chave;
+    }
+
+    // ==================== ARQUIVO ====================
+
+    /**
+     * Grava o dicionário em um arquivo.
+     *
+     * @param arquivo Destino (sobrescrito)
+     * @throws IOException se houver erro de escrita
+     */
+    public void salvar(Path arquivo) throws IOException {
+        try (DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(arquivo)))) {
+            saida.writeInt(MAGICO);
+            saida.writeInt(id);
+            saida.writeInt(bytes.length);
+            saida.write(bytes);
+        }
+    }
+
+    /**
+     * Lê um dicionário gravado por salvar().
+     *
+     * @param arquivo Arquivo do dicionário
+     * @return Dicionário lido
+     * @throws StreamCorruptedException se o arquivo não for um dicionário válido
+     * @throws IOException se houver erro de leitura
+     */
+    public static DicionarioCompressao carregar(Path arquivo) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo)))) {
+            if (entrada.readInt() != MAGICO) {
+                throw new StreamCorruptedException("Arquivo não é um dicionário: " + arquivo);
+            }
+            int id = entrada.readInt();
+            int tamanho = entrada.readInt();
+            if (id <= SEM_DICIONARIO || tamanho < 1 || tamanho > TAMANHO_MAXIMO) {
+                throw new StreamCorruptedException("Cabeçalho de dicionário inválido: " + arquivo);
+            }
+            byte[] conteudo = new byte[tamanho];
+            entrada.readFully(conteudo);
+            return new DicionarioCompressao(id, conteudo);
+        }
+    }
+
+    /**
+     * Lê todos os dicionários (*.dic) de um diretório, indexados pelo id.
+     *
+     * @param diretorio Diretório dos dicionários
+     * @return Dicionários por id
+     * @throws StreamCorruptedException se dois arquivos tiverem o mesmo id
+     * @throws IOException se houver erro de leitura
+     */
+    public static Map<Integer, DicionarioCompressao> carregarTodos(Path diretorio) throws IOException {
+        Map<Integer, DicionarioCompressao> catalogo = new HashMap<>();
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "*" + EXTENSAO)) {
+            for (Path arquivo : arquivos) {
+                DicionarioCompressao dicionario = carregar(arquivo);
+                if (catalogo.putIfAbsent(dicionario.id, dicionario) != null) {
+                    throw new StreamCorruptedException("Id de dicionário repetido: " + dicionario.id +
+                                                       " em " + arquivo);
+                }
+            }
+        }
+        return catalogo;
+    }
+
+    // ==================== MÉTODOS DE ACESSO ====================
+
+    /**
+     * Retorna o id de versão.
+     *
+     * @return Id do dicionário
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Retorna o tamanho do dicionário.
+     *
+     * @return Bytes do dicionário
+     */
+    public int getTamanho() {
+        return bytes.length;
+    }
+
+    /**
+     * Retorna o conteúdo sem cópia, para Deflater.setDictionary e Inflater.setDictionary.
+     * Não deve ser alterado.
+     */
+    byte[] conteudo() {
+        return bytes;
+    }
+
+    /**
+     * Representação em string do dicionário.
+     *
+     * @return Id e tamanho
+     */
+    @Override
+    public String toString() {
+        return "DicionarioCompressao{id=" + id + ", bytes=" + bytes.length + '}';
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * Trecho de amostra candidato ao dicionário.
+     */
+    private static final class Segmento {
+        final byte[] bytes;
+        final long pontuacao;
+
+        Segmento(byte[] amostra, int inicio, int tamanho, long pontuacao) {
+            this.bytes = Arrays.copyOfRange(amostra, inicio, inicio + tamanho);
+            this.pontuacao = pontuacao;
+        }
+    }
+}
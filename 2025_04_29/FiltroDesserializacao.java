@@ -0,0 +1,288 @@
+/**
+ * FiltroDesserializacao - Orçamentos e lista de classes para readObject()
+ *
+ * Um ObjectInputStream lendo de um socket aceita, sem filtro, qualquer classe
+ * serializável do classpath e grafos de objetos de qualquer tamanho: um único
+ * cliente pode enviar um grafo profundo ou enorme que ocupa um núcleo e
+ * dezenas de MB de heap, e atrasa todos os outros. Este filtro
+ * (ObjectInputFilter) é consultado pelo próprio ObjectInputStream a cada
+ * descritor de classe, vetor e referência, antes de os objetos serem criados,
+ * e rejeita:
+ *
+ * - classes fora da lista de permitidas (vetores: pelo tipo dos elementos;
+ *   vetores de primitivos são permitidos)
+ * - profundidade de aninhamento acima do limite
+ * - vetores com mais elementos que o limite
+ * - objetos de primeiro nível com mais referências ou bytes que os limites
+ *
+ * Os limites de referências e bytes valem para cada objeto lido com
+ * readObject(), não para o stream inteiro, de modo que uma conexão longa com
+ * milhões de mensagens pequenas nunca os atinge. Strings não passam pelo
+ * filtro, e uma String enorme seria lida inteira antes da verificação
+ * seguinte: por isso os bytes são contados na entrada do ObjectInputStream
+ * (Fluxo.limitar()), que falha assim que o objeto excede o limite.
+ *
+ * Uma rejeição faz readObject() lançar InvalidClassException (filtro) ou
+ * InvalidObjectException (bytes), e o servidor encerra a conexão.
+ *
+ * Cada stream usa o seu próprio Fluxo (criado por novoFluxo()) como filtro e
+ * como entrada limitada, e lê cada objeto com Fluxo.ler(); os limites e os
+ * contadores de rejeição ficam neste objeto, compartilhado pelo servidor.
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limites de desserialização compartilhados pelas conexões de um servidor.
+ */
+public class FiltroDesserializacao {
+
+    // ==================== CONSTANTES ====================
+
+    /** Profundidade máxima padrão do grafo de objetos */
+    public static final int PROFUNDIDADE_MAXIMA_PADRAO = 10;
+
+    /** Referências máximas padrão por objeto de primeiro nível */
+    public static final long REFERENCIAS_MAXIMAS_PADRAO = 1_000;
+
+    /** Elementos máximos padrão de um vetor */
+    public static final long TAMANHO_VETOR_MAXIMO_PADRAO = 10_000;
+
+    /** Bytes máximos padrão por objeto de primeiro nível */
+    public static final long BYTES_MAXIMOS_PADRAO = 1024 * 1024;
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Classes que podem ser desserializadas */
+    private final Set<Class<?>> permitidas;
+
+    /** Limites */
+    private final int profundidadeMaxima;
+    private final long referenciasMaximas;
+    private final long tamanhoVetorMaximo;
+    private final long bytesMaximos;
+
+    /** Objetos rejeitados, por motivo */
+    private final LongAdder rejeitadosClasse = new LongAdder();
+    private final LongAdder rejeitadosProfundidade = new LongAdder();
+    private final LongAdder rejeitadosReferencias = new LongAdder();
+    private final LongAdder rejeitadosVetor = new LongAdder();
+    private final LongAdder rejeitadosBytes = new LongAdder();
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria um filtro com os limites padrão.
+     *
+     * @param permitidas Classes que podem ser desserializadas
+     */
+    public FiltroDesserializacao(Set<Class<?>> permitidas) {
+        this(permitidas, PROFUNDIDADE_MAXIMA_PADRAO, REFERENCIAS_MAXIMAS_PADRAO, TAMANHO_VETOR_MAXIMO_PADRAO,
+             BYTES_MAXIMOS_PADRAO);
+    }
+
+    /**
+     * Cria um filtro.
+     *
+     * @param permitidas Classes que podem ser desserializadas
+     * @param profundidadeMaxima Aninhamento máximo do grafo (1 = só o objeto de primeiro nível)
+     * @param referenciasMaximas Referências máximas por objeto de primeiro nível
+     * @param tamanhoVetorMaximo Elementos máximos de um vetor
+     * @param bytesMaximos Bytes máximos por objeto de primeiro nível
+     * @throws IllegalArgumentException se algum limite não for positivo
+     */
+    public FiltroDesserializacao(Set<Class<?>> permitidas, int profundidadeMaxima, long referenciasMaximas,
+                                 long tamanhoVetorMaximo, long bytesMaximos) {
+        if (profundidadeMaxima < 1 || referenciasMaximas < 1 || tamanhoVetorMaximo < 1 || bytesMaximos < 1) {
+            throw new IllegalArgumentException("Limites de desserialização devem ser positivos");
+        }
+        this.permitidas = Set.copyOf(permitidas);
+        this.profundidadeMaxima = profundidadeMaxima;
+        this.referenciasMaximas = referenciasMaximas;
+        this.tamanhoVetorMaximo = tamanhoVetorMaximo;
+        this.bytesMaximos = bytesMaximos;
+    }
+
+    // ==================== FLUXOS ====================
+
+    /**
+     * Cria o filtro de um ObjectInputStream.
+     *
+     * @return Filtro a ser passado para setObjectInputFilter()
+     */
+    public Fluxo novoFluxo() {
+        return new Fluxo();
+    }
+
+    /**
+     * Filtro de um stream: aplica os limites e mede referências e bytes a
+     * partir do início do objeto de primeiro nível em leitura.
+     */
+    public final class Fluxo implements ObjectInputFilter {
+
+        /** Referências do stream no início do objeto atual */
+        private long referenciasIniciais;
+
+        /** Indica que o próximo objeto começa na próxima verificação */
+        private boolean novoObjeto;
+
+        /** Bytes lidos desde o início do objeto atual */
+        private long bytesObjeto;
+
+        /** Motivo da última rejeição (null se nenhuma) */
+        private volatile String motivoRejeicao;
+
+        private Fluxo() {
+        }
+
+        /**
+         * Lê um objeto de primeiro nível dentro dos limites. Os bytes passam a
+         * contar imediatamente; as referências, a partir da primeira
+         * verificação do objeto.
+         *
+         * @param entrada Stream criado sobre limitar() e com este filtro
+         * @return Objeto lido
+         * @throws InvalidClassException se o filtro rejeitar o objeto, com o motivo
+         * @throws InvalidObjectException se o objeto exceder o limite de bytes
+         * @throws IOException se houver erro de leitura
+         * @throws ClassNotFoundException se a classe do objeto não existir
+         */
+        public Object ler(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+            novoObjeto = true;
+            bytesObjeto = 0;
+            try {
+                return entrada.readObject();
+            } catch (InvalidClassException e) {
+                String motivo = motivoRejeicao;
+                if (motivo == null) {
+                    throw e;
+                }
+                InvalidClassException rejeicao = new InvalidClassException("Objeto rejeitado: " + motivo);
+                rejeicao.initCause(e);
+                throw rejeicao;
+            }
+        }
+
+        /**
+         * Envolve a entrada do ObjectInputStream para contar os bytes de cada objeto.
+         *
+         * @param entrada Entrada do stream
+         * @return Entrada que lança InvalidObjectException quando um objeto excede o limite de bytes
+         */
+        public InputStream limitar(InputStream entrada) {
+            return new FilterInputStream(entrada) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        contar(1);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] destino, int inicio, int tamanho) throws IOException {
+                    int lidos = super.read(destino, inicio, tamanho);
+                    if (lidos > 0) {
+                        contar(lidos);
+                    }
+                    return lidos;
+                }
+
+                @Override
+                public long skip(long quantidade) throws IOException {
+                    long pulados = super.skip(quantidade);
+                    contar(pulados);
+                    return pulados;
+                }
+            };
+        }
+
+        @Override
+        public Status checkInput(FilterInfo info) {
+            if (novoObjeto) {
+                novoObjeto = false;
+                referenciasIniciais = info.references();
+            }
+
+            Class<?> classe = info.serialClass();
+            if (classe != null) {
+                Class<?> elemento = classe;
+                while (elemento.isArray()) {
+                    elemento = elemento.getComponentType();
+                }
+                if (!elemento.isPrimitive() && !permitidas.contains(elemento)) {
+                    return rejeitar(rejeitadosClasse, "classe não permitida " + classe.getName());
+                }
+            }
+            if (info.arrayLength() > tamanhoVetorMaximo) {
+                return rejeitar(rejeitadosVetor, "vetor de " + info.arrayLength() + " elementos (máximo " +
+                                                 tamanhoVetorMaximo + ")");
+            }
+            if (info.depth() > profundidadeMaxima) {
+                return rejeitar(rejeitadosProfundidade, "profundidade " + info.depth() + " (máximo " +
+                                                        profundidadeMaxima + ")");
+            }
+            long referencias = info.references() - referenciasIniciais;
+            if (referencias > referenciasMaximas) {
+                return rejeitar(rejeitadosReferencias, referencias + " referências (máximo " +
+                                                       referenciasMaximas + ")");
+            }
+            return classe != null ? Status.ALLOWED : Status.UNDECIDED;
+        }
+
+        /**
+         * Retorna o motivo da última rejeição deste stream.
+         *
+         * @return Descrição do limite excedido, ou null se nada foi rejeitado
+         */
+        public String getMotivoRejeicao() {
+            return motivoRejeicao;
+        }
+
+        private void contar(long bytes) throws InvalidObjectException {
+            bytesObjeto += bytes;
+            if (bytesObjeto > bytesMaximos) {
+                rejeitar(rejeitadosBytes, "mais de " + bytesMaximos + " bytes no objeto");
+                throw new InvalidObjectException("Objeto rejeitado: " + motivoRejeicao);
+            }
+        }
+
+        private Status rejeitar(LongAdder contador, String motivo) {
+            contador.increment();
+            motivoRejeicao = motivo;
+            return Status.REJECTED;
+        }
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna o total de objetos rejeitados.
+     *
+     * @return Rejeições por qualquer motivo
+     */
+    public long getRejeitados() {
+        return rejeitadosClasse.sum() + rejeitadosProfundidade.sum() + rejeitadosReferencias.sum()
+               + rejeitadosVetor.sum() + rejeitadosBytes.sum();
+    }
+
+    /**
+     * Gera um resumo dos limites e das rejeições por motivo.
+     *
+     * @return Relatório em uma linha
+     */
+    public String gerarRelatorio() {
+        return String.format("%d rejeitado(s): classe %d, profundidade %d (máx. %d), referências %d (máx. %d), " +
+                             "vetor %d (máx. %d), bytes %d (máx. %d)", getRejeitados(), rejeitadosClasse.sum(),
+                             rejeitadosProfundidade.sum(), profundidadeMaxima, rejeitadosReferencias.sum(),
+                             referenciasMaximas, rejeitadosVetor.sum(), tamanhoVetorMaximo, rejeitadosBytes.sum(),
+                             bytesMaximos);
+    }
+}
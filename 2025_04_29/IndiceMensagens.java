@@ -0,0 +1,546 @@
+/**
+ * IndiceMensagens - Índice hash em disco das mensagens do JornalMensagens
+ *
+ * Localiza as mensagens persistidas pelo texto. A chave é um hash dos bytes
+ * UTF-8 do texto, calculado sem decodificá-lo (a gravação de uma VisaoMensagem
+ * continua sem criar String), e o valor é o endereço do registro no jornal;
+ * mensagens repetidas têm uma entrada por ocorrência.
+ * Como hashes diferentes podem colidir, cada candidato é conferido relendo
+ * os bytes do texto no jornal.
+ *
+ * O arquivo é uma tabela de endereçamento aberto com sondagem linear,
+ * mapeada em memória:
+ *
+ *   cabeçalho   64 bytes: mágico, versão, capacidade, fechamento limpo,
+ *               entradas e última sequência do jornal indexada
+ *   slots       capacidade x 12 bytes: int hash, long endereço (0 = livre)
+ *
+ * A tabela dobra de tamanho (em um arquivo novo, trocado atomicamente) ao
+ * passar de 70% de ocupação. O índice acompanha o jornal: cada registro
+ * acrescentado é indexado na mesma seção crítica da gravação e, na abertura,
+ * só os registros posteriores à sequência indexada são lidos. O índice não é
+ * forçado a cada gravação; se o processo não o fechou de forma limpa, ou se
+ * ele estiver à frente do jornal, é reconstruído a partir do jornal.
+ *
+ * Protocolo de consulta (formato compacto):
+ *
+ *   Consulta:  1 byte CodecMensagem.TIPO_CONSULTA, varint tamanho, texto UTF-8
+ *   Resultado: 1 byte CodecMensagem.TIPO_RESULTADO_CONSULTA, varint quantidade,
+ *              e para cada ocorrência varint segmento e varint posição
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * Índice hash persistente do texto para os endereços no jornal.
+ */
+public class IndiceMensagens implements Closeable {
+
+    // ==================== CONSTANTES ====================
+
+    /** Capacidade inicial padrão, em slots */
+    public static final int CAPACIDADE_INICIAL_PADRAO = 1 << 20;
+
+    /** Maior capacidade suportada (o arquivo precisa caber em um único mapeamento) */
+    public static final int CAPACIDADE_MAXIMA = 1 << 27;
+
+    /** Maior número de ocorrências aceito em um resultado de consulta */
+    public static final int MAXIMO_OCORRENCIAS = 1 << 20;
+
+    /** Número mágico no início do arquivo ("IDX1") */
+    private static final int MAGICO = 0x49445831;
+
+    /** Versão do formato do arquivo (2: hash dos bytes UTF-8; índices da versão 1 são reconstruídos) */
+    private static final int VERSAO = 2;
+
+    /** Posições dos campos do cabeçalho */
+    private static final int OFFSET_MAGICO = 0;
+    private static final int OFFSET_VERSAO = 4;
+    private static final int OFFSET_CAPACIDADE = 8;
+    private static final int OFFSET_LIMPO = 12;
+    private static final int OFFSET_ENTRADAS = 16;
+    private static final int OFFSET_SEQUENCIA = 24;
+
+    /** Bytes do cabeçalho */
+    private static final int CABECALHO = 64;
+
+    /** Bytes de um slot (hash e endereço) */
+    private static final int TAMANHO_SLOT = 12;
+
+    /** Ocupação máxima antes de dobrar a tabela, em décimos */
+    private static final int CARGA_MAXIMA_DECIMOS = 7;
+
+    /** Logger para registrar eventos do índice */
+    private static final Logger LOGGER = Logger.getLogger(IndiceMensagens.class.getName());
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Arquivo do índice */
+    private final Path arquivo;
+
+    /** Jornal indexado, usado para conferir colisões */
+    private final JornalMensagens jornal;
+
+    /** Um escritor (o ouvinte do jornal) e vários leitores (as consultas) */
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+    /** Tabela mapeada, com cabeçalho */
+    private MappedByteBuffer tabela;
+
+    /** Número de slots (potência de dois) */
+    private int capacidade;
+
+    /** Entradas ocupadas */
+    private long entradas;
+
+    /** Última sequência do jornal indexada */
+    private long sequenciaIndexada;
+
+    /** Indica que o índice foi fechado */
+    private boolean fechado;
+
+    /** Estatísticas */
+    private final LongAdder consultas = new LongAdder();
+    private final LongAdder colisoes = new LongAdder();
+    private int crescimentos;
+    private long registrosReconstruidos;
+    private long nanosReconstrucao;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Construtor privado - use abrir().
+     */
+    private IndiceMensagens(Path arquivo, JornalMensagens jornal) {
+        this.arquivo = arquivo;
+        this.jornal = jornal;
+    }
+
+    /**
+     * Abre (ou cria) o índice, indexa os registros do jornal que ainda não
+     * estão nele e passa a acompanhar as novas gravações.
+     *
+     * @param arquivo Arquivo do índice
+     * @param jornal Jornal aberto
+     * @param capacidadeInicial Slots de um índice novo (arredondado para potência de dois)
+     * @return Índice sincronizado com o jornal
+     * @throws IOException se o arquivo não puder ser criado ou lido
+     */
+    public static IndiceMensagens abrir(Path arquivo, JornalMensagens jornal, int capacidadeInicial)
+            throws IOException {
+        if (capacidadeInicial < 1 || capacidadeInicial > CAPACIDADE_MAXIMA) {
+            throw new IllegalArgumentException("Capacidade deve estar entre 1 e " + CAPACIDADE_MAXIMA);
+        }
+        IndiceMensagens indice = new IndiceMensagens(arquivo, jornal);
+        long inicio = System.nanoTime();
+        int potencia = capacidadeInicial == 1 ? 1 : Integer.highestOneBit(capacidadeInicial - 1) << 1;
+        indice.carregarOuCriar(potencia, jornal.getUltimaSequencia());
+        long indexadaAntes = indice.sequenciaIndexada;
+        jornal.acompanhar(indexadaAntes, indice::registrar);
+        indice.registrosReconstruidos = indice.getSequenciaIndexada() - indexadaAntes;
+        indice.nanosReconstrucao = System.nanoTime() - inicio;
+        LOGGER.info("Índice aberto: " + indice.entradas + " entradas, " + indice.registrosReconstruidos +
+                    " registros indexados na abertura");
+        return indice;
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Procura as ocorrências de um texto.
+     *
+     * @param texto Texto procurado
+     * @return Endereços no jornal, em ordem de sondagem
+     * @throws IOException se o índice apontar para um registro inexistente
+     */
+    public List<Long> buscar(String texto) throws IOException {
+        return buscar(new VisaoMensagem(ByteBuffer.wrap(texto.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * Procura as ocorrências do texto de uma visão (por exemplo, o corpo de uma consulta recebida).
+     *
+     * @param consulta Texto procurado
+     * @return Endereços no jornal, em ordem de sondagem
+     * @throws IOException se o índice apontar para um registro inexistente
+     */
+    public List<Long> buscar(VisaoMensagem consulta) throws IOException {
+        int hash = hashTexto(consulta);
+        List<Long> enderecos = new ArrayList<>(1);
+        consultas.increment();
+
+        trava.readLock().lock();
+        try {
+            int mascara = capacidade - 1;
+            for (int slot = misturar(hash) & mascara; ; slot = (slot + 1) & mascara) {
+                int posicao = CABECALHO + slot * TAMANHO_SLOT;
+                long endereco = tabela.getLong(posicao + 4);
+                if (endereco == 0) {
+                    return enderecos;
+                }
+                if (tabela.getInt(posicao) == hash) {
+                    // Mesmo hash não garante mesmo texto: confere os bytes no jornal
+                    if (jornal.ler(endereco).equals(consulta)) {
+                        enderecos.add(endereco);
+                    } else {
+                        colisoes.increment();
+                    }
+                }
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    // ==================== INDEXAÇÃO ====================
+
+    /**
+     * Indexa um registro do jornal (ouvinte chamado sob o monitor do jornal).
+     */
+    private void registrar(long sequencia, long endereco, VisaoMensagem mensagem) throws IOException {
+        int hash = hashTexto(mensagem);
+        trava.writeLock().lock();
+        try {
+            if (fechado) {
+                return;
+            }
+            if ((entradas + 1) * 10 > (long) capacidade * CARGA_MAXIMA_DECIMOS) {
+                crescer();
+            }
+            inserir(tabela, capacidade, hash, endereco);
+            entradas++;
+            sequenciaIndexada = sequencia;
+            tabela.putLong(OFFSET_ENTRADAS, entradas);
+            tabela.putLong(OFFSET_SEQUENCIA, sequencia);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Grava um par hash/endereço no primeiro slot livre da sondagem.
+     */
+    private static void inserir(ByteBuffer destino, int capacidade, int hash, long endereco) {
+        int mascara = capacidade - 1;
+        int slot = misturar(hash) & mascara;
+        while (destino.getLong(CABECALHO + slot * TAMANHO_SLOT + 4) != 0) {
+            slot = (slot + 1) & mascara;
+        }
+        int posicao = CABECALHO + slot * TAMANHO_SLOT;
+        destino.putInt(posicao, hash);
+        destino.putLong(posicao + 4, endereco);
+    }
+
+    /**
+     * Dobra a tabela: reinsere os slots ocupados em um arquivo novo e o
+     * coloca no lugar do atual. Os hashes guardados dispensam ler o jornal.
+     */
+    private void crescer() throws IOException {
+        if (capacidade >= CAPACIDADE_MAXIMA) {
+            throw new IOException("Índice atingiu a capacidade máxima de " + CAPACIDADE_MAXIMA + " entradas");
+        }
+        int novaCapacidade = capacidade * 2;
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".novo");
+        Files.deleteIfExists(temporario);
+        MappedByteBuffer nova = criarTabela(temporario, novaCapacidade);
+        for (int slot = 0; slot < capacidade; slot++) {
+            int posicao = CABECALHO + slot * TAMANHO_SLOT;
+            long endereco = tabela.getLong(posicao + 4);
+            if (endereco != 0) {
+                inserir(nova, novaCapacidade, tabela.getInt(posicao), endereco);
+            }
+        }
+        nova.putLong(OFFSET_ENTRADAS, entradas);
+        nova.putLong(OFFSET_SEQUENCIA, sequenciaIndexada);
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        tabela = nova;
+        capacidade = novaCapacidade;
+        crescimentos++;
+        LOGGER.fine("Índice ampliado para " + novaCapacidade + " slots");
+    }
+
+    /**
+     * Marca o índice como fechado de forma limpa e o grava em disco.
+     * O jornal deixa de notificá-lo, mas continua aberto.
+     *
+     * @throws IOException se houver erro ao desligar o índice do jornal
+     */
+    @Override
+    public void close() throws IOException {
+        // Fora da trava do índice: o jornal chama registrar() com o próprio monitor
+        jornal.acompanhar(0, null);
+        trava.writeLock().lock();
+        try {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+            tabela.putInt(OFFSET_LIMPO, 1);
+            tabela.force();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // ==================== ARQUIVO ====================
+
+    /**
+     * Reaproveita o arquivo existente se ele foi fechado de forma limpa e não
+     * está à frente do jornal; senão, cria um índice vazio.
+     */
+    private void carregarOuCriar(int capacidadeInicial, long ultimaSequenciaJornal) throws IOException {
+        if (Files.exists(arquivo)) {
+            MappedByteBuffer existente = mapear(arquivo, FileChannel.open(arquivo, StandardOpenOption.READ,
+                                                                          StandardOpenOption.WRITE), 0);
+            String motivo = validar(existente, ultimaSequenciaJornal);
+            if (motivo == null) {
+                tabela = existente;
+                capacidade = existente.getInt(OFFSET_CAPACIDADE);
+                entradas = existente.getLong(OFFSET_ENTRADAS);
+                sequenciaIndexada = existente.getLong(OFFSET_SEQUENCIA);
+                marcarEmUso();
+                return;
+            }
+            LOGGER.warning("Índice " + arquivo + " descartado (" + motivo + "): reconstruindo a partir do jornal");
+            System.err.println("⚠ Índice " + arquivo.getFileName() + " " + motivo + ": reconstruindo");
+            Files.delete(arquivo);
+        }
+        tabela = criarTabela(arquivo, capacidadeInicial);
+        capacidade = capacidadeInicial;
+        marcarEmUso();
+    }
+
+    /**
+     * Confere um índice existente.
+     *
+     * @return null se puder ser usado, ou o motivo para descartá-lo
+     */
+    private static String validar(MappedByteBuffer existente, long ultimaSequenciaJornal) {
+        if (existente.limit() < CABECALHO || existente.getInt(OFFSET_MAGICO) != MAGICO
+                || existente.getInt(OFFSET_VERSAO) != VERSAO) {
+            return "formato desconhecido";
+        }
+        int capacidadeArquivo = existente.getInt(OFFSET_CAPACIDADE);
+        if (Integer.bitCount(capacidadeArquivo) != 1 || capacidadeArquivo > CAPACIDADE_MAXIMA
+                || existente.limit() != CABECALHO + (long) capacidadeArquivo * TAMANHO_SLOT) {
+            return "tamanho inconsistente";
+        }
+        if (existente.getInt(OFFSET_LIMPO) != 1) {
+            return "não foi fechado de forma limpa";
+        }
+        if (existente.getLong(OFFSET_SEQUENCIA) > ultimaSequenciaJornal) {
+            return "à frente do jornal";
+        }
+        return null;
+    }
+
+    /**
+     * Limpa a marca de fechamento limpo, em disco, antes da primeira alteração.
+     */
+    private void marcarEmUso() {
+        tabela.putInt(OFFSET_LIMPO, 0);
+        tabela.force(0, CABECALHO);
+    }
+
+    /**
+     * Cria um arquivo de índice vazio com a capacidade indicada.
+     */
+    private static MappedByteBuffer criarTabela(Path destino, int capacidade) throws IOException {
+        MappedByteBuffer nova = mapear(destino, FileChannel.open(destino, StandardOpenOption.CREATE_NEW,
+                                                                 StandardOpenOption.READ, StandardOpenOption.WRITE),
+                                       CABECALHO + (long) capacidade * TAMANHO_SLOT);
+        nova.putInt(OFFSET_MAGICO, MAGICO);
+        nova.putInt(OFFSET_VERSAO, VERSAO);
+        nova.putInt(OFFSET_CAPACIDADE, capacidade);
+        return nova;
+    }
+
+    /**
+     * Mapeia o arquivo inteiro, estendendo-o até o tamanho mínimo, e fecha o canal.
+     */
+    private static MappedByteBuffer mapear(Path destino, FileChannel canal, long tamanhoMinimo) throws IOException {
+        try (canal) {
+            long tamanho = Math.max(canal.size(), tamanhoMinimo);
+            if (tamanho > Integer.MAX_VALUE) {
+                throw new IOException("Índice grande demais: " + destino);
+            }
+            return canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanho);
+        }
+    }
+
+    /**
+     * Hash dos bytes UTF-8 do texto, sem decodificá-lo. O algoritmo é fixo
+     * (não depende de ByteBuffer.hashCode), pois os hashes ficam gravados no
+     * arquivo; mudá-lo exige nova VERSAO.
+     */
+    private static int hashTexto(VisaoMensagem texto) {
+        ByteBuffer bytes = texto.getBytes();
+        int hash = 1;
+        for (int i = 0; i < bytes.limit(); i++) {
+            hash = 31 * hash + bytes.get(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Espalha os bits do hash (finalizador do MurmurHash3): hashes polinomiais
+     * de textos parecidos diferem pouco nos bits baixos usados pela máscara.
+     */
+    private static int misturar(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    // ==================== PROTOCOLO ====================
+
+    /**
+     * Escreve uma consulta pelo texto.
+     *
+     * @param saida Destino
+     * @param texto Texto procurado
+     * @throws IOException se houver erro de escrita
+     */
+    public static void escreverConsulta(DataOutput saida, String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        saida.writeByte(CodecMensagem.TIPO_CONSULTA);
+        CodecMensagem.escreverVarint(saida, bytes.length);
+        saida.write(bytes);
+    }
+
+    /**
+     * Escreve o resultado de uma consulta.
+     *
+     * @param saida Destino
+     * @param enderecos Endereços encontrados
+     * @throws IOException se houver erro de escrita
+     */
+    public static void escreverResultado(DataOutput saida, List<Long> enderecos) throws IOException {
+        saida.writeByte(CodecMensagem.TIPO_RESULTADO_CONSULTA);
+        CodecMensagem.escreverVarint(saida, enderecos.size());
+        for (long endereco : enderecos) {
+            CodecMensagem.escreverVarint(saida, JornalMensagens.segmentoDe(endereco));
+            CodecMensagem.escreverVarint(saida, JornalMensagens.posicaoDe(endereco));
+        }
+    }
+
+    /**
+     * Lê o resultado de uma consulta.
+     *
+     * @param entrada Origem
+     * @return Endereços encontrados
+     * @throws StreamCorruptedException se o registro não for um resultado válido
+     * @throws IOException se houver erro de leitura
+     */
+    public static List<Long> lerResultado(DataInput entrada) throws IOException {
+        int tipo = entrada.readUnsignedByte();
+        if (tipo != CodecMensagem.TIPO_RESULTADO_CONSULTA) {
+            throw new StreamCorruptedException("Resultado de consulta esperado, recebido tipo 0x" +
+                                               Integer.toHexString(tipo));
+        }
+        int quantidade = CodecMensagem.lerVarint(entrada);
+        if (quantidade < 0 || quantidade > MAXIMO_OCORRENCIAS) {
+            throw new StreamCorruptedException("Quantidade de ocorrências inválida: " + quantidade);
+        }
+        List<Long> enderecos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            long segmento = CodecMensagem.lerVarint(entrada) & 0xFFFFFFFFL;
+            long posicao = CodecMensagem.lerVarint(entrada) & 0xFFFFFFFFL;
+            enderecos.add(segmento << 32 | posicao);
+        }
+        return enderecos;
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna o número de entradas indexadas.
+     *
+     * @return Entradas ocupadas
+     */
+    public long getEntradas() {
+        trava.readLock().lock();
+        try {
+            return entradas;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna a última sequência do jornal indexada.
+     *
+     * @return Sequência indexada
+     */
+    public long getSequenciaIndexada() {
+        trava.readLock().lock();
+        try {
+            return sequenciaIndexada;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna quantos registros do jornal foram indexados na abertura.
+     *
+     * @return Registros indexados ao abrir
+     */
+    public long getRegistrosReconstruidos() {
+        return registrosReconstruidos;
+    }
+
+    /**
+     * Retorna a duração da abertura, incluindo a indexação dos registros pendentes.
+     *
+     * @return Tempo em nanossegundos
+     */
+    public long getNanosReconstrucao() {
+        return nanosReconstrucao;
+    }
+
+    /**
+     * Retorna o número de candidatos com o mesmo hash e texto diferente.
+     *
+     * @return Colisões conferidas no jornal
+     */
+    public long getColisoes() {
+        return colisoes.sum();
+    }
+
+    /**
+     * Gera um resumo do índice.
+     *
+     * @return Relatório em uma linha
+     */
+    public String gerarRelatorio() {
+        trava.readLock().lock();
+        try {
+            return String.format("%d entrada(s) em %d slots (%.0f%% ocupado, %d ampliação(ões)), " +
+                                 "%d consulta(s), %d colisão(ões) de hash", entradas, capacidade,
+                                 100.0 * entradas / capacidade, crescimentos, consultas.sum(), colisoes.sum());
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,776 @@
+/**
+ * JornalMensagens - Jornal de mensagens somente de acréscimo em arquivos mapeados
+ *
+ * Persiste o texto UTF-8 das mensagens recebidas em segmentos de tamanho fixo
+ * (segmento-00000001.jornal, segmento-00000002.jornal, ...) escritos por um
+ * MappedByteBuffer. Cada segmento começa com um cabeçalho de 8 bytes (número
+ * mágico e versão) seguido dos registros:
+ *
+ *   int         tamanho do texto em bytes (0 marca o fim do segmento)
+ *   int         CRC32C do texto
+ *   N bytes     texto em UTF-8
+ *
+ * Quando um registro não cabe no segmento atual, o jornal passa para um novo.
+ * A durabilidade é configurável:
+ * - NENHUMA:  os dados ficam no cache de páginas do sistema operacional;
+ *             sobrevivem à queda do processo, mas não à do sistema
+ * - GRUPO:    quem grava espera um force() que cubra o seu registro; uma única
+ *             thread força o segmento por vez e cobre tudo o que foi acrescentado
+ *             até então, de modo que gravações concorrentes compartilham a
+ *             mesma sincronização com o disco (group commit)
+ * - IMEDIATA: um force() por registro, feito antes de liberar o próximo
+ *
+ * Na abertura, os segmentos existentes são lidos em sequência e cada registro
+ * válido é entregue como VisaoMensagem sobre o próprio mapeamento, sem cópia.
+ * Um registro com CRC inválido no último segmento é tratado como escrita
+ * interrompida: o restante do segmento é descartado e as novas gravações
+ * continuam dali. Em um segmento anterior, indica corrupção e a abertura falha.
+ *
+ * Cada registro tem um endereço de 64 bits (número do segmento nos 32 bits
+ * altos, posição nos baixos), pelo qual pode ser relido com ler(). Todos os
+ * segmentos permanecem mapeados enquanto o jornal estiver aberto.
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * Jornal persistente de mensagens com group commit e recuperação sequencial.
+ */
+public class JornalMensagens implements Closeable {
+
+    // ==================== CONSTANTES ====================
+
+    /**
+     * Nível de durabilidade das gravações.
+     */
+    public enum Durabilidade {
+        /** Sem force(): cache de páginas do sistema operacional */
+        NENHUMA,
+        /** Um force() compartilhado pelas gravações concorrentes */
+        GRUPO,
+        /** Um force() por registro */
+        IMEDIATA
+    }
+
+    /** Tamanho padrão de um segmento */
+    public static final int TAMANHO_SEGMENTO_PADRAO = 64 * 1024 * 1024;
+
+    /** Menor segmento aceito */
+    public static final int TAMANHO_SEGMENTO_MINIMO = 64 * 1024;
+
+    /** Número mágico no início de cada segmento ("JRN1") */
+    private static final int MAGICO = 0x4A524E31;
+
+    /** Versão do formato dos segmentos */
+    private static final int VERSAO = 1;
+
+    /** Bytes do cabeçalho de segmento (mágico e versão) */
+    private static final int CABECALHO_SEGMENTO = 8;
+
+    /** Bytes do cabeçalho de registro (tamanho e CRC) */
+    private static final int CABECALHO_REGISTRO = 8;
+
+    /** Prefixo e extensão dos arquivos de segmento */
+    private static final String PREFIXO_SEGMENTO = "segmento-";
+    private static final String EXTENSAO_SEGMENTO = ".jornal";
+
+    /** Logger para registrar eventos do jornal */
+    private static final Logger LOGGER = Logger.getLogger(JornalMensagens.class.getName());
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Diretório dos segmentos */
+    private final Path diretorio;
+
+    /** Tamanho de cada segmento em bytes */
+    private final int tamanhoSegmento;
+
+    /** Nível de durabilidade */
+    private final Durabilidade durabilidade;
+
+    /** Segmento em gravação (acesso sob o monitor do jornal) */
+    private MappedByteBuffer segmentoAtual;
+
+    /** Número do segmento em gravação */
+    private int numeroSegmento;
+
+    /** Número do primeiro segmento do jornal */
+    private int primeiroSegmento;
+
+    /** Segmentos mapeados, do primeiro ao atual (substituído a cada troca, para leitura sem trava) */
+    private volatile MappedByteBuffer[] mapeados = new MappedByteBuffer[0];
+
+    /** Recebe cada registro acrescentado, sob o monitor do jornal (null sem ouvinte) */
+    private LeitorRegistros ouvinte;
+
+    /** Próxima posição livre no segmento em gravação */
+    private int posicao;
+
+    /** Sequência do último registro acrescentado (1 = primeiro registro do jornal) */
+    private long ultimaSequencia;
+
+    /** Indica que o jornal foi fechado */
+    private boolean fechado;
+
+    /** Sequência do último registro garantidamente em disco */
+    private final AtomicLong sequenciaPersistida = new AtomicLong();
+
+    /** Coordena o group commit: uma thread força o segmento, as demais esperam */
+    private final Object travaPersistencia = new Object();
+
+    /** Indica que uma thread está executando force() (sob travaPersistencia) */
+    private boolean forcando;
+
+    /** Estatísticas de gravação */
+    private long mensagensGravadas;
+    private long bytesGravados;
+    private final LongAdder sincronizacoes = new LongAdder();
+
+    /** Estatísticas da recuperação feita na abertura */
+    private long mensagensRecuperadas;
+    private long bytesRecuperados;
+    private long nanosRecuperacao;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Construtor privado - use abrir().
+     */
+    private JornalMensagens(Path diretorio, int tamanhoSegmento, Durabilidade durabilidade) {
+        this.diretorio = diretorio;
+        this.tamanhoSegmento = tamanhoSegmento;
+        this.durabilidade = durabilidade;
+    }
+
+    /**
+     * Abre (ou cria) o jornal e reproduz os registros existentes em ordem.
+     *
+     * As visões entregues ao leitor apontam para o mapeamento do segmento e
+     * devem ser convertidas (paraMensagem) se forem guardadas.
+     *
+     * @param diretorio Diretório dos segmentos (criado se não existir)
+     * @param tamanhoSegmento Tamanho de cada segmento novo
+     * @param durabilidade Nível de durabilidade das gravações
+     * @param leitor Recebe cada registro recuperado (pode ser null)
+     * @return Jornal pronto para novas gravações após o último registro válido
+     * @throws StreamCorruptedException se um segmento anterior ao último estiver corrompido
+     * @throws IOException se houver erro de acesso aos arquivos
+     */
+    public static JornalMensagens abrir(Path diretorio, int tamanhoSegmento, Durabilidade durabilidade,
+                                        LeitorRegistros leitor) throws IOException {
+        if (tamanhoSegmento < TAMANHO_SEGMENTO_MINIMO) {
+            throw new IllegalArgumentException("Segmento deve ter pelo menos " + TAMANHO_SEGMENTO_MINIMO + " bytes");
+        }
+        Files.createDirectories(diretorio);
+        JornalMensagens jornal = new JornalMensagens(diretorio, tamanhoSegmento, durabilidade);
+        jornal.recuperar(leitor);
+        return jornal;
+    }
+
+    // ==================== GRAVAÇÃO ====================
+
+    /**
+     * Grava uma mensagem e aguarda a durabilidade configurada.
+     *
+     * @param mensagem Mensagem recebida
+     * @return Sequência do registro
+     * @throws IOException se a gravação falhar
+     */
+    public long gravar(VisaoMensagem mensagem) throws IOException {
+        return gravar(mensagem.getBytes());
+    }
+
+    /**
+     * Grava um texto UTF-8 e aguarda a durabilidade configurada.
+     *
+     * @param textoUtf8 Bytes restantes do buffer (posição e limite não são alterados)
+     * @return Sequência do registro
+     * @throws IOException se a gravação falhar
+     */
+    public long gravar(ByteBuffer textoUtf8) throws IOException {
+        long sequencia = anexar(textoUtf8);
+        aguardarPersistencia(sequencia);
+        return sequencia;
+    }
+
+    /**
+     * Grava todas as mensagens de um lote com uma única espera de durabilidade.
+     *
+     * @param mensagens Mensagens do lote, na ordem de recebimento
+     * @return Sequência do último registro (ou a última do jornal, se a lista for vazia)
+     * @throws IOException se a gravação falhar
+     */
+    public long gravarTodas(List<VisaoMensagem> mensagens) throws IOException {
+        long sequencia = getUltimaSequencia();
+        for (VisaoMensagem mensagem : mensagens) {
+            sequencia = anexar(mensagem.getBytes());
+        }
+        aguardarPersistencia(sequencia);
+        return sequencia;
+    }
+
+    /**
+     * Acrescenta um registro sem aguardar o group commit.
+     *
+     * Com durabilidade IMEDIATA, o registro já está em disco no retorno; com
+     * GRUPO, use aguardarPersistencia() com a sequência devolvida.
+     *
+     * @param textoUtf8 Bytes restantes do buffer (posição e limite não são alterados)
+     * @return Sequência do registro
+     * @throws IOException se o jornal estiver fechado ou o registro não couber em um segmento
+     */
+    public long anexar(ByteBuffer textoUtf8) throws IOException {
+        int tamanho = textoUtf8.remaining();
+        if (tamanho > tamanhoSegmento - CABECALHO_SEGMENTO - CABECALHO_REGISTRO) {
+            throw new IOException("Registro de " + tamanho + " bytes não cabe em um segmento de " +
+                                  tamanhoSegmento + " bytes");
+        }
+        // CRC calculado fora da seção crítica
+        CRC32C crc = new CRC32C();
+        crc.update(textoUtf8.duplicate());
+
+        synchronized (this) {
+            verificarAberto();
+            if (posicao + CABECALHO_REGISTRO + tamanho > segmentoAtual.limit()) {
+                rolarSegmento();
+            }
+            int inicio = posicao;
+            segmentoAtual.put(posicao + CABECALHO_REGISTRO, textoUtf8, textoUtf8.position(), tamanho);
+            segmentoAtual.putInt(posicao + 4, (int) crc.getValue());
+            segmentoAtual.putInt(posicao, tamanho);
+            posicao += CABECALHO_REGISTRO + tamanho;
+            mensagensGravadas++;
+            bytesGravados += tamanho;
+            long sequencia = ++ultimaSequencia;
+
+            if (durabilidade == Durabilidade.IMEDIATA) {
+                segmentoAtual.force();
+                sincronizacoes.increment();
+                sequenciaPersistida.set(sequencia);
+            }
+            if (ouvinte != null) {
+                ouvinte.registro(sequencia, endereco(numeroSegmento, inicio),
+                                 new VisaoMensagem(segmentoAtual.slice(inicio + CABECALHO_REGISTRO, tamanho)));
+            }
+            return sequencia;
+        }
+    }
+
+    /**
+     * Aguarda até que o registro esteja em disco (só tem efeito com GRUPO).
+     *
+     * A primeira thread a chegar executa force() sobre tudo o que foi
+     * acrescentado até então; as que chegam durante o force() esperam e a
+     * próxima delas cobre, com um único force(), todos os registros
+     * acumulados nesse intervalo.
+     *
+     * @param sequencia Sequência devolvida por anexar()
+     * @throws InterruptedIOException se a espera for interrompida
+     * @throws IOException se o jornal estiver fechado
+     */
+    public void aguardarPersistencia(long sequencia) throws IOException {
+        if (durabilidade != Durabilidade.GRUPO) {
+            return;
+        }
+        while (sequenciaPersistida.get() < sequencia) {
+            synchronized (travaPersistencia) {
+                if (sequenciaPersistida.get() >= sequencia) {
+                    return;
+                }
+                if (forcando) {
+                    try {
+                        travaPersistencia.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Espera pela persistência interrompida");
+                    }
+                    continue;
+                }
+                forcando = true;
+            }
+            try {
+                forcarAteUltimo();
+            } finally {
+                synchronized (travaPersistencia) {
+                    forcando = false;
+                    travaPersistencia.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Força o segmento atual, cobrindo todos os registros já acrescentados.
+     * Registros de segmentos anteriores foram forçados na troca de segmento.
+     */
+    private void forcarAteUltimo() throws IOException {
+        MappedByteBuffer segmento;
+        long alvo;
+        synchronized (this) {
+            verificarAberto();
+            segmento = segmentoAtual;
+            alvo = ultimaSequencia;
+        }
+        segmento.force();
+        sincronizacoes.increment();
+        sequenciaPersistida.accumulateAndGet(alvo, Math::max);
+    }
+
+    /**
+     * Fecha o segmento atual e cria o próximo (chamado sob o monitor do jornal).
+     */
+    private void rolarSegmento() throws IOException {
+        if (durabilidade != Durabilidade.NENHUMA) {
+            segmentoAtual.force();
+            sincronizacoes.increment();
+            sequenciaPersistida.accumulateAndGet(ultimaSequencia, Math::max);
+        }
+        numeroSegmento++;
+        segmentoAtual = criarSegmento(numeroSegmento);
+        adicionarMapeado(segmentoAtual);
+        posicao = CABECALHO_SEGMENTO;
+        LOGGER.fine("Novo segmento do jornal: " + numeroSegmento);
+    }
+
+    /**
+     * Fecha o jornal, forçando o segmento atual se houver durabilidade.
+     * O mapeamento é liberado pelo coletor de lixo.
+     *
+     * @throws IOException se o force() falhar
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (fechado) {
+            return;
+        }
+        fechado = true;
+        if (durabilidade != Durabilidade.NENHUMA && segmentoAtual != null) {
+            segmentoAtual.force();
+            sincronizacoes.increment();
+            sequenciaPersistida.accumulateAndGet(ultimaSequencia, Math::max);
+        }
+    }
+
+    // ==================== LEITURA ====================
+
+    /**
+     * Relê o registro em um endereço, sem cópia e sem conferir o CRC
+     * (verificado na abertura ou gravado por este processo).
+     *
+     * @param endereco Endereço entregue ao leitor ou ao ouvinte
+     * @return Visão sobre o texto no mapeamento do segmento
+     * @throws StreamCorruptedException se não houver registro no endereço
+     */
+    public VisaoMensagem ler(long endereco) throws StreamCorruptedException {
+        MappedByteBuffer[] atuais = mapeados;
+        int indice = segmentoDe(endereco) - primeiroSegmento;
+        int pos = posicaoDe(endereco);
+        if (indice < 0 || indice >= atuais.length || pos < CABECALHO_SEGMENTO
+                || pos > atuais[indice].limit() - CABECALHO_REGISTRO) {
+            throw new StreamCorruptedException("Endereço fora do jornal: " + formatarEndereco(endereco));
+        }
+        MappedByteBuffer segmento = atuais[indice];
+        int tamanho = segmento.getInt(pos);
+        if (tamanho <= 0 || tamanho > segmento.limit() - pos - CABECALHO_REGISTRO) {
+            throw new StreamCorruptedException("Nenhum registro no endereço " + formatarEndereco(endereco));
+        }
+        return new VisaoMensagem(segmento.slice(pos + CABECALHO_REGISTRO, tamanho));
+    }
+
+    /**
+     * Entrega ao ouvinte os registros após a sequência indicada e, em
+     * seguida, cada registro acrescentado, sem que nenhum se perca entre as
+     * duas etapas. O ouvinte é chamado sob o monitor do jornal, na ordem das
+     * sequências; exceções dele são propagadas a quem grava.
+     *
+     * @param depoisDe Última sequência que o ouvinte já conhece (0 para todas)
+     * @param ouvinte Destino dos registros (null para deixar de acompanhar)
+     * @throws IOException se o jornal estiver fechado ou o ouvinte falhar
+     */
+    public synchronized void acompanhar(long depoisDe, LeitorRegistros ouvinte) throws IOException {
+        if (ouvinte != null) {
+            verificarAberto();
+            if (depoisDe < ultimaSequencia) {
+                percorrer(depoisDe, ouvinte);
+            }
+        }
+        this.ouvinte = ouvinte;
+    }
+
+    /**
+     * Percorre os registros já gravados, lendo só os cabeçalhos até a sequência inicial.
+     */
+    private void percorrer(long depoisDe, LeitorRegistros leitor) throws IOException {
+        MappedByteBuffer[] atuais = mapeados;
+        long sequencia = 0;
+        for (int i = 0; i < atuais.length; i++) {
+            MappedByteBuffer segmento = atuais[i];
+            int fim = i == atuais.length - 1 ? posicao : segmento.limit();
+            int pos = CABECALHO_SEGMENTO;
+            while (pos + CABECALHO_REGISTRO <= fim) {
+                int tamanho = segmento.getInt(pos);
+                if (tamanho == 0) {
+                    break;
+                }
+                if (++sequencia > depoisDe) {
+                    leitor.registro(sequencia, endereco(primeiroSegmento + i, pos),
+                                    new VisaoMensagem(segmento.slice(pos + CABECALHO_REGISTRO, tamanho)));
+                }
+                pos += CABECALHO_REGISTRO + tamanho;
+            }
+        }
+    }
+
+    /**
+     * Número do segmento de um endereço.
+     *
+     * @param endereco Endereço de registro
+     * @return Número do segmento
+     */
+    public static int segmentoDe(long endereco) {
+        return (int) (endereco >>> 32);
+    }
+
+    /**
+     * Posição, dentro do segmento, de um endereço.
+     *
+     * @param endereco Endereço de registro
+     * @return Posição do cabeçalho do registro
+     */
+    public static int posicaoDe(long endereco) {
+        return (int) endereco;
+    }
+
+    /**
+     * Representação legível de um endereço.
+     *
+     * @param endereco Endereço de registro
+     * @return Texto no formato segmento:posição
+     */
+    public static String formatarEndereco(long endereco) {
+        return segmentoDe(endereco) + ":" + posicaoDe(endereco);
+    }
+
+    /**
+     * Monta o endereço de um registro.
+     */
+    private static long endereco(int segmento, int posicao) {
+        return ((long) segmento << 32) | posicao;
+    }
+
+    /**
+     * Publica um novo segmento para leitura por endereço.
+     */
+    private void adicionarMapeado(MappedByteBuffer segmento) {
+        MappedByteBuffer[] novos = Arrays.copyOf(mapeados, mapeados.length + 1);
+        novos[novos.length - 1] = segmento;
+        mapeados = novos;
+    }
+
+    // ==================== RECUPERAÇÃO ====================
+
+    /**
+     * Lê todos os segmentos em ordem e posiciona a gravação após o último registro válido.
+     */
+    private void recuperar(LeitorRegistros leitor) throws IOException {
+        long inicio = System.nanoTime();
+        List<Path> segmentos = listarSegmentos();
+
+        for (int i = 0; i < segmentos.size(); i++) {
+            Path arquivo = segmentos.get(i);
+            boolean ultimo = i == segmentos.size() - 1;
+            int numero = numeroDoSegmento(arquivo);
+            if (i == 0) {
+                primeiroSegmento = numero;
+            } else if (numero != primeiroSegmento + i) {
+                throw new StreamCorruptedException("Segmento de jornal ausente antes de " + arquivo);
+            }
+            // Só o último segmento volta a receber gravações e pode ser estendido
+            MappedByteBuffer segmento = mapear(arquivo, FileChannel.open(arquivo, StandardOpenOption.READ,
+                                                                         StandardOpenOption.WRITE),
+                                               ultimo ? tamanhoSegmento : 0);
+            adicionarMapeado(segmento);
+            int fim = lerSegmento(arquivo, numero, segmento, leitor, ultimo);
+            if (ultimo) {
+                segmentoAtual = segmento;
+                numeroSegmento = numero;
+                posicao = fim;
+            }
+        }
+
+        if (segmentoAtual == null) {
+            primeiroSegmento = 1;
+            numeroSegmento = 1;
+            segmentoAtual = criarSegmento(numeroSegmento);
+            adicionarMapeado(segmentoAtual);
+            posicao = CABECALHO_SEGMENTO;
+        }
+        sequenciaPersistida.set(ultimaSequencia);
+        mensagensRecuperadas = ultimaSequencia;
+        nanosRecuperacao = System.nanoTime() - inicio;
+        LOGGER.info("Jornal recuperado: " + mensagensRecuperadas + " registros em " + segmentos.size() +
+                    " segmento(s)");
+    }
+
+    /**
+     * Entrega os registros válidos de um segmento ao leitor.
+     *
+     * @return Posição seguinte ao último registro válido
+     */
+    private int lerSegmento(Path arquivo, int numero, MappedByteBuffer segmento, LeitorRegistros leitor,
+                            boolean ultimo) throws IOException {
+        if (segmento.limit() < CABECALHO_SEGMENTO) {
+            throw new StreamCorruptedException("Segmento de jornal truncado: " + arquivo);
+        }
+        int magico = segmento.getInt(0);
+        if (magico == 0 && ultimo) {
+            // Segmento criado, mas cabeçalho ainda não gravado em disco
+            segmento.putInt(0, MAGICO);
+            segmento.putInt(4, VERSAO);
+            return CABECALHO_SEGMENTO;
+        }
+        if (magico != MAGICO || segmento.getInt(4) != VERSAO) {
+            throw new StreamCorruptedException("Arquivo não é um segmento de jornal válido: " + arquivo);
+        }
+
+        CRC32C crc = new CRC32C();
+        int pos = CABECALHO_SEGMENTO;
+        while (pos + CABECALHO_REGISTRO <= segmento.limit()) {
+            int tamanho = segmento.getInt(pos);
+            if (tamanho == 0) {
+                return pos;
+            }
+            boolean valido = tamanho > 0 && tamanho <= segmento.limit() - pos - CABECALHO_REGISTRO;
+            if (valido) {
+                ByteBuffer texto = segmento.slice(pos + CABECALHO_REGISTRO, tamanho);
+                crc.reset();
+                crc.update(texto.duplicate());
+                valido = (int) crc.getValue() == segmento.getInt(pos + 4);
+                if (valido) {
+                    ultimaSequencia++;
+                    bytesRecuperados += tamanho;
+                    if (leitor != null) {
+                        leitor.registro(ultimaSequencia, endereco(numero, pos), new VisaoMensagem(texto));
+                    }
+                    pos += CABECALHO_REGISTRO + tamanho;
+                    continue;
+                }
+            }
+
+            if (!ultimo) {
+                throw new StreamCorruptedException("Registro inválido em " + arquivo + " na posição " + pos);
+            }
+            LOGGER.warning("Escrita interrompida em " + arquivo + " na posição " + pos + ": restante descartado");
+            System.err.println("⚠ Jornal: registro incompleto descartado em " + arquivo.getFileName());
+            for (int i = pos; i < segmento.limit(); i++) {
+                segmento.put(i, (byte) 0);
+            }
+            return pos;
+        }
+        return pos;
+    }
+
+    // ==================== SEGMENTOS ====================
+
+    /**
+     * Cria e mapeia um segmento novo, gravando o cabeçalho.
+     */
+    private MappedByteBuffer criarSegmento(int numero) throws IOException {
+        Path arquivo = diretorio.resolve(String.format("%s%08d%s", PREFIXO_SEGMENTO, numero, EXTENSAO_SEGMENTO));
+        MappedByteBuffer segmento = mapear(arquivo, FileChannel.open(arquivo, StandardOpenOption.CREATE_NEW,
+                                                                     StandardOpenOption.READ,
+                                                                     StandardOpenOption.WRITE),
+                                           tamanhoSegmento);
+        segmento.putInt(0, MAGICO);
+        segmento.putInt(4, VERSAO);
+        if (durabilidade != Durabilidade.NENHUMA) {
+            segmento.force();
+            sincronizarDiretorio();
+        }
+        return segmento;
+    }
+
+    /**
+     * Mapeia o arquivo inteiro, estendendo-o até o tamanho mínimo, e fecha o canal.
+     */
+    private static MappedByteBuffer mapear(Path arquivo, FileChannel canal, int tamanhoMinimo) throws IOException {
+        try (canal) {
+            long tamanho = Math.max(canal.size(), tamanhoMinimo);
+            if (tamanho > Integer.MAX_VALUE) {
+                throw new IOException("Segmento grande demais: " + arquivo);
+            }
+            return canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanho);
+        }
+    }
+
+    /**
+     * Grava a entrada do diretório de um segmento novo, quando a plataforma permite.
+     */
+    private void sincronizarDiretorio() {
+        try (FileChannel canal = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Sincronização do diretório do jornal não suportada", e);
+        }
+    }
+
+    /**
+     * Lista os segmentos existentes em ordem crescente.
+     */
+    private List<Path> listarSegmentos() throws IOException {
+        List<Path> segmentos = new ArrayList<>();
+        try (DirectoryStream<Path> arquivos =
+                     Files.newDirectoryStream(diretorio, PREFIXO_SEGMENTO + "*" + EXTENSAO_SEGMENTO)) {
+            for (Path arquivo : arquivos) {
+                segmentos.add(arquivo);
+            }
+        }
+        Collections.sort(segmentos);
+        return segmentos;
+    }
+
+    /**
+     * Extrai o número do nome de um segmento.
+     */
+    private static int numeroDoSegmento(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        return Integer.parseInt(nome.substring(PREFIXO_SEGMENTO.length(),
+                                               nome.length() - EXTENSAO_SEGMENTO.length()));
+    }
+
+    /**
+     * Rejeita gravações após o fechamento (chamado sob o monitor do jornal).
+     */
+    private void verificarAberto() throws IOException {
+        if (fechado) {
+            throw new IOException("Jornal fechado");
+        }
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna a durabilidade configurada.
+     *
+     * @return Nível de durabilidade
+     */
+    public Durabilidade getDurabilidade() {
+        return durabilidade;
+    }
+
+    /**
+     * Retorna a sequência do último registro acrescentado.
+     *
+     * @return Total de registros no jornal
+     */
+    public synchronized long getUltimaSequencia() {
+        return ultimaSequencia;
+    }
+
+    /**
+     * Retorna as mensagens gravadas desde a abertura.
+     *
+     * @return Mensagens gravadas
+     */
+    public synchronized long getMensagensGravadas() {
+        return mensagensGravadas;
+    }
+
+    /**
+     * Retorna os bytes de texto gravados desde a abertura.
+     *
+     * @return Bytes gravados (sem cabeçalhos)
+     */
+    public synchronized long getBytesGravados() {
+        return bytesGravados;
+    }
+
+    /**
+     * Retorna o número de force() executados.
+     *
+     * @return Sincronizações com o disco
+     */
+    public long getSincronizacoes() {
+        return sincronizacoes.sum();
+    }
+
+    /**
+     * Retorna as mensagens recuperadas na abertura.
+     *
+     * @return Registros válidos encontrados
+     */
+    public long getMensagensRecuperadas() {
+        return mensagensRecuperadas;
+    }
+
+    /**
+     * Retorna os bytes de texto recuperados na abertura.
+     *
+     * @return Bytes recuperados (sem cabeçalhos)
+     */
+    public long getBytesRecuperados() {
+        return bytesRecuperados;
+    }
+
+    /**
+     * Retorna a duração da recuperação feita na abertura.
+     *
+     * @return Tempo em nanossegundos
+     */
+    public long getNanosRecuperacao() {
+        return nanosRecuperacao;
+    }
+
+    /**
+     * Gera um resumo das gravações.
+     *
+     * @return Relatório em uma linha
+     */
+    public String gerarRelatorio() {
+        long mensagens = getMensagensGravadas();
+        long forces = getSincronizacoes();
+        return String.format("%d mensagem(ns), %d bytes, durabilidade %s, %d force(s)%s", mensagens,
+                             getBytesGravados(), durabilidade, forces,
+                             forces > 0 ? String.format(" (%.1f mensagens por force)", mensagens / (double) forces)
+                                        : "");
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * Recebe os registros reproduzidos na abertura do jornal ou acompanhados
+     * com acompanhar().
+     */
+    @FunctionalInterface
+    public interface LeitorRegistros {
+        /**
+         * Processa um registro.
+         *
+         * @param sequencia Sequência do registro (1 = primeiro)
+         * @param endereco Endereço do registro, para releitura com ler()
+         * @param mensagem Visão sobre o texto no mapeamento do segmento
+         * @throws IOException se o processamento falhar
+         */
+        void registro(long sequencia, long endereco, VisaoMensagem mensagem) throws IOException;
+    }
+}
@@ -0,0 +1,557 @@
+/**
+ * LoteMensagens - Envio de MensagemTeste em lotes com confirmação única
+ *
+ * Agrupa várias mensagens em um único registro do formato compacto e espera
+ * uma só confirmação do servidor por lote, amortizando o cabeçalho, a
+ * chamada de escrita e a ida e volta entre muitas mensagens:
+ *
+ *   1 byte      tipo (CodecMensagem.TIPO_LOTE)
+ *   1 byte      flags (FLAG_COMPRIMIDO)
+ *   varint      quantidade de mensagens
+ *   varint      tamanho do corpo em bytes
+ *   varint      tamanho do corpo descomprimido (só com FLAG_COMPRIMIDO)
+ *   N bytes     corpo: para cada mensagem, varint de tamanho e texto UTF-8
+ *
+ * O corpo é comprimido com Deflate quando a compressão está ativa, ele tem
+ * pelo menos LIMIAR_COMPRESSAO bytes e o resultado fica menor que o original.
+ * O servidor responde a cada lote com:
+ *
+ *   1 byte      tipo (CodecMensagem.TIPO_CONFIRMACAO)
+ *   varint      quantidade de mensagens processadas
+ *
+ * No servidor, as mensagens do lote são entregues como VisaoMensagem sobre o
+ * corpo recebido, sem decodificar os textos.
+ *
+ * O lote é enviado automaticamente quando atinge o limite de mensagens ou de
+ * bytes, ou quando a mensagem mais antiga aguarda há mais que o tempo de
+ * espera (linger), o que limita a latência em produtores lentos.
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Agrupador de mensagens com envio automático por tamanho e por tempo.
+ *
+ * Os métodos são sincronizados: a descarga por tempo ocorre em uma thread
+ * própria e nunca se intercala com um envio da thread produtora.
+ */
+public class LoteMensagens implements Closeable {
+
+    // ==================== CONSTANTES ====================
+
+    /** Flag do lote: corpo comprimido com Deflate */
+    public static final int FLAG_COMPRIMIDO = 0x01;
+
+    /** Mensagens por lote, por padrão */
+    public static final int LIMITE_MENSAGENS_PADRAO = 256;
+
+    /** Bytes de corpo por lote, por padrão */
+    public static final int LIMITE_BYTES_PADRAO = 64 * 1024;
+
+    /** Tempo máximo de espera da primeira mensagem de um lote, por padrão */
+    public static final long LINGER_PADRAO_MS = 5;
+
+    /** Corpo mínimo para tentar a compressão; abaixo disso o ganho não paga o custo */
+    public static final int LIMIAR_COMPRESSAO = 512;
+
+    /** Maior corpo aceito na decodificação, para não alocar a partir de dados corrompidos */
+    public static final int TAMANHO_MAXIMO_CORPO = 16 * 1024 * 1024;
+
+    /** Logger para registrar eventos do agrupador */
+    private static final Logger LOGGER = Logger.getLogger(LoteMensagens.class.getName());
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Stream de saída da conexão */
+    private final DataOutputStream saida;
+
+    /** Stream de entrada da conexão, de onde vêm as confirmações */
+    private final DataInputStream entrada;
+
+    /** Mensagens que disparam o envio do lote */
+    private final int limiteMensagens;
+
+    /** Bytes de corpo que disparam o envio do lote */
+    private final int limiteBytes;
+
+    /** Tempo máximo de espera da primeira mensagem do lote */
+    private final long lingerNanos;
+
+    /** Compressor reutilizado entre lotes (null sem compressão) */
+    private final Deflater deflater;
+
+    /** Corpo do lote em montagem */
+    private final BufferLote corpo = new BufferLote();
+
+    /** Escrita dos registros no corpo */
+    private final DataOutputStream corpoDados = new DataOutputStream(corpo);
+
+    /** Thread que envia lotes cujo tempo de espera expirou */
+    private final ScheduledExecutorService temporizador;
+
+    /** Destino da compressão, reutilizado entre lotes */
+    private byte[] comprimido = new byte[0];
+
+    /** Mensagens no lote em montagem */
+    private int pendentes;
+
+    /** Descarga por tempo do lote em montagem */
+    private ScheduledFuture<?> descargaAgendada;
+
+    /** Falha de envio; o agrupador deixa de aceitar mensagens */
+    private IOException falha;
+
+    /** Indica que o agrupador foi fechado */
+    private boolean fechado;
+
+    /** Estatísticas */
+    private long lotesEnviados;
+    private long lotesComprimidos;
+    private long descargasPorTempo;
+    private long mensagensEnviadas;
+    private long bytesCorpo;
+    private long bytesEnviados;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria um agrupador com os limites padrão.
+     *
+     * @param saida Stream de saída da conexão
+     * @param entrada Stream de entrada da conexão
+     * @param comprimir true para comprimir lotes grandes
+     */
+    public LoteMensagens(DataOutputStream saida, DataInputStream entrada, boolean comprimir) {
+        this(saida, entrada, LIMITE_MENSAGENS_PADRAO, LIMITE_BYTES_PADRAO, LINGER_PADRAO_MS, comprimir);
+    }
+
+    /**
+     * Cria um agrupador.
+     *
+     * @param saida Stream de saída da conexão
+     * @param entrada Stream de entrada da conexão
+     * @param limiteMensagens Mensagens por lote
+     * @param limiteBytes Bytes de corpo por lote
+     * @param lingerMs Espera máxima da primeira mensagem do lote (0 envia cada mensagem)
+     * @param comprimir true para comprimir lotes grandes
+     * @throws IllegalArgumentException se algum limite for inválido
+     */
+    public LoteMensagens(DataOutputStream saida, DataInputStream entrada, int limiteMensagens,
+                         int limiteBytes, long lingerMs, boolean comprimir) {
+        if (limiteMensagens < 1) {
+            throw new IllegalArgumentException("Limite de mensagens deve ser pelo menos 1");
+        }
+        if (limiteBytes < 1 || limiteBytes > TAMANHO_MAXIMO_CORPO) {
+            throw new IllegalArgumentException("Limite de bytes deve estar entre 1 e " + TAMANHO_MAXIMO_CORPO);
+        }
+        if (lingerMs < 0) {
+            throw new IllegalArgumentException("Tempo de espera não pode ser negativo");
+        }
+        this.saida = saida;
+        this.entrada = entrada;
+        this.limiteMensagens = limiteMensagens;
+        this.limiteBytes = limiteBytes;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.deflater = comprimir ? new Deflater(Deflater.BEST_SPEED) : null;
+        this.temporizador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "LoteMensagens-Linger");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // ==================== ENVIO ====================
+
+    /**
+     * Acrescenta uma mensagem ao lote, enviando-o se um limite for atingido.
+     *
+     * Uma mensagem que não cabe no lote atual faz o lote ser enviado antes; uma
+     * mensagem maior que o limite de bytes segue sozinha em um lote.
+     *
+     * @param mensagem Mensagem a enviar
+     * @throws IOException se um envio anterior ou este falhar
+     */
+    public synchronized void adicionar(MensagemTeste mensagem) throws IOException {
+        verificarEstado();
+        byte[] texto = mensagem.getTexto().getBytes(StandardCharsets.UTF_8);
+        int tamanhoRegistro = CodecMensagem.tamanhoVarint(texto.length) + texto.length;
+        if (corpo.size() + tamanhoRegistro > TAMANHO_MAXIMO_CORPO - CodecMensagem.MAXIMO_BYTES_VARINT) {
+            throw new IllegalArgumentException("Mensagem excede o tamanho máximo de um lote");
+        }
+        if (pendentes > 0 && corpo.size() + tamanhoRegistro > limiteBytes) {
+            enviarLote();
+        }
+
+        CodecMensagem.escreverVarint(corpoDados, texto.length);
+        corpoDados.write(texto);
+        pendentes++;
+
+        if (pendentes >= limiteMensagens || corpo.size() >= limiteBytes || lingerNanos == 0) {
+            enviarLote();
+        } else if (pendentes == 1) {
+            long lote = lotesEnviados;
+            descargaAgendada = temporizador.schedule(() -> descarregarPorTempo(lote),
+                                                     lingerNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Envia imediatamente o lote em montagem, se houver mensagens.
+     *
+     * @throws IOException se o envio falhar
+     */
+    public synchronized void descarregar() throws IOException {
+        verificarEstado();
+        if (pendentes > 0) {
+            enviarLote();
+        }
+    }
+
+    /**
+     * Envia o lote pendente e libera o compressor e a thread de descarga.
+     * Os streams da conexão não são fechados.
+     *
+     * @throws IOException se o envio do último lote falhar
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (fechado) {
+            return;
+        }
+        try {
+            if (falha == null && pendentes > 0) {
+                enviarLote();
+            }
+        } finally {
+            fechado = true;
+            temporizador.shutdownNow();
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Envia o lote cujo tempo de espera expirou, se ainda for o mesmo lote.
+     */
+    private synchronized void descarregarPorTempo(long lote) {
+        if (fechado || falha != null || pendentes == 0 || lote != lotesEnviados) {
+            return;
+        }
+        try {
+            descargasPorTempo++;
+            enviarLote();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Erro no envio de lote por tempo de espera", e);
+        }
+    }
+
+    /**
+     * Escreve o lote em montagem e aguarda a confirmação do servidor.
+     */
+    private void enviarLote() throws IOException {
+        if (descargaAgendada != null) {
+            descargaAgendada.cancel(false);
+            descargaAgendada = null;
+        }
+
+        int quantidade = pendentes;
+        int tamanhoOriginal = corpo.size();
+        byte[] dados = corpo.dados();
+        int tamanho = tamanhoOriginal;
+        int flags = 0;
+        if (deflater != null && tamanhoOriginal >= LIMIAR_COMPRESSAO) {
+            int tamanhoComprimido = comprimir(dados, tamanhoOriginal);
+            if (tamanhoComprimido < tamanhoOriginal) {
+                dados = comprimido;
+                tamanho = tamanhoComprimido;
+                flags = FLAG_COMPRIMIDO;
+            }
+        }
+
+        try {
+            saida.writeByte(CodecMensagem.TIPO_LOTE);
+            saida.writeByte(flags);
+            int cabecalho = 2 + CodecMensagem.escreverVarint(saida, quantidade)
+                    + CodecMensagem.escreverVarint(saida, tamanho);
+            if (flags == FLAG_COMPRIMIDO) {
+                cabecalho += CodecMensagem.escreverVarint(saida, tamanhoOriginal);
+            }
+            saida.write(dados, 0, tamanho);
+            saida.flush();
+            aguardarConfirmacao(quantidade);
+            bytesEnviados += cabecalho + tamanho;
+        } catch (IOException e) {
+            falha = e;
+            throw e;
+        }
+
+        lotesEnviados++;
+        lotesComprimidos += flags == FLAG_COMPRIMIDO ? 1 : 0;
+        mensagensEnviadas += quantidade;
+        bytesCorpo += tamanhoOriginal;
+        corpo.reset();
+        pendentes = 0;
+    }
+
+    /**
+     * Comprime o corpo para o vetor reutilizável.
+     *
+     * @return Tamanho comprimido, ou o tamanho original se não houver ganho
+     */
+    private int comprimir(byte[] dados, int tamanho) {
+        if (comprimido.length < tamanho) {
+            comprimido = new byte[tamanho];
+        }
+        deflater.reset();
+        deflater.setInput(dados, 0, tamanho);
+        deflater.finish();
+        int total = 0;
+        while (!deflater.finished() && total < tamanho) {
+            total += deflater.deflate(comprimido, total, tamanho - total);
+        }
+        return deflater.finished() ? total : tamanho;
+    }
+
+    /**
+     * Lê a confirmação do lote e confere a quantidade processada.
+     */
+    private void aguardarConfirmacao(int quantidade) throws IOException {
+        int tipo = entrada.readUnsignedByte();
+        if (tipo != CodecMensagem.TIPO_CONFIRMACAO) {
+            throw new StreamCorruptedException("Confirmação esperada, recebido tipo 0x" + Integer.toHexString(tipo));
+        }
+        int confirmadas = CodecMensagem.lerVarint(entrada);
+        if (confirmadas != quantidade) {
+            throw new IOException("Servidor confirmou " + confirmadas + " de " + quantidade + " mensagens do lote");
+        }
+    }
+
+    /**
+     * Rejeita uso após fechamento ou falha de envio.
+     */
+    private void verificarEstado() throws IOException {
+        if (fechado) {
+            throw new IOException("Agrupador de mensagens fechado");
+        }
+        if (falha != null) {
+            throw new IOException("Envio de lote anterior falhou: " + falha.getMessage(), falha);
+        }
+    }
+
+    // ==================== LADO DO SERVIDOR ====================
+
+    /**
+     * Lê um lote cujo byte de tipo já foi consumido sem descomprimi-lo nem
+     * separar as mensagens, para que isso seja feito em outra thread.
+     *
+     * @param entrada Origem posicionada após o tipo
+     * @return Cabeçalho e corpo do lote, a serem lidos com lerVisoes()
+     * @throws StreamCorruptedException se o cabeçalho for inválido
+     * @throws IOException se houver erro de leitura
+     */
+    public static byte[] lerQuadro(DataInput entrada) throws IOException {
+        int flags = entrada.readUnsignedByte();
+        int quantidade = CodecMensagem.lerVarint(entrada);
+        int tamanho = validarTamanhoCorpo(CodecMensagem.lerVarint(entrada));
+        ByteArrayOutputStream cabecalho = new ByteArrayOutputStream(1 + 3 * CodecMensagem.MAXIMO_BYTES_VARINT);
+        DataOutputStream saida = new DataOutputStream(cabecalho);
+        saida.writeByte(flags);
+        CodecMensagem.escreverVarint(saida, quantidade);
+        CodecMensagem.escreverVarint(saida, tamanho);
+        if ((flags & FLAG_COMPRIMIDO) != 0) {
+            CodecMensagem.escreverVarint(saida, validarTamanhoCorpo(CodecMensagem.lerVarint(entrada)));
+        }
+
+        byte[] quadro = Arrays.copyOf(cabecalho.toByteArray(), cabecalho.size() + tamanho);
+        entrada.readFully(quadro, cabecalho.size(), tamanho);
+        return quadro;
+    }
+
+    /**
+     * Lê um lote cujo byte de tipo já foi consumido e separa as mensagens.
+     *
+     * Os limites de todas as mensagens são validados, mas os textos não são
+     * decodificados: cada visão aponta para o seu trecho do corpo.
+     *
+     * @param entrada Origem posicionada após o tipo
+     * @param inflater Descompressor reutilizado pela conexão
+     * @return Visões das mensagens do lote, na ordem de envio
+     * @throws StreamCorruptedException se o lote estiver malformado
+     * @throws IOException se houver erro de leitura
+     */
+    public static List<VisaoMensagem> lerVisoes(DataInput entrada, Inflater inflater) throws IOException {
+        return lerVisoes(entrada, inflater, null);
+    }
+
+    /**
+     * Lê um lote e separa as mensagens; os textos, quando decodificados, vêm do cache.
+     *
+     * @param entrada Origem posicionada após o tipo
+     * @param inflater Descompressor reutilizado pela conexão
+     * @param cache Cache de textos (null para decodificar sempre)
+     * @return Visões das mensagens do lote, na ordem de envio
+     * @throws StreamCorruptedException se o lote estiver malformado
+     * @throws IOException se houver erro de leitura
+     */
+    public static List<VisaoMensagem> lerVisoes(DataInput entrada, Inflater inflater, CacheTextos cache)
+            throws IOException {
+        int flags = entrada.readUnsignedByte();
+        if ((flags & ~FLAG_COMPRIMIDO) != 0) {
+            throw new StreamCorruptedException("Flags de lote desconhecidas: 0x" + Integer.toHexString(flags));
+        }
+        int quantidade = CodecMensagem.lerVarint(entrada);
+        int tamanho = validarTamanhoCorpo(CodecMensagem.lerVarint(entrada));
+        boolean comprimido = (flags & FLAG_COMPRIMIDO) != 0;
+        int tamanhoOriginal = comprimido ? validarTamanhoCorpo(CodecMensagem.lerVarint(entrada)) : tamanho;
+        // Cada registro ocupa ao menos 1 byte: limita a lista antes de alocá-la
+        if (quantidade < 1 || quantidade > tamanhoOriginal) {
+            throw new StreamCorruptedException("Quantidade de mensagens inválida no lote: " + quantidade);
+        }
+
+        byte[] dados = new byte[tamanho];
+        entrada.readFully(dados);
+        if (comprimido) {
+            dados = descomprimir(inflater, dados, tamanhoOriginal);
+        }
+
+        List<VisaoMensagem> mensagens = new ArrayList<>(quantidade);
+        int posicao = 0;
+        for (int i = 0; i < quantidade; i++) {
+            int tamanhoTexto = 0;
+            for (int deslocamento = 0; ; deslocamento += 7) {
+                if (posicao >= dados.length || deslocamento >= 7 * CodecMensagem.MAXIMO_BYTES_VARINT) {
+                    throw new StreamCorruptedException("Varint inválido na mensagem " + (i + 1) + " do lote");
+                }
+                int b = dados[posicao++];
+                tamanhoTexto |= (b & 0x7F) << deslocamento;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            if (tamanhoTexto < 0 || tamanhoTexto > dados.length - posicao) {
+                throw new StreamCorruptedException("Mensagem " + (i + 1) + " ultrapassa o corpo do lote");
+            }
+            mensagens.add(new VisaoMensagem(ByteBuffer.wrap(dados, posicao, tamanhoTexto), cache));
+            posicao += tamanhoTexto;
+        }
+        if (posicao != dados.length) {
+            throw new StreamCorruptedException((dados.length - posicao) + " bytes sobrando no corpo do lote");
+        }
+        return mensagens;
+    }
+
+    /**
+     * Escreve a confirmação de um lote.
+     *
+     * @param saida Destino
+     * @param quantidade Mensagens processadas
+     * @throws IOException se houver erro de escrita
+     */
+    public static void escreverConfirmacao(DataOutput saida, int quantidade) throws IOException {
+        saida.writeByte(CodecMensagem.TIPO_CONFIRMACAO);
+        CodecMensagem.escreverVarint(saida, quantidade);
+    }
+
+    /**
+     * Descomprime o corpo do lote, que deve ter exatamente o tamanho anunciado.
+     */
+    private static byte[] descomprimir(Inflater inflater, byte[] dados, int tamanhoOriginal)
+            throws StreamCorruptedException {
+        byte[] original = new byte[tamanhoOriginal];
+        inflater.reset();
+        inflater.setInput(dados);
+        int total = 0;
+        try {
+            while (total < tamanhoOriginal) {
+                int lidos = inflater.inflate(original, total, tamanhoOriginal - total);
+                if (lidos == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                total += lidos;
+            }
+        } catch (DataFormatException e) {
+            throw new StreamCorruptedException("Corpo comprimido inválido: " + e.getMessage());
+        }
+        if (total != tamanhoOriginal) {
+            throw new StreamCorruptedException("Corpo descomprimido com " + total + " de " +
+                                               tamanhoOriginal + " bytes");
+        }
+        return original;
+    }
+
+    /**
+     * Rejeita tamanhos de corpo negativos ou acima do limite.
+     */
+    private static int validarTamanhoCorpo(int tamanho) throws StreamCorruptedException {
+        if (tamanho < 0 || tamanho > TAMANHO_MAXIMO_CORPO) {
+            throw new StreamCorruptedException("Tamanho de corpo de lote inválido: " + tamanho);
+        }
+        return tamanho;
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna o número de lotes enviados e confirmados.
+     *
+     * @return Lotes enviados
+     */
+    public synchronized long getLotesEnviados() {
+        return lotesEnviados;
+    }
+
+    /**
+     * Retorna o número de mensagens enviadas e confirmadas.
+     *
+     * @return Mensagens enviadas
+     */
+    public synchronized long getMensagensEnviadas() {
+        return mensagensEnviadas;
+    }
+
+    /**
+     * Gera um resumo dos lotes enviados.
+     *
+     * @return Relatório em uma linha
+     */
+    public synchronized String gerarRelatorio() {
+        double media = lotesEnviados == 0 ? 0 : mensagensEnviadas / (double) lotesEnviados;
+        return String.format("%d lote(s), %.1f mensagens por lote, %d comprimido(s), %d por tempo de espera, " +
+                             "%d bytes de corpo -> %d bytes enviados",
+                             lotesEnviados, media, lotesComprimidos, descargasPorTempo, bytesCorpo, bytesEnviados);
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * ByteArrayOutputStream que expõe o vetor interno, evitando a cópia de toByteArray().
+     */
+    private static class BufferLote extends ByteArrayOutputStream {
+        BufferLote() {
+            super(LIMITE_BYTES_PADRAO);
+        }
+
+        byte[] dados() {
+            return buf;
+        }
+    }
+}
@@ -24,6 +24,9 @@ public class MensagemTeste implements Serializable {
     /** Versão de serialização para compatibilidade */
     private static final long serialVersionUID = 1L;
     
+    /** Id do tipo em RegistroTipos (formato compacto) */
+    public static final int ID_TIPO = 1;
+    
     // ==================== ATRIBUTOS ====================
     
     /** Conteúdo textual da mensagem */
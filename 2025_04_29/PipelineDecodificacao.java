@@ -0,0 +1,445 @@
+/**
+ * PipelineDecodificacao - Decodificação em paralelo com entrega na ordem de cada conexão
+ *
+ * Separa o atendimento de uma conexão em dois estágios:
+ *
+ *   leitura      a thread da conexão só separa quadros brutos do socket
+ *                (tipo, tamanho e bytes) e os submete ao pipeline
+ *   decodificação um pool fixo de trabalhadores descomprime, separa lotes e
+ *                desserializa objetos, em paralelo, inclusive quadros da
+ *                mesma conexão
+ *
+ * A decodificação de um quadro produz uma Entrega (gravar no jornal, responder
+ * ao cliente...), executada estritamente na ordem de submissão da conexão: os
+ * quadros decodificados fora de ordem esperam em um anel até que todos os
+ * anteriores tenham sido entregues. As entregas rodam na thread de entrega da
+ * própria conexão, nunca nos trabalhadores: uma escrita bloqueada em um
+ * cliente lento ou um force() do jornal seguram só aquela conexão, e o pool
+ * continua decodificando para as demais. O trabalhador só devolve o resultado
+ * à conexão e segue para o próximo quadro.
+ *
+ * Há dois limites:
+ * - uma fila compartilhada limitada entre leitores e trabalhadores: com os
+ *   trabalhadores saturados, o leitor bloqueia e o TCP segura o cliente
+ * - um máximo de quadros pendentes (submetidos e não entregues) por conexão,
+ *   que dimensiona o anel e impede uma conexão de ocupar a fila inteira
+ *
+ * A primeira falha de uma conexão (quadro inválido, erro de entrega) é
+ * registrada na sua posição: as entregas seguintes são descartadas e a
+ * próxima submissão ou espera da conexão lança a falha.
+ *
+ * @param <R> Recursos de decodificação de cada trabalhador (Inflater, compressor...), fechados no encerramento
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool de decodificação compartilhado pelas conexões de um servidor.
+ */
+public class PipelineDecodificacao<R extends AutoCloseable> implements Closeable {
+
+    // ==================== CONSTANTES ====================
+
+    /** Logger para registrar falhas dos trabalhadores */
+    private static final Logger LOGGER = Logger.getLogger(PipelineDecodificacao.class.getName());
+
+    /** Espera máxima pelas entregas pendentes ao encerrar uma conexão */
+    private static final long TIMEOUT_ENCERRAMENTO_MS = 5000;
+
+    // ==================== INTERFACES ====================
+
+    /**
+     * Trabalho de decodificação de um quadro, executado em um trabalhador.
+     *
+     * @param <R> Recursos do trabalhador
+     */
+    @FunctionalInterface
+    public interface Decodificacao<R> {
+        Entrega decodificar(R recursos) throws Exception;
+    }
+
+    /**
+     * Efeito de um quadro decodificado, executado na ordem da conexão.
+     */
+    @FunctionalInterface
+    public interface Entrega {
+        void entregar() throws IOException;
+    }
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Quadros submetidos e ainda não decodificados, de todas as conexões */
+    private final BlockingQueue<Tarefa> fila;
+
+    /** Threads do pool de decodificação */
+    private final Thread[] trabalhadores;
+
+    /** Fabrica os recursos de cada trabalhador */
+    private final Supplier<R> fabricaRecursos;
+
+    /** Prefixo do nome das threads */
+    private final String nome;
+
+    /** Conexões abertas, para numerar as threads de entrega */
+    private final AtomicInteger conexoesAbertas = new AtomicInteger();
+
+    /** Estatísticas */
+    private final LongAdder quadros = new LongAdder();
+    private final LongAdder nanosDecodificacao = new LongAdder();
+    private final LongAdder esperasFilaCheia = new LongAdder();
+    private final LongAdder esperasPendentes = new LongAdder();
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria o pipeline e inicia os trabalhadores.
+     *
+     * @param nome Prefixo do nome das threads
+     * @param trabalhadores Número de threads de decodificação (normalmente, o de núcleos)
+     * @param capacidadeFila Quadros que podem aguardar decodificação antes de bloquear os leitores
+     * @param fabricaRecursos Cria os recursos de cada trabalhador, na thread do trabalhador
+     * @throws IllegalArgumentException se o número de trabalhadores ou a capacidade não forem positivos
+     */
+    public PipelineDecodificacao(String nome, int trabalhadores, int capacidadeFila, Supplier<R> fabricaRecursos) {
+        if (trabalhadores < 1 || capacidadeFila < 1) {
+            throw new IllegalArgumentException("Trabalhadores e capacidade da fila devem ser positivos");
+        }
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        this.fabricaRecursos = fabricaRecursos;
+        this.nome = nome;
+        this.trabalhadores = new Thread[trabalhadores];
+        for (int i = 0; i < trabalhadores; i++) {
+            this.trabalhadores[i] = new Thread(this::executarTrabalhador, nome + "-" + (i + 1));
+            this.trabalhadores[i].setDaemon(true);
+            this.trabalhadores[i].start();
+        }
+    }
+
+    // ==================== CONEXÕES ====================
+
+    /**
+     * Abre o estado de ordenação de uma conexão e inicia a sua thread de
+     * entrega. A conexão deve ser encerrada com encerrar().
+     *
+     * @param maximoPendentes Quadros da conexão submetidos e ainda não entregues
+     * @return Conexão, usada apenas pela thread que lê o socket
+     * @throws IllegalArgumentException se o máximo não for positivo
+     */
+    public Conexao abrirConexao(int maximoPendentes) {
+        if (maximoPendentes < 1) {
+            throw new IllegalArgumentException("Máximo de quadros pendentes deve ser positivo: " + maximoPendentes);
+        }
+        Conexao conexao = new Conexao(maximoPendentes);
+        conexao.entregador.start();
+        return conexao;
+    }
+
+    /**
+     * Quadros de uma conexão: numerados na submissão e entregues nessa ordem,
+     * pela thread de entrega da conexão.
+     */
+    public final class Conexao {
+
+        /** Thread que executa as entregas, na ordem */
+        private final Thread entregador;
+
+        /** Vagas para quadros pendentes; uma vaga só é devolvida depois da entrega */
+        private final Semaphore vagas;
+
+        /** Máximo de quadros pendentes (total de vagas) */
+        private final int maximoPendentes;
+
+        /** Entregas prontas, na posição sequencia % tamanho (guardado por this) */
+        private final Entrega[] prontas;
+
+        /** Próxima sequência a submeter (só a thread leitora) */
+        private long proximaSubmissao;
+
+        /** Próxima sequência a entregar (guardado por this) */
+        private long proximaEntrega;
+
+        /** Indica que a conexão foi encerrada e a thread de entrega deve terminar (guardado por this) */
+        private boolean encerrada;
+
+        /** Primeira falha da conexão */
+        private volatile Throwable falha;
+
+        private Conexao(int maximoPendentes) {
+            this.maximoPendentes = maximoPendentes;
+            this.vagas = new Semaphore(maximoPendentes);
+            this.prontas = new Entrega[maximoPendentes];
+            this.entregador = new Thread(this::executarEntregas,
+                                         nome + "-Entrega-" + conexoesAbertas.incrementAndGet());
+            this.entregador.setDaemon(true);
+        }
+
+        /**
+         * Submete um quadro. Bloqueia enquanto a conexão tiver o máximo de
+         * quadros pendentes ou a fila do pipeline estiver cheia.
+         *
+         * @param decodificacao Decodificação do quadro, que retorna a sua entrega
+         * @throws IOException se um quadro anterior tiver falhado
+         * @throws InterruptedIOException se a thread for interrompida na espera
+         */
+        public void submeter(Decodificacao<R> decodificacao) throws IOException {
+            verificarFalha();
+            try {
+                if (!vagas.tryAcquire()) {
+                    esperasPendentes.increment();
+                    vagas.acquire();
+                }
+                Tarefa tarefa = new Tarefa(this, proximaSubmissao++, decodificacao);
+                if (!fila.offer(tarefa)) {
+                    esperasFilaCheia.increment();
+                    fila.put(tarefa);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrompido ao submeter quadro");
+            }
+        }
+
+        /**
+         * Aguarda a entrega de todos os quadros submetidos, por exemplo antes
+         * de processar um registro na própria thread leitora.
+         *
+         * @throws IOException se algum quadro tiver falhado
+         * @throws InterruptedIOException se a thread for interrompida na espera
+         */
+        public void aguardar() throws IOException {
+            try {
+                // Todas as vagas livres: nenhum quadro pendente
+                vagas.acquire(maximoPendentes);
+                vagas.release(maximoPendentes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrompido aguardando a entrega dos quadros");
+            }
+            verificarFalha();
+        }
+
+        /**
+         * Aguarda as entregas pendentes sem lançar a falha e termina a thread
+         * de entrega, para fechar a conexão (inclusive depois de um erro) sem
+         * que ainda haja entregas em andamento.
+         *
+         * A espera é limitada a TIMEOUT_ENCERRAMENTO_MS: se um quadro não for
+         * entregue nesse prazo (pipeline fechado, entrega presa em um cliente
+         * que não lê), a conexão é marcada com falha, as entregas restantes
+         * são descartadas e o encerramento segue sem elas.
+         */
+        public void encerrar() {
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_ENCERRAMENTO_MS);
+            boolean interrompida = false;
+            boolean concluidas = false;
+            while (true) {
+                try {
+                    concluidas = vagas.tryAcquire(maximoPendentes, limite - System.nanoTime(),
+                                                  TimeUnit.NANOSECONDS);
+                    break;
+                } catch (InterruptedException e) {
+                    interrompida = true;
+                }
+            }
+            if (concluidas) {
+                vagas.release(maximoPendentes);
+            } else {
+                if (falha == null) {
+                    falha = new IOException("Conexão encerrada com entregas pendentes");
+                }
+                LOGGER.warning("Conexão encerrada sem concluir as entregas pendentes em " +
+                               TIMEOUT_ENCERRAMENTO_MS + " ms");
+            }
+            synchronized (this) {
+                encerrada = true;
+                notifyAll();
+            }
+            long restante;
+            while (entregador.isAlive() && (restante = limite - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedJoin(entregador, restante);
+                } catch (InterruptedException e) {
+                    interrompida = true;
+                }
+            }
+            if (interrompida) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Lança a primeira falha da conexão, se houver.
+         */
+        private void verificarFalha() throws IOException {
+            Throwable causa = falha;
+            if (causa instanceof IOException) {
+                throw new IOException("Falha em quadro anterior: " + causa.getMessage(), causa);
+            }
+            if (causa != null) {
+                throw new IOException("Falha em quadro anterior: " + causa, causa);
+            }
+        }
+
+        /**
+         * Registra a entrega de um quadro decodificado, chamado pelo
+         * trabalhador, e acorda a thread de entrega se ela esperava este quadro.
+         */
+        private synchronized void concluir(long sequencia, Entrega entrega) {
+            prontas[(int) (sequencia % prontas.length)] = entrega;
+            if (sequencia == proximaEntrega) {
+                notifyAll();
+            }
+        }
+
+        /**
+         * Laço da thread de entrega: executa as entregas na ordem de
+         * submissão até a conexão ser encerrada.
+         */
+        private void executarEntregas() {
+            while (true) {
+                Entrega proxima;
+                synchronized (this) {
+                    int posicao = (int) (proximaEntrega % prontas.length);
+                    while ((proxima = prontas[posicao]) == null) {
+                        if (encerrada) {
+                            return;
+                        }
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            // Só o encerramento termina a thread, depois das entregas pendentes
+                        }
+                    }
+                    prontas[posicao] = null;
+                    proximaEntrega++;
+                }
+                if (falha == null) {
+                    try {
+                        proxima.entregar();
+                    } catch (Throwable e) {
+                        falha = e;
+                    }
+                }
+                vagas.release();
+            }
+        }
+    }
+
+    // ==================== TRABALHADORES ====================
+
+    /**
+     * Quadro na fila: conexão, posição na conexão e decodificação.
+     */
+    private final class Tarefa {
+        final Conexao conexao;
+        final long sequencia;
+        final Decodificacao<R> decodificacao;
+
+        Tarefa(Conexao conexao, long sequencia, Decodificacao<R> decodificacao) {
+            this.conexao = conexao;
+            this.sequencia = sequencia;
+            this.decodificacao = decodificacao;
+        }
+    }
+
+    /**
+     * Laço de um trabalhador: decodifica quadros até ser interrompido pelo close().
+     */
+    private void executarTrabalhador() {
+        R recursos = fabricaRecursos.get();
+        try {
+            while (true) {
+                Tarefa tarefa = fila.take();
+                long inicio = System.nanoTime();
+                Entrega entrega;
+                try {
+                    entrega = tarefa.decodificacao.decodificar(recursos);
+                } catch (Throwable e) {
+                    // A falha ocupa a posição do quadro: os anteriores ainda são entregues.
+                    // Também Error (OutOfMemoryError em um quadro grande...): sem a entrega,
+                    // a vaga do quadro nunca seria liberada e a conexão esperaria para sempre
+                    entrega = () -> {
+                        throw e instanceof IOException ? (IOException) e
+                                : new IOException("Erro na decodificação: " + e, e);
+                    };
+                }
+                nanosDecodificacao.add(System.nanoTime() - inicio);
+                quadros.increment();
+                tarefa.conexao.concluir(tarefa.sequencia, entrega);
+            }
+        } catch (InterruptedException e) {
+            // Encerramento do pipeline
+        } finally {
+            try {
+                recursos.close();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Erro ao fechar recursos de decodificação", e);
+            }
+        }
+    }
+
+    /**
+     * Encerra os trabalhadores e fecha os seus recursos. As conexões devem ter
+     * sido encerradas antes: quadros ainda na fila são descartados.
+     */
+    @Override
+    public void close() {
+        for (Thread trabalhador : trabalhadores) {
+            trabalhador.interrupt();
+        }
+        for (Thread trabalhador : trabalhadores) {
+            try {
+                trabalhador.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna o número de trabalhadores.
+     *
+     * @return Threads de decodificação
+     */
+    public int getTrabalhadores() {
+        return trabalhadores.length;
+    }
+
+    /**
+     * Retorna o número de quadros decodificados.
+     *
+     * @return Quadros decodificados, com ou sem falha
+     */
+    public long getQuadros() {
+        return quadros.sum();
+    }
+
+    /**
+     * Gera um resumo da decodificação e das esperas dos leitores.
+     *
+     * @return Relatório em uma linha
+     */
+    public String gerarRelatorio() {
+        long total = quadros.sum();
+        return String.format("%d quadro(s) em %d trabalhador(es), %.2f µs/quadro; leitores esperaram %d vez(es) " +
+                             "pela fila e %d vez(es) pelo limite de pendentes da conexão", total,
+                             trabalhadores.length, total == 0 ? 0.0 : nanosDecodificacao.sum() / 1e3 / total,
+                             esperasFilaCheia.sum(), esperasPendentes.sum());
+    }
+}
@@ -0,0 +1,285 @@
+/**
+ * RegistroTipos - Cadastro de tipos de mensagem com despacho por id
+ *
+ * Cada tipo de mensagem recebe um id numérico compacto, um codec (escritor
+ * e leitor do corpo) e um tratador. No formato compacto a mensagem viaja como:
+ *
+ *   1 byte      CodecMensagem.TIPO_REGISTRADO
+ *   varint      id do tipo
+ *   N bytes     corpo, no formato do codec do tipo
+ *
+ * O despacho de uma mensagem recebida é um acesso a vetor pelo id, que
+ * entrega o leitor e o tratador do tipo: sem reflexão e sem uma cadeia de
+ * instanceof que cresce (e fica mais lenta) a cada tipo novo. Objetos
+ * recebidos por serialização Java, que não trazem o id, são despachados
+ * pela classe.
+ *
+ * Os tipos são cadastrados antes do uso; o cadastro é copiado a cada
+ * registro, de modo que o despacho lê o vetor sem sincronização.
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tabela de tipos de mensagem indexada pelo id.
+ */
+public class RegistroTipos {
+
+    // ==================== CONSTANTES ====================
+
+    /** Maior id aceito: os ids indexam um vetor e devem ser compactos */
+    public static final int ID_MAXIMO = 4095;
+
+    // ==================== INTERFACES ====================
+
+    /**
+     * Escreve o corpo de uma mensagem.
+     *
+     * @param <T> Tipo da mensagem
+     */
+    @FunctionalInterface
+    public interface Escritor<T> {
+        void escrever(DataOutput saida, T mensagem) throws IOException;
+    }
+
+    /**
+     * Lê o corpo de uma mensagem cujo tipo e id já foram consumidos.
+     *
+     * @param <T> Tipo da mensagem
+     */
+    @FunctionalInterface
+    public interface Leitor<T> {
+        T ler(DataInput entrada) throws IOException;
+    }
+
+    /**
+     * Processa uma mensagem recebida.
+     *
+     * @param <T> Tipo da mensagem
+     */
+    @FunctionalInterface
+    public interface Tratador<T> {
+        void tratar(T mensagem, String origem) throws IOException;
+    }
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Tipos indexados pelo id (posições sem tipo são null) */
+    private volatile Tipo<?>[] porId = new Tipo<?>[0];
+
+    /** Tipos indexados pela classe, para codificar e para objetos sem id */
+    private volatile Map<Class<?>, Tipo<?>> porClasse = new HashMap<>();
+
+    // ==================== CADASTRO ====================
+
+    /**
+     * Cadastra um tipo de mensagem.
+     *
+     * @param <T> Tipo da mensagem
+     * @param id Id do tipo, de 0 a ID_MAXIMO
+     * @param classe Classe exata das mensagens do tipo
+     * @param escritor Codificador do corpo
+     * @param leitor Decodificador do corpo
+     * @param tratador Processamento de cada mensagem recebida
+     * @throws IllegalArgumentException se o id for inválido ou o id ou a classe já estiverem cadastrados
+     */
+    public synchronized <T> void registrar(int id, Class<T> classe, Escritor<? super T> escritor,
+                                           Leitor<? extends T> leitor, Tratador<? super T> tratador) {
+        if (id < 0 || id > ID_MAXIMO) {
+            throw new IllegalArgumentException("Id do tipo deve estar entre 0 e " + ID_MAXIMO + ": " + id);
+        }
+        if (classe == null || escritor == null || leitor == null || tratador == null) {
+            throw new IllegalArgumentException("Classe, codec e tratador são obrigatórios");
+        }
+        if (id < porId.length && porId[id] != null) {
+            throw new IllegalArgumentException("Id " + id + " já cadastrado para " + porId[id].classe.getSimpleName());
+        }
+        if (porClasse.containsKey(classe)) {
+            throw new IllegalArgumentException(classe.getSimpleName() + " já cadastrada com o id " +
+                                               porClasse.get(classe).id);
+        }
+
+        Tipo<T> tipo = new Tipo<>(id, classe, escritor, leitor, tratador);
+        Tipo<?>[] novoPorId = Arrays.copyOf(porId, Math.max(porId.length, id + 1));
+        novoPorId[id] = tipo;
+        Map<Class<?>, Tipo<?>> novoPorClasse = new HashMap<>(porClasse);
+        novoPorClasse.put(classe, tipo);
+        porId = novoPorId;
+        porClasse = novoPorClasse;
+    }
+
+    // ==================== CODIFICAÇÃO ====================
+
+    /**
+     * Escreve uma mensagem de um tipo cadastrado (tipo de registro, id e corpo).
+     *
+     * @param saida Destino
+     * @param mensagem Mensagem de uma classe cadastrada
+     * @throws IllegalArgumentException se a classe da mensagem não estiver cadastrada
+     * @throws IOException se houver erro de escrita
+     */
+    public void escrever(DataOutput saida, Object mensagem) throws IOException {
+        Tipo<?> tipo = porClasse.get(mensagem.getClass());
+        if (tipo == null) {
+            throw new IllegalArgumentException("Tipo não cadastrado: " + mensagem.getClass().getName());
+        }
+        saida.writeByte(CodecMensagem.TIPO_REGISTRADO);
+        CodecMensagem.escreverVarint(saida, tipo.id);
+        tipo.escreverCorpo(saida, mensagem);
+    }
+
+    // ==================== DESPACHO ====================
+
+    /**
+     * Lê o id e o corpo de uma mensagem cujo byte de tipo de registro já foi
+     * consumido e a entrega ao tratador do tipo.
+     *
+     * @param entrada Origem posicionada após CodecMensagem.TIPO_REGISTRADO
+     * @param origem Identificação da conexão, repassada ao tratador
+     * @throws StreamCorruptedException se o id não estiver cadastrado
+     * @throws IOException se houver erro de leitura ou o tratador falhar
+     */
+    public void despachar(DataInput entrada, String origem) throws IOException {
+        tipoDoId(CodecMensagem.lerVarint(entrada)).lerETratar(entrada, origem);
+    }
+
+    /**
+     * Lê uma mensagem cujo byte de tipo de registro já foi consumido, sem tratá-la.
+     *
+     * @param entrada Origem posicionada após CodecMensagem.TIPO_REGISTRADO
+     * @return Mensagem decodificada
+     * @throws StreamCorruptedException se o id não estiver cadastrado
+     * @throws IOException se houver erro de leitura
+     */
+    public Object ler(DataInput entrada) throws IOException {
+        return tipoDoId(CodecMensagem.lerVarint(entrada)).leitor.ler(entrada);
+    }
+
+    /**
+     * Entrega ao tratador do tipo um objeto já decodificado (por exemplo,
+     * recebido por serialização Java), localizado pela classe.
+     *
+     * @param objeto Objeto recebido
+     * @param origem Identificação da conexão, repassada ao tratador
+     * @return false se a classe do objeto não estiver cadastrada
+     * @throws IOException se o tratador falhar
+     */
+    public boolean tratarObjeto(Object objeto, String origem) throws IOException {
+        Tipo<?> tipo = porClasse.get(objeto.getClass());
+        if (tipo == null) {
+            return false;
+        }
+        tipo.tratarObjeto(objeto, origem);
+        return true;
+    }
+
+    /**
+     * Localiza um tipo pelo id recebido.
+     */
+    private Tipo<?> tipoDoId(int id) throws StreamCorruptedException {
+        Tipo<?>[] tipos = porId;
+        if (id < 0 || id >= tipos.length || tipos[id] == null) {
+            throw new StreamCorruptedException("Tipo de mensagem não cadastrado: id " + id);
+        }
+        return tipos[id];
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna o id cadastrado para uma classe.
+     *
+     * @param classe Classe da mensagem
+     * @return Id do tipo, ou -1 se a classe não estiver cadastrada
+     */
+    public int getId(Class<?> classe) {
+        Tipo<?> tipo = porClasse.get(classe);
+        return tipo != null ? tipo.id : -1;
+    }
+
+    /**
+     * Retorna o número de tipos cadastrados.
+     *
+     * @return Tipos cadastrados
+     */
+    public int getQuantidadeTipos() {
+        return porClasse.size();
+    }
+
+    /**
+     * Retorna quantas mensagens de um tipo foram tratadas.
+     *
+     * @param id Id do tipo
+     * @return Mensagens tratadas, ou 0 se o id não estiver cadastrado
+     */
+    public long getTratadas(int id) {
+        Tipo<?>[] tipos = porId;
+        return id >= 0 && id < tipos.length && tipos[id] != null ? tipos[id].tratadas.sum() : 0;
+    }
+
+    /**
+     * Gera um resumo dos tipos cadastrados e das mensagens tratadas por tipo.
+     *
+     * @return Relatório em uma linha
+     */
+    public String gerarRelatorio() {
+        StringBuilder relatorio = new StringBuilder();
+        relatorio.append(getQuantidadeTipos()).append(" tipo(s) cadastrado(s)");
+        String separador = ": ";
+        for (Tipo<?> tipo : porId) {
+            if (tipo != null && tipo.tratadas.sum() > 0) {
+                relatorio.append(separador).append(tipo.classe.getSimpleName()).append('#').append(tipo.id)
+                         .append('=').append(tipo.tratadas.sum());
+                separador = ", ";
+            }
+        }
+        return relatorio.toString();
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * Entrada da tabela: codec e tratador de um tipo, com o tipo fixado em T
+     * para que leitura e tratamento não precisem de conversões.
+     */
+    private static final class Tipo<T> {
+        final int id;
+        final Class<T> classe;
+        final Escritor<? super T> escritor;
+        final Leitor<? extends T> leitor;
+        final Tratador<? super T> tratador;
+        final LongAdder tratadas = new LongAdder();
+
+        Tipo(int id, Class<T> classe, Escritor<? super T> escritor, Leitor<? extends T> leitor,
+             Tratador<? super T> tratador) {
+            this.id = id;
+            this.classe = classe;
+            this.escritor = escritor;
+            this.leitor = leitor;
+            this.tratador = tratador;
+        }
+
+        void lerETratar(DataInput entrada, String origem) throws IOException {
+            T mensagem = leitor.ler(entrada);
+            tratadas.increment();
+            tratador.tratar(mensagem, origem);
+        }
+
+        void tratarObjeto(Object objeto, String origem) throws IOException {
+            tratadas.increment();
+            tratador.tratar(classe.cast(objeto), origem);
+        }
+
+        void escreverCorpo(DataOutput saida, Object mensagem) throws IOException {
+            escritor.escrever(saida, classe.cast(mensagem));
+        }
+    }
+}
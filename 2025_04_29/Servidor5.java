@@ -6,11 +6,35 @@
  * aguardando conexões e processando objetos MensagemTeste recebidos.
  * 
  * Funcionalidades:
- * - Servidor TCP multi-cliente (sequencial)
+ * - Servidor TCP multi-cliente (conexões atendidas em paralelo por um pool de threads)
+ * - Várias mensagens por conexão: objetos são lidos em sequência até o cliente encerrar
  * - Deserialização de objetos recebidos
  * - Tratamento robusto de exceções
  * - Logs detalhados de atividade
  * - Configuração flexível de porta e backlog
+ * - Escuta opcional em socket Unix para clientes no mesmo host
+ * - Aceita tanto a serialização Java quanto o formato compacto (CodecMensagem),
+ *   identificados pelo primeiro byte recebido
+ * - Lotes de mensagens no formato compacto (LoteMensagens), processados de uma
+ *   vez e confirmados com uma única resposta
+ * - Mensagens compactas recebidas como VisaoMensagem: o texto só é decodificado
+ *   se for exibido
+ * - Persistência opcional em JornalMensagens, com recuperação na inicialização;
+ *   lotes só são confirmados depois de gravados com a durabilidade escolhida
+ * - Consulta das mensagens persistidas pelo texto (IndiceMensagens), respondida
+ *   com os endereços das ocorrências no jornal
+ * - Tipos de mensagem cadastrados em RegistroTipos, despachados pelo id do tipo
+ *   (formato compacto) ou pela classe (serialização Java)
+ * - Mensagens comprimidas com dicionário (CompressorMensagens), com as versões
+ *   de dicionário aceitas carregadas de um diretório
+ * - Decodificação opcional em um pool (PipelineDecodificacao): a thread da
+ *   conexão só separa os registros do formato compacto, que são descomprimidos
+ *   e desserializados em paralelo e processados na ordem de chegada
+ * - Cache opcional de textos (CacheTextos): mensagens compactas com o mesmo
+ *   texto compartilham uma única String, localizada pelos bytes recebidos
+ * - Desserialização limitada (FiltroDesserializacao): só MensagemTeste é
+ *   aceita, com limites de profundidade, referências, vetores e bytes por
+ *   objeto; a conexão que excede um limite é encerrada
  * 
  * @author Sistema de Comunicação por Objetos
  * @version 2.0
@@ -19,8 +43,28 @@
 
 import java.net.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 import java.util.logging.Level;
+import java.util.zip.Inflater;
 
 /**
  * Servidor TCP que recebe e processa objetos serializados.
@@ -29,12 +73,27 @@ public class Servidor5 {
     
     // ==================== CONSTANTES ====================
     
-    /** Porta padrão do servidor */
-    private static final int PORTA_SERVIDOR = 4321;
+    /** Prefixo que identifica endereços de socket Unix (ex.: unix:/tmp/servidor5.sock) */
+    private static final String PREFIXO_UNIX = "unix:";
     
     /** Backlog para conexões pendentes */
     private static final int BACKLOG_CONEXOES = 50;
     
+    /** Tempo máximo de espera pelas conexões em andamento no encerramento */
+    private static final int TIMEOUT_ENCERRAMENTO_SEGUNDOS = 5;
+    
+    /** Nome do arquivo do índice, dentro do diretório do jornal */
+    private static final String ARQUIVO_INDICE = "indice.idx";
+    
+    /** Valor do argumento do jornal que desativa a persistência */
+    private static final String SEM_JORNAL = "-";
+    
+    /** Registros de uma conexão decodificados e ainda não processados, no máximo */
+    private static final int PENDENTES_POR_CONEXAO = 64;
+    
+    /** Registros aguardando decodificação, de todas as conexões, antes de bloquear os leitores */
+    private static final int CAPACIDADE_FILA_DECODIFICACAO = 1024;
+    
     /** Logger para registrar eventos do servidor */
     private static final Logger LOGGER = Logger.getLogger(Servidor5.class.getName());
     
@@ -43,47 +102,128 @@ public class Servidor5 {
     /** Socket do servidor */
     private ServerSocket serverSocket;
     
+    /** Canal do servidor quando escuta em socket Unix (null em TCP) */
+    private ServerSocketChannel canalUnix;
+    
+    /** Caminho do socket Unix (null em TCP) */
+    private Path caminhoUnix;
+    
     /** Contador de clientes atendidos */
-    private int contadorClientes;
+    private volatile int contadorClientes;
     
     /** Flag para controlar execução do servidor */
     private volatile boolean executando;
     
+    /** Garante um único encerramento (shutdown hook e fim do loop principal chamam pararServidor) */
+    private final AtomicBoolean encerramentoIniciado = new AtomicBoolean();
+    
+    /** Conexões aceitas e ainda abertas, fechadas no encerramento para liberar as leituras bloqueadas */
+    private final Set<Closeable> conexoesAtivas = ConcurrentHashMap.newKeySet();
+    
+    /** Endereço, detalhamento e recursos opcionais do servidor */
+    private final ConfiguracaoServidor5 configuracao;
+    
+    /** Exibe cada mensagem recebida (desative para medir vazão) */
+    private final boolean detalharMensagens;
+    
+    /** Threads que atendem as conexões, uma por conexão ativa */
+    private final ExecutorService poolClientes;
+    
+    /** Total de mensagens recebidas em todas as conexões */
+    private final LongAdder totalMensagens = new LongAdder();
+    
+    /** Jornal onde as mensagens recebidas são persistidas (null sem persistência) */
+    private final JornalMensagens jornal;
+    
+    /** Índice das mensagens do jornal, usado pelas consultas (null sem persistência) */
+    private final IndiceMensagens indice;
+    
+    /** Tipos de mensagem aceitos, com codec e tratador de cada um */
+    private final RegistroTipos registroTipos = new RegistroTipos();
+    
+    /** Dicionários de compressão aceitos, por id de versão */
+    private final Map<Integer, DicionarioCompressao> dicionarios;
+    
+    /** Pool que decodifica os registros do formato compacto (null: decodificados na thread da conexão) */
+    private final PipelineDecodificacao<RecursosDecodificacao> pipeline;
+    
+    /** Textos canônicos das mensagens compactas (null: cada mensagem decodifica o seu texto) */
+    private final CacheTextos cacheTextos;
+    
+    /** Classes e limites aceitos em readObject(), com os contadores de rejeição */
+    private final FiltroDesserializacao filtroDesserializacao =
+            new FiltroDesserializacao(Set.of(MensagemTeste.class));
+    
+    // ==================== CONSTRUTORES ====================
+    
+    /**
+     * Cria um servidor com a configuração padrão (porta 4321, exibindo cada mensagem).
+     */
+    public Servidor5() {
+        this(ConfiguracaoServidor5.padrao());
+    }
+    
+    /**
+     * Cria um servidor com a configuração informada.
+     * 
+     * @param configuracao Endereço, detalhamento e recursos opcionais; jornal e índice
+     *                     são fechados no encerramento
+     */
+    public Servidor5(ConfiguracaoServidor5 configuracao) {
+        this.configuracao = configuracao;
+        this.detalharMensagens = configuracao.detalharMensagens;
+        this.jornal = configuracao.jornal;
+        this.indice = configuracao.indice;
+        this.dicionarios = configuracao.dicionarios;
+        this.cacheTextos = configuracao.cacheTextos;
+        this.pipeline = configuracao.trabalhadoresDecodificacao > 0
+                ? new PipelineDecodificacao<>("Servidor5-Decodificador", configuracao.trabalhadoresDecodificacao,
+                                              CAPACIDADE_FILA_DECODIFICACAO,
+                                              () -> new RecursosDecodificacao(this.dicionarios))
+                : null;
+        registroTipos.registrar(MensagemTeste.ID_TIPO, MensagemTeste.class, CodecMensagem::escreverCorpo,
+                                entrada -> CodecMensagem.lerCorpo(entrada, this.cacheTextos),
+                                this::tratarMensagemTeste);
+        AtomicInteger numeroThread = new AtomicInteger();
+        this.poolClientes = Executors.newCachedThreadPool(
+                tarefa -> new Thread(tarefa, "Servidor5-Cliente-" + numeroThread.incrementAndGet()));
+    }
+    
     // ==================== MÉTODO PRINCIPAL ====================
     
     /**
      * Método principal do servidor.
      * 
      * Argumentos aceitos:
-     * - args[0]: Porta do servidor (opcional, padrão: 4321)
+     * - args[0]: Porta do servidor ou unix:caminho (opcional, padrão: 4321)
+     * - args[1]: Exibir cada mensagem, true ou false (opcional, padrão: true)
+     * - args[2]: Diretório do jornal de mensagens e do índice, ou - (opcional, sem persistência)
+     * - args[3]: Durabilidade: nenhuma, grupo ou imediata (opcional, padrão: grupo)
+     * - args[4]: Diretório dos dicionários de compressão, *.dic, ou - (opcional, nenhum)
+     * - args[5]: Threads de decodificação do formato compacto (opcional, padrão: 0 = na thread da conexão)
+     * - args[6]: Capacidade do cache de textos (opcional, padrão: 0 = sem cache)
      * 
      * @param args Argumentos da linha de comando
      */
     public static void main(String[] args) {
-        int porta = PORTA_SERVIDOR;
+        ConfiguracaoServidor5 configuracao = null;
         
-        // Processar argumentos
-        if (args.length > 0) {
-            try {
-                porta = Integer.parseInt(args[0]);
-                if (porta < 1 || porta > 65535) {
-                    throw new IllegalArgumentException("Porta deve estar entre 1 e 65535");
-                }
-            } catch (NumberFormatException e) {
-                System.err.println("Erro: Porta deve ser um número válido");
-                exibirAjuda();
-                System.exit(1);
-            } catch (IllegalArgumentException e) {
-                System.err.println("Erro: " + e.getMessage());
-                exibirAjuda();
-                System.exit(1);
-            }
+        try {
+            configuracao = lerConfiguracao(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erro: " + e.getMessage());
+            exibirAjuda();
+            System.exit(1);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Erro ao abrir o jornal, o índice ou os dicionários", e);
+            System.err.println("Erro ao abrir o jornal, o índice ou os dicionários: " + e.getMessage());
+            System.exit(1);
         }
         
         // Iniciar servidor
-        Servidor5 servidor = new Servidor5();
+        Servidor5 servidor = new Servidor5(configuracao);
         try {
-            servidor.iniciarServidor(porta);
+            servidor.iniciarServidor();
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Erro crítico no servidor", e);
             System.err.println("Erro crítico: " + e.getMessage());
@@ -91,8 +231,91 @@ public class Servidor5 {
         }
     }
     
+    /**
+     * Converte os argumentos posicionais em uma configuração.
+     * 
+     * Todos os valores são validados antes de abrir o jornal, o índice e os
+     * dicionários, para que um argumento inválido não deixe arquivos abertos.
+     * 
+     * @param args Argumentos da linha de comando (ver main)
+     * @return Configuração com os recursos pedidos já abertos
+     * @throws IllegalArgumentException se algum argumento for inválido
+     * @throws IOException se o jornal, o índice ou os dicionários não puderem ser abertos
+     */
+    private static ConfiguracaoServidor5 lerConfiguracao(String[] args) throws IOException {
+        boolean unix = args.length > 0 && args[0].startsWith(PREFIXO_UNIX);
+        int porta = ConfiguracaoServidor5.PORTA_PADRAO;
+        if (args.length > 0 && !unix) {
+            try {
+                porta = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Porta deve ser um número válido");
+            }
+        }
+        boolean detalhar = args.length <= 1 || Boolean.parseBoolean(args[1]);
+        ConfiguracaoServidor5 configuracao = new ConfiguracaoServidor5(porta, detalhar);
+        if (unix) {
+            configuracao = configuracao.comSocketUnix(Paths.get(args[0].substring(PREFIXO_UNIX.length())));
+        }
+        
+        JornalMensagens.Durabilidade durabilidade = JornalMensagens.Durabilidade.GRUPO;
+        if (args.length > 3) {
+            try {
+                durabilidade = JornalMensagens.Durabilidade.valueOf(args[3].trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Durabilidade deve ser nenhuma, grupo ou imediata");
+            }
+        }
+        if (args.length > 5) {
+            try {
+                configuracao = configuracao.comDecodificadores(Integer.parseInt(args[5]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Threads de decodificação devem ser um número não negativo");
+            }
+        }
+        if (args.length > 6) {
+            try {
+                int capacidade = Integer.parseInt(args[6]);
+                configuracao = configuracao.comCacheTextos(capacidade > 0 ? new CacheTextos(capacidade) : null);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Capacidade do cache de textos deve estar entre 0 e " +
+                                                   CacheTextos.CAPACIDADE_MAXIMA);
+            }
+        }
+        
+        if (args.length > 2 && !SEM_JORNAL.equals(args[2])) {
+            JornalMensagens jornal = abrirJornal(Paths.get(args[2]), durabilidade);
+            try {
+                configuracao = configuracao.comJornal(
+                        jornal, abrirIndice(Paths.get(args[2]).resolve(ARQUIVO_INDICE), jornal));
+            } catch (IOException e) {
+                jornal.close();
+                throw e;
+            }
+        }
+        if (args.length > 4 && !SEM_JORNAL.equals(args[4])) {
+            Map<Integer, DicionarioCompressao> dicionarios = DicionarioCompressao.carregarTodos(Paths.get(args[4]));
+            System.out.println("✓ Dicionários de compressão aceitos: " + new TreeSet<>(dicionarios.keySet()));
+            configuracao = configuracao.comDicionarios(dicionarios);
+        }
+        return configuracao;
+    }
+    
     // ==================== MÉTODOS PRINCIPAIS ====================
     
+    /**
+     * Inicia o servidor no endereço da configuração: o socket Unix, se houver, ou a porta TCP.
+     * 
+     * @throws IOException se houver erro na inicialização
+     */
+    public void iniciarServidor() throws IOException {
+        if (configuracao.caminhoUnix != null) {
+            iniciarServidorUnix(configuracao.caminhoUnix);
+        } else {
+            iniciarServidor(configuracao.porta);
+        }
+    }
+    
     /**
      * Inicia o servidor na porta especificada.
      * 
@@ -132,26 +355,89 @@ public class Servidor5 {
         }
     }
     
+    /**
+     * Inicia o servidor em um socket Unix.
+     * 
+     * @param caminho Caminho do arquivo de socket
+     * @throws IOException se houver erro na inicialização
+     */
+    public void iniciarServidorUnix(Path caminho) throws IOException {
+        System.out.println("=== Servidor de Comunicação por Objetos ===");
+        System.out.println("Socket Unix: " + caminho);
+        System.out.println("Backlog: " + BACKLOG_CONEXOES);
+        System.out.println();
+        
+        try {
+            // Remove arquivo de socket deixado por execução anterior
+            Files.deleteIfExists(caminho);
+            canalUnix = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            canalUnix.bind(UnixDomainSocketAddress.of(caminho), BACKLOG_CONEXOES);
+            caminhoUnix = caminho;
+            executando = true;
+            contadorClientes = 0;
+            
+            System.out.println("✓ Servidor iniciado com sucesso!");
+            System.out.println("✓ Aguardando conexões de clientes...");
+            System.out.println("✓ Pressione Ctrl+C para parar o servidor");
+            System.out.println();
+            
+            LOGGER.info("Servidor iniciado no socket Unix " + caminho);
+            
+            configurarShutdownHook();
+            executarLoopPrincipal();
+            
+        } catch (IOException e) {
+            System.err.println("✗ Erro ao iniciar servidor: " + e.getMessage());
+            throw e;
+        } finally {
+            pararServidor();
+        }
+    }
+    
     /**
      * Executa o loop principal de atendimento a clientes.
+     * 
+     * Cada conexão aceita é entregue ao pool, e o loop volta imediatamente
+     * a aceitar a próxima.
      */
     private void executarLoopPrincipal() {
         while (executando) {
-            Socket socketCliente = null;
+            Closeable conexaoCliente = null;
             
             try {
                 // Aguardar conexão de cliente
-                socketCliente = serverSocket.accept();
-                contadorClientes++;
+                InputStream entradaCliente;
+                OutputStream saidaCliente;
+                String enderecoCliente;
+                if (canalUnix != null) {
+                    SocketChannel canalCliente = canalUnix.accept();
+                    conexaoCliente = canalCliente;
+                    // Não Channels.newInputStream/newOutputStream: os dois travam o mesmo blockingLock(),
+                    // e uma entrega do pipeline não escreveria enquanto a conexão espera a leitura
+                    entradaCliente = new EntradaCanal(canalCliente);
+                    saidaCliente = new SaidaCanal(canalCliente);
+                    enderecoCliente = PREFIXO_UNIX + caminhoUnix;
+                } else {
+                    Socket socketCliente = serverSocket.accept();
+                    conexaoCliente = socketCliente;
+                    // Confirmações de lote são escritas pequenas, aguardadas pelo cliente
+                    socketCliente.setTcpNoDelay(true);
+                    entradaCliente = socketCliente.getInputStream();
+                    saidaCliente = socketCliente.getOutputStream();
+                    enderecoCliente = socketCliente.getRemoteSocketAddress().toString();
+                }
+                int numeroCliente = ++contadorClientes;
                 
-                String enderecoCliente = socketCliente.getRemoteSocketAddress().toString();
-                System.out.println("[Cliente #" + contadorClientes + "] Conectado: " + enderecoCliente);
+                System.out.println("[Cliente #" + numeroCliente + "] Conectado: " + enderecoCliente);
                 LOGGER.info("Cliente conectado: " + enderecoCliente);
                 
-                // Processar cliente
-                processarCliente(socketCliente);
+                // Processar cliente em outra thread
+                Closeable conexao = conexaoCliente;
+                conexoesAtivas.add(conexao);
+                poolClientes.execute(() -> atenderCliente(numeroCliente, entradaCliente, saidaCliente, conexao));
+                conexaoCliente = null;
                 
-            } catch (SocketException e) {
+            } catch (SocketException | ClosedChannelException e) {
                 if (executando) {
                     System.err.println("Erro no socket do servidor: " + e.getMessage());
                     LOGGER.log(Level.WARNING, "Erro no socket do servidor", e);
@@ -164,62 +450,107 @@ public class Servidor5 {
                 System.err.println("Erro inesperado: " + e.getMessage());
                 LOGGER.log(Level.SEVERE, "Erro inesperado no loop principal", e);
             } finally {
-                // Garantir fechamento do socket do cliente
-                if (socketCliente != null && !socketCliente.isClosed()) {
-                    try {
-                        socketCliente.close();
-                    } catch (IOException e) {
-                        LOGGER.log(Level.WARNING, "Erro ao fechar socket do cliente", e);
-                    }
+                // Conexão não entregue ao pool (erro ou pool encerrado)
+                if (conexaoCliente != null) {
+                    conexoesAtivas.remove(conexaoCliente);
+                    fecharConexao(conexaoCliente);
                 }
             }
         }
     }
     
+    /**
+     * Atende uma conexão até o cliente encerrá-la e então a fecha.
+     * 
+     * @param numeroCliente Número sequencial do cliente
+     * @param entradaCliente Stream de entrada da conexão
+     * @param saidaCliente Stream de saída da conexão (confirmações de lote)
+     * @param conexaoCliente Socket ou canal a ser fechado ao final
+     */
+    private void atenderCliente(int numeroCliente, InputStream entradaCliente, OutputStream saidaCliente,
+                                Closeable conexaoCliente) {
+        try {
+            processarCliente(numeroCliente, entradaCliente, saidaCliente);
+        } catch (ClassNotFoundException e) {
+            LOGGER.log(Level.WARNING, "Classe desconhecida recebida do cliente #" + numeroCliente, e);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Erro de comunicação com o cliente #" + numeroCliente, e);
+        } catch (Exception e) {
+            System.err.println("Erro inesperado: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Erro inesperado ao atender cliente #" + numeroCliente, e);
+        } finally {
+            conexoesAtivas.remove(conexaoCliente);
+            fecharConexao(conexaoCliente);
+        }
+    }
+    
     /**
      * Processa comunicação com um cliente específico.
      * 
-     * @param socketCliente Socket do cliente conectado
+     * Lê mensagens em sequência até o fim do stream. O formato (serialização
+     * Java ou compacto) é identificado pelo primeiro byte e vale para toda a conexão.
+     * 
+     * @param numeroCliente Número sequencial do cliente
+     * @param entradaCliente Stream de entrada do cliente conectado (TCP ou Unix)
+     * @param saidaCliente Stream de saída do cliente, usado só no formato compacto
      * @throws IOException se houver erro de comunicação
      * @throws ClassNotFoundException se houver erro na deserialização
      */
-    private void processarCliente(Socket socketCliente) throws IOException, ClassNotFoundException {
-        String identificadorCliente = "[Cliente #" + contadorClientes + "]";
+    private void processarCliente(int numeroCliente, InputStream entradaCliente, OutputStream saidaCliente)
+            throws IOException, ClassNotFoundException {
+        String identificadorCliente = "[Cliente #" + numeroCliente + "]";
         ObjectInputStream inputStream = null;
+        FiltroDesserializacao.Fluxo filtro = filtroDesserializacao.novoFluxo();
+        long inicio = System.nanoTime();
+        long mensagens = 0;
         
         try {
-            System.out.println(identificadorCliente + " Criando stream de entrada...");
-            inputStream = new ObjectInputStream(socketCliente.getInputStream());
+            // Identificar o formato pelo primeiro byte, sem consumi-lo
+            BufferedInputStream entradaBufferizada = new BufferedInputStream(entradaCliente);
+            entradaBufferizada.mark(1);
+            int primeiroByte = entradaBufferizada.read();
+            entradaBufferizada.reset();
             
-            System.out.println(identificadorCliente + " Aguardando objeto...");
+            if (iniciaFormatoCompacto(primeiroByte)) {
+                mensagens = processarFormatoCompacto(new DataInputStream(entradaBufferizada),
+                                                     new DataOutputStream(new BufferedOutputStream(saidaCliente)),
+                                                     identificadorCliente);
+                return;
+            }
+            if (primeiroByte != CodecMensagem.INICIO_SERIALIZACAO_JAVA) {
+                throw new StreamCorruptedException(primeiroByte < 0
+                        ? "Conexão encerrada antes do primeiro byte"
+                        : "Formato desconhecido (primeiro byte 0x" + Integer.toHexString(primeiroByte) + ")");
+            }
             
-            // Receber objeto do cliente
-            Object objetoRecebido = inputStream.readObject();
+            if (detalharMensagens) {
+                System.out.println(identificadorCliente + " Criando stream de entrada...");
+            }
+            inputStream = new ObjectInputStream(filtro.limitar(entradaBufferizada));
+            inputStream.setObjectInputFilter(filtro);
             
-            if (objetoRecebido instanceof MensagemTeste) {
-                MensagemTeste mensagem = (MensagemTeste) objetoRecebido;
-                
-                System.out.println(identificadorCliente + " Objeto recebido com sucesso!");
-                System.out.println(identificadorCliente + " Tipo: " + objetoRecebido.getClass().getSimpleName());
-                System.out.println(identificadorCliente + " Conteúdo:");
-                
-                // Exibir conteúdo da mensagem
-                mensagem.exibir();
-                
-                LOGGER.info("Objeto recebido de cliente: " + mensagem);
-                
-            } else {
-                System.out.println(identificadorCliente + " Objeto de tipo inesperado: " + 
-                                 objetoRecebido.getClass().getSimpleName());
-                LOGGER.warning("Objeto de tipo inesperado recebido: " + objetoRecebido.getClass());
+            if (detalharMensagens) {
+                System.out.println(identificadorCliente + " Aguardando objetos...");
             }
             
-            System.out.println(identificadorCliente + " ✓ Processamento concluído");
-            System.out.println();
+            // Receber objetos até o cliente encerrar o stream
+            while (true) {
+                Object objetoRecebido;
+                try {
+                    objetoRecebido = filtro.ler(inputStream);
+                } catch (EOFException e) {
+                    break;
+                }
+                mensagens++;
+                receberObjeto(identificadorCliente, objetoRecebido);
+            }
             
         } catch (ClassNotFoundException e) {
             System.err.println(identificadorCliente + " ✗ Erro: Classe não encontrada");
             throw e;
+        } catch (InvalidClassException | InvalidObjectException e) {
+            System.err.println(identificadorCliente + " ✗ " + e.getMessage() + ", conexão encerrada");
+            throw e;
         } catch (IOException e) {
             System.err.println(identificadorCliente + " ✗ Erro de comunicação: " + e.getMessage());
             throw e;
@@ -232,31 +563,480 @@ public class Servidor5 {
                     LOGGER.log(Level.WARNING, "Erro ao fechar ObjectInputStream", e);
                 }
             }
+            totalMensagens.add(mensagens);
+            exibirResumoConexao(identificadorCliente, mensagens, System.nanoTime() - inicio);
+        }
+    }
+    
+    /**
+     * Recebe registros no formato compacto até o fim do stream.
+     * 
+     * Mensagens avulsas não têm resposta. Cada lote é decodificado inteiro,
+     * processado de uma vez e confirmado com um único registro. Cada consulta
+     * é respondida com os endereços das mensagens persistidas com o mesmo texto.
+     * Com o pipeline ativo, a decodificação sai da thread da conexão
+     * (ver processarFormatoCompactoPipeline).
+     * 
+     * @param entrada Stream posicionado no byte de tipo do primeiro registro
+     * @param saida Stream para as confirmações de lote e os resultados de consulta
+     * @param identificadorCliente Prefixo usado nos logs
+     * @return Número de mensagens recebidas
+     * @throws IOException se houver erro de comunicação ou registro inválido
+     * @throws ClassNotFoundException se um objeto serializado for de classe desconhecida
+     */
+    private long processarFormatoCompacto(DataInputStream entrada, DataOutputStream saida,
+                                          String identificadorCliente) throws IOException, ClassNotFoundException {
+        if (pipeline != null) {
+            return processarFormatoCompactoPipeline(entrada, saida, identificadorCliente);
+        }
+        long mensagens = 0;
+        Inflater inflater = null;
+        CompressorMensagens compressor = null;
+        try {
+            while (true) {
+                int tipo = entrada.read();
+                if (tipo < 0) {
+                    return mensagens;
+                }
+                
+                if (tipo == CodecMensagem.TIPO_MENSAGEM_TESTE || tipo == CodecMensagem.TIPO_MENSAGEM_COMPRIMIDA) {
+                    if (tipo == CodecMensagem.TIPO_MENSAGEM_COMPRIMIDA && compressor == null) {
+                        compressor = new CompressorMensagens(null, dicionarios);
+                    }
+                    receberMensagem(identificadorCliente, tipo == CodecMensagem.TIPO_MENSAGEM_TESTE
+                            ? CodecMensagem.lerVisao(entrada, cacheTextos)
+                            : compressor.lerCorpo(entrada, cacheTextos));
+                    mensagens++;
+                } else if (tipo == CodecMensagem.TIPO_LOTE) {
+                    if (inflater == null) {
+                        inflater = new Inflater();
+                    }
+                    List<VisaoMensagem> lote = LoteMensagens.lerVisoes(entrada, inflater, cacheTextos);
+                    receberLote(identificadorCliente, lote, saida);
+                    mensagens += lote.size();
+                } else if (tipo == CodecMensagem.TIPO_REGISTRADO) {
+                    registroTipos.despachar(entrada, identificadorCliente);
+                    mensagens++;
+                } else if (tipo == CodecMensagem.TIPO_CONSULTA) {
+                    responderConsulta(identificadorCliente, CodecMensagem.lerVisao(entrada, cacheTextos), saida);
+                } else if (tipo == CodecMensagem.TIPO_OBJETO_SERIALIZADO) {
+                    byte[] quadro = CodecMensagem.lerQuadroObjeto(entrada);
+                    receberObjeto(identificadorCliente,
+                                  CodecMensagem.lerObjeto(quadro, filtroDesserializacao.novoFluxo()));
+                    mensagens++;
+                } else {
+                    throw new StreamCorruptedException("Tipo de registro desconhecido: 0x" + Integer.toHexString(tipo));
+                }
+            }
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+            if (compressor != null) {
+                compressor.close();
+            }
         }
     }
     
+    /**
+     * Recebe registros no formato compacto decodificando-os no pipeline.
+     * 
+     * Esta thread só separa os registros do stream (tipo, tamanho e bytes
+     * brutos) e os submete; descompressão, separação de lotes e
+     * desserialização ocorrem nos trabalhadores do pipeline, em paralelo.
+     * Gravação no jornal, confirmações e respostas são feitas na ordem dos
+     * registros, como no processamento na própria thread. Registros de
+     * RegistroTipos, cujo tamanho só o codec do tipo conhece, são lidos aqui,
+     * depois da entrega de todos os anteriores.
+     * 
+     * @param entrada Stream posicionado no byte de tipo do primeiro registro
+     * @param saida Stream para as confirmações de lote e os resultados de consulta
+     * @param identificadorCliente Prefixo usado nos logs
+     * @return Número de mensagens recebidas
+     * @throws IOException se houver erro de comunicação ou registro inválido
+     */
+    private long processarFormatoCompactoPipeline(DataInputStream entrada, DataOutputStream saida,
+                                                  String identificadorCliente) throws IOException {
+        LongAdder mensagens = new LongAdder();
+        PipelineDecodificacao<RecursosDecodificacao>.Conexao conexao = pipeline.abrirConexao(PENDENTES_POR_CONEXAO);
+        try {
+            while (true) {
+                int tipo = entrada.read();
+                if (tipo < 0) {
+                    conexao.aguardar();
+                    return mensagens.sum();
+                }
+                
+                if (tipo == CodecMensagem.TIPO_MENSAGEM_TESTE) {
+                    VisaoMensagem mensagem = CodecMensagem.lerVisao(entrada, cacheTextos);
+                    conexao.submeter(recursos -> () -> {
+                        receberMensagem(identificadorCliente, mensagem);
+                        mensagens.increment();
+                    });
+                } else if (tipo == CodecMensagem.TIPO_MENSAGEM_COMPRIMIDA) {
+                    byte[] quadro = CompressorMensagens.lerQuadro(entrada);
+                    conexao.submeter(recursos -> {
+                        VisaoMensagem mensagem = recursos.compressor.lerCorpo(entradaDe(quadro), cacheTextos);
+                        return () -> {
+                            receberMensagem(identificadorCliente, mensagem);
+                            mensagens.increment();
+                        };
+                    });
+                } else if (tipo == CodecMensagem.TIPO_LOTE) {
+                    byte[] quadro = LoteMensagens.lerQuadro(entrada);
+                    conexao.submeter(recursos -> {
+                        List<VisaoMensagem> lote = LoteMensagens.lerVisoes(entradaDe(quadro), recursos.inflater,
+                                                                           cacheTextos);
+                        return () -> {
+                            receberLote(identificadorCliente, lote, saida);
+                            mensagens.add(lote.size());
+                        };
+                    });
+                } else if (tipo == CodecMensagem.TIPO_CONSULTA) {
+                    VisaoMensagem consulta = CodecMensagem.lerVisao(entrada, cacheTextos);
+                    conexao.submeter(recursos -> () -> responderConsulta(identificadorCliente, consulta, saida));
+                } else if (tipo == CodecMensagem.TIPO_OBJETO_SERIALIZADO) {
+                    byte[] quadro = CodecMensagem.lerQuadroObjeto(entrada);
+                    conexao.submeter(recursos -> {
+                        Object objeto = CodecMensagem.lerObjeto(quadro, filtroDesserializacao.novoFluxo());
+                        return () -> {
+                            receberObjeto(identificadorCliente, objeto);
+                            mensagens.increment();
+                        };
+                    });
+                } else if (tipo == CodecMensagem.TIPO_REGISTRADO) {
+                    conexao.aguardar();
+                    registroTipos.despachar(entrada, identificadorCliente);
+                    mensagens.increment();
+                } else {
+                    throw new StreamCorruptedException("Tipo de registro desconhecido: 0x" + Integer.toHexString(tipo));
+                }
+            }
+        } finally {
+            // Nenhuma entrega pode escrever na conexão depois que ela for fechada
+            conexao.encerrar();
+        }
+    }
+    
+    /**
+     * Persiste e exibe uma mensagem avulsa do formato compacto.
+     * 
+     * @param identificadorCliente Prefixo usado nos logs
+     * @param mensagem Mensagem recebida
+     * @throws IOException se houver erro ao gravar no jornal
+     */
+    private void receberMensagem(String identificadorCliente, VisaoMensagem mensagem) throws IOException {
+        if (jornal != null) {
+            jornal.gravar(mensagem);
+        }
+        if (detalharMensagens) {
+            System.out.println(identificadorCliente + " Mensagem recebida no formato compacto (" +
+                               mensagem.tamanhoCodificado() + " bytes)");
+            mensagem.exibir();
+            LOGGER.info("Mensagem compacta recebida de cliente: " + mensagem);
+        }
+    }
+    
+    /**
+     * Processa, persiste e confirma um lote.
+     * 
+     * @param identificadorCliente Prefixo usado nos logs
+     * @param lote Mensagens do lote, na ordem de envio
+     * @param saida Stream da confirmação
+     * @throws IOException se houver erro ao gravar no jornal ou ao confirmar
+     */
+    private void receberLote(String identificadorCliente, List<VisaoMensagem> lote, DataOutputStream saida)
+            throws IOException {
+        processarLote(identificadorCliente, lote);
+        // Um único group commit cobre o lote inteiro, antes da confirmação
+        if (jornal != null) {
+            jornal.gravarTodas(lote);
+        }
+        LoteMensagens.escreverConfirmacao(saida, lote.size());
+        saida.flush();
+    }
+    
+    /**
+     * Responde a uma consulta com os endereços das mensagens persistidas com o mesmo texto.
+     * 
+     * @param identificadorCliente Prefixo usado nos logs
+     * @param consulta Texto procurado
+     * @param saida Stream do resultado
+     * @throws IOException se houver erro na busca ou ao responder
+     */
+    private void responderConsulta(String identificadorCliente, VisaoMensagem consulta, DataOutputStream saida)
+            throws IOException {
+        List<Long> enderecos = indice != null ? indice.buscar(consulta) : List.of();
+        if (detalharMensagens) {
+            System.out.println(identificadorCliente + " Consulta por \"" + consulta.getTexto() + "\": " +
+                               enderecos.size() + " ocorrência(s)");
+        }
+        IndiceMensagens.escreverResultado(saida, enderecos);
+        saida.flush();
+    }
+    
+    /**
+     * Entrega um objeto desserializado ao tratador do seu tipo no RegistroTipos.
+     * 
+     * @param identificadorCliente Prefixo usado nos logs
+     * @param objeto Objeto recebido
+     * @throws IOException se o tratador falhar
+     */
+    private void receberObjeto(String identificadorCliente, Object objeto) throws IOException {
+        if (!registroTipos.tratarObjeto(objeto, identificadorCliente)) {
+            System.out.println(identificadorCliente + " Objeto de tipo inesperado: " + 
+                             objeto.getClass().getSimpleName());
+            LOGGER.warning("Objeto de tipo inesperado recebido: " + objeto.getClass());
+        }
+    }
+    
+    /**
+     * Processa todas as mensagens de um lote em uma única passagem.
+     * 
+     * @param identificadorCliente Prefixo usado nos logs
+     * @param lote Mensagens do lote, na ordem de envio
+     */
+    private void processarLote(String identificadorCliente, List<VisaoMensagem> lote) {
+        if (!detalharMensagens) {
+            return;
+        }
+        System.out.println(identificadorCliente + " Lote recebido com " + lote.size() + " mensagem(ns)");
+        for (VisaoMensagem mensagem : lote) {
+            mensagem.exibir();
+        }
+        LOGGER.info("Lote de " + lote.size() + " mensagens recebido de cliente");
+    }
+    
+    /**
+     * Tratador de MensagemTeste no RegistroTipos: persiste e exibe a mensagem.
+     * 
+     * @param mensagem Mensagem recebida
+     * @param identificadorCliente Prefixo usado nos logs
+     * @throws IOException se houver erro ao gravar no jornal
+     */
+    private void tratarMensagemTeste(MensagemTeste mensagem, String identificadorCliente) throws IOException {
+        if (jornal != null) {
+            jornal.gravar(ByteBuffer.wrap(mensagem.getTexto().getBytes(StandardCharsets.UTF_8)));
+        }
+        registrarMensagem(identificadorCliente, mensagem);
+    }
+    
+    /**
+     * Exibe uma mensagem recebida, se o detalhamento estiver ativo.
+     * 
+     * @param identificadorCliente Prefixo usado nos logs
+     * @param mensagem Mensagem recebida
+     */
+    private void registrarMensagem(String identificadorCliente, MensagemTeste mensagem) {
+        if (!detalharMensagens) {
+            return;
+        }
+        System.out.println(identificadorCliente + " Objeto recebido com sucesso!");
+        System.out.println(identificadorCliente + " Tipo: " + mensagem.getClass().getSimpleName());
+        System.out.println(identificadorCliente + " Conteúdo:");
+        
+        // Exibir conteúdo da mensagem
+        mensagem.exibir();
+        
+        LOGGER.info("Objeto recebido de cliente: " + mensagem);
+    }
+    
+    /**
+     * Exibe o total de mensagens e a taxa de uma conexão encerrada.
+     * 
+     * @param identificadorCliente Prefixo usado nos logs
+     * @param mensagens Mensagens recebidas na conexão
+     * @param nanos Duração da conexão
+     */
+    private void exibirResumoConexao(String identificadorCliente, long mensagens, long nanos) {
+        double segundos = Math.max(nanos, 1) / 1e9;
+        System.out.printf("%s ✓ Processamento concluído: %d mensagem(ns) em %.1f ms (%.0f msg/s)%n%n",
+                          identificadorCliente, mensagens, segundos * 1000, mensagens / segundos);
+    }
+    
     /**
      * Para o servidor de forma gracioso.
+     * 
+     * Executa uma única vez, mesmo chamado pelo shutdown hook e pelo fim do
+     * loop principal ao mesmo tempo. As conexões abertas são fechadas para
+     * liberar as threads bloqueadas em leitura; pipeline, índice e jornal só
+     * são fechados depois que todas as threads de atendimento terminarem.
      */
     public void pararServidor() {
+        if (!encerramentoIniciado.compareAndSet(false, true)) {
+            return;
+        }
         System.out.println("\nEncerrando servidor...");
         executando = false;
+        boolean encerrado = false;
         
         if (serverSocket != null && !serverSocket.isClosed()) {
             try {
                 serverSocket.close();
-                System.out.println("✓ Servidor encerrado com sucesso!");
-                System.out.println("✓ Total de clientes atendidos: " + contadorClientes);
-                LOGGER.info("Servidor encerrado. Clientes atendidos: " + contadorClientes);
+                encerrado = true;
             } catch (IOException e) {
                 System.err.println("Erro ao fechar servidor: " + e.getMessage());
                 LOGGER.log(Level.WARNING, "Erro ao fechar ServerSocket", e);
             }
         }
+        
+        if (canalUnix != null && canalUnix.isOpen()) {
+            try {
+                canalUnix.close();
+                Files.deleteIfExists(caminhoUnix);
+                encerrado = true;
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar servidor: " + e.getMessage());
+                LOGGER.log(Level.WARNING, "Erro ao fechar socket Unix", e);
+            }
+        }
+        
+        // Sem novas conexões no pool; as abertas são fechadas para acordar as leituras
+        poolClientes.shutdown();
+        for (Closeable conexao : conexoesAtivas) {
+            fecharConexao(conexao);
+        }
+        boolean atendimentosEncerrados = false;
+        try {
+            atendimentosEncerrados = poolClientes.awaitTermination(TIMEOUT_ENCERRAMENTO_SEGUNDOS, TimeUnit.SECONDS);
+            if (!atendimentosEncerrados) {
+                poolClientes.shutdownNow();
+                atendimentosEncerrados = poolClientes.awaitTermination(TIMEOUT_ENCERRAMENTO_SEGUNDOS,
+                                                                       TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            poolClientes.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        
+        // Uma thread de atendimento ainda viva poderia gravar no jornal ou no índice já fechados
+        if (!atendimentosEncerrados) {
+            System.err.println("⚠ Conexões ainda em atendimento: decodificação, índice e jornal não foram fechados");
+            LOGGER.warning("Threads de atendimento não terminaram em " + 2 * TIMEOUT_ENCERRAMENTO_SEGUNDOS +
+                           " s; decodificação, índice e jornal mantidos abertos");
+        } else {
+            if (pipeline != null) {
+                pipeline.close();
+            }
+            
+            // O índice deixa de acompanhar o jornal antes de o jornal ser fechado
+            if (indice != null) {
+                try {
+                    indice.close();
+                } catch (IOException e) {
+                    System.err.println("Erro ao fechar índice: " + e.getMessage());
+                    LOGGER.log(Level.WARNING, "Erro ao fechar o índice", e);
+                }
+            }
+            if (jornal != null) {
+                try {
+                    jornal.close();
+                } catch (IOException e) {
+                    System.err.println("Erro ao fechar jornal: " + e.getMessage());
+                    LOGGER.log(Level.WARNING, "Erro ao fechar o jornal", e);
+                }
+            }
+        }
+        
+        if (encerrado) {
+            System.out.println("✓ Servidor encerrado com sucesso!");
+            System.out.println("✓ Total de clientes atendidos: " + contadorClientes);
+            System.out.println("✓ Total de mensagens recebidas: " + totalMensagens.sum());
+            if (jornal != null) {
+                System.out.println("✓ Jornal: " + jornal.gerarRelatorio());
+            }
+            if (indice != null) {
+                System.out.println("✓ Índice: " + indice.gerarRelatorio());
+            }
+            System.out.println("✓ Tipos: " + registroTipos.gerarRelatorio());
+            if (pipeline != null) {
+                System.out.println("✓ Decodificação: " + pipeline.gerarRelatorio());
+            }
+            if (cacheTextos != null) {
+                System.out.println("✓ Cache de textos: " + cacheTextos.gerarRelatorio());
+            }
+            System.out.println("✓ Desserialização: " + filtroDesserializacao.gerarRelatorio());
+            LOGGER.info("Servidor encerrado. Clientes atendidos: " + contadorClientes +
+                        ", mensagens: " + totalMensagens.sum());
+        }
     }
     
     // ==================== MÉTODOS AUXILIARES ====================
     
+    /**
+     * Abre o jornal, recuperando as mensagens gravadas em execuções anteriores.
+     * 
+     * @param diretorio Diretório dos segmentos
+     * @param durabilidade Nível de durabilidade das novas gravações
+     * @return Jornal posicionado após o último registro válido
+     * @throws IOException se o jornal não puder ser aberto
+     */
+    private static JornalMensagens abrirJornal(Path diretorio, JornalMensagens.Durabilidade durabilidade)
+            throws IOException {
+        JornalMensagens jornal = JornalMensagens.abrir(diretorio, JornalMensagens.TAMANHO_SEGMENTO_PADRAO,
+                                                       durabilidade, null);
+        double segundos = Math.max(jornal.getNanosRecuperacao(), 1) / 1e9;
+        System.out.printf("✓ Jornal %s (%s): %d mensagem(ns) recuperada(s) em %.1f ms " +
+                          "(%.0f msg/s, %.1f MB/s)%n", diretorio, durabilidade, jornal.getMensagensRecuperadas(),
+                          segundos * 1000, jornal.getMensagensRecuperadas() / segundos,
+                          jornal.getBytesRecuperados() / (1024.0 * 1024.0) / segundos);
+        return jornal;
+    }
+    
+    /**
+     * Abre o índice do jornal, indexando as mensagens que ainda não estão nele.
+     * 
+     * @param arquivo Arquivo do índice
+     * @param jornal Jornal já aberto
+     * @return Índice sincronizado com o jornal
+     * @throws IOException se o índice não puder ser aberto
+     */
+    private static IndiceMensagens abrirIndice(Path arquivo, JornalMensagens jornal) throws IOException {
+        IndiceMensagens indice = IndiceMensagens.abrir(arquivo, jornal, IndiceMensagens.CAPACIDADE_INICIAL_PADRAO);
+        System.out.printf("✓ Índice %s: %d entrada(s), %d mensagem(ns) indexada(s) na abertura em %.1f ms%n",
+                          arquivo.getFileName(), indice.getEntradas(), indice.getRegistrosReconstruidos(),
+                          indice.getNanosReconstrucao() / 1e6);
+        return indice;
+    }
+    
+    /**
+     * Indica se o primeiro byte de uma conexão é o tipo de um registro do formato compacto.
+     * 
+     * @param primeiroByte Primeiro byte recebido
+     * @return true para registros que um cliente pode enviar
+     */
+    private static boolean iniciaFormatoCompacto(int primeiroByte) {
+        return primeiroByte == CodecMensagem.TIPO_MENSAGEM_TESTE || primeiroByte == CodecMensagem.TIPO_LOTE
+                || primeiroByte == CodecMensagem.TIPO_CONSULTA || primeiroByte == CodecMensagem.TIPO_REGISTRADO
+                || primeiroByte == CodecMensagem.TIPO_MENSAGEM_COMPRIMIDA
+                || primeiroByte == CodecMensagem.TIPO_OBJETO_SERIALIZADO;
+    }
+    
+    /**
+     * Entrada sobre os bytes de um registro separado pela thread da conexão.
+     * 
+     * @param quadro Bytes do registro, sem o byte de tipo
+     * @return Stream posicionado no início do registro
+     */
+    private static DataInputStream entradaDe(byte[] quadro) {
+        return new DataInputStream(new ByteArrayInputStream(quadro));
+    }
+    
+    /**
+     * Fecha a conexão de um cliente, se houver.
+     * 
+     * @param conexao Socket ou canal do cliente (pode ser null)
+     */
+    private static void fecharConexao(Closeable conexao) {
+        if (conexao != null) {
+            try {
+                conexao.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Erro ao fechar socket do cliente", e);
+            }
+        }
+    }
+    
     /**
      * Configura hook para encerramento gracioso do servidor.
      */
@@ -271,11 +1051,29 @@ public class Servidor5 {
      * Exibe ajuda sobre uso do programa.
      */
     private static void exibirAjuda() {
-        System.out.println("\nUso: java Servidor5 [porta]");
-        System.out.println("  porta: Porta do servidor (padrão: 4321)");
+        System.out.println("\nUso: java Servidor5 [porta|unix:caminho] [detalhar] [jornal] [durabilidade] " +
+                           "[dicionarios] [decodificadores] [cache]");
+        System.out.println("  porta:    Porta do servidor (padrão: 4321) ou caminho de socket Unix");
+        System.out.println("  detalhar: true para exibir cada mensagem, false só o resumo (padrão: true)");
+        System.out.println("  jornal:   Diretório onde as mensagens são persistidas e indexadas");
+        System.out.println("            (- ou omitido: sem persistência)");
+        System.out.println("  durabilidade: nenhuma, grupo ou imediata (padrão: grupo)");
+        System.out.println("  dicionarios: Diretório com os dicionários de compressão aceitos, *.dic");
+        System.out.println("            (- ou omitido: nenhum)");
+        System.out.println("  decodificadores: Threads que decodificam o formato compacto, " +
+                           "normalmente o número de núcleos");
+        System.out.println("            (padrão: 0, decodificação na thread da conexão)");
+        System.out.println("  cache:    Textos distintos guardados para reaproveitar a String decodificada");
+        System.out.println("            (padrão: 0, sem cache)");
         System.out.println("\nExemplos:");
         System.out.println("  java Servidor5");
         System.out.println("  java Servidor5 8080");
+        System.out.println("  java Servidor5 unix:/tmp/servidor5.sock");
+        System.out.println("  java Servidor5 4321 false");
+        System.out.println("  java Servidor5 4321 false /var/lib/servidor5/jornal grupo");
+        System.out.println("  java Servidor5 4321 false - grupo /etc/servidor5/dicionarios");
+        System.out.println("  java Servidor5 4321 false /var/lib/servidor5/jornal grupo - 8");
+        System.out.println("  java Servidor5 4321 false - grupo - 0 65536");
     }
     
     // ==================== MÉTODOS DE INFORMAÇÃO ====================
@@ -297,4 +1095,104 @@ public class Servidor5 {
     public boolean isExecutando() {
         return executando;
     }
+    
+    /**
+     * Retorna o total de mensagens recebidas em todas as conexões encerradas.
+     * 
+     * @return Número de mensagens
+     */
+    public long getTotalMensagens() {
+        return totalMensagens.sum();
+    }
+    
+    /**
+     * Retorna o cadastro de tipos de mensagem, para registrar novos tipos antes de iniciar o servidor.
+     * Tipos novos são aceitos no formato compacto; a serialização Java continua
+     * limitada a MensagemTeste pelo filtro de desserialização.
+     * 
+     * @return Registro de tipos do servidor
+     */
+    public RegistroTipos getRegistroTipos() {
+        return registroTipos;
+    }
+    
+    // ==================== CLASSES AUXILIARES ====================
+    
+    /**
+     * Descompressores de um trabalhador do pipeline, reutilizados entre registros.
+     */
+    private static final class RecursosDecodificacao implements AutoCloseable {
+        final Inflater inflater = new Inflater();
+        final CompressorMensagens compressor;
+        
+        RecursosDecodificacao(Map<Integer, DicionarioCompressao> dicionarios) {
+            this.compressor = new CompressorMensagens(null, dicionarios);
+        }
+        
+        @Override
+        public void close() {
+            inflater.end();
+            compressor.close();
+        }
+    }
+    
+    /**
+     * Leitura de um SocketChannel bloqueante sem a trava compartilhada com a
+     * escrita: SocketChannel aceita uma leitura e uma escrita simultâneas.
+     */
+    private static final class EntradaCanal extends InputStream {
+        private final SocketChannel canal;
+        
+        EntradaCanal(SocketChannel canal) {
+            this.canal = canal;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            byte[] umByte = new byte[1];
+            return read(umByte, 0, 1) < 0 ? -1 : umByte[0] & 0xFF;
+        }
+        
+        @Override
+        public int read(byte[] destino, int inicio, int tamanho) throws IOException {
+            if (tamanho == 0) {
+                return 0;
+            }
+            return canal.read(ByteBuffer.wrap(destino, inicio, tamanho));
+        }
+        
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+    
+    /**
+     * Escrita em um SocketChannel bloqueante, independente da leitura (ver EntradaCanal).
+     */
+    private static final class SaidaCanal extends OutputStream {
+        private final SocketChannel canal;
+        
+        SaidaCanal(SocketChannel canal) {
+            this.canal = canal;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+        
+        @Override
+        public void write(byte[] origem, int inicio, int tamanho) throws IOException {
+            ByteBuffer dados = ByteBuffer.wrap(origem, inicio, tamanho);
+            while (dados.hasRemaining()) {
+                canal.write(dados);
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
 }
@@ -0,0 +1,213 @@
+/**
+ * TreinadorDicionario - Treina dicionários de compressão e mede a razão obtida
+ *
+ * Lê mensagens de amostra (uma por linha, em UTF-8) ou, sem arquivo, gera
+ * tráfego sintético com o vocabulário típico das mensagens de teste. As
+ * amostras são embaralhadas e divididas em treino (80%) e avaliação (20%):
+ * para cada tamanho de dicionário, um dicionário é treinado com o primeiro
+ * conjunto e usado para comprimir cada mensagem do segundo individualmente,
+ * como o CompressorMensagens faz na conexão.
+ *
+ * Para cada tamanho são reportados:
+ * - bytes médios por mensagem no formato comprimido (com cabeçalho)
+ * - razão em relação ao formato compacto sem compressão
+ * - tempo médio de compressão e de descompressão por mensagem
+ *
+ * Com [saida], grava um dicionário do tamanho indicado, treinado com todas as
+ * amostras, para ser usado pelo Cliente5 e carregado pelo Servidor5.
+ *
+ * Argumentos: [amostras|-] [id] [tamanho] [saida]
+ * Exemplo: java TreinadorDicionario trafego.txt 1 4096 dicionarios/v1.dic
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Ferramenta de treinamento e avaliação de dicionários.
+ */
+public class TreinadorDicionario {
+
+    // ==================== CONSTANTES ====================
+
+    /** Tamanhos de dicionário avaliados (0 = Deflate sem dicionário) */
+    private static final int[] TAMANHOS = {0, 256, 512, 1024, 2048, 4096, 8192, 16384, 32768};
+
+    /** Mensagens sintéticas geradas quando não há arquivo de amostras */
+    private static final int AMOSTRAS_SINTETICAS = 20_000;
+
+    /** Passagens sobre as mensagens de avaliação; só a última é cronometrada (as demais aquecem o JIT) */
+    private static final int PASSAGENS = 3;
+
+    /** Semente do embaralhamento e do tráfego sintético */
+    private static final long SEMENTE = 42;
+
+    /** Vocabulário do tráfego sintético */
+    private static final String[] CLIENTES = {"maria.souza", "joao.silva", "ana.oliveira", "carlos.pereira",
+            "fernanda.lima", "pedro.costa", "juliana.rocha", "rafael.almeida", "camila.ribeiro", "lucas.martins"};
+    private static final String[] CIDADES = {"São Paulo", "Rio de Janeiro", "Belo Horizonte", "Porto Alegre",
+            "Curitiba", "Salvador", "Recife", "Fortaleza", "Manaus", "Brasília"};
+    private static final String[] PRODUTOS = {"teclado mecânico", "monitor 27 polegadas", "cadeira ergonômica",
+            "notebook", "mouse sem fio", "webcam full hd", "headset", "impressora laser", "roteador wi-fi", "ssd 1 tb"};
+    private static final String[] PAGAMENTOS = {"cartão de crédito", "boleto bancário", "pix", "cartão de débito"};
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal da ferramenta.
+     *
+     * @param args [amostras|-] [id] [tamanho] [saida]
+     * @throws IOException se as amostras não puderem ser lidas ou o dicionário gravado
+     */
+    public static void main(String[] args) throws IOException {
+        List<byte[]> amostras = args.length > 0 && !"-".equals(args[0])
+                ? lerAmostras(Paths.get(args[0])) : gerarAmostras(AMOSTRAS_SINTETICAS);
+        int id = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int tamanhoSalvo = args.length > 2 ? Integer.parseInt(args[2]) : DicionarioCompressao.TAMANHO_PADRAO;
+
+        Collections.shuffle(amostras, new Random(SEMENTE));
+        int corte = amostras.size() * 4 / 5;
+        List<byte[]> treino = amostras.subList(0, corte);
+        List<MensagemTeste> avaliacao = new ArrayList<>();
+        long bytesTexto = 0;
+        for (byte[] amostra : amostras.subList(corte, amostras.size())) {
+            avaliacao.add(new MensagemTeste(new String(amostra, StandardCharsets.UTF_8)));
+            bytesTexto += amostra.length;
+        }
+        long bytesCompacto = 0;
+        for (MensagemTeste mensagem : avaliacao) {
+            bytesCompacto += CodecMensagem.tamanhoCodificado(mensagem);
+        }
+
+        System.out.println("=== Treinamento de Dicionário de Compressão ===");
+        System.out.printf("Amostras: %d (%d treino, %d avaliação), texto médio %.1f bytes%n", amostras.size(),
+                          treino.size(), avaliacao.size(), (double) bytesTexto / avaliacao.size());
+        System.out.printf("%nCompacto sem compressão: %.1f bytes/msg%n", (double) bytesCompacto / avaliacao.size());
+        System.out.println(String.format("%12s %12s %10s %14s %16s", "dicionário", "bytes/msg", "razão",
+                                         "comprimir", "descomprimir"));
+        for (int tamanho : TAMANHOS) {
+            DicionarioCompressao dicionario = tamanho == 0 ? null : DicionarioCompressao.treinar(id, treino, tamanho);
+            avaliar(dicionario, avaliacao, bytesCompacto);
+        }
+
+        if (args.length > 3) {
+            Path saida = Paths.get(args[3]);
+            if (saida.getParent() != null) {
+                Files.createDirectories(saida.getParent());
+            }
+            DicionarioCompressao dicionario = DicionarioCompressao.treinar(id, amostras, tamanhoSalvo);
+            dicionario.salvar(saida);
+            System.out.println("\n✓ Dicionário " + dicionario.getId() + " (" + dicionario.getTamanho() +
+                               " bytes) gravado em " + saida);
+        }
+    }
+
+    // ==================== AVALIAÇÃO ====================
+
+    /**
+     * Comprime e descomprime cada mensagem de avaliação e exibe uma linha da tabela.
+     */
+    private static void avaliar(DicionarioCompressao dicionario, List<MensagemTeste> avaliacao, long bytesCompacto)
+            throws IOException {
+        Map<Integer, DicionarioCompressao> catalogo = dicionario == null
+                ? Map.of() : Map.of(dicionario.getId(), dicionario);
+        long nanosComprimir = 0;
+        long nanosDescomprimir = 0;
+        int bytesComprimidos = 0;
+        try (CompressorMensagens compressor = new CompressorMensagens(dicionario, catalogo)) {
+            for (int passagem = 0; passagem < PASSAGENS; passagem++) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(avaliacao.size() * 64);
+                DataOutputStream saida = new DataOutputStream(bytes);
+                long inicio = System.nanoTime();
+                for (MensagemTeste mensagem : avaliacao) {
+                    compressor.escrever(saida, mensagem);
+                }
+                nanosComprimir = System.nanoTime() - inicio;
+                bytesComprimidos = bytes.size();
+
+                DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+                inicio = System.nanoTime();
+                for (MensagemTeste mensagem : avaliacao) {
+                    int tipo = entrada.readUnsignedByte();
+                    String texto = tipo == CodecMensagem.TIPO_MENSAGEM_COMPRIMIDA
+                            ? compressor.lerCorpo(entrada).getTexto() : CodecMensagem.lerCorpo(entrada).getTexto();
+                    if (!texto.equals(mensagem.getTexto())) {
+                        throw new IllegalStateException("Mensagem alterada na descompressão: " + texto);
+                    }
+                }
+                nanosDescomprimir = System.nanoTime() - inicio;
+            }
+
+        }
+        System.out.println(String.format("%12s %12.1f %9.0f%% %11.2f µs %13.2f µs",
+                dicionario == null ? "nenhum" : dicionario.getTamanho() + " B",
+                (double) bytesComprimidos / avaliacao.size(), 100.0 * bytesComprimidos / bytesCompacto,
+                nanosComprimir / 1e3 / avaliacao.size(), nanosDescomprimir / 1e3 / avaliacao.size()));
+    }
+
+    // ==================== AMOSTRAS ====================
+
+    /**
+     * Lê uma mensagem por linha, ignorando linhas em branco.
+     */
+    private static List<byte[]> lerAmostras(Path arquivo) throws IOException {
+        List<byte[]> amostras = new ArrayList<>();
+        for (String linha : Files.readAllLines(arquivo, StandardCharsets.UTF_8)) {
+            if (!linha.isBlank()) {
+                amostras.add(linha.trim().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        if (amostras.size() < 10) {
+            throw new IllegalArgumentException("São necessárias pelo menos 10 amostras em " + arquivo);
+        }
+        return amostras;
+    }
+
+    /**
+     * Gera mensagens curtas com vocabulário compartilhado, como as de um sistema de pedidos.
+     */
+    private static List<byte[]> gerarAmostras(int quantidade) {
+        Random aleatorio = new Random(SEMENTE);
+        List<byte[]> amostras = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            String cliente = CLIENTES[aleatorio.nextInt(CLIENTES.length)];
+            String cidade = CIDADES[aleatorio.nextInt(CIDADES.length)];
+            String produto = PRODUTOS[aleatorio.nextInt(PRODUTOS.length)];
+            int pedido = 100_000 + aleatorio.nextInt(900_000);
+            String texto;
+            switch (aleatorio.nextInt(4)) {
+                case 0:
+                    texto = String.format("Pedido %d do cliente %s confirmado: %d itens, total R$ %d,%02d, " +
+                                          "entrega em %s", pedido, cliente, 1 + aleatorio.nextInt(9),
+                                          aleatorio.nextInt(5000), aleatorio.nextInt(100), cidade);
+                    break;
+                case 1:
+                    texto = String.format("Pagamento do pedido %d aprovado via %s para o cliente %s", pedido,
+                                          PAGAMENTOS[aleatorio.nextInt(PAGAMENTOS.length)], cliente);
+                    break;
+                case 2:
+                    texto = String.format("Estoque baixo: produto %s com %d unidades no depósito de %s", produto,
+                                          aleatorio.nextInt(20), cidade);
+                    break;
+                default:
+                    texto = String.format("Pedido %d enviado para %s: %s, previsão de entrega em %d dias úteis",
+                                          pedido, cidade, produto, 1 + aleatorio.nextInt(10));
+                    break;
+            }
+            amostras.add(texto.getBytes(StandardCharsets.UTF_8));
+        }
+        return amostras;
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * VisaoMensagem - Visão sem cópia de uma mensagem recebida no formato compacto
+ *
+ * Envolve a fatia de um ByteBuffer que contém o texto UTF-8 de uma mensagem,
+ * dentro do próprio quadro recebido (mensagem avulsa ou corpo de um lote). O
+ * texto só é decodificado no primeiro acesso e fica guardado; comparação,
+ * hash e encaminhamento trabalham direto sobre os bytes. Um servidor que
+ * apenas conta, filtra ou repassa mensagens não decodifica nenhuma.
+ *
+ * A visão compartilha o vetor do quadro: ele não deve ser reutilizado
+ * enquanto a visão estiver em uso.
+ *
+ * Com um CacheTextos, a decodificação consulta o cache pelos bytes e visões
+ * com o mesmo texto devolvem a mesma String.
+ *
+ * @author Sistema de Comunicação por Objetos
+ * @version 1.0
+ * @since 2025-04-29
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mensagem decodificada sob demanda a partir dos bytes recebidos.
+ */
+public final class VisaoMensagem {
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Texto em UTF-8 (posição 0 até o limite), fatia do quadro recebido */
+    private final ByteBuffer bytes;
+
+    /** Texto decodificado, preenchido no primeiro acesso */
+    private String texto;
+
+    /** Hash dos bytes, calculado no primeiro acesso (0 = ainda não calculado) */
+    private int hash;
+
+    /** Cache consultado na decodificação (null para decodificar sempre) */
+    private final CacheTextos cache;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria uma visão sobre os bytes restantes do buffer, sem copiá-los.
+     * A posição e o limite do buffer original não são alterados.
+     *
+     * @param textoUtf8 Buffer posicionado no início do texto, com limite no fim
+     */
+    public VisaoMensagem(ByteBuffer textoUtf8) {
+        this(textoUtf8, null);
+    }
+
+    /**
+     * Cria uma visão cujo texto, quando decodificado, vem do cache.
+     *
+     * @param textoUtf8 Buffer posicionado no início do texto, com limite no fim
+     * @param cache Cache de textos (null para decodificar sempre)
+     */
+    public VisaoMensagem(ByteBuffer textoUtf8, CacheTextos cache) {
+        this.bytes = textoUtf8.slice();
+        this.cache = cache;
+    }
+
+    // ==================== ACESSO AO CONTEÚDO ====================
+
+    /**
+     * Retorna o texto, decodificando-o no primeiro acesso.
+     *
+     * @return Texto da mensagem
+     */
+    public String getTexto() {
+        String resultado = texto;
+        if (resultado == null) {
+            if (cache != null) {
+                resultado = cache.canonizar(bytes);
+            } else {
+                resultado = bytes.hasArray()
+                        ? new String(bytes.array(), bytes.arrayOffset(), bytes.limit(), StandardCharsets.UTF_8)
+                        : StandardCharsets.UTF_8.decode(bytes.duplicate()).toString();
+            }
+            texto = resultado;
+        }
+        return resultado;
+    }
+
+    /**
+     * Indica se o texto já foi decodificado.
+     *
+     * @return true após o primeiro getTexto()
+     */
+    public boolean isDecodificada() {
+        return texto != null;
+    }
+
+    /**
+     * Retorna os bytes UTF-8 do texto, somente leitura e sem cópia.
+     *
+     * @return Buffer com posição 0 e limite no fim do texto
+     */
+    public ByteBuffer getBytes() {
+        return bytes.asReadOnlyBuffer();
+    }
+
+    /**
+     * Retorna o tamanho do texto em bytes.
+     *
+     * @return Bytes UTF-8 do texto
+     */
+    public int tamanhoBytes() {
+        return bytes.limit();
+    }
+
+    /**
+     * Retorna o tamanho da mensagem no formato compacto.
+     *
+     * @return Bytes de tipo, tamanho e texto
+     */
+    public int tamanhoCodificado() {
+        return 1 + CodecMensagem.tamanhoVarint(bytes.limit()) + bytes.limit();
+    }
+
+    /**
+     * Verifica se o texto começa com o prefixo, comparando bytes.
+     *
+     * @param prefixoUtf8 Prefixo em UTF-8
+     * @return true se os primeiros bytes do texto forem o prefixo
+     */
+    public boolean comecaCom(byte[] prefixoUtf8) {
+        return prefixoUtf8.length <= bytes.limit()
+                && bytes.duplicate().limit(prefixoUtf8.length).equals(ByteBuffer.wrap(prefixoUtf8));
+    }
+
+    /**
+     * Converte a visão em uma MensagemTeste independente do quadro.
+     *
+     * @return Mensagem com o texto decodificado
+     * @throws IllegalArgumentException se o texto for vazio (regra de MensagemTeste)
+     */
+    public MensagemTeste paraMensagem() {
+        return new MensagemTeste(getTexto());
+    }
+
+    // ==================== ENCAMINHAMENTO ====================
+
+    /**
+     * Reescreve a mensagem no formato compacto com os bytes originais, sem
+     * decodificar nem recodificar o texto.
+     *
+     * @param saida Destino
+     * @return Número de bytes escritos
+     * @throws IOException se houver erro de escrita
+     */
+    public int encaminhar(DataOutput saida) throws IOException {
+        saida.writeByte(CodecMensagem.TIPO_MENSAGEM_TESTE);
+        int bytesTamanho = CodecMensagem.escreverVarint(saida, bytes.limit());
+        if (bytes.hasArray()) {
+            saida.write(bytes.array(), bytes.arrayOffset(), bytes.limit());
+        } else {
+            byte[] copia = new byte[bytes.limit()];
+            bytes.duplicate().get(copia);
+            saida.write(copia);
+        }
+        return 1 + bytesTamanho + bytes.limit();
+    }
+
+    /**
+     * Exibe o conteúdo da mensagem no console, como MensagemTeste.exibir().
+     */
+    public void exibir() {
+        System.out.println("\n[MENSAGEM RECEBIDA]: " + getTexto());
+    }
+
+    // ==================== MÉTODOS SOBRESCRITOS ====================
+
+    /**
+     * Representação em string da visão (decodifica o texto).
+     *
+     * @return String formatada com informações da mensagem
+     */
+    @Override
+    public String toString() {
+        return "VisaoMensagem{" +
+               "texto='" + getTexto() + '\'' +
+               ", bytes=" + bytes.limit() +
+               '}';
+    }
+
+    /**
+     * Compara duas visões pelos bytes do texto, sem decodificá-los.
+     *
+     * @param obj Objeto a ser comparado
+     * @return true se os textos tiverem os mesmos bytes
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        VisaoMensagem that = (VisaoMensagem) obj;
+        return bytes.equals(that.bytes);
+    }
+
+    /**
+     * Calcula o hash a partir dos bytes do texto.
+     *
+     * @return Valor hash baseado no conteúdo
+     */
+    @Override
+    public int hashCode() {
+        int resultado = hash;
+        if (resultado == 0) {
+            resultado = bytes.hashCode();
+            hash = resultado;
+        }
+        return resultado;
+    }
+}
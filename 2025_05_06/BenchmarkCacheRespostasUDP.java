@@ -0,0 +1,216 @@
+/**
+ * BenchmarkCacheRespostasUDP - Latência e escalabilidade do cache de respostas
+ *
+ * Compara o CacheRespostasUDP (partições associativas por conjuntos, sem
+ * trava) com a implementação óbvia: um LinkedHashMap em ordem de acesso, com
+ * descarte do mais antigo, protegido por synchronized.
+ *
+ * Cada thread executa uma mistura de operações sobre chaves (endereço, porta,
+ * identificador): a maior parte são repetições de requisições já respondidas
+ * (acertos), e uma fração são requisições novas, que reservam a entrada e a
+ * completam com uma resposta. As requisições novas renovam o conteúdo, de
+ * modo que o cache trabalha cheio e descartando entradas. Mede:
+ * - operações por segundo com 1, 2, 4... threads, até o número pedido
+ * - nanossegundos por operação com uma thread
+ * - número de entradas ao final (nunca deve passar da capacidade)
+ *
+ * Argumentos: [operacoes] [threads] [capacidade] [novas]
+ *   novas: fração de requisições novas (padrão: 0.1)
+ * Exemplo: java BenchmarkCacheRespostasUDP 2000000 8 4096 0.1
+ *
+ * @author Sistema de Comunicação UDP
+ * @version 1.0
+ * @since 2025-05-06
+ */
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Benchmark do cache de respostas contra um LinkedHashMap sincronizado.
+ */
+public class BenchmarkCacheRespostasUDP {
+
+    // ==================== CONSTANTES ====================
+
+    /** Partições do cache (as mesmas do UDPServerConcorrente) */
+    private static final int PARTICOES = 16;
+
+    /** TTL longo: o benchmark mede descarte por capacidade, não por tempo */
+    private static final long TTL_MS = 60_000;
+
+    /** Tamanho das respostas guardadas */
+    private static final int TAMANHO_RESPOSTA = 64;
+
+    /** Portas de origem simuladas (clientes diferentes) */
+    private static final int PORTAS = 1024;
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do benchmark.
+     *
+     * @param args [operacoes] [threads] [capacidade] [novas]
+     * @throws Exception se as threads forem interrompidas
+     */
+    public static void main(String[] args) throws Exception {
+        int operacoes = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int capacidade = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+        double novas = args.length > 3 ? Double.parseDouble(args[3]) : 0.1;
+        if (novas < 0 || novas > 1) {
+            throw new IllegalArgumentException("Fração de requisições novas deve estar entre 0 e 1");
+        }
+
+        System.out.println("=== Benchmark do Cache de Respostas UDP ===");
+        System.out.printf("Operações: %d | Capacidade: %d | Requisições novas: %.0f%% | CPUs: %d%n%n",
+                          operacoes, capacidade, novas * 100, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %18s %22s %10s%n", "threads", "cache (ops/s)", "sincronizado (ops/s)", "razão");
+
+        InetAddress endereco = InetAddress.getLoopbackAddress();
+        byte[] resposta = new byte[TAMANHO_RESPOSTA];
+        boolean limitado = true;
+        double nsPorOperacao = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            CacheRespostasUDP cache = new CacheRespostasUDP(capacidade, PARTICOES, TTL_MS, TAMANHO_RESPOSTA);
+            CacheSincronizado sincronizado = new CacheSincronizado(capacidade);
+
+            // Aquecimento (JIT) com as mesmas operações, depois a medição
+            executar(threads, operacoes / 4, capacidade, novas, endereco, resposta, cache, null);
+            executar(threads, operacoes / 4, capacidade, novas, endereco, resposta, null, sincronizado);
+            long nanosCache = executar(threads, operacoes, capacidade, novas, endereco, resposta, cache, null);
+            long nanosSinc = executar(threads, operacoes, capacidade, novas, endereco, resposta, null, sincronizado);
+
+            double opsCache = operacoes / (nanosCache / 1e9);
+            double opsSinc = operacoes / (nanosSinc / 1e9);
+            System.out.printf("%8d %18.0f %22.0f %9.2fx%n", threads, opsCache, opsSinc, opsCache / opsSinc);
+            if (threads == 1) {
+                nsPorOperacao = (double) nanosCache / operacoes;
+            }
+            limitado &= cache.getTamanho() <= cache.getCapacidade();
+            if (threads * 2 > maxThreads) {
+                System.out.println();
+                System.out.println("Cache: " + cache.gerarRelatorio());
+            }
+        }
+
+        System.out.printf("Latência com uma thread: %.0f ns/operação%n", nsPorOperacao);
+        System.out.println(limitado ? "✓ Entradas sempre dentro da capacidade"
+                                    : "✗ O cache passou da capacidade");
+    }
+
+    // ==================== EXECUÇÃO ====================
+
+    /**
+     * Divide as operações entre as threads e mede o tempo até todas terminarem.
+     * Exatamente um dos caches é usado.
+     *
+     * @return Tempo total em nanossegundos
+     */
+    private static long executar(int threads, int operacoes, int capacidade, double novas, InetAddress endereco,
+                                 byte[] resposta, CacheRespostasUDP cache, CacheSincronizado sincronizado)
+            throws InterruptedException {
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> lista = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int porThread = operacoes / threads;
+            long semente = t * 0x9E3779B97F4A7C15L;
+            long primeiroNovo = (long) (t + 1) << 40;
+            Thread thread = new Thread(() -> {
+                SplittableRandom aleatorio = new SplittableRandom(semente);
+                long proximoNovo = primeiroNovo;
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < porThread; i++) {
+                    // Repetições caem em um conjunto fixo de chaves quentes; as novas nunca se repetem
+                    long id = aleatorio.nextDouble() < novas ? proximoNovo++
+                                                             : aleatorio.nextInt(capacidade / 2);
+                    int porta = (int) (id % PORTAS) + 1;
+                    if (cache != null) {
+                        if (cache.reservar(endereco, porta, id) == null) {
+                            cache.completar(endereco, porta, id, resposta);
+                        }
+                    } else if (sincronizado.reservar(endereco, porta, id) == null) {
+                        sincronizado.completar(endereco, porta, id, resposta);
+                    }
+                }
+            }, "Carga-" + t);
+            lista.add(thread);
+            thread.start();
+        }
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Thread thread : lista) {
+            thread.join();
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    // ==================== CACHE DE REFERÊNCIA ====================
+
+    /**
+     * LRU com LinkedHashMap em ordem de acesso e uma trava global, com a
+     * mesma semântica de reservar/completar do CacheRespostasUDP.
+     */
+    private static class CacheSincronizado {
+
+        private final Map<Chave, byte[]> mapa;
+
+        CacheSincronizado(int capacidade) {
+            this.mapa = Collections.synchronizedMap(new LinkedHashMap<Chave, byte[]>(capacidade * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Chave, byte[]> maisAntiga) {
+                    return size() > capacidade;
+                }
+            });
+        }
+
+        byte[] reservar(InetAddress endereco, int porta, long id) {
+            return mapa.putIfAbsent(new Chave(endereco, porta, id), CacheRespostasUDP.EM_ANDAMENTO);
+        }
+
+        void completar(InetAddress endereco, int porta, long id, byte[] resposta) {
+            mapa.put(new Chave(endereco, porta, id), resposta);
+        }
+    }
+
+    /**
+     * Chave do cache de referência.
+     */
+    private static final class Chave {
+
+        private final InetAddress endereco;
+        private final int porta;
+        private final long id;
+
+        Chave(InetAddress endereco, int porta, long id) {
+            this.endereco = endereco;
+            this.porta = porta;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object outro) {
+            if (!(outro instanceof Chave)) {
+                return false;
+            }
+            Chave chave = (Chave) outro;
+            return id == chave.id && porta == chave.porta && endereco.equals(chave.endereco);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(endereco, porta, id);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * BenchmarkConfiavelUDP - Vazão útil do CanalConfiavelUDP sob perda emulada
+ *
+ * Sobe, no mesmo processo, um canal confiável de eco e um canal cliente em
+ * loopback. Para cada taxa de perda, os dois canais descartam ao acaso essa
+ * fração dos datagramas que enviam (dados e confirmações, nos dois sentidos),
+ * e o cliente envia as mensagens divididas em vários fluxos, uma thread por
+ * fluxo.
+ *
+ * Cada mensagem leva no início o seu número dentro do fluxo; o cliente
+ * confere que os ecos de cada fluxo chegam completos, sem duplicatas e na
+ * ordem de envio. Para cada taxa, mede:
+ * - tempo até o último eco e vazão útil (mensagens e bytes de carga por segundo)
+ * - retransmissões do cliente e do servidor
+ * - violações de ordem (devem ser zero)
+ *
+ * Argumentos: [mensagens] [tamanho] [fluxos] [perdas]
+ *   perdas: frações separadas por vírgula (padrão: 0,0.01,0.05,0.1)
+ * Exemplo: java BenchmarkConfiavelUDP 20000 256 4 0,0.01,0.05,0.1
+ *
+ * @author Sistema de Comunicação UDP
+ * @version 1.0
+ * @since 2025-05-06
+ */
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Benchmark de entrega confiável com perda emulada.
+ */
+public class BenchmarkConfiavelUDP {
+
+    // ==================== CONSTANTES ====================
+
+    /** Tempo máximo de espera pelos ecos de uma rodada */
+    private static final long TIMEOUT_RODADA_MS = 120_000;
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do benchmark.
+     *
+     * @param args [mensagens] [tamanho] [fluxos] [perdas]
+     * @throws Exception se algum canal falhar
+     */
+    public static void main(String[] args) throws Exception {
+        int mensagens = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int tamanho = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int fluxos = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        String[] perdas = (args.length > 3 ? args[3] : "0,0.01,0.05,0.1").split(",");
+        if (tamanho < Integer.BYTES || tamanho > CanalConfiavelUDP.CARGA_MAXIMA) {
+            throw new IllegalArgumentException("Tamanho deve estar entre " + Integer.BYTES + " e " +
+                                               CanalConfiavelUDP.CARGA_MAXIMA);
+        }
+        if (fluxos < 1 || mensagens < fluxos) {
+            throw new IllegalArgumentException("É preciso ao menos um fluxo e uma mensagem por fluxo");
+        }
+
+        System.out.println("=== Benchmark do Canal Confiável UDP ===");
+        System.out.printf("Mensagens: %d | Carga: %d bytes | Fluxos: %d | Janela: %d%n%n",
+                          mensagens, tamanho, fluxos, CanalConfiavelUDP.JANELA);
+        System.out.printf("%8s %10s %12s %10s %14s %14s %10s%n", "perda", "tempo(ms)", "msgs/s", "KB/s",
+                          "retr.cliente", "retr.servidor", "violações");
+
+        boolean tudoOk = true;
+        for (String perda : perdas) {
+            tudoOk &= executarRodada(mensagens, tamanho, fluxos, Double.parseDouble(perda.trim()));
+        }
+        System.out.println();
+        System.out.println(tudoOk ? "✓ Todos os fluxos completos e em ordem"
+                                  : "✗ Houve mensagens perdidas, duplicadas ou fora de ordem");
+    }
+
+    // ==================== RODADAS ====================
+
+    /**
+     * Executa uma rodada com a perda indicada e imprime uma linha de resultado.
+     *
+     * @return true se todos os ecos chegaram completos e em ordem
+     */
+    private static boolean executarRodada(int mensagens, int tamanho, int fluxos, double perda)
+            throws IOException, InterruptedException {
+        int porFluxo = mensagens / fluxos;
+        int total = porFluxo * fluxos;
+        AtomicIntegerArray proximos = new AtomicIntegerArray(fluxos);
+        AtomicInteger violacoes = new AtomicInteger();
+        AtomicInteger recebidas = new AtomicInteger();
+
+        try (CanalConfiavelUDP servidor = new CanalConfiavelUDP(0, BenchmarkConfiavelUDP::ecoar);
+             CanalConfiavelUDP cliente = new CanalConfiavelUDP(0, (canal, origem, fluxo, dados) -> {
+                 int numero = ByteBuffer.wrap(dados).getInt();
+                 if (numero != proximos.getAndIncrement(fluxo)) {
+                     violacoes.incrementAndGet();
+                 }
+                 synchronized (recebidas) {
+                     recebidas.incrementAndGet();
+                     recebidas.notifyAll();
+                 }
+             })) {
+            servidor.setPerdaEmulada(perda);
+            cliente.setPerdaEmulada(perda);
+            SocketAddress destino = new InetSocketAddress(InetAddress.getLoopbackAddress(), servidor.getPorta());
+
+            long inicio = System.nanoTime();
+            List<Thread> threads = new ArrayList<>();
+            for (int f = 0; f < fluxos; f++) {
+                int fluxo = f;
+                Thread thread = new Thread(() -> enviarFluxo(cliente, destino, fluxo, porFluxo, tamanho),
+                                           "Fluxo-" + f);
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_RODADA_MS);
+            synchronized (recebidas) {
+                while (recebidas.get() < total && System.nanoTime() < limite) {
+                    recebidas.wait(100);
+                }
+            }
+            long nanos = System.nanoTime() - inicio;
+
+            int faltando = total - recebidas.get();
+            for (int f = 0; f < fluxos; f++) {
+                if (proximos.get(f) != porFluxo) {
+                    violacoes.incrementAndGet();
+                }
+            }
+            double segundos = nanos / 1e9;
+            System.out.printf("%7.1f%% %10d %12.0f %10.1f %14d %14d %10d%s%n", perda * 100,
+                              TimeUnit.NANOSECONDS.toMillis(nanos), recebidas.get() / segundos,
+                              (double) recebidas.get() * tamanho / 1024 / segundos,
+                              cliente.getRetransmissoes(), servidor.getRetransmissoes(), violacoes.get(),
+                              faltando > 0 ? "  (" + faltando + " sem eco)" : "");
+            return faltando == 0 && violacoes.get() == 0;
+        }
+    }
+
+    /**
+     * Envia as mensagens de um fluxo, numeradas a partir de zero.
+     */
+    private static void enviarFluxo(CanalConfiavelUDP canal, SocketAddress destino, int fluxo, int quantidade,
+                                    int tamanho) {
+        try {
+            for (int i = 0; i < quantidade; i++) {
+                byte[] dados = new byte[tamanho];
+                ByteBuffer.wrap(dados).putInt(i);
+                canal.enviar(destino, fluxo, dados);
+            }
+        } catch (IOException | InterruptedException e) {
+            System.err.println("✗ Erro no fluxo " + fluxo + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Servidor de eco: devolve cada mensagem no mesmo fluxo.
+     */
+    private static void ecoar(CanalConfiavelUDP canal, SocketAddress origem, int fluxo, byte[] dados) {
+        try {
+            canal.enviar(origem, fluxo, dados);
+        } catch (IOException | InterruptedException e) {
+            System.err.println("✗ Erro no eco do fluxo " + fluxo + ": " + e.getMessage());
+        }
+    }
+}
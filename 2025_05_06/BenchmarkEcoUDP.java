@@ -0,0 +1,216 @@
+/**
+ * BenchmarkEcoUDP - Vazão e alocação do MotorEcoUDP em loopback
+ *
+ * Sobe um MotorEcoUDP (ou um GrupoSocketsUDP de N sockets com SO_REUSEPORT)
+ * em uma porta livre e o satura com clientes locais.
+ * Cada cliente usa um DatagramChannel conectado e buffers diretos (para não
+ * ser ele o gargalo) e mantém uma janela de datagramas em trânsito: envia a
+ * janela inteira e, a cada eco recebido, envia o próximo. Um datagrama
+ * perdido reduz a janela daquele cliente em um, sem travá-lo.
+ *
+ * Após um aquecimento, mede por alguns segundos:
+ * - ecos por segundo e tempo médio por eco
+ * - bytes alocados no heap pelas threads do servidor, por datagrama
+ * - coletas de lixo durante a medição
+ * - no modo grupo, a distribuição dos datagramas entre os sockets
+ *
+ * Com o grupo, a vazão deve crescer com o número de sockets enquanto houver
+ * núcleos livres e clientes suficientes: o kernel escolhe o socket pelo
+ * fluxo, e cada cliente usa uma porta de origem própria.
+ *
+ * O alvo de mais de 1 milhão de ecos por segundo pressupõe núcleos livres
+ * para o motor e para os clientes; com poucos núcleos, eles disputam a mesma
+ * CPU e o resultado mede sobretudo o custo das chamadas de sistema.
+ *
+ * Argumentos: [segundos] [tamanho] [clientes] [janela] [sockets] [eco|inversao]
+ *   sockets: 0 = um MotorEcoUDP exclusivo; N = grupo de N sockets
+ * Exemplo: java BenchmarkEcoUDP 5 32 4 64
+ *          java BenchmarkEcoUDP 5 32 16 64 4 inversao
+ *
+ * @author Sistema de Comunicação UDP
+ * @version 1.0
+ * @since 2025-05-06
+ */
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark de eco UDP com clientes em janela.
+ */
+public class BenchmarkEcoUDP {
+
+    // ==================== CONSTANTES ====================
+
+    /** Duração do aquecimento (JIT, buffers do kernel) */
+    private static final long AQUECIMENTO_MS = 2000;
+
+    /** Maior datagrama ecoado */
+    private static final int TAMANHO_BUFFER = 1024;
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do benchmark.
+     *
+     * @param args [segundos] [tamanho] [clientes] [janela] [sockets] [eco|inversao]
+     * @throws Exception se o motor ou os clientes falharem
+     */
+    public static void main(String[] args) throws Exception {
+        int segundos = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int tamanho = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int clientes = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int janela = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        int sockets = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+        boolean inversao = args.length > 5 && args[5].equals("inversao");
+        if (tamanho < 1 || tamanho > TAMANHO_BUFFER) {
+            throw new IllegalArgumentException("Tamanho deve estar entre 1 e " + TAMANHO_BUFFER);
+        }
+
+        System.out.println("=== Benchmark do Motor de Eco UDP ===");
+        System.out.printf("Duração: %d s | Datagrama: %d bytes | Clientes: %d | Janela: %d | Núcleos: %d%n",
+                          segundos, tamanho, clientes, janela, Runtime.getRuntime().availableProcessors());
+        System.out.printf("Servidor: %s | Serviço: %s%n%n",
+                          sockets == 0 ? "motor exclusivo" : "grupo de " + sockets + " socket(s)",
+                          inversao ? "inversão" : "eco");
+
+        MotorEcoUDP.Transformacao servico = inversao ? MotorEcoUDP.INVERSAO : MotorEcoUDP.ECO;
+        MotorEcoUDP motor = null;
+        GrupoSocketsUDP grupo = null;
+        Thread threadMotor = null;
+        int porta;
+        if (sockets == 0) {
+            motor = new MotorEcoUDP(0, TAMANHO_BUFFER, 0, servico, false);
+            threadMotor = new Thread(motor, "MotorEcoUDP");
+            threadMotor.start();
+            porta = motor.getPorta();
+        } else {
+            grupo = new GrupoSocketsUDP(0, sockets, TAMANHO_BUFFER, 0, servico);
+            grupo.iniciar();
+            porta = grupo.getPorta();
+        }
+        InetSocketAddress destino = new InetSocketAddress(InetAddress.getLoopbackAddress(), porta);
+
+        LongAdder ecos = new LongAdder();
+        List<DatagramChannel> canais = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clientes; i++) {
+            DatagramChannel canal = DatagramChannel.open().connect(destino);
+            canais.add(canal);
+            Thread thread = new Thread(() -> executarCliente(canal, tamanho, janela, ecos), "Cliente-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(AQUECIMENTO_MS);
+
+        // Medição
+        com.sun.management.ThreadMXBean mxThreads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long alocadosAntes = alocadosServidor(mxThreads);
+        long recebidosAntes = motor != null ? motor.getRecebidos() : grupo.getRecebidos();
+        long ecosAntes = ecos.sum();
+        long coletasAntes = contarColetas();
+        long inicio = System.nanoTime();
+
+        Thread.sleep(segundos * 1000L);
+
+        long nanos = System.nanoTime() - inicio;
+        long medidos = ecos.sum() - ecosAntes;
+        long recebidos = (motor != null ? motor.getRecebidos() : grupo.getRecebidos()) - recebidosAntes;
+        long alocados = alocadosServidor(mxThreads) - alocadosAntes;
+        long coletas = contarColetas() - coletasAntes;
+
+        // Encerramento
+        for (DatagramChannel canal : canais) {
+            canal.close();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (motor != null) {
+            motor.close();
+            threadMotor.join();
+        } else {
+            grupo.close();
+            grupo.aguardar();
+        }
+
+        double porSegundo = medidos * 1e9 / nanos;
+        System.out.printf("Ecos recebidos pelos clientes: %d (%.0f/s, %.2f µs/eco)%n", medidos, porSegundo,
+                          medidos == 0 ? 0.0 : nanos / 1000.0 / medidos);
+        System.out.printf("Alocação no servidor: %d bytes em %d datagramas (%.3f bytes/datagrama)%n", alocados,
+                          recebidos, recebidos == 0 ? 0.0 : (double) alocados / recebidos);
+        System.out.printf("Coletas de lixo durante a medição: %d%n", coletas);
+        System.out.println("Servidor: " + (motor != null ? motor.gerarRelatorio() : grupo.gerarRelatorio()));
+        System.out.println(porSegundo >= 1_000_000 ? "✓ Alvo de 1M ecos/s atingido"
+                                                   : "⚠ Abaixo de 1M ecos/s nesta máquina");
+    }
+
+    // ==================== CLIENTES ====================
+
+    /**
+     * Mantém a janela de datagramas em trânsito até o canal ser fechado.
+     */
+    private static void executarCliente(DatagramChannel canal, int tamanho, int janela, LongAdder ecos) {
+        ByteBuffer envio = ByteBuffer.allocateDirect(tamanho);
+        while (envio.hasRemaining()) {
+            envio.put((byte) ('A' + envio.position() % 26));
+        }
+        ByteBuffer resposta = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+        try {
+            for (int i = 0; i < janela; i++) {
+                envio.rewind();
+                canal.write(envio);
+            }
+            while (true) {
+                resposta.clear();
+                canal.read(resposta);
+                ecos.increment();
+                envio.rewind();
+                canal.write(envio);
+            }
+        } catch (ClosedChannelException e) {
+            // Fim da medição
+        } catch (IOException e) {
+            System.err.println("✗ Erro no cliente: " + e.getMessage());
+        }
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Bytes alocados pelas threads do servidor (motor exclusivo ou sockets do grupo).
+     */
+    private static long alocadosServidor(com.sun.management.ThreadMXBean mxThreads) {
+        long total = 0;
+        for (ThreadInfo info : mxThreads.getThreadInfo(mxThreads.getAllThreadIds())) {
+            if (info != null && (info.getThreadName().equals("MotorEcoUDP")
+                                 || info.getThreadName().startsWith("SocketUDP-"))) {
+                total += Math.max(mxThreads.getThreadAllocatedBytes(info.getThreadId()), 0);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Número de coletas, somado entre os coletores.
+     */
+    private static long contarColetas() {
+        long total = 0;
+        for (GarbageCollectorMXBean coletor : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(coletor.getCollectionCount(), 0);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * BenchmarkFragmentacaoUDP - Vazão e alocação da fragmentação em loopback
+ *
+ * Um emissor envia mensagens grandes em fragmentos (FragmentadorUDP) a um
+ * receptor no mesmo processo, que as remonta (RemontadorUDP) e confirma cada
+ * mensagem completa com um datagrama curto; o emissor só envia a próxima
+ * depois da confirmação, para que a rajada de fragmentos de uma mensagem não
+ * transborde o buffer do socket.
+ *
+ * Após um aquecimento, mede:
+ * - mensagens e MB por segundo
+ * - bytes alocados no heap pela thread receptora, por mensagem: com o pool,
+ *   deve ficar muito abaixo do tamanho da mensagem
+ * - o relatório do remontador (buffers reutilizados x alocados, perdas)
+ *
+ * Argumentos: [mensagens] [tamanho] [datagrama]
+ *   datagrama: maior datagrama enviado (padrão: 1472, o de um MTU Ethernet)
+ * Exemplo: java BenchmarkFragmentacaoUDP 200 1000000 1472
+ *
+ * @author Sistema de Comunicação UDP
+ * @version 1.0
+ * @since 2025-05-06
+ */
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark de fragmentação e remontagem de mensagens grandes.
+ */
+public class BenchmarkFragmentacaoUDP {
+
+    // ==================== CONSTANTES ====================
+
+    /** Mensagens de aquecimento (JIT e pool) */
+    private static final int AQUECIMENTO = 20;
+
+    /** Espera pela confirmação de uma mensagem antes de reenviá-la */
+    private static final int TIMEOUT_CONFIRMACAO_MS = 1000;
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do benchmark.
+     *
+     * @param args [mensagens] [tamanho] [datagrama]
+     * @throws Exception se os sockets falharem
+     */
+    public static void main(String[] args) throws Exception {
+        int mensagens = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int tamanho = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int datagrama = args.length > 2 ? Integer.parseInt(args[2]) : 1472;
+        if (tamanho < 1 || tamanho > FragmentadorUDP.MENSAGEM_MAXIMA) {
+            throw new IllegalArgumentException("Tamanho deve estar entre 1 e " + FragmentadorUDP.MENSAGEM_MAXIMA);
+        }
+
+        System.out.println("=== Benchmark de Fragmentação UDP ===");
+        System.out.printf("Mensagens: %d | Tamanho: %d bytes | Datagrama: %d bytes%n%n", mensagens, tamanho,
+                          datagrama);
+
+        DatagramSocket receptor = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        receptor.setReceiveBufferSize(FragmentadorUDP.BUFFER_SOCKET);
+        RemontadorUDP remontador = new RemontadorUDP();
+        AtomicLong alocadosReceptor = new AtomicLong();
+        Thread threadReceptor = new Thread(() -> receber(receptor, remontador, alocadosReceptor), "Receptor");
+        threadReceptor.start();
+
+        byte[] mensagem = new byte[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            mensagem[i] = (byte) ('a' + i % 26);
+        }
+        FragmentadorUDP fragmentador = new FragmentadorUDP(datagrama);
+        long reenvios;
+        long nanos;
+        long alocados;
+        try (DatagramSocket emissor = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            emissor.setSoTimeout(TIMEOUT_CONFIRMACAO_MS);
+            SocketAddress destino = receptor.getLocalSocketAddress();
+
+            enviarMensagens(emissor, fragmentador, mensagem, destino, AQUECIMENTO);
+
+            long alocadosAntes = alocadosReceptor.get();
+            long inicio = System.nanoTime();
+            reenvios = enviarMensagens(emissor, fragmentador, mensagem, destino, mensagens);
+            nanos = System.nanoTime() - inicio;
+            alocados = alocadosReceptor.get() - alocadosAntes;
+        }
+        receptor.close();
+        threadReceptor.join();
+
+        double segundos = nanos / 1e9;
+        System.out.printf("Vazão: %.0f mensagens/s, %.1f MB/s%n", mensagens / segundos,
+                          (double) mensagens * tamanho / 1e6 / segundos);
+        System.out.printf("Alocação no receptor: %.0f bytes/mensagem (%.2f%% do tamanho da mensagem)%n",
+                          (double) alocados / mensagens, 100.0 * alocados / mensagens / tamanho);
+        System.out.printf("Reenvios por confirmação perdida: %d%n", reenvios);
+        System.out.println("Remontador: " + remontador.gerarRelatorio());
+        System.out.println(alocados < (long) mensagens * tamanho / 10
+                           ? "✓ Buffers de remontagem reaproveitados (sem alocação do tamanho da mensagem)"
+                           : "⚠ Alocação por mensagem comparável ao tamanho da mensagem");
+    }
+
+    // ==================== EMISSOR ====================
+
+    /**
+     * Envia as mensagens uma a uma, esperando a confirmação de cada uma.
+     *
+     * @return Número de reenvios por timeout
+     */
+    private static long enviarMensagens(DatagramSocket emissor, FragmentadorUDP fragmentador, byte[] mensagem,
+                                        SocketAddress destino, int quantidade) throws IOException {
+        DatagramPacket confirmacao = new DatagramPacket(new byte[16], 16);
+        long reenvios = 0;
+        for (int i = 0; i < quantidade; i++) {
+            fragmentador.enviar(emissor, mensagem, 0, mensagem.length, destino);
+            while (true) {
+                try {
+                    emissor.receive(confirmacao);
+                    break;
+                } catch (SocketTimeoutException e) {
+                    // Algum fragmento se perdeu: a remontagem expira, e a mensagem vai de novo
+                    reenvios++;
+                    fragmentador.enviar(emissor, mensagem, 0, mensagem.length, destino);
+                }
+            }
+        }
+        return reenvios;
+    }
+
+    // ==================== RECEPTOR ====================
+
+    /**
+     * Remonta as mensagens e confirma cada uma, até o socket ser fechado.
+     */
+    private static void receber(DatagramSocket receptor, RemontadorUDP remontador, AtomicLong alocados) {
+        com.sun.management.ThreadMXBean mxThreads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long idThread = Thread.currentThread().getId();
+        byte[] buffer = new byte[FragmentadorUDP.DATAGRAMA_MAXIMO];
+        DatagramPacket pacote = new DatagramPacket(buffer, buffer.length);
+        byte[] ok = {1};
+        try {
+            while (true) {
+                pacote.setData(buffer);
+                receptor.receive(pacote);
+                RemontadorUDP.Mensagem mensagem = remontador.receber(pacote, System.nanoTime());
+                if (mensagem != null) {
+                    receptor.send(new DatagramPacket(ok, ok.length, mensagem.getOrigem()));
+                    remontador.liberar(mensagem);
+                    alocados.set(mxThreads.getThreadAllocatedBytes(idThread));
+                }
+            }
+        } catch (SocketException e) {
+            // Fim do benchmark
+        } catch (IOException e) {
+            System.err.println("✗ Erro no receptor: " + e.getMessage());
+        }
+    }
+}
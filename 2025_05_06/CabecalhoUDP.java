@@ -0,0 +1,328 @@
+/**
+ * CabecalhoUDP - Cabeçalho opcional dos datagramas de requisição
+ *
+ * Permite que o cliente informe ao servidor quanto tempo ainda está disposto
+ * a esperar pela resposta (prazo). O servidor converte esse orçamento relativo
+ * em um instante local no momento da recepção, de modo que os relógios das
+ * duas máquinas não precisam estar sincronizados; o tempo de trânsito na rede
+ * não é descontado.
+ *
+ * Formato:
+ *   byte 0      0xFF (marcador; nunca inicia um texto UTF-8 válido)
+ *   byte 1      versão do cabeçalho
+ *   byte 2      flags (FLAG_PRAZO, FLAG_ID)
+ *   [4 bytes]   prazo em milissegundos, se FLAG_PRAZO estiver presente
+ *   [8 bytes]   identificador da requisição, se FLAG_ID estiver presente
+ *   restante    carga útil (texto UTF-8)
+ *
+ * O identificador é escolhido pelo cliente e repetido nas retransmissões da
+ * mesma requisição: com ele, o servidor reconhece uma repetição e pode
+ * devolver a resposta já calculada (CacheRespostasUDP).
+ *
+ * Datagramas sem o marcador são tratados como texto puro, sem prazo, para
+ * continuar atendendo clientes antigos.
+ *
+ * Uso: javac -sourcepath .:.. (nos programas da pasta exercicio)
+ *
+ * @author Sistema de Comunicação UDP
+ * @version 1.0
+ * @since 2025-05-06
+ */
+
+import java.net.DatagramPacket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cabeçalho de requisição UDP com prazo e identificador opcionais.
+ */
+public final class CabecalhoUDP {
+
+    // ==================== CONSTANTES ====================
+
+    /** Primeiro byte de um datagrama com cabeçalho */
+    public static final int MARCADOR = 0xFF;
+
+    /** Versão atual do cabeçalho */
+    public static final int VERSAO = 1;
+
+    /** Indica que o cabeçalho contém um prazo */
+    public static final int FLAG_PRAZO = 0x01;
+
+    /** Indica que o cabeçalho contém o identificador da requisição */
+    public static final int FLAG_ID = 0x02;
+
+    /** Tamanho do cabeçalho sem campos opcionais */
+    private static final int TAMANHO_BASE = 3;
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Início da carga útil dentro do datagrama */
+    private final int inicioCarga;
+
+    /** Tamanho da carga útil */
+    private final int tamanhoCarga;
+
+    /** Instante local (System.nanoTime) em que o prazo expira; Long.MAX_VALUE se não houver */
+    private final long prazoNanos;
+
+    /** Identificador da requisição (válido se temId) */
+    private final long idRequisicao;
+
+    /** Indica se a requisição trouxe identificador */
+    private final boolean temId;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Construtor privado - use {@link #ler(DatagramPacket, long)}.
+     */
+    private CabecalhoUDP(int inicioCarga, int tamanhoCarga, long prazoNanos, long idRequisicao, boolean temId) {
+        this.inicioCarga = inicioCarga;
+        this.tamanhoCarga = tamanhoCarga;
+        this.prazoNanos = prazoNanos;
+        this.idRequisicao = idRequisicao;
+        this.temId = temId;
+    }
+
+    // ==================== CODIFICAÇÃO ====================
+
+    /**
+     * Monta um datagrama de requisição com prazo.
+     *
+     * @param carga Carga útil
+     * @param prazoMs Tempo máximo de espera do cliente, em milissegundos (0 ou negativo: sem prazo)
+     * @return Bytes do datagrama (cabeçalho + carga)
+     */
+    public static byte[] codificar(byte[] carga, int prazoMs) {
+        return codificar(carga, prazoMs, null);
+    }
+
+    /**
+     * Monta um datagrama de requisição com prazo e identificador.
+     *
+     * @param carga Carga útil
+     * @param prazoMs Tempo máximo de espera do cliente, em milissegundos (0 ou negativo: sem prazo)
+     * @param idRequisicao Identificador, repetido nas retransmissões (null: sem identificador)
+     * @return Bytes do datagrama (cabeçalho + carga)
+     */
+    public static byte[] codificar(byte[] carga, int prazoMs, Long idRequisicao) {
+        boolean comPrazo = prazoMs > 0;
+        boolean comId = idRequisicao != null;
+        ByteBuffer datagrama = ByteBuffer.allocate(TAMANHO_BASE + (comPrazo ? Integer.BYTES : 0) +
+                                                   (comId ? Long.BYTES : 0) + carga.length);
+        datagrama.put((byte) MARCADOR);
+        datagrama.put((byte) VERSAO);
+        datagrama.put((byte) ((comPrazo ? FLAG_PRAZO : 0) | (comId ? FLAG_ID : 0)));
+        if (comPrazo) {
+            datagrama.putInt(prazoMs);
+        }
+        if (comId) {
+            datagrama.putLong(idRequisicao);
+        }
+        datagrama.put(carga);
+        return datagrama.array();
+    }
+
+    /**
+     * Interpreta o cabeçalho de um datagrama recebido.
+     *
+     * @param pacote Datagrama recebido
+     * @param recebidoNanos Instante da recepção (System.nanoTime)
+     * @return Cabeçalho; sem prazo se o datagrama não tiver cabeçalho válido
+     */
+    public static CabecalhoUDP ler(DatagramPacket pacote, long recebidoNanos) {
+        byte[] dados = pacote.getData();
+        int inicio = pacote.getOffset();
+        int tamanho = pacote.getLength();
+
+        if (tamanho < TAMANHO_BASE || (dados[inicio] & 0xFF) != MARCADOR
+                || (dados[inicio + 1] & 0xFF) != VERSAO) {
+            return new CabecalhoUDP(inicio, tamanho, Long.MAX_VALUE, 0, false);
+        }
+
+        int flags = dados[inicio + 2] & 0xFF;
+        int cabecalho = TAMANHO_BASE;
+        long prazoNanos = Long.MAX_VALUE;
+        if ((flags & FLAG_PRAZO) != 0 && tamanho >= cabecalho + Integer.BYTES) {
+            int prazoMs = ByteBuffer.wrap(dados, inicio + cabecalho, Integer.BYTES).getInt();
+            prazoNanos = recebidoNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, prazoMs));
+            cabecalho += Integer.BYTES;
+        }
+        long idRequisicao = 0;
+        boolean temId = (flags & FLAG_ID) != 0 && tamanho >= cabecalho + Long.BYTES;
+        if (temId) {
+            idRequisicao = ByteBuffer.wrap(dados, inicio + cabecalho, Long.BYTES).getLong();
+            cabecalho += Long.BYTES;
+        }
+        return new CabecalhoUDP(inicio + cabecalho, tamanho - cabecalho, prazoNanos, idRequisicao, temId);
+    }
+
+    /**
+     * Interpreta o cabeçalho de um datagrama em um buffer, sem criar objetos:
+     * avança a posição do buffer até a carga útil e informa se o prazo já
+     * expirou. Datagramas sem cabeçalho válido ficam com a posição inalterada.
+     *
+     * @param datagrama Buffer com o datagrama entre a posição e o limite
+     * @param recebidoNanos Instante da recepção (System.nanoTime)
+     * @return true se a requisição ainda está dentro do prazo (ou não tem prazo)
+     */
+    public static boolean posicionarCarga(ByteBuffer datagrama, long recebidoNanos) {
+        int inicio = datagrama.position();
+        int tamanho = datagrama.remaining();
+
+        if (tamanho < TAMANHO_BASE || (datagrama.get(inicio) & 0xFF) != MARCADOR
+                || (datagrama.get(inicio + 1) & 0xFF) != VERSAO) {
+            return true;
+        }
+
+        int flags = datagrama.get(inicio + 2) & 0xFF;
+        int cabecalho = TAMANHO_BASE;
+        long prazoNanos = Long.MAX_VALUE;
+        if ((flags & FLAG_PRAZO) != 0 && tamanho >= cabecalho + Integer.BYTES) {
+            int prazoMs = datagrama.getInt(inicio + cabecalho);
+            prazoNanos = recebidoNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, prazoMs));
+            cabecalho += Integer.BYTES;
+        }
+        if ((flags & FLAG_ID) != 0 && tamanho >= cabecalho + Long.BYTES) {
+            cabecalho += Long.BYTES;
+        }
+        datagrama.position(inicio + cabecalho);
+        return prazoNanos == Long.MAX_VALUE || System.nanoTime() - prazoNanos < 0;
+    }
+
+    // ==================== PRAZO ====================
+
+    /**
+     * Verifica se o cliente já desistiu da requisição.
+     *
+     * @return true se o prazo expirou
+     */
+    public boolean isExpirado() {
+        return prazoNanos != Long.MAX_VALUE && System.nanoTime() - prazoNanos >= 0;
+    }
+
+    /**
+     * Indica se a requisição trouxe prazo.
+     *
+     * @return true se há prazo
+     */
+    public boolean temPrazo() {
+        return prazoNanos != Long.MAX_VALUE;
+    }
+
+    /**
+     * Tempo restante até o prazo.
+     *
+     * @return Milissegundos restantes (0 se expirado; Long.MAX_VALUE se não houver prazo)
+     */
+    public long getRestanteMs() {
+        if (!temPrazo()) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(prazoNanos - System.nanoTime()));
+    }
+
+    /**
+     * Executa uma espera de trabalho simulado, se ela couber no prazo. Um
+     * trabalho que já não cabe no tempo restante é recusado na hora, sem
+     * ocupar a thread até o prazo vencer.
+     *
+     * @param duracaoMs Duração do trabalho
+     * @return true se o trabalho terminou dentro do prazo; false se foi recusado ou o prazo expirou
+     * @throws InterruptedException se a thread for interrompida
+     */
+    public boolean aguardarDentroDoPrazo(long duracaoMs) throws InterruptedException {
+        if (getRestanteMs() < duracaoMs) {
+            return false;
+        }
+        Thread.sleep(duracaoMs);
+        return !isExpirado();
+    }
+
+    // ==================== IDENTIFICADOR ====================
+
+    /**
+     * Indica se a requisição trouxe identificador.
+     *
+     * @return true se há identificador
+     */
+    public boolean temId() {
+        return temId;
+    }
+
+    /**
+     * Identificador da requisição, repetido pelo cliente nas retransmissões.
+     *
+     * @return Identificador (0 se não houver; consulte temId())
+     */
+    public long getIdRequisicao() {
+        return idRequisicao;
+    }
+
+    // ==================== CARGA ÚTIL ====================
+
+    /**
+     * Decodifica a carga útil como texto UTF-8.
+     *
+     * @param pacote Datagrama de onde o cabeçalho foi lido
+     * @return Texto da carga útil
+     */
+    public String getTexto(DatagramPacket pacote) {
+        return new String(pacote.getData(), inicioCarga, tamanhoCarga, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodifica só o início da carga útil, para exibição: uma mensagem
+     * remontada de vários megabytes não vira uma String inteira só para
+     * mostrar as primeiras linhas.
+     *
+     * @param pacote Datagrama de onde o cabeçalho foi lido
+     * @param maximoBytes Bytes da carga decodificados, no máximo
+     * @return Início do texto, com o tamanho total se a carga foi cortada
+     */
+    public String getResumo(DatagramPacket pacote, int maximoBytes) {
+        return resumir(pacote.getData(), inicioCarga, tamanhoCarga, maximoBytes);
+    }
+
+    /**
+     * Decodifica como UTF-8 só os primeiros bytes de um texto, sem partir um
+     * caractere multibyte no corte.
+     *
+     * @param dados Buffer com o texto
+     * @param inicio Início do texto no buffer
+     * @param tamanho Tamanho total do texto, em bytes
+     * @param maximoBytes Bytes decodificados, no máximo
+     * @return Início do texto, com o tamanho total se ele foi cortado
+     */
+    public static String resumir(byte[] dados, int inicio, int tamanho, int maximoBytes) {
+        if (tamanho <= maximoBytes) {
+            return new String(dados, inicio, tamanho, StandardCharsets.UTF_8);
+        }
+        int corte = maximoBytes;
+        // Bytes de continuação (10xxxxxx) pertencem ao caractere anterior ao corte
+        while (corte > 0 && (dados[inicio + corte] & 0xC0) == 0x80) {
+            corte--;
+        }
+        return new String(dados, inicio, corte, StandardCharsets.UTF_8) + "... (" + tamanho + " bytes)";
+    }
+
+    /**
+     * Início da carga útil dentro do buffer do datagrama.
+     *
+     * @return Deslocamento
+     */
+    public int getInicioCarga() {
+        return inicioCarga;
+    }
+
+    /**
+     * Tamanho da carga útil.
+     *
+     * @return Bytes
+     */
+    public int getTamanhoCarga() {
+        return tamanhoCarga;
+    }
+}
@@ -0,0 +1,363 @@
+/**
+ * CacheRespostasUDP - Respostas já calculadas, para requisições repetidas
+ *
+ * Um cliente UDP que não recebe resposta no tempo esperado reenvia a
+ * requisição. Sem memória do que já respondeu, o servidor refaz todo o
+ * trabalho da repetição (no UDPServerConcorrente, 100 ms de processamento),
+ * justamente quando a rede já está perdendo pacotes. Com o identificador de
+ * requisição do CabecalhoUDP, a repetição é reconhecida pela chave
+ * (endereço, porta, identificador):
+ *
+ * - resposta pronta no cache: é reenviada na hora, sem refazer o trabalho
+ * - requisição ainda em processamento: a repetição é ignorada (a resposta
+ *   original sai quando o trabalho terminar)
+ * - chave desconhecida: o chamador reserva a entrada, processa e completa
+ *
+ * Organização: o cache é dividido em partições, e cada partição é uma tabela
+ * associativa por conjuntos (como um cache de CPU): a chave escolhe um
+ * conjunto de VIAS posições em um AtomicReferenceArray, e a entrada ocupa uma
+ * delas. Consultas só leem; inserções e remoções trocam a posição com
+ * compareAndSet, sem trava nenhuma. A capacidade é fixa; dentro do conjunto,
+ * uma inserção ocupa uma posição vazia ou expirada ou, se não houver, a de
+ * uso mais antigo (LRU por conjunto), preferindo descartar respostas prontas
+ * a reservas em andamento. Entradas expiram após o TTL.
+ *
+ * Duas reservas simultâneas da mesma chave, em threads diferentes, podem
+ * ambas ter sucesso; os servidores reservam na thread de recepção, de modo
+ * que isso não ocorre neles.
+ *
+ * @author Sistema de Comunicação UDP
+ * @version 1.0
+ * @since 2025-05-06
+ */
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache de respostas por (endereço, porta, identificador de requisição).
+ */
+public class CacheRespostasUDP {
+
+    // ==================== CONSTANTES ====================
+
+    /** Devolvido por reservar() quando a mesma requisição ainda está em processamento */
+    public static final byte[] EM_ANDAMENTO = new byte[0];
+
+    /** Posições por conjunto */
+    public static final int VIAS = 8;
+
+    /** Tentativas de compareAndSet antes de desistir de uma inserção disputada */
+    private static final int TENTATIVAS_INSERCAO = 4;
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Partições, cada uma com as suas posições */
+    private final AtomicReferenceArray<Entrada>[] particoes;
+
+    /** Máscaras e deslocamento para escolher partição e conjunto pelo hash */
+    private final int mascaraParticao;
+    private final int bitsParticao;
+    private final int mascaraConjunto;
+
+    /** Tempo de vida de uma entrada */
+    private final long ttlNanos;
+
+    /** Maior resposta guardada (limita a memória a capacidade x maiorResposta) */
+    private final int maiorResposta;
+
+    /** Estatísticas */
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder repeticoesEmAndamento = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+    private final LongAdder substituicoes = new LongAdder();
+    private final LongAdder expiradas = new LongAdder();
+    private final LongAdder canceladas = new LongAdder();
+    private final LongAdder recusadas = new LongAdder();
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria o cache.
+     *
+     * @param capacidade Máximo de entradas (arredondado para potência de dois; no mínimo VIAS por partição)
+     * @param particoes Número de partições (arredondado para potência de dois)
+     * @param ttlMs Tempo de vida de cada entrada
+     * @param maiorResposta Respostas maiores que isto não são guardadas
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public CacheRespostasUDP(int capacidade, int particoes, long ttlMs, int maiorResposta) {
+        if (capacidade < 1 || particoes < 1 || ttlMs < 1 || maiorResposta < 0) {
+            throw new IllegalArgumentException("Parâmetros do cache devem ser positivos");
+        }
+        int numeroParticoes = potenciaDeDois(particoes);
+        int conjuntos = potenciaDeDois(Math.max(1, capacidade / (numeroParticoes * VIAS)));
+        this.particoes = new AtomicReferenceArray[numeroParticoes];
+        for (int i = 0; i < numeroParticoes; i++) {
+            this.particoes[i] = new AtomicReferenceArray<>(conjuntos * VIAS);
+        }
+        this.mascaraParticao = numeroParticoes - 1;
+        this.bitsParticao = Integer.numberOfTrailingZeros(numeroParticoes);
+        this.mascaraConjunto = conjuntos - 1;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maiorResposta = maiorResposta;
+    }
+
+    // ==================== OPERAÇÕES ====================
+
+    /**
+     * Consulta a requisição e, se ela for nova, reserva a sua entrada.
+     *
+     * @param endereco Endereço do cliente
+     * @param porta Porta do cliente
+     * @param id Identificador da requisição
+     * @return A resposta guardada, para reenviar; EM_ANDAMENTO se a requisição
+     *         ainda está sendo processada; ou null se é nova, e o chamador deve
+     *         processá-la e chamar completar() ou cancelar()
+     */
+    public byte[] reservar(InetAddress endereco, int porta, long id) {
+        long agora = System.nanoTime();
+        int hash = hash(endereco, porta, id);
+        AtomicReferenceArray<Entrada> posicoes = particoes[hash & mascaraParticao];
+        int base = ((hash >>> bitsParticao) & mascaraConjunto) * VIAS;
+
+        for (int via = 0; via < VIAS; via++) {
+            Entrada entrada = posicoes.get(base + via);
+            if (entrada == null || !entrada.mesmaChave(endereco, porta, id)) {
+                continue;
+            }
+            if (entrada.expirada(agora)) {
+                if (posicoes.compareAndSet(base + via, entrada, null)) {
+                    expiradas.increment();
+                }
+                break;
+            }
+            entrada.ultimoAcesso = agora;
+            byte[] resposta = entrada.resposta;
+            if (resposta == null) {
+                repeticoesEmAndamento.increment();
+                return EM_ANDAMENTO;
+            }
+            acertos.increment();
+            return resposta;
+        }
+
+        faltas.increment();
+        inserir(posicoes, base, new Entrada(endereco, porta, id, agora + ttlNanos, agora), agora);
+        return null;
+    }
+
+    /**
+     * Guarda a resposta de uma requisição reservada. Se a reserva já foi
+     * descartada (por pressão ou TTL), a resposta entra como entrada nova.
+     *
+     * @param endereco Endereço do cliente
+     * @param porta Porta do cliente
+     * @param id Identificador da requisição
+     * @param resposta Bytes da resposta (não devem ser alterados depois)
+     */
+    public void completar(InetAddress endereco, int porta, long id, byte[] resposta) {
+        if (resposta.length > maiorResposta) {
+            recusadas.increment();
+            cancelar(endereco, porta, id);
+            return;
+        }
+        long agora = System.nanoTime();
+        int hash = hash(endereco, porta, id);
+        AtomicReferenceArray<Entrada> posicoes = particoes[hash & mascaraParticao];
+        int base = ((hash >>> bitsParticao) & mascaraConjunto) * VIAS;
+
+        for (int via = 0; via < VIAS; via++) {
+            Entrada entrada = posicoes.get(base + via);
+            if (entrada != null && entrada.mesmaChave(endereco, porta, id)) {
+                entrada.validade = agora + ttlNanos;
+                entrada.ultimoAcesso = agora;
+                entrada.resposta = resposta;
+                return;
+            }
+        }
+        Entrada entrada = new Entrada(endereco, porta, id, agora + ttlNanos, agora);
+        entrada.resposta = resposta;
+        inserir(posicoes, base, entrada, agora);
+    }
+
+    /**
+     * Libera a reserva de uma requisição que não será respondida (prazo
+     * expirado, erro), para que uma repetição seja processada de novo.
+     *
+     * @param endereco Endereço do cliente
+     * @param porta Porta do cliente
+     * @param id Identificador da requisição
+     */
+    public void cancelar(InetAddress endereco, int porta, long id) {
+        int hash = hash(endereco, porta, id);
+        AtomicReferenceArray<Entrada> posicoes = particoes[hash & mascaraParticao];
+        int base = ((hash >>> bitsParticao) & mascaraConjunto) * VIAS;
+
+        for (int via = 0; via < VIAS; via++) {
+            Entrada entrada = posicoes.get(base + via);
+            if (entrada != null && entrada.resposta == null && entrada.mesmaChave(endereco, porta, id)) {
+                if (posicoes.compareAndSet(base + via, entrada, null)) {
+                    canceladas.increment();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Coloca a entrada no conjunto: em uma posição vazia ou expirada ou, se
+     * não houver, na de uso mais antigo (respostas prontas antes de reservas).
+     */
+    private void inserir(AtomicReferenceArray<Entrada> posicoes, int base, Entrada nova, long agora) {
+        for (int tentativa = 0; tentativa < TENTATIVAS_INSERCAO; tentativa++) {
+            int vitima = -1;
+            Entrada atual = null;
+            boolean vitimaPronta = false;
+            for (int via = 0; via < VIAS; via++) {
+                Entrada entrada = posicoes.get(base + via);
+                if (entrada == null || entrada.expirada(agora)) {
+                    vitima = via;
+                    atual = entrada;
+                    break;
+                }
+                boolean pronta = entrada.resposta != null;
+                if (vitima < 0 || (pronta && !vitimaPronta)
+                        || (pronta == vitimaPronta && entrada.ultimoAcesso < atual.ultimoAcesso)) {
+                    vitima = via;
+                    atual = entrada;
+                    vitimaPronta = pronta;
+                }
+            }
+            if (posicoes.compareAndSet(base + vitima, atual, nova)) {
+                if (atual != null) {
+                    (atual.expirada(agora) ? expiradas : substituicoes).increment();
+                }
+                return;
+            }
+        }
+        // Conjunto disputado por outras threads: o cache é só uma otimização
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Hash da chave, com os bits misturados (finalização do MurmurHash3).
+     */
+    private static int hash(InetAddress endereco, int porta, long id) {
+        int h = (endereco.hashCode() * 31 + porta) * 31 + Long.hashCode(id);
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Menor potência de dois maior ou igual ao valor.
+     */
+    private static int potenciaDeDois(int valor) {
+        return valor <= 1 ? 1 : Integer.highestOneBit(valor - 1) << 1;
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna o número máximo de entradas.
+     *
+     * @return Capacidade
+     */
+    public int getCapacidade() {
+        return particoes.length * particoes[0].length();
+    }
+
+    /**
+     * Conta as entradas válidas (percorre todas as posições; use só em relatórios).
+     *
+     * @return Entradas não expiradas
+     */
+    public int getTamanho() {
+        long agora = System.nanoTime();
+        int tamanho = 0;
+        for (AtomicReferenceArray<Entrada> posicoes : particoes) {
+            for (int i = 0; i < posicoes.length(); i++) {
+                Entrada entrada = posicoes.get(i);
+                if (entrada != null && !entrada.expirada(agora)) {
+                    tamanho++;
+                }
+            }
+        }
+        return tamanho;
+    }
+
+    /**
+     * Retorna o número de repetições respondidas pelo cache.
+     *
+     * @return Acertos
+     */
+    public long getAcertos() {
+        return acertos.sum();
+    }
+
+    /**
+     * Retorna o número de repetições ignoradas por estarem em processamento.
+     *
+     * @return Repetições em andamento
+     */
+    public long getRepeticoesEmAndamento() {
+        return repeticoesEmAndamento.sum();
+    }
+
+    /**
+     * Gera um resumo do cache.
+     *
+     * @return Relatório em uma linha
+     */
+    public String gerarRelatorio() {
+        return String.format("%d/%d entrada(s) em %d partição(ões); %d acerto(s), %d repetição(ões) em " +
+                             "andamento, %d falta(s), %d substituída(s) por LRU, %d expirada(s), " +
+                             "%d cancelada(s), %d grande(s) demais", getTamanho(), getCapacidade(),
+                             particoes.length, acertos.sum(), repeticoesEmAndamento.sum(), faltas.sum(),
+                             substituicoes.sum(), expiradas.sum(), canceladas.sum(), recusadas.sum());
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * Entrada do cache. A chave é imutável; resposta, validade e último
+     * acesso são publicados por campos voláteis.
+     */
+    private static final class Entrada {
+        final InetAddress endereco;
+        final int porta;
+        final long id;
+
+        /** Resposta pronta; null enquanto a requisição está em processamento */
+        volatile byte[] resposta;
+
+        /** Instante (System.nanoTime) em que a entrada expira */
+        volatile long validade;
+
+        /** Último acesso, para a escolha LRU dentro do conjunto */
+        volatile long ultimoAcesso;
+
+        Entrada(InetAddress endereco, int porta, long id, long validade, long agora) {
+            this.endereco = endereco;
+            this.porta = porta;
+            this.id = id;
+            this.validade = validade;
+            this.ultimoAcesso = agora;
+        }
+
+        boolean mesmaChave(InetAddress endereco, int porta, long id) {
+            return this.id == id && this.porta == porta && this.endereco.equals(endereco);
+        }
+
+        boolean expirada(long agora) {
+            return agora - validade >= 0;
+        }
+    }
+}
@@ -0,0 +1,770 @@
+/**
+ * CanalConfiavelUDP - Entrega confiável e ordenada sobre UDP, por fluxo
+ *
+ * Com UDP puro, um datagrama perdido vira um SocketTimeoutException no
+ * cliente. Este canal acrescenta ao DatagramChannel o essencial do TCP:
+ *
+ * - números de sequência por fluxo e entrega na ordem de envio
+ * - confirmação cumulativa (próxima sequência esperada) e seletiva: um mapa
+ *   de bits com as sequências seguintes já recebidas fora de ordem
+ * - janela deslizante: no máximo JANELA segmentos não confirmados por fluxo;
+ *   os demais esperam em fila e saem conforme as confirmações chegam
+ * - retransmissão por tempo, com RTO estimado do RTT (RFC 6298: média e
+ *   variação suavizadas, só com segmentos não retransmitidos, e dobra do RTO
+ *   a cada expiração) e retransmissão rápida quando LIMIAR_RETRANSMISSAO_RAPIDA
+ *   segmentos posteriores a uma lacuna já foram confirmados
+ *
+ * Diferente do TCP, cada par (endereço remoto, fluxo) é independente: tem
+ * sua própria sequência, janela, RTO e reordenação. Uma perda em um fluxo só
+ * atrasa aquele fluxo, sem bloquear os demais (sem bloqueio de cabeça de
+ * fila entre fluxos).
+ *
+ * Formato (inteiros big-endian):
+ *
+ *   DADOS     0xFE | 1 (+ 0x80 no início) | fluxo (2 bytes) | sequência (4 bytes) | época (4 bytes) | carga
+ *   ACK       0xFE | 2 | fluxo (2 bytes) | próxima esperada (4 bytes) | mapa seletivo (8 bytes) | época
+ *   REINICIO  0xFE | 3 | fluxo (2 bytes) | época (4 bytes)
+ *
+ * No mapa seletivo, o bit i indica que a sequência (próxima esperada + 1 + i)
+ * já foi recebida. Cada segmento de dados recebido é confirmado na hora.
+ *
+ * Fluxos inativos há EXPIRACAO_FLUXO_NANOS são descartados, e cada lado pode
+ * descartar o seu antes do outro (ou reiniciar o processo). Para que os dois
+ * lados recomecem juntos, o envio de um fluxo tem uma época: um número
+ * aleatório, levado em cada segmento, com sequências começando em zero. Os
+ * segmentos transmitidos antes de a sequência zero ser confirmada levam a
+ * marca de início, e o receptor adota a época nova ao receber qualquer um
+ * deles (assim a primeira janela pode chegar fora de ordem). Um segmento sem
+ * a marca, em uma época que o receptor não conhece (ele descartou o estado
+ * do fluxo), é respondido com REINICIO; o emissor então passa a uma época
+ * nova e renumera a partir de zero o que ainda não foi confirmado.
+ *
+ * Uma thread própria recebe os datagramas, entrega as mensagens em ordem
+ * (Entrega, chamada sempre nessa thread) e cuida das retransmissões. O envio
+ * pode ser feito de qualquer thread; fora da thread do canal, enviar()
+ * bloqueia quando o fluxo já tem LIMITE_PENDENTES mensagens não confirmadas.
+ *
+ * Para medir o comportamento sob perda, setPerdaEmulada() descarta ao acaso
+ * uma fração dos datagramas enviados (dados e confirmações).
+ *
+ * @author Sistema de Comunicação UDP
+ * @version 1.0
+ * @since 2025-05-06
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Canal UDP com entrega confiável e ordenada por fluxo.
+ */
+public class CanalConfiavelUDP implements Closeable {
+
+    // ==================== CONSTANTES ====================
+
+    /** Primeiro byte dos datagramas do protocolo (o CabecalhoUDP usa 0xFF) */
+    public static final int MARCADOR = 0xFE;
+
+    /** Maior carga de um segmento, para caber em um datagrama sem fragmentação IP */
+    public static final int CARGA_MAXIMA = 1200;
+
+    /** Maior identificador de fluxo */
+    public static final int FLUXO_MAXIMO = 0xFFFF;
+
+    /** Segmentos não confirmados por fluxo (cabe no mapa seletivo) */
+    public static final int JANELA = 64;
+
+    /** Mensagens não confirmadas (na janela ou na fila) a partir das quais enviar() bloqueia */
+    public static final int LIMITE_PENDENTES = 4096;
+
+    /** Tipos de datagrama */
+    private static final int TIPO_DADOS = 1;
+    private static final int TIPO_ACK = 2;
+    private static final int TIPO_REINICIO = 3;
+
+    /** Marca, no byte de tipo, dos segmentos enviados antes de a sequência zero da época ser confirmada */
+    private static final int FLAG_INICIO = 0x80;
+
+    /** Tamanhos dos cabeçalhos */
+    private static final int CABECALHO_DADOS = 12;
+    private static final int TAMANHO_ACK = 20;
+    private static final int TAMANHO_REINICIO = 8;
+
+    /** Limites do RTO */
+    private static final long RTO_INICIAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long RTO_MINIMO_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long RTO_MAXIMO_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    /** Segmentos posteriores confirmados que disparam a retransmissão rápida de uma lacuna */
+    private static final int LIMIAR_RETRANSMISSAO_RAPIDA = 3;
+
+    /** Transmissões de um segmento antes de abandonar o fluxo */
+    private static final int TRANSMISSOES_MAXIMAS = 25;
+
+    /** Intervalo de verificação dos temporizadores */
+    private static final long INTERVALO_TEMPORIZADOR_MS = 1;
+
+    /** Fluxos sem atividade e sem pendências por mais tempo que isto são descartados */
+    private static final long EXPIRACAO_FLUXO_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    /** Buffer de socket pedido ao kernel */
+    private static final int BUFFER_SOCKET = 4 * 1024 * 1024;
+
+    /** Logger para registrar eventos do canal */
+    private static final Logger LOGGER = Logger.getLogger(CanalConfiavelUDP.class.getName());
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Canal UDP, não bloqueante */
+    private final DatagramChannel canal;
+
+    /** Seletor usado para esperar datagramas ou o próximo temporizador */
+    private final Selector seletor;
+
+    /** Destino das mensagens recebidas */
+    private final Entrega entrega;
+
+    /** Estado de cada par (endereço remoto, fluxo) */
+    private final Map<ChaveFluxo, Fluxo> fluxos = new ConcurrentHashMap<>();
+
+    /** Thread do canal */
+    private final Thread thread;
+
+    /** Fração dos datagramas enviados descartada de propósito */
+    private volatile double perdaEmulada;
+
+    /** Flag para controlar execução do canal */
+    private volatile boolean aberto = true;
+
+    /** Estatísticas */
+    private final LongAdder segmentosEnviados = new LongAdder();
+    private final LongAdder retransmissoesTempo = new LongAdder();
+    private final LongAdder retransmissoesRapidas = new LongAdder();
+    private final LongAdder confirmacoesEnviadas = new LongAdder();
+    private final LongAdder mensagensEntregues = new LongAdder();
+    private final LongAdder duplicadosRecebidos = new LongAdder();
+    private final LongAdder descartesEmulados = new LongAdder();
+    private final LongAdder fluxosAbandonados = new LongAdder();
+    private final LongAdder reinicios = new LongAdder();
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Abre o canal e inicia sua thread.
+     *
+     * @param porta Porta local (0 = escolhida pelo sistema, para clientes)
+     * @param entrega Destino das mensagens recebidas, chamado em ordem na thread do canal
+     * @throws IOException se o canal não puder ser aberto
+     */
+    public CanalConfiavelUDP(int porta, Entrega entrega) throws IOException {
+        this.entrega = Objects.requireNonNull(entrega);
+        this.canal = DatagramChannel.open();
+        canal.setOption(StandardSocketOptions.SO_RCVBUF, BUFFER_SOCKET);
+        canal.setOption(StandardSocketOptions.SO_SNDBUF, BUFFER_SOCKET);
+        canal.bind(new InetSocketAddress(porta));
+        canal.configureBlocking(false);
+        this.seletor = Selector.open();
+        canal.register(seletor, SelectionKey.OP_READ);
+        this.thread = new Thread(this::executar, "CanalConfiavelUDP-" + getPorta());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // ==================== ENVIO ====================
+
+    /**
+     * Envia uma mensagem em um fluxo. A mensagem entra na fila do fluxo e é
+     * transmitida assim que houver espaço na janela; o vetor passa a
+     * pertencer ao canal e não deve ser alterado.
+     *
+     * @param destino Endereço remoto
+     * @param fluxo Identificador do fluxo (0..FLUXO_MAXIMO)
+     * @param dados Mensagem (até CARGA_MAXIMA bytes)
+     * @throws IOException se o fluxo foi abandonado ou o canal está fechado
+     * @throws InterruptedException se a espera por espaço for interrompida
+     */
+    public void enviar(SocketAddress destino, int fluxo, byte[] dados) throws IOException, InterruptedException {
+        if (dados.length > CARGA_MAXIMA) {
+            throw new IllegalArgumentException("Mensagem de " + dados.length + " bytes excede " + CARGA_MAXIMA);
+        }
+        while (true) {
+            Fluxo estado = obterFluxo(destino, fluxo);
+            synchronized (estado) {
+                if (estado.removido) {
+                    // Descartado por inatividade entre a busca e a trava: o próximo obterFluxo cria outro
+                    continue;
+                }
+                if (Thread.currentThread() != thread) {
+                    while (aberto && !estado.abandonado
+                           && estado.fila.size() + (estado.proximo - estado.base) >= LIMITE_PENDENTES) {
+                        estado.wait();
+                    }
+                }
+                verificarUtilizavel(estado);
+                estado.fila.add(dados);
+                estado.ultimaAtividade = System.nanoTime();
+                transmitirFila(estado);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Aguarda até que todas as mensagens enviadas em um fluxo tenham sido confirmadas.
+     *
+     * @param destino Endereço remoto
+     * @param fluxo Identificador do fluxo
+     * @param timeoutMs Tempo máximo de espera
+     * @return true se tudo foi confirmado no prazo
+     * @throws IOException se o fluxo foi abandonado ou o canal está fechado
+     * @throws InterruptedException se a espera for interrompida
+     */
+    public boolean aguardarConfirmacoes(SocketAddress destino, int fluxo, long timeoutMs)
+            throws IOException, InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            Fluxo estado = obterFluxo(destino, fluxo);
+            synchronized (estado) {
+                if (estado.removido) {
+                    continue;
+                }
+                while (aberto && !estado.abandonado && (!estado.fila.isEmpty() || estado.base != estado.proximo)) {
+                    long restante = limite - System.nanoTime();
+                    if (restante <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(estado, restante);
+                }
+                verificarUtilizavel(estado);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Transmite mensagens da fila enquanto houver espaço na janela.
+     */
+    private void transmitirFila(Fluxo estado) throws IOException {
+        while (!estado.fila.isEmpty() && estado.proximo - estado.base < JANELA) {
+            Segmento segmento = new Segmento(estado.proximo++, estado.fila.poll());
+            estado.janela[indice(segmento.sequencia)] = segmento;
+            transmitirSegmento(estado, segmento, System.nanoTime());
+        }
+    }
+
+    /**
+     * Transmite (ou retransmite) um segmento e arma o seu temporizador.
+     */
+    private void transmitirSegmento(Fluxo estado, Segmento segmento, long agora) throws IOException {
+        ByteBuffer datagrama = ByteBuffer.allocate(CABECALHO_DADOS + segmento.dados.length);
+        int tipo = estado.base == 0 ? TIPO_DADOS | FLAG_INICIO : TIPO_DADOS;
+        datagrama.put((byte) MARCADOR).put((byte) tipo).putShort((short) estado.chave.fluxo)
+                 .putInt(segmento.sequencia).putInt(estado.epocaEnvio).put(segmento.dados).flip();
+        segmento.transmissoes++;
+        segmento.enviadoEm = agora;
+        segmento.prazo = agora + estado.rto;
+        segmentosEnviados.increment();
+        transmitir(datagrama, estado.chave.endereco);
+    }
+
+    /**
+     * Envia um datagrama, salvo quando a perda emulada o descarta. Buffer
+     * cheio no kernel também conta como perda: a retransmissão recupera.
+     */
+    private void transmitir(ByteBuffer datagrama, SocketAddress destino) throws IOException {
+        double perda = perdaEmulada;
+        if (perda > 0 && ThreadLocalRandom.current().nextDouble() < perda) {
+            descartesEmulados.increment();
+            return;
+        }
+        canal.send(datagrama, destino);
+    }
+
+    // ==================== LAÇO DO CANAL ====================
+
+    /**
+     * Recebe datagramas e verifica os temporizadores até o fechamento.
+     */
+    private void executar() {
+        ByteBuffer recepcao = ByteBuffer.allocateDirect(CABECALHO_DADOS + CARGA_MAXIMA + 1);
+        while (aberto) {
+            try {
+                seletor.select(INTERVALO_TEMPORIZADOR_MS);
+                seletor.selectedKeys().clear();
+                SocketAddress origem;
+                while ((origem = canal.receive(recepcao.clear())) != null) {
+                    recepcao.flip();
+                    processarDatagrama(origem, recepcao);
+                }
+                verificarTemporizadores(System.nanoTime());
+            } catch (IOException e) {
+                if (aberto) {
+                    LOGGER.log(Level.WARNING, "Erro de I/O no canal confiável", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Interpreta um datagrama recebido; datagramas de outros protocolos são ignorados.
+     */
+    private void processarDatagrama(SocketAddress origem, ByteBuffer datagrama) throws IOException {
+        if (datagrama.remaining() < TAMANHO_REINICIO || (datagrama.get(0) & 0xFF) != MARCADOR) {
+            return;
+        }
+        int tipo = datagrama.get(1) & 0xFF & ~FLAG_INICIO;
+        boolean inicio = (datagrama.get(1) & FLAG_INICIO) != 0;
+        int fluxo = datagrama.getShort(2) & 0xFFFF;
+        if (tipo == TIPO_DADOS && datagrama.remaining() >= CABECALHO_DADOS) {
+            byte[] dados = new byte[datagrama.remaining() - CABECALHO_DADOS];
+            datagrama.get(CABECALHO_DADOS, dados);
+            receberDados(obterFluxo(origem, fluxo), datagrama.getInt(4), datagrama.getInt(8), inicio, dados);
+        } else if (tipo == TIPO_ACK && datagrama.remaining() >= TAMANHO_ACK) {
+            Fluxo estado = fluxos.get(new ChaveFluxo(origem, fluxo));
+            if (estado != null) {
+                receberConfirmacao(estado, datagrama.getInt(4), datagrama.getLong(8), datagrama.getInt(16));
+            }
+        } else if (tipo == TIPO_REINICIO) {
+            Fluxo estado = fluxos.get(new ChaveFluxo(origem, fluxo));
+            if (estado != null) {
+                receberReinicio(estado, datagrama.getInt(4));
+            }
+        }
+    }
+
+    /**
+     * Guarda um segmento na janela de recepção, entrega os que ficaram em
+     * ordem e confirma. Um segmento de início de uma época nova recomeça a
+     * recepção; os demais segmentos de uma época desconhecida pedem REINICIO.
+     */
+    private void receberDados(Fluxo estado, int sequencia, int epoca, boolean inicio, byte[] dados)
+            throws IOException {
+        ArrayDeque<byte[]> prontas = new ArrayDeque<>();
+        ByteBuffer confirmacao = ByteBuffer.allocate(TAMANHO_ACK);
+        synchronized (estado) {
+            estado.ultimaAtividade = System.nanoTime();
+            if (epoca != estado.epocaRecepcao) {
+                if (!inicio) {
+                    ByteBuffer reinicio = ByteBuffer.allocate(TAMANHO_REINICIO);
+                    reinicio.put((byte) MARCADOR).put((byte) TIPO_REINICIO).putShort((short) estado.chave.fluxo)
+                            .putInt(epoca).flip();
+                    transmitir(reinicio, estado.chave.endereco);
+                    return;
+                }
+                estado.epocaRecepcao = epoca;
+                estado.esperado = 0;
+                Arrays.fill(estado.recebidos, null);
+            }
+            int distancia = sequencia - estado.esperado;
+            if (distancia < 0 || distancia < JANELA && estado.recebidos[indice(sequencia)] != null) {
+                duplicadosRecebidos.increment();
+            } else if (distancia < JANELA) {
+                estado.recebidos[indice(sequencia)] = dados;
+                while (estado.recebidos[indice(estado.esperado)] != null) {
+                    prontas.add(estado.recebidos[indice(estado.esperado)]);
+                    estado.recebidos[indice(estado.esperado)] = null;
+                    estado.esperado++;
+                }
+            }
+
+            long mapa = 0;
+            for (int i = 0; i < JANELA - 1; i++) {
+                if (estado.recebidos[indice(estado.esperado + 1 + i)] != null) {
+                    mapa |= 1L << i;
+                }
+            }
+            confirmacao.put((byte) MARCADOR).put((byte) TIPO_ACK).putShort((short) estado.chave.fluxo)
+                       .putInt(estado.esperado).putLong(mapa).putInt(estado.epocaRecepcao).flip();
+        }
+        confirmacoesEnviadas.increment();
+        transmitir(confirmacao, estado.chave.endereco);
+
+        // Só a thread do canal entrega: a ordem de cada fluxo se mantém fora da trava
+        for (byte[] mensagem : prontas) {
+            mensagensEntregues.increment();
+            try {
+                entrega.entregar(this, estado.chave.endereco, estado.chave.fluxo, mensagem);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Erro na entrega de mensagem do fluxo " + estado.chave, e);
+            }
+        }
+    }
+
+    /**
+     * Libera os segmentos confirmados, atualiza o RTT, faz a retransmissão
+     * rápida da primeira lacuna e transmite mais da fila.
+     */
+    private void receberConfirmacao(Fluxo estado, int proximaEsperada, long mapa, int epoca) throws IOException {
+        long agora = System.nanoTime();
+        synchronized (estado) {
+            if (epoca != estado.epocaEnvio || proximaEsperada - estado.base < 0
+                    || proximaEsperada - estado.proximo > 0) {
+                return;
+            }
+            estado.ultimaAtividade = agora;
+
+            // Confirmação cumulativa
+            while (estado.base != proximaEsperada) {
+                confirmar(estado, estado.janela[indice(estado.base)], agora);
+                estado.janela[indice(estado.base)] = null;
+                estado.base++;
+            }
+
+            // Confirmação seletiva
+            int posteriores = 0;
+            for (int i = 0; i < JANELA - 1; i++) {
+                int sequencia = proximaEsperada + 1 + i;
+                if ((mapa & 1L << i) != 0 && sequencia - estado.proximo < 0) {
+                    confirmar(estado, estado.janela[indice(sequencia)], agora);
+                    posteriores++;
+                }
+            }
+
+            // Retransmissão rápida da lacuna
+            Segmento lacuna = estado.base != estado.proximo ? estado.janela[indice(estado.base)] : null;
+            if (lacuna != null && !lacuna.confirmado && !lacuna.retransmitidoRapido
+                    && posteriores >= LIMIAR_RETRANSMISSAO_RAPIDA) {
+                lacuna.retransmitidoRapido = true;
+                retransmissoesRapidas.increment();
+                transmitirSegmento(estado, lacuna, agora);
+            }
+
+            transmitirFila(estado);
+            estado.notifyAll();
+        }
+    }
+
+    /**
+     * O destino não conhece a época atual (descartou o estado do fluxo ou
+     * reiniciou): passa a uma época nova e reenvia, renumerado a partir de
+     * zero, tudo o que ainda não foi confirmado cumulativamente, já que nada
+     * disso foi entregue. Enquanto a sequência zero da época não for
+     * confirmada, o pedido é ignorado: os segmentos com a marca de início
+     * recomeçam a recepção.
+     */
+    private void receberReinicio(Fluxo estado, int epoca) throws IOException {
+        synchronized (estado) {
+            if (epoca != estado.epocaEnvio || estado.base == 0 || estado.abandonado) {
+                return;
+            }
+            for (int sequencia = estado.proximo - 1; sequencia - estado.base >= 0; sequencia--) {
+                estado.fila.addFirst(estado.janela[indice(sequencia)].dados);
+            }
+            Arrays.fill(estado.janela, null);
+            estado.epocaEnvio = Fluxo.novaEpoca();
+            estado.base = 0;
+            estado.proximo = 0;
+            estado.ultimaAtividade = System.nanoTime();
+            reinicios.increment();
+            LOGGER.info("Fluxo " + estado.chave + " reiniciado: o destino não conhecia a época");
+            transmitirFila(estado);
+        }
+    }
+
+    /**
+     * Marca um segmento como confirmado; se ele foi transmitido uma única
+     * vez, o tempo até a confirmação é uma amostra de RTT (algoritmo de Karn).
+     */
+    private static void confirmar(Fluxo estado, Segmento segmento, long agora) {
+        if (segmento == null || segmento.confirmado) {
+            return;
+        }
+        segmento.confirmado = true;
+        if (segmento.transmissoes == 1) {
+            estado.registrarRtt(agora - segmento.enviadoEm);
+        }
+    }
+
+    /**
+     * Retransmite os segmentos com prazo vencido e descarta fluxos inativos.
+     */
+    private void verificarTemporizadores(long agora) throws IOException {
+        for (Fluxo estado : fluxos.values()) {
+            synchronized (estado) {
+                boolean expirou = false;
+                for (int sequencia = estado.base; sequencia != estado.proximo; sequencia++) {
+                    Segmento segmento = estado.janela[indice(sequencia)];
+                    if (segmento == null || segmento.confirmado || agora - segmento.prazo < 0) {
+                        continue;
+                    }
+                    if (segmento.transmissoes >= TRANSMISSOES_MAXIMAS) {
+                        abandonar(estado);
+                        break;
+                    }
+                    if (!expirou) {
+                        // Uma expiração dobra o RTO uma vez, não uma vez por segmento
+                        estado.rto = Math.min(estado.rto * 2, RTO_MAXIMO_NANOS);
+                        expirou = true;
+                    }
+                    retransmissoesTempo.increment();
+                    transmitirSegmento(estado, segmento, agora);
+                }
+
+                if (estado.base == estado.proximo && estado.fila.isEmpty()
+                        && agora - estado.ultimaAtividade > EXPIRACAO_FLUXO_NANOS) {
+                    // Marcado sob a trava: quem já obteve este estado e ainda não travou busca outro
+                    estado.removido = true;
+                    fluxos.remove(estado.chave, estado);
+                }
+            }
+        }
+    }
+
+    /**
+     * Desiste de um fluxo cujo destino não confirma mais nada.
+     */
+    private void abandonar(Fluxo estado) {
+        estado.abandonado = true;
+        estado.fila.clear();
+        estado.base = estado.proximo;
+        Arrays.fill(estado.janela, null);
+        fluxosAbandonados.increment();
+        estado.notifyAll();
+        LOGGER.warning("Fluxo " + estado.chave + " abandonado após " + TRANSMISSOES_MAXIMAS + " transmissões");
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Retorna o estado de um fluxo, criando-o se necessário.
+     */
+    private Fluxo obterFluxo(SocketAddress endereco, int fluxo) throws IOException {
+        if (!aberto) {
+            throw new IOException("Canal confiável fechado");
+        }
+        if (fluxo < 0 || fluxo > FLUXO_MAXIMO) {
+            throw new IllegalArgumentException("Fluxo deve estar entre 0 e " + FLUXO_MAXIMO);
+        }
+        return fluxos.computeIfAbsent(new ChaveFluxo(endereco, fluxo), Fluxo::new);
+    }
+
+    /**
+     * Lança IOException se o fluxo não puder mais ser usado.
+     */
+    private void verificarUtilizavel(Fluxo estado) throws IOException {
+        if (!aberto) {
+            throw new IOException("Canal confiável fechado");
+        }
+        if (estado.abandonado) {
+            throw new IOException("Fluxo " + estado.chave + " abandonado: o destino não confirma");
+        }
+    }
+
+    /**
+     * Posição de uma sequência nas janelas circulares.
+     */
+    private static int indice(int sequencia) {
+        return sequencia & (JANELA - 1);
+    }
+
+    /**
+     * Encerra a thread e fecha o canal; quem espera em enviar() ou
+     * aguardarConfirmacoes() recebe IOException.
+     */
+    @Override
+    public void close() throws IOException {
+        aberto = false;
+        seletor.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Fluxo estado : fluxos.values()) {
+            synchronized (estado) {
+                estado.notifyAll();
+            }
+        }
+        seletor.close();
+        canal.close();
+    }
+
+    // ==================== CONFIGURAÇÃO ====================
+
+    /**
+     * Define a fração dos datagramas enviados que é descartada de propósito.
+     *
+     * @param perda Probabilidade de descarte, de 0 (nenhum) a 1 (todos)
+     */
+    public void setPerdaEmulada(double perda) {
+        if (perda < 0 || perda > 1) {
+            throw new IllegalArgumentException("Perda emulada deve estar entre 0 e 1");
+        }
+        this.perdaEmulada = perda;
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna a porta local do canal.
+     *
+     * @return Porta
+     * @throws IOException se o canal estiver fechado
+     */
+    public int getPorta() throws IOException {
+        return ((InetSocketAddress) canal.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Retorna o número de retransmissões (por tempo e rápidas).
+     *
+     * @return Retransmissões
+     */
+    public long getRetransmissoes() {
+        return retransmissoesTempo.sum() + retransmissoesRapidas.sum();
+    }
+
+    /**
+     * Gera um resumo dos contadores do canal.
+     *
+     * @return Relatório em uma linha
+     */
+    public String gerarRelatorio() {
+        return String.format("%d segmento(s) enviado(s), %d retransmissão(ões) por tempo e %d rápida(s), " +
+                             "%d confirmação(ões), %d mensagem(ns) entregue(s), %d duplicado(s), " +
+                             "%d descarte(s) emulado(s), %d fluxo(s) ativo(s), %d abandonado(s), " +
+                             "%d reiniciado(s)",
+                             segmentosEnviados.sum(), retransmissoesTempo.sum(), retransmissoesRapidas.sum(),
+                             confirmacoesEnviadas.sum(), mensagensEntregues.sum(), duplicadosRecebidos.sum(),
+                             descartesEmulados.sum(), fluxos.size(), fluxosAbandonados.sum(), reinicios.sum());
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * Destino das mensagens recebidas.
+     */
+    @FunctionalInterface
+    public interface Entrega {
+
+        /**
+         * Recebe uma mensagem, na ordem de envio do seu fluxo. Chamado na
+         * thread do canal: deve ser rápido e pode responder com canal.enviar().
+         *
+         * @param canal Canal que recebeu a mensagem
+         * @param origem Endereço remoto
+         * @param fluxo Identificador do fluxo
+         * @param dados Mensagem
+         */
+        void entregar(CanalConfiavelUDP canal, SocketAddress origem, int fluxo, byte[] dados);
+    }
+
+    /**
+     * Identificação de um fluxo: endereço remoto e número do fluxo.
+     */
+    private static final class ChaveFluxo {
+        final SocketAddress endereco;
+        final int fluxo;
+
+        ChaveFluxo(SocketAddress endereco, int fluxo) {
+            this.endereco = endereco;
+            this.fluxo = fluxo;
+        }
+
+        @Override
+        public boolean equals(Object outro) {
+            return outro instanceof ChaveFluxo && ((ChaveFluxo) outro).fluxo == fluxo
+                   && ((ChaveFluxo) outro).endereco.equals(endereco);
+        }
+
+        @Override
+        public int hashCode() {
+            return endereco.hashCode() * 31 + fluxo;
+        }
+
+        @Override
+        public String toString() {
+            return fluxo + "@" + endereco;
+        }
+    }
+
+    /**
+     * Segmento enviado e ainda não liberado da janela.
+     */
+    private static final class Segmento {
+        final int sequencia;
+        final byte[] dados;
+        int transmissoes;
+        long enviadoEm;
+        long prazo;
+        boolean confirmado;
+        boolean retransmitidoRapido;
+
+        Segmento(int sequencia, byte[] dados) {
+            this.sequencia = sequencia;
+            this.dados = dados;
+        }
+    }
+
+    /**
+     * Estado dos dois sentidos de um fluxo (guardado pela sua própria trava).
+     */
+    private static final class Fluxo {
+        final ChaveFluxo chave;
+
+        /** Envio: fila, janela circular, sequência mais antiga não liberada e próxima */
+        final ArrayDeque<byte[]> fila = new ArrayDeque<>();
+        final Segmento[] janela = new Segmento[JANELA];
+        int base;
+        int proximo;
+
+        /** Época do envio (sequências a partir de zero) e a última adotada na recepção (0 = nenhuma) */
+        int epocaEnvio = novaEpoca();
+        int epocaRecepcao;
+
+        /** Estimativa de RTT (RFC 6298) */
+        long rttSuavizado = -1;
+        long variacaoRtt;
+        long rto = RTO_INICIAL_NANOS;
+
+        /** Recepção: próxima sequência a entregar e segmentos adiantados */
+        final byte[][] recebidos = new byte[JANELA][];
+        int esperado;
+
+        long ultimaAtividade = System.nanoTime();
+        boolean abandonado;
+
+        /** Retirado de fluxos por inatividade; um envio que o obteve antes deve buscar outro */
+        boolean removido;
+
+        Fluxo(ChaveFluxo chave) {
+            this.chave = chave;
+        }
+
+        static int novaEpoca() {
+            int epoca;
+            do {
+                epoca = ThreadLocalRandom.current().nextInt();
+            } while (epoca == 0);
+            return epoca;
+        }
+
+        void registrarRtt(long amostra) {
+            if (rttSuavizado < 0) {
+                rttSuavizado = amostra;
+                variacaoRtt = amostra / 2;
+            } else {
+                variacaoRtt = (3 * variacaoRtt + Math.abs(rttSuavizado - amostra)) / 4;
+                rttSuavizado = (7 * rttSuavizado + amostra) / 8;
+            }
+            rto = Math.max(RTO_MINIMO_NANOS, Math.min(RTO_MAXIMO_NANOS, rttSuavizado + 4 * variacaoRtt));
+        }
+    }
+}
@@ -9,12 +9,27 @@
  * Funcionalidades:
  * - Envio de datagramas UDP
  * - Recepção de resposta com timeout
+ * - Prazo enviado ao servidor (CabecalhoUDP), que descarta requisições expiradas
+ * - Mensagens maiores que o MTU enviadas em fragmentos (FragmentadorUDP) e
+ *   respostas fragmentadas remontadas (RemontadorUDP)
+ * - Reenvio por timeout com o mesmo identificador de requisição, que o
+ *   servidor usa para responder repetições do cache (CacheRespostasUDP)
  * - Configuração via argumentos de linha de comando
  * - Tratamento robusto de exceções de rede
  * - Logs detalhados de atividade
+ * - Modo carga (GeradorCargaUDP): envio em malha aberta a uma taxa alvo, com
+ *   perda, reordenação e percentis de latência corrigidos
+ * - Modo confiável (CanalConfiavelUDP): mensagens retransmitidas até a
+ *   confirmação e respostas entregues na ordem de envio
  * 
- * Argumentos: <servidor> <porta> <mensagem>
- * Exemplo: java ClienteUDP localhost 6789 "mensagem teste"
+ * Argumentos: <servidor> <porta> <mensagem> [prazo] [repetir] [tentativas]
+ *             carga [servidor] [porta] [taxas] [tamanho] [sockets] [segundos]
+ *             confiavel [servidor] [porta] [mensagem] [repeticoes] [perda]
+ * Exemplo: java ClienteUDP localhost 6789 "mensagem teste" 500
+ *          java ClienteUDP localhost 6789 "bloco " 2000 50000
+ *          java ClienteUDP localhost 6789 "com reenvio" 1000 1 5
+ *          java ClienteUDP carga localhost 6789 1000,10000,50000 64 4 5
+ *          java ClienteUDP confiavel localhost 6789 "mensagem teste" 100 0.1
  * 
  * @author Sistema de Comunicação UDP
  * @version 2.0
@@ -23,6 +38,11 @@
 
 import java.net.*;
 import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -42,11 +62,17 @@ public class ClienteUDP {
     /** Mensagem padrão */
     private static final String MENSAGEM_PADRAO = "MENSAGEM TESTE UDP";
 
-    /** Timeout padrão para recepção em milissegundos */
+    /** Timeout padrão para recepção (e prazo informado ao servidor) em milissegundos */
     private static final int TIMEOUT_RECEPCAO = 10000;
 
-    /** Tamanho do buffer para resposta */
-    private static final int TAMANHO_BUFFER = 1024;
+    /** Tamanho do buffer para resposta (o maior datagrama UDP, para nunca truncar) */
+    private static final int TAMANHO_BUFFER = FragmentadorUDP.DATAGRAMA_MAXIMO;
+
+    /** Respostas mais longas que isto (em bytes) são decodificadas e exibidas só no início */
+    private static final int BYTES_EXIBIDOS = 200;
+
+    /** Fluxo usado pelo modo confiável */
+    private static final int FLUXO_CONFIAVEL = 1;
 
     /** Logger para registrar eventos do cliente */
     private static final Logger LOGGER = Logger.getLogger(ClienteUDP.class.getName());
@@ -60,10 +86,35 @@ public class ClienteUDP {
      * - args[0]: Endereço do servidor (opcional, padrão: localhost)
      * - args[1]: Porta do servidor (opcional, padrão: 6789)
      * - args[2]: Mensagem a enviar (opcional, padrão: MENSAGEM TESTE UDP)
+     * - args[3]: Prazo em ms, usado também como timeout (opcional, padrão: 10000)
+     * - args[4]: Repetir a mensagem N vezes, para testar mensagens grandes (opcional, padrão: 1)
+     * - args[5]: Tentativas; o prazo é dividido entre elas (opcional, padrão: 1)
+     * 
+     * Com args[0] = "carga", os demais argumentos vão para o GeradorCargaUDP;
+     * com args[0] = "confiavel", a comunicação usa o CanalConfiavelUDP.
      * 
      * @param args Argumentos da linha de comando
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("carga")) {
+            GeradorCargaUDP.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("confiavel")) {
+            try {
+                executarConfiavel(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Erro nos argumentos: " + e.getMessage());
+                exibirAjuda();
+                System.exit(1);
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Erro no modo confiável", e);
+                System.err.println("✗ Erro no modo confiável: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+
         ClienteUDP cliente = new ClienteUDP();
 
         try {
@@ -95,25 +146,43 @@ public class ClienteUDP {
         System.out.println("=== Cliente UDP ===");
         System.out.println("Servidor: " + config.servidor + ":" + config.porta);
         System.out.println("Mensagem: \"" + config.mensagem + "\"");
-        System.out.println("Timeout: " + TIMEOUT_RECEPCAO + "ms");
+        System.out.println("Timeout/prazo: " + config.prazoMs + "ms" +
+                           (config.tentativas > 1 ? " em " + config.tentativas + " tentativas" : ""));
         System.out.println();
 
         DatagramSocket socket = null;
 
         try {
             // Criar socket UDP
-            socket = criarSocket();
-
-            // Preparar e enviar datagrama
-            enviarMensagem(socket, config);
-
-            // Aguardar e processar resposta
-            receberResposta(socket);
+            int timeoutTentativaMs = Math.max(1, config.prazoMs / config.tentativas);
+            socket = criarSocket(timeoutTentativaMs);
+
+            // O mesmo identificador em todas as tentativas: o servidor reconhece a repetição
+            long idRequisicao = ThreadLocalRandom.current().nextLong();
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.prazoMs);
+            for (int tentativa = 1; ; tentativa++) {
+                // Preparar e enviar datagrama, com o prazo que ainda resta
+                int restanteMs = (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime()));
+                enviarMensagem(socket, config, idRequisicao, restanteMs);
+
+                // Aguardar e processar resposta
+                try {
+                    socket.setSoTimeout(Math.min(timeoutTentativaMs, restanteMs));
+                    receberResposta(socket);
+                    break;
+                } catch (SocketTimeoutException e) {
+                    if (tentativa >= config.tentativas) {
+                        throw e;
+                    }
+                    System.out.println("⚠ Sem resposta, reenviando (tentativa " + (tentativa + 1) + " de " +
+                                       config.tentativas + ")");
+                }
+            }
 
             System.out.println("✓ Comunicação UDP concluída com sucesso!");
 
         } catch (SocketTimeoutException e) {
-            System.err.println("✗ Timeout: Servidor não respondeu em " + TIMEOUT_RECEPCAO + "ms");
+            System.err.println("✗ Timeout: Servidor não respondeu em " + config.prazoMs + "ms");
             LOGGER.warning("Timeout aguardando resposta do servidor");
         } catch (SocketException e) {
             System.err.println("✗ Erro no socket UDP: " + e.getMessage());
@@ -134,12 +203,14 @@ public class ClienteUDP {
     /**
      * Cria e configura socket UDP.
      * 
+     * @param timeoutMs Tempo máximo de espera pela resposta
      * @return Socket UDP configurado
      * @throws SocketException se houver erro na criação
      */
-    private DatagramSocket criarSocket() throws SocketException {
+    private DatagramSocket criarSocket(int timeoutMs) throws SocketException {
         DatagramSocket socket = new DatagramSocket();
-        socket.setSoTimeout(TIMEOUT_RECEPCAO);
+        socket.setSoTimeout(timeoutMs);
+        socket.setReceiveBufferSize(FragmentadorUDP.BUFFER_SOCKET);
 
         System.out.println("✓ Socket UDP criado na porta local: " + socket.getLocalPort());
         LOGGER.info("Socket UDP criado na porta " + socket.getLocalPort());
@@ -152,32 +223,44 @@ public class ClienteUDP {
      * 
      * @param socket Socket UDP para envio
      * @param config Configuração com dados do servidor e mensagem
+     * @param idRequisicao Identificador da requisição, igual em todas as tentativas
+     * @param prazoMs Prazo restante informado ao servidor
      * @throws IOException se houver erro no envio
      */
-    private void enviarMensagem(DatagramSocket socket, ConfiguracaoCliente config)
+    private void enviarMensagem(DatagramSocket socket, ConfiguracaoCliente config, long idRequisicao, int prazoMs)
             throws IOException {
 
         System.out.print("Enviando datagrama...");
 
         try {
-            // Converter mensagem para bytes
-            byte[] dadosMensagem = config.mensagem.getBytes("UTF-8");
+            // Converter mensagem para bytes, com o prazo no cabeçalho
+            byte[] dadosMensagem = CabecalhoUDP.codificar(config.mensagem.getBytes("UTF-8"), prazoMs, idRequisicao);
 
             // Resolver endereço do servidor
             InetAddress enderecoServidor = InetAddress.getByName(config.servidor);
 
-            // Criar datagrama
-            DatagramPacket pacoteEnvio = new DatagramPacket(
-                    dadosMensagem,
-                    dadosMensagem.length,
-                    enderecoServidor,
-                    config.porta);
-
-            // Enviar datagrama
-            socket.send(pacoteEnvio);
+            // Maior que um datagrama do MTU do caminho: enviar em fragmentos
+            FragmentadorUDP fragmentador = FragmentadorUDP.paraDestino(enderecoServidor);
+            int fragmentos = 1;
+            if (fragmentador.precisaFragmentar(dadosMensagem.length)) {
+                fragmentos = fragmentador.enviar(socket, dadosMensagem, 0, dadosMensagem.length,
+                                                 new InetSocketAddress(enderecoServidor, config.porta));
+            } else {
+                // Criar datagrama
+                DatagramPacket pacoteEnvio = new DatagramPacket(
+                        dadosMensagem,
+                        dadosMensagem.length,
+                        enderecoServidor,
+                        config.porta);
+
+                // Enviar datagrama
+                socket.send(pacoteEnvio);
+            }
 
             System.out.println(" ✓ Enviado!");
-            System.out.println("  - Tamanho: " + dadosMensagem.length + " bytes");
+            System.out.println("  - Tamanho: " + dadosMensagem.length + " bytes" + (fragmentos > 1
+                    ? " em " + fragmentos + " fragmentos de até " + fragmentador.getTamanhoDatagrama() + " bytes"
+                    : ""));
             System.out.println("  - Destino: " + enderecoServidor.getHostAddress() + ":" + config.porta);
 
             LOGGER.info("Datagrama enviado para " + enderecoServidor + ":" + config.porta +
@@ -206,22 +289,39 @@ public class ClienteUDP {
             byte[] buffer = new byte[TAMANHO_BUFFER];
             DatagramPacket pacoteResposta = new DatagramPacket(buffer, buffer.length);
 
-            // Receber resposta (bloqueante com timeout)
+            // Receber resposta (bloqueante com timeout); se vier fragmentada, até remontá-la
+            RemontadorUDP remontador = new RemontadorUDP();
+            RemontadorUDP.Mensagem mensagem = null;
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(socket.getSoTimeout());
             socket.receive(pacoteResposta);
+            while (FragmentadorUDP.isFragmento(pacoteResposta)
+                   && (mensagem = remontador.receber(pacoteResposta, System.nanoTime())) == null) {
+                long restanteMs = TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime());
+                if (restanteMs <= 0) {
+                    throw new SocketTimeoutException("Resposta incompleta: " + remontador.gerarRelatorio());
+                }
+                socket.setSoTimeout((int) restanteMs);
+                pacoteResposta.setLength(buffer.length);
+                socket.receive(pacoteResposta);
+            }
+            if (mensagem != null) {
+                pacoteResposta = mensagem.comoPacote();
+            }
 
             System.out.println(" ✓ Recebido!");
 
-            // Processar resposta
-            String resposta = new String(
+            // Processar resposta: só o início é decodificado, mesmo em respostas remontadas grandes
+            String resposta = CabecalhoUDP.resumir(
                     pacoteResposta.getData(),
-                    0,
+                    pacoteResposta.getOffset(),
                     pacoteResposta.getLength(),
-                    "UTF-8");
+                    BYTES_EXIBIDOS);
 
             // Exibir informações da resposta
             System.out.println("\n=== Resposta do Servidor ===");
             System.out.println("Conteúdo: \"" + resposta + "\"");
-            System.out.println("Tamanho: " + pacoteResposta.getLength() + " bytes");
+            System.out.println("Tamanho: " + pacoteResposta.getLength() + " bytes" +
+                    (mensagem != null ? " (remontada de fragmentos)" : ""));
             System.out.println("Origem: " + pacoteResposta.getAddress().getHostAddress() +
                     ":" + pacoteResposta.getPort());
 
@@ -250,6 +350,8 @@ public class ClienteUDP {
         String servidor = SERVIDOR_PADRAO;
         int porta = PORTA_PADRAO;
         String mensagem = MENSAGEM_PADRAO;
+        int prazoMs = TIMEOUT_RECEPCAO;
+        int tentativas = 1;
 
         try {
             if (args.length > 0 && !args[0].trim().isEmpty()) {
@@ -267,26 +369,130 @@ public class ClienteUDP {
                 mensagem = args[2].trim();
             }
 
+            if (args.length > 3) {
+                prazoMs = Integer.parseInt(args[3]);
+                if (prazoMs < 1) {
+                    throw new IllegalArgumentException("Prazo deve ser positivo");
+                }
+            }
+
+            if (args.length > 4) {
+                int repetir = Integer.parseInt(args[4]);
+                if (repetir < 1 || (long) repetir * mensagem.length() > FragmentadorUDP.MENSAGEM_MAXIMA) {
+                    throw new IllegalArgumentException("Repetição deve ser positiva e a mensagem ter até " +
+                                                       FragmentadorUDP.MENSAGEM_MAXIMA + " caracteres");
+                }
+                mensagem = mensagem.repeat(repetir);
+            }
+
+            if (args.length > 5) {
+                tentativas = Integer.parseInt(args[5]);
+                if (tentativas < 1) {
+                    throw new IllegalArgumentException("Tentativas devem ser positivas");
+                }
+            }
+
         } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Porta deve ser um número válido");
+            throw new IllegalArgumentException("Porta, prazo, repetição e tentativas devem ser números válidos");
+        }
+
+        return new ConfiguracaoCliente(servidor, porta, mensagem, prazoMs, tentativas);
+    }
+
+    // ==================== MODO CONFIÁVEL ====================
+
+    /**
+     * Envia a mensagem várias vezes pelo CanalConfiavelUDP e confere que
+     * todas as respostas chegam, na ordem de envio.
+     * 
+     * @param args [servidor] [porta] [mensagem] [repeticoes] [perda]
+     * @throws IOException se o canal falhar ou um fluxo for abandonado
+     * @throws InterruptedException se a espera for interrompida
+     */
+    private static void executarConfiavel(String[] args) throws IOException, InterruptedException {
+        String servidor = args.length > 0 ? args[0] : SERVIDOR_PADRAO;
+        int porta = args.length > 1 ? Integer.parseInt(args[1]) : PORTA_PADRAO;
+        String mensagem = args.length > 2 ? args[2] : MENSAGEM_PADRAO;
+        int repeticoes = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        double perda = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+        if (repeticoes < 1) {
+            throw new IllegalArgumentException("Repetições devem ser positivas");
         }
 
-        return new ConfiguracaoCliente(servidor, porta, mensagem);
+        InetSocketAddress destino = new InetSocketAddress(InetAddress.getByName(servidor), porta);
+        BlockingQueue<byte[]> respostas = new LinkedBlockingQueue<>();
+
+        System.out.println("=== Cliente UDP (confiável) ===");
+        System.out.println("Servidor: " + destino + " | Mensagens: " + repeticoes + " | Perda emulada: " +
+                           (perda * 100) + "%\n");
+
+        try (CanalConfiavelUDP canal = new CanalConfiavelUDP(0, (c, origem, fluxo, dados) -> respostas.add(dados))) {
+            canal.setPerdaEmulada(perda);
+            long inicio = System.nanoTime();
+            for (int i = 0; i < repeticoes; i++) {
+                canal.enviar(destino, FLUXO_CONFIAVEL, textoConfiavel(mensagem, i, repeticoes).getBytes("UTF-8"));
+            }
+
+            String ultima = null;
+            for (int i = 0; i < repeticoes; i++) {
+                byte[] resposta = respostas.poll(TIMEOUT_RECEPCAO, TimeUnit.MILLISECONDS);
+                if (resposta == null) {
+                    System.err.println("✗ Timeout: " + i + " de " + repeticoes + " resposta(s) recebida(s)");
+                    System.err.println("  " + canal.gerarRelatorio());
+                    return;
+                }
+                ultima = new String(resposta, "UTF-8");
+                LOGGER.fine("Resposta confiável #" + i + ": " + ultima);
+
+                // Servidor de eco devolve o texto; o de inversão, o texto invertido
+                String esperada = textoConfiavel(mensagem, i, repeticoes);
+                if (!ultima.equals(esperada) && !ultima.equals(new StringBuilder(esperada).reverse().toString())) {
+                    System.err.println("✗ Resposta #" + i + " fora de ordem: \"" + ultima + "\"");
+                    return;
+                }
+            }
+            long milis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+            System.out.println("✓ " + repeticoes + " resposta(s) recebida(s) em ordem em " + milis + " ms");
+            System.out.println("  Última resposta: \"" + ultima + "\"");
+            System.out.println("  " + canal.gerarRelatorio());
+        }
+    }
+
+    /**
+     * Texto da i-ésima mensagem do modo confiável (numerada quando há repetições).
+     */
+    private static String textoConfiavel(String mensagem, int i, int repeticoes) {
+        return repeticoes == 1 ? mensagem : "#" + i + " " + mensagem;
     }
 
     /**
      * Exibe ajuda sobre uso do programa.
      */
     private static void exibirAjuda() {
-        System.out.println("\nUso: java ClienteUDP [servidor] [porta] [mensagem]");
+        System.out.println("\nUso: java ClienteUDP [servidor] [porta] [mensagem] [prazo] [repetir] [tentativas]");
         System.out.println("  servidor: Endereço do servidor (padrão: localhost)");
         System.out.println("  porta:    Porta do servidor (padrão: 6789)");
         System.out.println("  mensagem: Mensagem a enviar (padrão: MENSAGEM TESTE UDP)");
+        System.out.println("  prazo:    Tempo máximo de espera em ms, informado ao servidor (padrão: 10000)");
+        System.out.println("  repetir:  Repetir a mensagem N vezes; acima do MTU, ela vai em fragmentos (padrão: 1)");
+        System.out.println("  tentativas: Reenvios com o mesmo identificador, dividindo o prazo (padrão: 1)");
+        System.out.println("\nModo carga: java ClienteUDP carga [servidor] [porta] [taxas] [tamanho] [sockets] " +
+                           "[segundos]");
+        System.out.println("  (envio em malha aberta; veja GeradorCargaUDP)");
+        System.out.println("Modo confiável: java ClienteUDP confiavel [servidor] [porta] [mensagem] [repeticoes] " +
+                           "[perda]");
+        System.out.println("  (retransmissão e entrega em ordem; veja CanalConfiavelUDP)");
         System.out.println("\nExemplos:");
         System.out.println("  java ClienteUDP");
         System.out.println("  java ClienteUDP 192.168.1.100");
         System.out.println("  java ClienteUDP localhost 8080");
         System.out.println("  java ClienteUDP servidor.com 6789 \"Olá servidor UDP!\"");
+        System.out.println("  java ClienteUDP localhost 6789 \"com prazo\" 50");
+        System.out.println("  java ClienteUDP localhost 6789 \"bloco \" 2000 50000");
+        System.out.println("  java ClienteUDP localhost 6789 \"com reenvio\" 1000 1 5");
+        System.out.println("  java ClienteUDP carga localhost 6789 1000,10000,50000 64 4 5");
+        System.out.println("  java ClienteUDP confiavel localhost 6789 \"mensagem teste\" 100 0.1");
     }
 
     // ==================== CLASSES AUXILIARES ====================
@@ -298,11 +504,15 @@ public class ClienteUDP {
         final String servidor;
         final int porta;
         final String mensagem;
+        final int prazoMs;
+        final int tentativas;
 
-        ConfiguracaoCliente(String servidor, int porta, String mensagem) {
+        ConfiguracaoCliente(String servidor, int porta, String mensagem, int prazoMs, int tentativas) {
             this.servidor = servidor;
             this.porta = porta;
             this.mensagem = mensagem;
+            this.prazoMs = prazoMs;
+            this.tentativas = tentativas;
         }
     }
 }
@@ -0,0 +1,254 @@
+/**
+ * FragmentadorUDP - Divide mensagens grandes em datagramas do tamanho do MTU
+ *
+ * Os servidores clássicos recebiam em buffers de 1 KB, e um datagrama maior
+ * era truncado sem aviso. Um datagrama UDP maior que o MTU do caminho também
+ * seria fragmentado pelo IP, e a perda de qualquer fragmento IP descarta o
+ * datagrama inteiro sem que a aplicação saiba qual parte faltou.
+ *
+ * Este fragmentador divide a mensagem lógica (já com o CabecalhoUDP, se
+ * houver) em fragmentos que cabem em um pacote IP do MTU escolhido, cada um
+ * com um cabeçalho próprio. O RemontadorUDP os reúne no destino.
+ *
+ * Formato de cada fragmento (inteiros big-endian):
+ *   byte 0       0xFD (marcador; nunca inicia um texto UTF-8 válido)
+ *   bytes 1-4    identificador da mensagem (por remetente)
+ *   bytes 5-6    índice do fragmento
+ *   bytes 7-8    total de fragmentos
+ *   bytes 9-12   deslocamento do fragmento na mensagem
+ *   bytes 13-16  tamanho total da mensagem
+ *   restante     parte da mensagem
+ *
+ * Os fragmentos são montados em um único vetor reutilizado: enviar uma
+ * mensagem não aloca nada além dos próprios DatagramPacket do socket.
+ * Uma instância não é thread-safe; use uma por thread de envio.
+ *
+ * @author Sistema de Comunicação UDP
+ * @version 1.0
+ * @since 2025-05-06
+ */
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+
+/**
+ * Fragmentação de mensagens lógicas em datagramas UDP.
+ */
+public class FragmentadorUDP {
+
+    // ==================== CONSTANTES ====================
+
+    /** Primeiro byte de um fragmento (o CabecalhoUDP usa 0xFF e o CanalConfiavelUDP 0xFE) */
+    public static final int MARCADOR = 0xFD;
+
+    /** Tamanho do cabeçalho de fragmento */
+    public static final int CABECALHO = 17;
+
+    /** Maior datagrama UDP sobre IPv4 */
+    public static final int DATAGRAMA_MAXIMO = 65_507;
+
+    /** Maior mensagem lógica aceita (limita a memória do remontador por mensagem) */
+    public static final int MENSAGEM_MAXIMA = 16 * 1024 * 1024;
+
+    /**
+     * Buffer de recepção a pedir ao kernel em sockets que recebem fragmentos:
+     * os fragmentos de uma mensagem chegam em rajada, e o buffer padrão
+     * (~200 KB) transborda com mensagens de poucas centenas de KB
+     */
+    public static final int BUFFER_SOCKET = 4 * 1024 * 1024;
+
+    /** MTU suposto fora da rede local (Ethernet) */
+    public static final int MTU_PADRAO = 1500;
+
+    /** Cabeçalhos IP + UDP */
+    private static final int CABECALHOS_IPV4 = 20 + 8;
+    private static final int CABECALHOS_IPV6 = 40 + 8;
+
+    /** Menor MTU que um enlace IPv4 deve suportar sem fragmentar (RFC 791) */
+    private static final int MTU_MINIMO = 576;
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Parte da mensagem levada por fragmento */
+    private final int cargaPorFragmento;
+
+    /** Vetor reutilizado para montar cada fragmento */
+    private final byte[] fragmento;
+
+    /** Visão do vetor para escrever o cabeçalho */
+    private final ByteBuffer cabecalho;
+
+    /** Próximo identificador de mensagem */
+    private int proximoId;
+
+    /** Estatísticas */
+    private long mensagensFragmentadas;
+    private long fragmentosEnviados;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria um fragmentador para datagramas de até o tamanho indicado.
+     *
+     * @param tamanhoDatagrama Maior datagrama UDP enviado, cabeçalho de fragmento incluído
+     */
+    public FragmentadorUDP(int tamanhoDatagrama) {
+        if (tamanhoDatagrama <= CABECALHO || tamanhoDatagrama > DATAGRAMA_MAXIMO) {
+            throw new IllegalArgumentException("Datagrama deve ter entre " + (CABECALHO + 1) + " e " +
+                                               DATAGRAMA_MAXIMO + " bytes");
+        }
+        this.cargaPorFragmento = tamanhoDatagrama - CABECALHO;
+        this.fragmento = new byte[tamanhoDatagrama];
+        this.cabecalho = ByteBuffer.wrap(fragmento);
+        this.proximoId = (int) System.nanoTime();
+    }
+
+    /**
+     * Cria um fragmentador com datagramas do tamanho do MTU do caminho até o destino.
+     *
+     * @param destino Endereço de destino
+     * @return Fragmentador
+     */
+    public static FragmentadorUDP paraDestino(InetAddress destino) {
+        return new FragmentadorUDP(tamanhoDatagrama(destino));
+    }
+
+    // ==================== MTU ====================
+
+    /**
+     * Estima o maior datagrama UDP que chega ao destino sem fragmentação IP.
+     *
+     * O Java não expõe o MTU do caminho descoberto pelo kernel; a estimativa
+     * usa o MTU da interface de saída (a que o sistema escolhe para o
+     * destino). Fora da rede local, o caminho pode ter enlaces menores, e o
+     * MTU é limitado a MTU_PADRAO.
+     *
+     * @param destino Endereço de destino
+     * @return Tamanho de datagrama (carga UDP) em bytes
+     */
+    public static int tamanhoDatagrama(InetAddress destino) {
+        int mtu = MTU_PADRAO;
+        try (DatagramSocket sonda = new DatagramSocket()) {
+            // connect() em UDP só consulta a rota, sem enviar nada
+            sonda.connect(destino, 9);
+            NetworkInterface saida = NetworkInterface.getByInetAddress(sonda.getLocalAddress());
+            if (saida != null && saida.getMTU() > 0) {
+                mtu = saida.getMTU();
+            }
+        } catch (SocketException e) {
+            // Sem rota conhecida: mantém o MTU padrão
+        }
+        if (!destino.isLoopbackAddress() && !destino.isSiteLocalAddress() && !destino.isLinkLocalAddress()) {
+            mtu = Math.min(mtu, MTU_PADRAO);
+        }
+        mtu = Math.max(mtu, MTU_MINIMO);
+        int cabecalhos = destino instanceof Inet6Address ? CABECALHOS_IPV6 : CABECALHOS_IPV4;
+        return Math.min(mtu - cabecalhos, DATAGRAMA_MAXIMO);
+    }
+
+    // ==================== ENVIO ====================
+
+    /**
+     * Indica se uma mensagem de tamanho indicado precisa ser fragmentada.
+     *
+     * @param tamanho Tamanho da mensagem
+     * @return true se não cabe em um único datagrama do MTU
+     */
+    public boolean precisaFragmentar(int tamanho) {
+        return tamanho > fragmento.length;
+    }
+
+    /**
+     * Envia a mensagem em fragmentos, em ordem.
+     *
+     * @param socket Socket de envio
+     * @param dados Vetor com a mensagem
+     * @param inicio Início da mensagem no vetor
+     * @param tamanho Tamanho da mensagem
+     * @param destino Endereço e porta de destino
+     * @return Número de fragmentos enviados
+     * @throws IOException se algum envio falhar
+     */
+    public int enviar(DatagramSocket socket, byte[] dados, int inicio, int tamanho, SocketAddress destino)
+            throws IOException {
+        if (tamanho > MENSAGEM_MAXIMA) {
+            throw new IllegalArgumentException("Mensagem de " + tamanho + " bytes excede " + MENSAGEM_MAXIMA);
+        }
+        int total = Math.max(1, (tamanho + cargaPorFragmento - 1) / cargaPorFragmento);
+        if (total > 0xFFFF) {
+            throw new IllegalArgumentException("Mensagem exigiria " + total + " fragmentos");
+        }
+        int id = proximoId++;
+        DatagramPacket pacote = new DatagramPacket(fragmento, fragmento.length, destino);
+        for (int indice = 0; indice < total; indice++) {
+            int deslocamento = indice * cargaPorFragmento;
+            int parte = Math.min(cargaPorFragmento, tamanho - deslocamento);
+            cabecalho.clear();
+            cabecalho.put((byte) MARCADOR).putInt(id).putShort((short) indice).putShort((short) total)
+                     .putInt(deslocamento).putInt(tamanho);
+            System.arraycopy(dados, inicio + deslocamento, fragmento, CABECALHO, parte);
+            pacote.setLength(CABECALHO + parte);
+            socket.send(pacote);
+        }
+        mensagensFragmentadas++;
+        fragmentosEnviados += total;
+        return total;
+    }
+
+    /**
+     * Envia a mensagem em um único datagrama se couber, ou em fragmentos.
+     *
+     * @param socket Socket de envio
+     * @param dados Vetor com a mensagem
+     * @param inicio Início da mensagem no vetor
+     * @param tamanho Tamanho da mensagem
+     * @param destino Endereço e porta de destino
+     * @throws IOException se algum envio falhar
+     */
+    public void enviarMensagem(DatagramSocket socket, byte[] dados, int inicio, int tamanho,
+                               SocketAddress destino) throws IOException {
+        if (precisaFragmentar(tamanho)) {
+            enviar(socket, dados, inicio, tamanho, destino);
+        } else {
+            socket.send(new DatagramPacket(dados, inicio, tamanho, destino));
+        }
+    }
+
+    /**
+     * Indica se um datagrama recebido é um fragmento.
+     *
+     * @param pacote Datagrama recebido
+     * @return true se começa com o marcador de fragmento
+     */
+    public static boolean isFragmento(DatagramPacket pacote) {
+        return pacote.getLength() >= CABECALHO && (pacote.getData()[pacote.getOffset()] & 0xFF) == MARCADOR;
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna o maior datagrama enviado.
+     *
+     * @return Tamanho em bytes, cabeçalho de fragmento incluído
+     */
+    public int getTamanhoDatagrama() {
+        return fragmento.length;
+    }
+
+    /**
+     * Gera um resumo dos envios fragmentados.
+     *
+     * @return Relatório em uma linha
+     */
+    public String gerarRelatorio() {
+        return String.format("%d mensagem(ns) em %d fragmento(s) de até %d bytes", mensagensFragmentadas,
+                             fragmentosEnviados, fragmento.length);
+    }
+}
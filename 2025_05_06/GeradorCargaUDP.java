@@ -0,0 +1,571 @@
+/**
+ * GeradorCargaUDP - Gerador de carga UDP em malha aberta
+ *
+ * O ClienteUDP envia uma mensagem e espera a resposta: um cliente assim só
+ * envia a próxima requisição quando o servidor responde, e quando o servidor
+ * fica lento o cliente também desacelera. As requisições que deixam de ser
+ * enviadas nesse intervalo nunca são medidas (omissão coordenada), e os
+ * percentis parecem bons justamente quando o servidor está saturado.
+ *
+ * Este gerador envia em malha aberta: a requisição i tem um instante
+ * planejado fixo, início + i / taxa, independente das respostas. Cada
+ * datagrama leva, em texto ASCII (para atravessar também os servidores que
+ * invertem o texto):
+ *
+ *   'G'                marcador
+ *   16 dígitos hex     número de sequência
+ *   16 dígitos hex     instante planejado (System.nanoTime)
+ *   16 dígitos hex     instante real do envio
+ *   'x'...             preenchimento até o tamanho pedido
+ *
+ * A latência corrigida é medida desde o instante planejado: se o próprio
+ * gerador atrasar, o atraso entra na medida, como aconteceria com um
+ * usuário real que chegou naquele instante. A latência bruta (desde o envio
+ * real) também é reportada, para comparação.
+ *
+ * Os datagramas são distribuídos em rodízio entre N sockets (portas de
+ * origem distintas, o que reparte a carga de um GrupoSocketsUDP); cada socket
+ * tem uma thread de recepção. Ao final de cada etapa, após uma espera pelos
+ * atrasados, são calculados:
+ * - perda (sem resposta), duplicatas e respostas inválidas
+ * - reordenação: respostas que chegam depois de uma de sequência maior no
+ *   mesmo socket
+ * - percentis da latência corrigida e da bruta
+ *
+ * Com várias taxas (ex.: 1000,5000,20000), as etapas são executadas em
+ * sequência, formando a curva usada para achar o ponto de saturação. As
+ * latências são guardadas uma a uma (16 bytes por datagrama), e os
+ * percentis são exatos.
+ *
+ * Argumentos: [servidor] [porta] [taxas] [tamanho] [sockets] [segundos]
+ * Exemplo: java GeradorCargaUDP localhost 6789 1000,10000,50000 64 4 5
+ *          java ClienteUDP carga localhost 6789 1000,10000,50000 64 4 5
+ *
+ * @author Sistema de Comunicação UDP
+ * @version 1.0
+ * @since 2025-05-06
+ */
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Gerador de carga UDP com agenda fixa e latência corrigida.
+ */
+public class GeradorCargaUDP {
+
+    // ==================== CONSTANTES ====================
+
+    /** Marcador do início da carga */
+    private static final byte MARCADOR = 'G';
+
+    /** Dígitos hexadecimais por campo */
+    private static final int DIGITOS = 16;
+
+    /** Menor datagrama: marcador e três campos */
+    public static final int TAMANHO_MINIMO = 1 + 3 * DIGITOS;
+
+    /** Maior datagrama aceito (os servidores do exercício recebem até 1000 bytes) */
+    public static final int TAMANHO_MAXIMO = 1000;
+
+    /** Maior número de datagramas por etapa (latências guardadas em memória) */
+    private static final long DATAGRAMAS_MAXIMOS = 50_000_000L;
+
+    /** Espera pelas respostas atrasadas ao final de cada etapa */
+    private static final long ESPERA_FINAL_MS = 1000;
+
+    /** Abaixo desta folga o envio espera ativamente, para não perder o instante planejado */
+    private static final long ESPERA_ATIVA_NANOS = 50_000;
+
+    /** Perda acima da qual a etapa é considerada saturada */
+    private static final double PERDA_SATURACAO = 0.01;
+
+    /** Crescimento do p99 corrigido, em relação à primeira etapa, considerado saturação */
+    private static final double FATOR_P99_SATURACAO = 10.0;
+
+    /** Buffer de socket pedido ao kernel */
+    private static final int BUFFER_SOCKET = 4 * 1024 * 1024;
+
+    /** Tabela dos dígitos hexadecimais */
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    /** Logger para registrar eventos do gerador */
+    private static final Logger LOGGER = Logger.getLogger(GeradorCargaUDP.class.getName());
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Endereço do servidor */
+    private final InetSocketAddress destino;
+
+    /** Número de sockets de origem */
+    private final int sockets;
+
+    /** Tamanho de cada datagrama */
+    private final int tamanho;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria um gerador.
+     *
+     * @param destino Endereço do servidor
+     * @param sockets Número de sockets de origem
+     * @param tamanho Tamanho de cada datagrama (TAMANHO_MINIMO..TAMANHO_MAXIMO)
+     */
+    public GeradorCargaUDP(InetSocketAddress destino, int sockets, int tamanho) {
+        if (sockets < 1) {
+            throw new IllegalArgumentException("É preciso pelo menos um socket");
+        }
+        if (tamanho < TAMANHO_MINIMO || tamanho > TAMANHO_MAXIMO) {
+            throw new IllegalArgumentException("Tamanho deve estar entre " + TAMANHO_MINIMO + " e " +
+                                               TAMANHO_MAXIMO + " bytes");
+        }
+        this.destino = destino;
+        this.sockets = sockets;
+        this.tamanho = tamanho;
+    }
+
+    // ==================== MÉTODO PRINCIPAL ====================
+
+    /**
+     * Método principal do gerador.
+     *
+     * @param args [servidor] [porta] [taxas] [tamanho] [sockets] [segundos]
+     */
+    public static void main(String[] args) {
+        try {
+            String servidor = args.length > 0 ? args[0] : "localhost";
+            int porta = args.length > 1 ? Integer.parseInt(args[1]) : 6789;
+            int[] taxas = Arrays.stream((args.length > 2 ? args[2] : "1000,5000,20000").split(","))
+                                .mapToInt(Integer::parseInt).toArray();
+            int tamanho = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+            int sockets = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+            int segundos = args.length > 5 ? Integer.parseInt(args[5]) : 5;
+            if (segundos < 1) {
+                throw new IllegalArgumentException("Duração deve ser de pelo menos 1 segundo");
+            }
+
+            GeradorCargaUDP gerador = new GeradorCargaUDP(new InetSocketAddress(servidor, porta), sockets, tamanho);
+            gerador.executarCurva(taxas, segundos);
+
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erro nos argumentos: " + e.getMessage());
+            exibirAjuda();
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("✗ Erro de I/O: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("✗ Interrompido");
+            System.exit(1);
+        }
+    }
+
+    // ==================== ETAPAS ====================
+
+    /**
+     * Executa uma etapa por taxa e exibe a tabela e o ponto de saturação.
+     *
+     * @param taxas Taxas alvo, em datagramas por segundo
+     * @param segundos Duração de cada etapa
+     * @throws IOException se os sockets não puderem ser abertos
+     * @throws InterruptedException se a execução for interrompida
+     */
+    public void executarCurva(int[] taxas, int segundos) throws IOException, InterruptedException {
+        System.out.println("=== Gerador de Carga UDP (malha aberta) ===");
+        System.out.printf("Destino: %s | Datagrama: %d bytes | Sockets: %d | Etapas de %d s%n%n",
+                          destino, tamanho, sockets, segundos);
+        System.out.println(String.format("%9s %9s %9s %7s %7s %5s %5s %9s %9s %9s %9s %9s %9s",
+                "alvo/s", "envio/s", "resp/s", "perda", "reord", "dup", "inv", "p50", "p99", "p99.9",
+                "máx", "p99 bruto", "atraso"));
+
+        List<Resultado> resultados = new ArrayList<>();
+        for (int taxa : taxas) {
+            Resultado resultado = executar(taxa, segundos);
+            resultados.add(resultado);
+            System.out.println(resultado.gerarLinha());
+        }
+
+        Resultado sustentavel = null;
+        long p99Base = resultados.get(0).percentilCorrigido(99);
+        for (Resultado resultado : resultados) {
+            boolean saturado = resultado.getPerda() > PERDA_SATURACAO
+                               || resultado.percentilCorrigido(99) > FATOR_P99_SATURACAO * Math.max(p99Base, 1);
+            if (saturado) {
+                break;
+            }
+            sustentavel = resultado;
+        }
+        System.out.println();
+        if (sustentavel == null) {
+            System.out.println("⚠ Saturado já na primeira taxa (" + taxas[0] + "/s)");
+        } else if (sustentavel == resultados.get(resultados.size() - 1)) {
+            System.out.println("✓ Sem saturação até " + sustentavel.taxaAlvo + "/s");
+        } else {
+            System.out.println("✓ Maior taxa sem saturação: " + sustentavel.taxaAlvo + "/s (perda ≤ " +
+                               (int) (100 * PERDA_SATURACAO) + "% e p99 corrigido ≤ " + (int) FATOR_P99_SATURACAO +
+                               "x o da primeira etapa)");
+        }
+    }
+
+    /**
+     * Executa uma etapa: envia na taxa alvo pela duração, espera os
+     * atrasados e calcula as estatísticas.
+     *
+     * @param taxa Datagramas por segundo
+     * @param segundos Duração do envio
+     * @return Resultado da etapa
+     * @throws IOException se os sockets não puderem ser abertos
+     * @throws InterruptedException se a execução for interrompida
+     */
+    public Resultado executar(int taxa, int segundos) throws IOException, InterruptedException {
+        if (taxa < 1) {
+            throw new IllegalArgumentException("Taxa deve ser positiva");
+        }
+        long total = (long) taxa * segundos;
+        if (total > DATAGRAMAS_MAXIMOS) {
+            throw new IllegalArgumentException("Etapa com mais de " + DATAGRAMAS_MAXIMOS + " datagramas");
+        }
+
+        DatagramChannel[] canais = new DatagramChannel[sockets];
+        Receptor[] receptores = new Receptor[sockets];
+        Thread[] threads = new Thread[sockets];
+        for (int s = 0; s < sockets; s++) {
+            canais[s] = DatagramChannel.open();
+            canais[s].setOption(StandardSocketOptions.SO_RCVBUF, BUFFER_SOCKET);
+            canais[s].setOption(StandardSocketOptions.SO_SNDBUF, BUFFER_SOCKET);
+            canais[s].connect(destino);
+            receptores[s] = new Receptor(canais[s], s, (int) ((total - s + sockets - 1) / sockets));
+            threads[s] = new Thread(receptores[s], "ReceptorCarga-" + s);
+            threads[s].start();
+        }
+
+        Resultado resultado = new Resultado(taxa);
+        try {
+            enviar(canais, total, taxa, resultado);
+            Thread.sleep(ESPERA_FINAL_MS);
+        } finally {
+            for (DatagramChannel canal : canais) {
+                canal.close();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        resultado.combinar(receptores);
+        LOGGER.info("Etapa de " + taxa + "/s concluída: " + resultado.enviados + " enviados, " +
+                    resultado.recebidos + " respostas");
+        return resultado;
+    }
+
+    /**
+     * Envia os datagramas nos instantes planejados, em rodízio entre os sockets.
+     */
+    private void enviar(DatagramChannel[] canais, long total, int taxa, Resultado resultado) throws IOException {
+        ByteBuffer datagrama = ByteBuffer.allocateDirect(tamanho);
+        for (int i = TAMANHO_MINIMO; i < tamanho; i++) {
+            datagrama.put(i, (byte) 'x');
+        }
+        datagrama.put(0, MARCADOR);
+
+        double periodo = 1e9 / taxa;
+        long inicio = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long planejado = inicio + (long) (i * periodo);
+            long folga = planejado - System.nanoTime();
+            if (folga > ESPERA_ATIVA_NANOS) {
+                LockSupport.parkNanos(folga - ESPERA_ATIVA_NANOS);
+            }
+            while (System.nanoTime() - planejado < 0) {
+                Thread.onSpinWait();
+            }
+
+            long enviado = System.nanoTime();
+            resultado.atrasoMaximoEnvio = Math.max(resultado.atrasoMaximoEnvio, enviado - planejado);
+            escreverHex(datagrama, 1, i);
+            escreverHex(datagrama, 1 + DIGITOS, planejado);
+            escreverHex(datagrama, 1 + 2 * DIGITOS, enviado);
+            datagrama.clear();
+            try {
+                canais[(int) (i % canais.length)].write(datagrama);
+                resultado.enviados++;
+            } catch (PortUnreachableException e) {
+                // ICMP de um envio anterior: o servidor não está escutando
+                resultado.errosEnvio++;
+            }
+        }
+        resultado.duracaoEnvio = System.nanoTime() - inicio;
+    }
+
+    // ==================== CODIFICAÇÃO ====================
+
+    /**
+     * Escreve um valor em 16 dígitos hexadecimais a partir da posição indicada.
+     */
+    private static void escreverHex(ByteBuffer destino, int posicao, long valor) {
+        for (int i = DIGITOS - 1; i >= 0; i--) {
+            destino.put(posicao + i, HEX[(int) (valor & 0xF)]);
+            valor >>>= 4;
+        }
+    }
+
+    /**
+     * Lê um campo hexadecimal da carga, em ordem normal ou invertida.
+     *
+     * @return Valor, ou -1 se houver dígito inválido
+     */
+    private static long lerHex(ByteBuffer origem, int posicao, boolean invertida) {
+        long valor = 0;
+        int ultimo = origem.limit() - 1;
+        for (int i = 0; i < DIGITOS; i++) {
+            int c = origem.get(invertida ? ultimo - (posicao + i) : posicao + i);
+            int digito = c >= '0' && c <= '9' ? c - '0' : c >= 'a' && c <= 'f' ? c - 'a' + 10 : -1;
+            if (digito < 0) {
+                return -1;
+            }
+            valor = valor << 4 | digito;
+        }
+        return valor;
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Exibe ajuda sobre uso do programa.
+     */
+    static void exibirAjuda() {
+        System.out.println("\nUso: java GeradorCargaUDP [servidor] [porta] [taxas] [tamanho] [sockets] [segundos]");
+        System.out.println("  servidor: Endereço do servidor (padrão: localhost)");
+        System.out.println("  porta:    Porta do servidor (padrão: 6789)");
+        System.out.println("  taxas:    Datagramas/s de cada etapa, separados por vírgula (padrão: 1000,5000,20000)");
+        System.out.println("  tamanho:  Bytes por datagrama, " + TAMANHO_MINIMO + " a " + TAMANHO_MAXIMO +
+                           " (padrão: 64)");
+        System.out.println("  sockets:  Sockets de origem (padrão: 4)");
+        System.out.println("  segundos: Duração de cada etapa (padrão: 5)");
+        System.out.println("\nExemplos:");
+        System.out.println("  java GeradorCargaUDP localhost 6789 1000,10000,50000");
+        System.out.println("  java ClienteUDP carga localhost 6789 5,10,20,50 64 4 5");
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * Recepção de um socket: registra a latência de cada resposta na posição
+     * da sua sequência (as sequências do socket s são s, s + N, s + 2N...).
+     */
+    private final class Receptor implements Runnable {
+
+        /** Canal conectado ao servidor */
+        private final DatagramChannel canal;
+
+        /** Índice do socket */
+        private final int indice;
+
+        /** Latência corrigida e bruta por posição (-1 = sem resposta) */
+        private final long[] corrigidas;
+        private final long[] brutas;
+
+        /** Maior sequência recebida neste socket */
+        private long maiorSequencia = -1;
+
+        /** Contadores */
+        private long reordenadas;
+        private long duplicadas;
+        private long invalidas;
+
+        Receptor(DatagramChannel canal, int indice, int posicoes) {
+            this.canal = canal;
+            this.indice = indice;
+            this.corrigidas = new long[posicoes];
+            this.brutas = new long[posicoes];
+            Arrays.fill(corrigidas, -1);
+            Arrays.fill(brutas, -1);
+        }
+
+        @Override
+        public void run() {
+            ByteBuffer resposta = ByteBuffer.allocateDirect(TAMANHO_MAXIMO + 1);
+            while (true) {
+                try {
+                    resposta.clear();
+                    canal.read(resposta);
+                    long recebido = System.nanoTime();
+                    resposta.flip();
+                    registrar(resposta, recebido);
+                } catch (ClosedChannelException e) {
+                    return;
+                } catch (PortUnreachableException e) {
+                    // ICMP de porta inalcançável: os datagramas correspondentes contam como perdidos
+                } catch (IOException e) {
+                    System.err.println("✗ Erro na recepção do socket " + indice + ": " + e.getMessage());
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Decodifica uma resposta (eco ou texto invertido) e registra a latência.
+         */
+        private void registrar(ByteBuffer resposta, long recebido) {
+            int ultimo = resposta.limit() - 1;
+            boolean invertida = resposta.limit() == tamanho && resposta.get(0) != MARCADOR
+                                && resposta.get(ultimo) == MARCADOR;
+            if (resposta.limit() != tamanho || !invertida && resposta.get(0) != MARCADOR) {
+                invalidas++;
+                return;
+            }
+            long sequencia = lerHex(resposta, 1, invertida);
+            long planejado = lerHex(resposta, 1 + DIGITOS, invertida);
+            long enviado = lerHex(resposta, 1 + 2 * DIGITOS, invertida);
+            if (sequencia < 0 || planejado == -1 || enviado == -1 || sequencia % sockets != indice
+                    || sequencia / sockets >= corrigidas.length) {
+                invalidas++;
+                return;
+            }
+
+            int posicao = (int) (sequencia / sockets);
+            if (corrigidas[posicao] >= 0) {
+                duplicadas++;
+                return;
+            }
+            corrigidas[posicao] = recebido - planejado;
+            brutas[posicao] = recebido - enviado;
+            if (sequencia < maiorSequencia) {
+                reordenadas++;
+            } else {
+                maiorSequencia = sequencia;
+            }
+        }
+    }
+
+    /**
+     * Estatísticas de uma etapa.
+     */
+    public static final class Resultado {
+
+        /** Taxa pedida */
+        private final int taxaAlvo;
+
+        /** Contadores de envio */
+        private long enviados;
+        private long errosEnvio;
+        private long duracaoEnvio;
+        private long atrasoMaximoEnvio;
+
+        /** Contadores de recepção */
+        private long recebidos;
+        private long reordenadas;
+        private long duplicadas;
+        private long invalidas;
+
+        /** Latências das respostas, ordenadas */
+        private long[] corrigidas = new long[0];
+        private long[] brutas = new long[0];
+
+        Resultado(int taxaAlvo) {
+            this.taxaAlvo = taxaAlvo;
+        }
+
+        /**
+         * Junta as latências e os contadores dos receptores.
+         */
+        private void combinar(Receptor[] receptores) {
+            int capacidade = 0;
+            for (Receptor receptor : receptores) {
+                capacidade += receptor.corrigidas.length;
+            }
+            corrigidas = new long[capacidade];
+            brutas = new long[capacidade];
+            int quantidade = 0;
+            for (Receptor receptor : receptores) {
+                for (int i = 0; i < receptor.corrigidas.length; i++) {
+                    if (receptor.corrigidas[i] >= 0) {
+                        corrigidas[quantidade] = receptor.corrigidas[i];
+                        brutas[quantidade++] = receptor.brutas[i];
+                    }
+                }
+                reordenadas += receptor.reordenadas;
+                duplicadas += receptor.duplicadas;
+                invalidas += receptor.invalidas;
+            }
+            recebidos = quantidade;
+            corrigidas = Arrays.copyOf(corrigidas, quantidade);
+            brutas = Arrays.copyOf(brutas, quantidade);
+            Arrays.sort(corrigidas);
+            Arrays.sort(brutas);
+        }
+
+        /**
+         * Fração dos datagramas enviados que ficaram sem resposta.
+         *
+         * @return Perda entre 0 e 1
+         */
+        public double getPerda() {
+            return enviados == 0 ? 0.0 : 1.0 - (double) recebidos / enviados;
+        }
+
+        /**
+         * Percentil da latência medida desde o instante planejado.
+         *
+         * @param percentil Percentil (0-100)
+         * @return Nanossegundos (0 sem respostas)
+         */
+        public long percentilCorrigido(double percentil) {
+            return percentil(corrigidas, percentil);
+        }
+
+        /**
+         * Percentil da latência medida desde o envio real.
+         *
+         * @param percentil Percentil (0-100)
+         * @return Nanossegundos (0 sem respostas)
+         */
+        public long percentilBruto(double percentil) {
+            return percentil(brutas, percentil);
+        }
+
+        /**
+         * Percentil pelo método do posto mais próximo.
+         */
+        private static long percentil(long[] ordenadas, double percentil) {
+            if (ordenadas.length == 0) {
+                return 0;
+            }
+            int posicao = (int) Math.ceil(percentil / 100.0 * ordenadas.length) - 1;
+            return ordenadas[Math.max(0, Math.min(ordenadas.length - 1, posicao))];
+        }
+
+        /**
+         * Gera a linha da etapa na tabela (latências em microssegundos).
+         *
+         * @return Linha formatada
+         */
+        public String gerarLinha() {
+            double segundos = duracaoEnvio / 1e9;
+            return String.format("%9d %9.0f %9.0f %6.2f%% %7d %5d %5d %9s %9s %9s %9s %9s %9s", taxaAlvo,
+                    enviados / segundos, recebidos / segundos, 100 * getPerda(), reordenadas, duplicadas,
+                    invalidas + errosEnvio, micros(percentilCorrigido(50)), micros(percentilCorrigido(99)),
+                    micros(percentilCorrigido(99.9)), micros(percentilCorrigido(100)),
+                    micros(percentilBruto(99)), micros(atrasoMaximoEnvio));
+        }
+
+        /**
+         * Formata nanossegundos em microssegundos (ou milissegundos, se grandes).
+         */
+        private static String micros(long nanos) {
+            return nanos >= 10_000_000 ? String.format("%.0fms", nanos / 1e6) : String.format("%.0fµs", nanos / 1e3);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * GrupoSocketsUDP - Vários MotorEcoUDP na mesma porta com SO_REUSEPORT
+ *
+ * Um único socket UDP é lido por uma única thread: a recepção fica limitada a
+ * um núcleo, por mais núcleos que a máquina tenha. No Linux, SO_REUSEPORT
+ * permite abrir N sockets na mesma porta; o kernel distribui os datagramas
+ * entre eles pelo hash de (endereço, porta) de origem e destino, de modo que
+ * cada socket recebe seu próprio fluxo sem trava nenhuma entre eles.
+ *
+ * O grupo abre N motores com SO_REUSEPORT, cada um com o seu canal, o seu
+ * buffer direto e a sua thread de receber/processar/enviar. Serve para
+ * serviços sem estado (eco, inversão): qualquer socket pode responder a
+ * qualquer cliente.
+ *
+ * Como a distribuição é por fluxo, todos os datagramas de um mesmo cliente
+ * (mesma porta de origem) vão para o mesmo socket: a vazão escala com o
+ * número de clientes distintos, e os contadores por socket mostram como o
+ * kernel repartiu a carga.
+ *
+ * Atenção: outro processo do mesmo usuário que abra a porta com SO_REUSEPORT
+ * também entra no grupo e passa a receber parte dos datagramas.
+ *
+ * @author Sistema de Comunicação UDP
+ * @version 1.0
+ * @since 2025-05-06
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Grupo de motores UDP que dividem uma porta.
+ */
+public class GrupoSocketsUDP implements Closeable {
+
+    // ==================== CONSTANTES ====================
+
+    /** Logger para registrar eventos do grupo */
+    private static final Logger LOGGER = Logger.getLogger(GrupoSocketsUDP.class.getName());
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Motores do grupo, um por socket */
+    private final MotorEcoUDP[] motores;
+
+    /** Thread de cada motor */
+    private final Thread[] threads;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Abre os sockets do grupo, todos na mesma porta. Se algum falhar, os já
+     * abertos são fechados.
+     *
+     * @param porta Porta compartilhada
+     * @param sockets Número de sockets (e threads)
+     * @param tamanhoBuffer Maior datagrama recebido inteiro por socket
+     * @param amostragem Registrar um datagrama a cada N, em cada socket (0 = sem log)
+     * @param transformacao Serviço aplicado à carga (MotorEcoUDP.ECO, MotorEcoUDP.INVERSAO...)
+     * @throws UnsupportedOperationException se o sistema não suportar SO_REUSEPORT
+     * @throws IOException se algum socket não puder ser aberto
+     */
+    public GrupoSocketsUDP(int porta, int sockets, int tamanhoBuffer, int amostragem,
+                           MotorEcoUDP.Transformacao transformacao) throws IOException {
+        if (sockets < 1) {
+            throw new IllegalArgumentException("O grupo precisa de pelo menos um socket");
+        }
+        this.motores = new MotorEcoUDP[sockets];
+        this.threads = new Thread[sockets];
+        try {
+            for (int i = 0; i < sockets; i++) {
+                motores[i] = new MotorEcoUDP(porta, tamanhoBuffer, amostragem, transformacao, true);
+                // Com porta 0, os demais sockets entram na porta escolhida para o primeiro
+                porta = motores[0].getPorta();
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // ==================== CICLO DE VIDA ====================
+
+    /**
+     * Inicia uma thread por socket.
+     */
+    public void iniciar() {
+        for (int i = 0; i < motores.length; i++) {
+            threads[i] = new Thread(motores[i], "SocketUDP-" + i);
+            threads[i].start();
+        }
+        LOGGER.info("Grupo de " + motores.length + " sockets UDP iniciado");
+    }
+
+    /**
+     * Aguarda o término de todas as threads (após close()).
+     *
+     * @throws InterruptedException se a espera for interrompida
+     */
+    public void aguardar() throws InterruptedException {
+        for (Thread thread : threads) {
+            if (thread != null) {
+                thread.join();
+            }
+        }
+    }
+
+    /**
+     * Fecha todos os sockets, encerrando as threads.
+     */
+    @Override
+    public void close() {
+        for (MotorEcoUDP motor : motores) {
+            if (motor != null) {
+                try {
+                    motor.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Erro ao fechar socket do grupo", e);
+                }
+            }
+        }
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna a porta compartilhada pelo grupo.
+     *
+     * @return Porta
+     * @throws IOException se os sockets estiverem fechados
+     */
+    public int getPorta() throws IOException {
+        return motores[0].getPorta();
+    }
+
+    /**
+     * Retorna o número de sockets do grupo.
+     *
+     * @return Sockets
+     */
+    public int getSockets() {
+        return motores.length;
+    }
+
+    /**
+     * Retorna o total de datagramas recebidos pelo grupo.
+     *
+     * @return Soma dos sockets
+     */
+    public long getRecebidos() {
+        long total = 0;
+        for (MotorEcoUDP motor : motores) {
+            total += motor.getRecebidos();
+        }
+        return total;
+    }
+
+    /**
+     * Retorna o total de respostas enviadas pelo grupo.
+     *
+     * @return Soma dos sockets
+     */
+    public long getEnviados() {
+        long total = 0;
+        for (MotorEcoUDP motor : motores) {
+            total += motor.getEnviados();
+        }
+        return total;
+    }
+
+    /**
+     * Retorna o total de requisições descartadas por prazo expirado.
+     *
+     * @return Soma dos sockets
+     */
+    public long getExpiradas() {
+        long total = 0;
+        for (MotorEcoUDP motor : motores) {
+            total += motor.getExpiradas();
+        }
+        return total;
+    }
+
+    /**
+     * Gera a distribuição da carga entre os sockets.
+     *
+     * @return Uma linha por socket, com recebidos e fração do total
+     */
+    public String gerarRelatorio() {
+        long total = getRecebidos();
+        StringBuilder relatorio = new StringBuilder();
+        relatorio.append(String.format("%d socket(s), %d datagrama(s) recebido(s)", motores.length, total));
+        for (int i = 0; i < motores.length; i++) {
+            long recebidos = motores[i].getRecebidos();
+            relatorio.append(String.format("%n  socket %2d: %12d (%5.1f%%) - %s", i, recebidos,
+                                           total == 0 ? 0.0 : 100.0 * recebidos / total,
+                                           motores[i].gerarRelatorio()));
+        }
+        return relatorio.toString();
+    }
+}
@@ -0,0 +1,301 @@
+/**
+ * MotorEcoUDP - Eco UDP sem alocação por datagrama
+ *
+ * O laço clássico do ServidorUDP cria um DatagramPacket por datagrama,
+ * decodifica cada carga em String só para o log e imprime várias linhas por
+ * requisição: o console e o coletor de lixo limitam a vazão muito antes da
+ * rede. Este motor atende o mesmo protocolo (eco da carga útil, descarte de
+ * requisições com prazo expirado do CabecalhoUDP) com um DatagramChannel e um
+ * único ByteBuffer direto, reutilizado em todos os datagramas:
+ *
+ *   receive()   o kernel copia o datagrama direto para o buffer nativo
+ *   flip()      o buffer passa a delimitar o datagrama recebido
+ *   cabeçalho   lido no próprio buffer (CabecalhoUDP.posicionarCarga)
+ *   send()      a carga útil volta ao remetente a partir do mesmo buffer
+ *
+ * Nenhum objeto é criado por datagrama no caminho comum; o endereço do
+ * remetente é reaproveitado pelo canal enquanto o remetente não muda. O log
+ * é amostrado: só um datagrama a cada N é registrado (0 desativa).
+ *
+ * Antes do envio, a carga pode ser transformada no próprio buffer: ECO a
+ * devolve intacta, INVERSAO inverte o texto UTF-8 (como o UDPServerInverter).
+ * Com reutilizarPorta, o canal é aberto com SO_REUSEPORT para que vários
+ * motores dividam a mesma porta (GrupoSocketsUDP).
+ *
+ * Uma única thread executa o laço (run()); close() o encerra de outra thread.
+ *
+ * @author Sistema de Comunicação UDP
+ * @version 1.0
+ * @since 2025-05-06
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Laço de eco UDP sobre DatagramChannel com buffer direto reutilizado.
+ */
+public class MotorEcoUDP implements Runnable, Closeable {
+
+    // ==================== CONSTANTES ====================
+
+    /** Maior carga útil de um datagrama UDP sobre IPv4 */
+    public static final int TAMANHO_MAXIMO_DATAGRAMA = 65_507;
+
+    /** Buffer de recepção pedido ao kernel, para absorver rajadas */
+    private static final int BUFFER_SOCKET = 4 * 1024 * 1024;
+
+    /** Logger para registrar eventos do motor */
+    private static final Logger LOGGER = Logger.getLogger(MotorEcoUDP.class.getName());
+
+    /** Devolve a carga intacta */
+    public static final Transformacao ECO = carga -> { };
+
+    /** Inverte o texto UTF-8 da carga, caractere a caractere */
+    public static final Transformacao INVERSAO = MotorEcoUDP::inverterUtf8;
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Canal UDP do servidor */
+    private final DatagramChannel canal;
+
+    /** Buffer direto único, reutilizado em todos os datagramas */
+    private final ByteBuffer buffer;
+
+    /** Registrar um datagrama a cada N (0 = sem log) */
+    private final int amostragem;
+
+    /** Transformação aplicada à carga antes do envio */
+    private final Transformacao transformacao;
+
+    /** Flag para controlar execução do laço */
+    private volatile boolean executando = true;
+
+    /** Contadores, escritos só pela thread do laço (leituras de outras threads são aproximadas) */
+    private long recebidos;
+    private long enviados;
+    private long expiradas;
+    private long truncados;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Abre um canal de eco exclusivo na porta indicada.
+     *
+     * @param porta Porta do servidor (0 = escolhida pelo sistema)
+     * @param tamanhoBuffer Maior datagrama recebido inteiro; maiores são truncados
+     * @param amostragem Registrar um datagrama a cada N (0 = sem log)
+     * @throws IOException se o canal não puder ser aberto
+     */
+    public MotorEcoUDP(int porta, int tamanhoBuffer, int amostragem) throws IOException {
+        this(porta, tamanhoBuffer, amostragem, ECO, false);
+    }
+
+    /**
+     * Abre o canal na porta indicada.
+     *
+     * @param porta Porta do servidor (0 = escolhida pelo sistema)
+     * @param tamanhoBuffer Maior datagrama recebido inteiro; maiores são truncados
+     * @param amostragem Registrar um datagrama a cada N (0 = sem log)
+     * @param transformacao Transformação da carga antes do envio (ECO, INVERSAO...)
+     * @param reutilizarPorta Abrir com SO_REUSEPORT, para dividir a porta com outros canais
+     * @throws UnsupportedOperationException se SO_REUSEPORT for pedido e o sistema não o suportar
+     * @throws IOException se o canal não puder ser aberto
+     */
+    public MotorEcoUDP(int porta, int tamanhoBuffer, int amostragem, Transformacao transformacao,
+                       boolean reutilizarPorta) throws IOException {
+        if (tamanhoBuffer < 1 || tamanhoBuffer > TAMANHO_MAXIMO_DATAGRAMA) {
+            throw new IllegalArgumentException("Buffer deve ter entre 1 e " + TAMANHO_MAXIMO_DATAGRAMA + " bytes");
+        }
+        if (amostragem < 0) {
+            throw new IllegalArgumentException("Amostragem não pode ser negativa");
+        }
+        this.canal = DatagramChannel.open();
+        if (reutilizarPorta) {
+            if (!canal.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+                canal.close();
+                throw new UnsupportedOperationException("SO_REUSEPORT não é suportado neste sistema");
+            }
+            canal.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+        }
+        canal.setOption(StandardSocketOptions.SO_RCVBUF, BUFFER_SOCKET);
+        canal.setOption(StandardSocketOptions.SO_SNDBUF, BUFFER_SOCKET);
+        canal.bind(new InetSocketAddress(porta));
+        this.buffer = ByteBuffer.allocateDirect(tamanhoBuffer);
+        this.amostragem = amostragem;
+        this.transformacao = transformacao;
+    }
+
+    // ==================== LAÇO PRINCIPAL ====================
+
+    /**
+     * Recebe e ecoa datagramas até close().
+     */
+    @Override
+    public void run() {
+        int contadorAmostra = 0;
+        while (executando) {
+            try {
+                buffer.clear();
+                SocketAddress origem = canal.receive(buffer);
+                long recebidoNanos = System.nanoTime();
+                buffer.flip();
+                recebidos++;
+                if (buffer.limit() == buffer.capacity()) {
+                    truncados++;
+                }
+
+                // O cliente já desistiu: não vale a pena responder
+                if (!CabecalhoUDP.posicionarCarga(buffer, recebidoNanos)) {
+                    expiradas++;
+                    continue;
+                }
+
+                if (amostragem > 0 && ++contadorAmostra == amostragem) {
+                    contadorAmostra = 0;
+                    registrar(origem);
+                }
+
+                transformacao.aplicar(buffer);
+                canal.send(buffer, origem);
+                enviados++;
+
+            } catch (ClosedChannelException e) {
+                // Encerramento normal (close() de outra thread)
+                executando = false;
+            } catch (IOException e) {
+                if (executando) {
+                    System.err.println("Erro de I/O no motor de eco: " + e.getMessage());
+                    LOGGER.log(Level.WARNING, "Erro de I/O no motor de eco", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Registra um datagrama amostrado (o único ponto que cria objetos).
+     */
+    private void registrar(SocketAddress origem) {
+        byte[] carga = new byte[buffer.remaining()];
+        buffer.duplicate().get(carga);
+        String texto = new String(carga, StandardCharsets.UTF_8);
+        System.out.println("[#" + recebidos + "] " + origem + " - " + carga.length + " bytes: \"" + texto + "\"");
+        LOGGER.fine("Eco de amostra para " + origem + " - " + texto);
+    }
+
+    /**
+     * Inverte no lugar o texto UTF-8 entre a posição e o limite: inverte os
+     * bytes e depois desfaz a inversão dentro de cada caractere de vários
+     * bytes, que passa a aparecer como bytes de continuação seguidos do byte
+     * inicial.
+     */
+    private static void inverterUtf8(ByteBuffer carga) {
+        inverterBytes(carga, carga.position(), carga.limit() - 1);
+        int inicioSequencia = -1;
+        for (int i = carga.position(); i < carga.limit(); i++) {
+            boolean continuacao = (carga.get(i) & 0xC0) == 0x80;
+            if (continuacao && inicioSequencia < 0) {
+                inicioSequencia = i;
+            } else if (!continuacao && inicioSequencia >= 0) {
+                inverterBytes(carga, inicioSequencia, i);
+                inicioSequencia = -1;
+            }
+        }
+    }
+
+    /**
+     * Inverte os bytes de inicio a fim (inclusive).
+     */
+    private static void inverterBytes(ByteBuffer carga, int inicio, int fim) {
+        for (; inicio < fim; inicio++, fim--) {
+            byte b = carga.get(inicio);
+            carga.put(inicio, carga.get(fim));
+            carga.put(fim, b);
+        }
+    }
+
+    /**
+     * Encerra o laço e fecha o canal.
+     */
+    @Override
+    public void close() throws IOException {
+        executando = false;
+        canal.close();
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna a porta local do canal.
+     *
+     * @return Porta
+     * @throws IOException se o canal estiver fechado
+     */
+    public int getPorta() throws IOException {
+        return ((InetSocketAddress) canal.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Retorna o número de datagramas recebidos.
+     *
+     * @return Datagramas recebidos
+     */
+    public long getRecebidos() {
+        return recebidos;
+    }
+
+    /**
+     * Retorna o número de requisições descartadas por prazo expirado.
+     *
+     * @return Requisições expiradas
+     */
+    public long getExpiradas() {
+        return expiradas;
+    }
+
+    /**
+     * Retorna o número de ecos enviados.
+     *
+     * @return Ecos enviados
+     */
+    public long getEnviados() {
+        return enviados;
+    }
+
+    /**
+     * Gera um resumo dos contadores.
+     *
+     * @return Relatório em uma linha
+     */
+    public String gerarRelatorio() {
+        return String.format("%d recebido(s), %d eco(s), %d expirado(s), %d possivelmente truncado(s), " +
+                             "buffer direto de %d bytes", recebidos, enviados, expiradas, truncados,
+                             buffer.capacity());
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * Transformação da carga útil, feita no próprio buffer antes do envio.
+     */
+    @FunctionalInterface
+    public interface Transformacao {
+
+        /**
+         * Transforma a carga entre a posição e o limite do buffer, que
+         * delimitam também a resposta enviada.
+         *
+         * @param carga Buffer com a carga útil
+         */
+        void aplicar(ByteBuffer carga);
+    }
+}
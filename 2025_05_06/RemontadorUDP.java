@@ -0,0 +1,522 @@
+/**
+ * RemontadorUDP - Remonta mensagens fragmentadas pelo FragmentadorUDP
+ *
+ * Cada fragmento traz o identificador da mensagem, o seu deslocamento e o
+ * tamanho total, e é copiado direto para a posição final em um buffer da
+ * mensagem; fragmentos podem chegar fora de ordem ou duplicados. Quando o
+ * último fragmento que faltava chega, receber() devolve a mensagem completa.
+ *
+ * Como os buffers são reaproveitados, uma mensagem só é dada como completa se
+ * os fragmentos cobrirem exatamente [0, tamanho): cada um deve ocupar a sua
+ * posição no formato do FragmentadorUDP (todos com a mesma carga, o último
+ * com o resto, nenhum vazio ou sobreposto), e a soma das partes recebidas
+ * deve ser o tamanho. Senão, bytes de uma mensagem anterior, de outro
+ * remetente, poderiam sair como parte da mensagem.
+ *
+ * A memória é limitada de três formas:
+ * - no máximo limiteMensagens remontagens em andamento e limiteBytes em
+ *   buffers; ao atingir um limite, a remontagem mais antiga é descartada
+ * - remontagens incompletas há mais de timeoutMs são descartadas (o
+ *   remetente perdeu algum fragmento e não vai reenviá-lo)
+ * - mensagens maiores que FragmentadorUDP.MENSAGEM_MAXIMA são recusadas
+ *
+ * Os buffers vêm de um pool por classes de tamanho (potências de dois): uma
+ * mensagem grande reaproveita o buffer de uma anterior do mesmo porte em vez
+ * de alocar um vetor novo. Quem recebe a mensagem devolve o buffer com
+ * liberar() assim que termina de usá-la.
+ *
+ * Uma instância não é thread-safe; use uma por laço de recepção.
+ *
+ * @author Sistema de Comunicação UDP
+ * @version 1.0
+ * @since 2025-05-06
+ */
+
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Tabela de remontagem de mensagens fragmentadas, com memória limitada.
+ */
+public class RemontadorUDP {
+
+    // ==================== CONSTANTES ====================
+
+    /** Limites padrão */
+    public static final int LIMITE_MENSAGENS_PADRAO = 1024;
+    public static final long LIMITE_BYTES_PADRAO = 64L * 1024 * 1024;
+    public static final long TIMEOUT_PADRAO_MS = 5000;
+
+    /** Menor classe de tamanho do pool (2^10 = 1 KB) */
+    private static final int MENOR_CLASSE = 10;
+
+    /** Logger para registrar eventos do remontador */
+    private static final Logger LOGGER = Logger.getLogger(RemontadorUDP.class.getName());
+
+    // ==================== ATRIBUTOS ====================
+
+    /** Remontagens em andamento, da mais antiga para a mais nova */
+    private final LinkedHashMap<Chave, Remontagem> remontagens = new LinkedHashMap<>();
+
+    /** Chave reutilizada nas consultas, para não criar uma por fragmento */
+    private final Chave sonda = new Chave();
+
+    /** Buffers livres por classe de tamanho (índice = log2 da capacidade) */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ArrayDeque<byte[]>[] pool = new ArrayDeque[32];
+
+    /** Limites */
+    private final int limiteMensagens;
+    private final long limiteBytes;
+    private final long timeoutNanos;
+
+    /** Bytes em buffers de remontagens em andamento */
+    private long bytesEmUso;
+
+    /** Bytes em buffers livres guardados no pool */
+    private long bytesNoPool;
+
+    /** Estatísticas */
+    private long fragmentosRecebidos;
+    private long mensagensCompletas;
+    private long duplicados;
+    private long invalidos;
+    private long expiradas;
+    private long descartadasPorLimite;
+    private long recusadas;
+    private long buffersReutilizados;
+    private long buffersAlocados;
+
+    // ==================== CONSTRUTORES ====================
+
+    /**
+     * Cria um remontador com os limites padrão.
+     */
+    public RemontadorUDP() {
+        this(LIMITE_MENSAGENS_PADRAO, LIMITE_BYTES_PADRAO, TIMEOUT_PADRAO_MS);
+    }
+
+    /**
+     * Cria um remontador.
+     *
+     * @param limiteMensagens Máximo de remontagens em andamento
+     * @param limiteBytes Máximo de bytes em buffers de remontagem (e, à parte, no pool)
+     * @param timeoutMs Tempo máximo para uma mensagem ficar incompleta
+     */
+    public RemontadorUDP(int limiteMensagens, long limiteBytes, long timeoutMs) {
+        if (limiteMensagens < 1 || limiteBytes < 1 || timeoutMs < 1) {
+            throw new IllegalArgumentException("Limites do remontador devem ser positivos");
+        }
+        this.limiteMensagens = limiteMensagens;
+        this.limiteBytes = limiteBytes;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    // ==================== REMONTAGEM ====================
+
+    /**
+     * Processa um fragmento recebido.
+     *
+     * @param pacote Datagrama recebido (começando pelo cabeçalho de fragmento)
+     * @param recebidoNanos Instante da recepção (System.nanoTime)
+     * @return Mensagem completa, se este era o último fragmento que faltava; senão null
+     */
+    public Mensagem receber(DatagramPacket pacote, long recebidoNanos) {
+        fragmentosRecebidos++;
+        expirar(recebidoNanos);
+
+        int tamanhoDatagrama = pacote.getLength();
+        if (!FragmentadorUDP.isFragmento(pacote)) {
+            invalidos++;
+            return null;
+        }
+        // Cabeçalho lido direto do vetor: nada é criado por fragmento no caminho comum
+        byte[] dados = pacote.getData();
+        int inicio = pacote.getOffset();
+        int id = lerInt(dados, inicio + 1);
+        int indice = lerShort(dados, inicio + 5);
+        int total = lerShort(dados, inicio + 7);
+        int deslocamento = lerInt(dados, inicio + 9);
+        int tamanho = lerInt(dados, inicio + 13);
+        int parte = tamanhoDatagrama - FragmentadorUDP.CABECALHO;
+        int carga = cargaPorFragmento(indice, total, deslocamento, parte, tamanho);
+        if (carga < 0) {
+            invalidos++;
+            return null;
+        }
+        if (tamanho > FragmentadorUDP.MENSAGEM_MAXIMA || capacidade(tamanho) > limiteBytes) {
+            recusadas++;
+            return null;
+        }
+
+        sonda.definir(pacote.getAddress(), pacote.getPort(), id);
+        Remontagem remontagem = remontagens.get(sonda);
+        if (remontagem == null) {
+            liberarEspaco(capacidade(tamanho));
+            remontagem = new Remontagem(obterBuffer(tamanho), tamanho, total, carga, recebidoNanos);
+            bytesEmUso += remontagem.buffer.length;
+            remontagens.put(sonda.copiar(), remontagem);
+        } else if (remontagem.tamanho != tamanho || remontagem.total != total || remontagem.carga != carga) {
+            invalidos++;
+            return null;
+        }
+
+        if (remontagem.recebidos.get(indice)) {
+            duplicados++;
+            return null;
+        }
+        System.arraycopy(dados, inicio + FragmentadorUDP.CABECALHO, remontagem.buffer, deslocamento, parte);
+        remontagem.recebidos.set(indice);
+        remontagem.contagem++;
+        remontagem.bytesRecebidos += parte;
+        remontagem.maiorDatagrama = Math.max(remontagem.maiorDatagrama, tamanhoDatagrama);
+        if (remontagem.contagem < total || remontagem.bytesRecebidos != tamanho) {
+            return null;
+        }
+
+        remontagens.remove(sonda);
+        bytesEmUso -= remontagem.buffer.length;
+        mensagensCompletas++;
+        return new Mensagem(new InetSocketAddress(sonda.endereco, sonda.porta), remontagem.buffer, tamanho,
+                            remontagem.inicioNanos, remontagem.maiorDatagrama);
+    }
+
+    /**
+     * Devolve ao pool o buffer de uma mensagem já processada. A mensagem não
+     * deve ser usada depois disso.
+     *
+     * @param mensagem Mensagem devolvida por receber()
+     */
+    public void liberar(Mensagem mensagem) {
+        devolverBuffer(mensagem.dados);
+    }
+
+    /**
+     * Descarta as remontagens incompletas há mais tempo que o timeout.
+     * Chamado a cada fragmento recebido.
+     *
+     * @param agoraNanos Instante atual (System.nanoTime)
+     */
+    public void expirar(long agoraNanos) {
+        Iterator<Remontagem> iterador = remontagens.values().iterator();
+        while (iterador.hasNext()) {
+            Remontagem remontagem = iterador.next();
+            if (agoraNanos - remontagem.inicioNanos < timeoutNanos) {
+                break;
+            }
+            iterador.remove();
+            descartar(remontagem);
+            expiradas++;
+        }
+    }
+
+    /**
+     * Descarta as remontagens mais antigas até caber uma nova com a capacidade indicada.
+     */
+    private void liberarEspaco(int capacidade) {
+        Iterator<Remontagem> iterador = remontagens.values().iterator();
+        while (iterador.hasNext()
+               && (remontagens.size() >= limiteMensagens || bytesEmUso + capacidade > limiteBytes)) {
+            Remontagem remontagem = iterador.next();
+            iterador.remove();
+            descartar(remontagem);
+            descartadasPorLimite++;
+        }
+    }
+
+    /**
+     * Devolve ao pool o buffer de uma remontagem abandonada.
+     */
+    private void descartar(Remontagem remontagem) {
+        bytesEmUso -= remontagem.buffer.length;
+        devolverBuffer(remontagem.buffer);
+        LOGGER.fine("Remontagem descartada com " + remontagem.contagem + " de " +
+                    remontagem.total + " fragmento(s)");
+    }
+
+    /**
+     * Confere a posição de um fragmento no formato do FragmentadorUDP e deduz a
+     * carga por fragmento da mensagem: os fragmentos não finais levam
+     * exatamente a carga, em deslocamento índice * carga, e o último leva o
+     * resto, terminando no fim da mensagem. Assim, fragmentos de uma mesma
+     * carga nunca se sobrepõem nem deixam lacunas.
+     *
+     * @return Carga por fragmento, ou -1 se o fragmento não se encaixa
+     */
+    private static int cargaPorFragmento(int indice, int total, int deslocamento, int parte, int tamanho) {
+        if (total == 0 || indice >= total || tamanho < 0 || deslocamento < 0 || parte < 0
+                || (long) deslocamento + parte > tamanho) {
+            return -1;
+        }
+        if (total == 1) {
+            // Mensagem inteira em um fragmento (a única que pode ser vazia)
+            return deslocamento == 0 && parte == tamanho ? Math.max(parte, 1) : -1;
+        }
+        int carga;
+        if (indice < total - 1) {
+            carga = parte;
+            if (carga == 0 || (long) indice * carga != deslocamento) {
+                return -1;
+            }
+        } else {
+            if (deslocamento % (total - 1) != 0 || deslocamento + parte != tamanho) {
+                return -1;
+            }
+            carga = deslocamento / (total - 1);
+            if (parte == 0 || parte > carga) {
+                return -1;
+            }
+        }
+        // O total deve ser o número de fragmentos dessa carga para o tamanho
+        return (long) (total - 1) * carga < tamanho && (long) total * carga >= tamanho ? carga : -1;
+    }
+
+    /**
+     * Inteiro big-endian de 4 bytes.
+     */
+    private static int lerInt(byte[] dados, int posicao) {
+        return (dados[posicao] & 0xFF) << 24 | (dados[posicao + 1] & 0xFF) << 16
+               | (dados[posicao + 2] & 0xFF) << 8 | (dados[posicao + 3] & 0xFF);
+    }
+
+    /**
+     * Inteiro big-endian de 2 bytes, sem sinal.
+     */
+    private static int lerShort(byte[] dados, int posicao) {
+        return (dados[posicao] & 0xFF) << 8 | (dados[posicao + 1] & 0xFF);
+    }
+
+    // ==================== POOL DE BUFFERS ====================
+
+    /**
+     * Classe de tamanho de uma mensagem (log2 da capacidade do buffer).
+     */
+    private static int classe(int tamanho) {
+        return Math.max(MENOR_CLASSE, 32 - Integer.numberOfLeadingZeros(Math.max(tamanho, 1) - 1));
+    }
+
+    /**
+     * Capacidade do buffer usado para uma mensagem.
+     */
+    private static int capacidade(int tamanho) {
+        return 1 << classe(tamanho);
+    }
+
+    /**
+     * Obtém do pool (ou aloca) um buffer para a mensagem.
+     */
+    private byte[] obterBuffer(int tamanho) {
+        int classe = classe(tamanho);
+        ArrayDeque<byte[]> livres = pool[classe];
+        if (livres != null && !livres.isEmpty()) {
+            byte[] buffer = livres.pop();
+            bytesNoPool -= buffer.length;
+            buffersReutilizados++;
+            return buffer;
+        }
+        buffersAlocados++;
+        return new byte[1 << classe];
+    }
+
+    /**
+     * Guarda o buffer no pool, se couber no limite; senão deixa-o para o coletor.
+     */
+    private void devolverBuffer(byte[] buffer) {
+        if (bytesNoPool + buffer.length > limiteBytes) {
+            return;
+        }
+        int classe = Integer.numberOfTrailingZeros(buffer.length);
+        if (pool[classe] == null) {
+            pool[classe] = new ArrayDeque<>();
+        }
+        pool[classe].push(buffer);
+        bytesNoPool += buffer.length;
+    }
+
+    // ==================== MÉTODOS DE INFORMAÇÃO ====================
+
+    /**
+     * Retorna o número de remontagens em andamento.
+     *
+     * @return Mensagens incompletas na tabela
+     */
+    public int getEmAndamento() {
+        return remontagens.size();
+    }
+
+    /**
+     * Retorna o número de mensagens remontadas.
+     *
+     * @return Mensagens completas
+     */
+    public long getMensagensCompletas() {
+        return mensagensCompletas;
+    }
+
+    /**
+     * Gera um resumo da remontagem.
+     *
+     * @return Relatório em uma linha
+     */
+    public String gerarRelatorio() {
+        return String.format("%d fragmento(s), %d mensagem(ns) remontada(s), %d em andamento, %d expirada(s), " +
+                             "%d descartada(s) por limite, %d recusada(s), %d duplicado(s), %d inválido(s); " +
+                             "buffers: %d reutilizado(s), %d alocado(s), %d KB no pool",
+                             fragmentosRecebidos, mensagensCompletas, remontagens.size(), expiradas,
+                             descartadasPorLimite, recusadas, duplicados, invalidos, buffersReutilizados,
+                             buffersAlocados, bytesNoPool / 1024);
+    }
+
+    // ==================== CLASSES AUXILIARES ====================
+
+    /**
+     * Mensagem remontada. Os dados ficam em um buffer do pool, válido até liberar().
+     */
+    public static class Mensagem {
+
+        /** Remetente */
+        private final SocketAddress origem;
+
+        /** Buffer com a mensagem nos primeiros tamanho bytes */
+        private final byte[] dados;
+
+        /** Tamanho da mensagem */
+        private final int tamanho;
+
+        /** Chegada do primeiro fragmento (System.nanoTime) */
+        private final long inicioNanos;
+
+        /** Maior fragmento recebido, que indica o datagrama que passou pelo caminho */
+        private final int maiorDatagrama;
+
+        Mensagem(SocketAddress origem, byte[] dados, int tamanho, long inicioNanos, int maiorDatagrama) {
+            this.origem = origem;
+            this.dados = dados;
+            this.tamanho = tamanho;
+            this.inicioNanos = inicioNanos;
+            this.maiorDatagrama = maiorDatagrama;
+        }
+
+        /**
+         * Retorna a mensagem como um datagrama (sem cópia), para os servidores clássicos.
+         *
+         * @return DatagramPacket sobre o buffer, com o remetente como endereço
+         */
+        public DatagramPacket comoPacote() {
+            return new DatagramPacket(dados, 0, tamanho, origem);
+        }
+
+        /**
+         * Retorna o remetente.
+         *
+         * @return Endereço e porta de origem
+         */
+        public SocketAddress getOrigem() {
+            return origem;
+        }
+
+        /**
+         * Retorna o buffer do pool com a mensagem nos primeiros getTamanho() bytes.
+         *
+         * @return Buffer (maior que a mensagem)
+         */
+        public byte[] getDados() {
+            return dados;
+        }
+
+        /**
+         * Retorna o tamanho da mensagem.
+         *
+         * @return Bytes
+         */
+        public int getTamanho() {
+            return tamanho;
+        }
+
+        /**
+         * Retorna a chegada do primeiro fragmento, de onde conta o prazo da requisição.
+         *
+         * @return Instante (System.nanoTime)
+         */
+        public long getInicioNanos() {
+            return inicioNanos;
+        }
+
+        /**
+         * Retorna o maior fragmento recebido: um datagrama desse tamanho passou pelo caminho.
+         *
+         * @return Bytes, cabeçalho de fragmento incluído
+         */
+        public int getMaiorDatagrama() {
+            return maiorDatagrama;
+        }
+    }
+
+    /**
+     * Chave de uma remontagem: remetente (endereço e porta) e identificador da
+     * mensagem. Mutável só na sonda de consulta; as chaves da tabela são cópias.
+     */
+    private static final class Chave {
+        InetAddress endereco;
+        int porta;
+        int id;
+
+        void definir(InetAddress endereco, int porta, int id) {
+            this.endereco = endereco;
+            this.porta = porta;
+            this.id = id;
+        }
+
+        Chave copiar() {
+            Chave copia = new Chave();
+            copia.definir(endereco, porta, id);
+            return copia;
+        }
+
+        @Override
+        public boolean equals(Object outro) {
+            if (!(outro instanceof Chave)) {
+                return false;
+            }
+            Chave chave = (Chave) outro;
+            return id == chave.id && porta == chave.porta && endereco.equals(chave.endereco);
+        }
+
+        @Override
+        public int hashCode() {
+            return (endereco.hashCode() * 31 + porta) * 31 + id;
+        }
+    }
+
+    /**
+     * Estado de uma mensagem em remontagem.
+     */
+    private static final class Remontagem {
+        final byte[] buffer;
+        final int tamanho;
+        final int total;
+        final int carga;
+        final long inicioNanos;
+        final BitSet recebidos;
+        int contagem;
+        long bytesRecebidos;
+        int maiorDatagrama;
+
+        Remontagem(byte[] buffer, int tamanho, int total, int carga, long inicioNanos) {
+            this.buffer = buffer;
+            this.tamanho = tamanho;
+            this.total = total;
+            this.carga = carga;
+            this.inicioNanos = inicioNanos;
+            this.recebidos = new BitSet(total);
+        }
+    }
+}
@@ -13,6 +13,20 @@
  * - Tratamento robusto de exceções
  * - Configuração flexível de porta
  * - Estatísticas de atendimento
+ * - Descarte de requisições cujo prazo (CabecalhoUDP) já expirou
+ * - Mensagens maiores que um datagrama, fragmentadas no tamanho do MTU
+ *   (FragmentadorUDP) e remontadas com memória limitada (RemontadorUDP)
+ * - Modo motor (MotorEcoUDP): DatagramChannel com buffer direto reutilizado,
+ *   sem alocação por datagrama e com log amostrado
+ * - Modo grupo (GrupoSocketsUDP): N motores na mesma porta com SO_REUSEPORT,
+ *   uma thread por socket, para usar vários núcleos
+ * - Modo confiável (CanalConfiavelUDP): eco com entrega confiável e ordenada
+ *   por fluxo, retransmissão e janela deslizante
+ *
+ * Argumentos: [porta] [classico|motor|grupo|confiavel] [amostragem] [sockets|perda]
+ * Exemplo: java ServidorUDP 6789 motor 100000
+ *          java ServidorUDP 6789 grupo 0 4
+ *          java ServidorUDP 6789 confiavel 1000 0.05
  * 
  * @author Sistema de Comunicação UDP
  * @version 2.0
@@ -21,6 +35,7 @@
 
 import java.net.*;
 import java.io.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -34,8 +49,11 @@ public class ServidorUDP {
     /** Porta padrão do servidor */
     private static final int PORTA_PADRAO = 6789;
 
-    /** Tamanho do buffer para recepção de dados */
-    private static final int TAMANHO_BUFFER = 1024;
+    /** Tamanho do buffer para recepção de dados (o maior datagrama UDP, para nunca truncar) */
+    private static final int TAMANHO_BUFFER = FragmentadorUDP.DATAGRAMA_MAXIMO;
+
+    /** Bytes de uma mensagem decodificados para exibição no console */
+    private static final int BYTES_EXIBIDOS = 200;
 
     /** Logger para registrar eventos do servidor */
     private static final Logger LOGGER = Logger.getLogger(ServidorUDP.class.getName());
@@ -45,9 +63,33 @@ public class ServidorUDP {
     /** Socket do servidor UDP */
     private DatagramSocket socket;
 
+    /** Motor de eco (modo motor; null nos demais) */
+    private MotorEcoUDP motor;
+
+    /** Grupo de sockets (modo grupo; null nos demais) */
+    private GrupoSocketsUDP grupo;
+
+    /** Canal confiável (modo confiavel; null nos demais) */
+    private CanalConfiavelUDP canalConfiavel;
+
+    /** Mensagens ecoadas pelo canal confiável */
+    private final AtomicLong ecosConfiaveis = new AtomicLong();
+
+    /** Registrar uma mensagem a cada N no modo confiável (0 = sem log) */
+    private int amostragemConfiavel;
+
+    /** Remontagem das mensagens fragmentadas (modo clássico) */
+    private final RemontadorUDP remontador = new RemontadorUDP();
+
+    /** Fragmentador das respostas a mensagens fragmentadas, no tamanho dos fragmentos recebidos */
+    private FragmentadorUDP fragmentadorResposta;
+
     /** Contador de mensagens processadas */
     private int contadorMensagens;
 
+    /** Contador de requisições descartadas por prazo expirado */
+    private int contadorExpiradas;
+
     /** Flag para controlar execução do servidor */
     private volatile boolean executando;
 
@@ -58,11 +100,19 @@ public class ServidorUDP {
      * 
      * Argumentos aceitos:
      * - args[0]: Porta do servidor (opcional, padrão: 6789)
+     * - args[1]: Modo "classico", "motor", "grupo" ou "confiavel" (opcional, padrão: classico)
+     * - args[2]: Nos demais modos, registrar um datagrama a cada N (opcional, padrão: 0 = sem log)
+     * - args[3]: No modo grupo, número de sockets (opcional, padrão: núcleos disponíveis);
+     *            no modo confiavel, fração de perda emulada no envio (opcional, padrão: 0)
      * 
      * @param args Argumentos da linha de comando
      */
     public static void main(String[] args) {
         int porta = PORTA_PADRAO;
+        String modo = "classico";
+        int amostragem = 0;
+        int sockets = Runtime.getRuntime().availableProcessors();
+        double perda = 0;
 
         // Processar argumentos
         if (args.length > 0) {
@@ -71,8 +121,32 @@ public class ServidorUDP {
                 if (porta < 1 || porta > 65535) {
                     throw new IllegalArgumentException("Porta deve estar entre 1 e 65535");
                 }
+                if (args.length > 1) {
+                    modo = args[1];
+                    if (!modo.equals("classico") && !modo.equals("motor") && !modo.equals("grupo")
+                            && !modo.equals("confiavel")) {
+                        throw new IllegalArgumentException("Modo deve ser classico, motor, grupo ou confiavel");
+                    }
+                }
+                if (args.length > 2) {
+                    amostragem = Integer.parseInt(args[2]);
+                    if (amostragem < 0) {
+                        throw new IllegalArgumentException("Amostragem não pode ser negativa");
+                    }
+                }
+                if (args.length > 3 && modo.equals("confiavel")) {
+                    perda = Double.parseDouble(args[3]);
+                    if (perda < 0 || perda >= 1) {
+                        throw new IllegalArgumentException("Perda emulada deve estar entre 0 e 1");
+                    }
+                } else if (args.length > 3) {
+                    sockets = Integer.parseInt(args[3]);
+                    if (sockets < 1) {
+                        throw new IllegalArgumentException("O grupo precisa de pelo menos um socket");
+                    }
+                }
             } catch (NumberFormatException e) {
-                System.err.println("Erro: Porta deve ser um número válido");
+                System.err.println("Erro: Porta, amostragem, sockets e perda devem ser números válidos");
                 exibirAjuda();
                 System.exit(1);
             } catch (IllegalArgumentException e) {
@@ -85,7 +159,15 @@ public class ServidorUDP {
         // Iniciar servidor
         ServidorUDP servidor = new ServidorUDP();
         try {
-            servidor.iniciarServidor(porta);
+            if (modo.equals("motor")) {
+                servidor.iniciarMotor(porta, amostragem);
+            } else if (modo.equals("grupo")) {
+                servidor.iniciarGrupo(porta, sockets, amostragem);
+            } else if (modo.equals("confiavel")) {
+                servidor.iniciarConfiavel(porta, amostragem, perda);
+            } else {
+                servidor.iniciarServidor(porta);
+            }
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Erro crítico no servidor", e);
             System.err.println("Erro crítico: " + e.getMessage());
@@ -110,6 +192,7 @@ public class ServidorUDP {
         try {
             // Criar socket UDP
             socket = new DatagramSocket(porta);
+            socket.setReceiveBufferSize(FragmentadorUDP.BUFFER_SOCKET);
             executando = true;
             contadorMensagens = 0;
 
@@ -134,6 +217,140 @@ public class ServidorUDP {
         }
     }
 
+    /**
+     * Inicia o servidor no modo motor: o mesmo eco, atendido pelo MotorEcoUDP
+     * na thread atual até o encerramento.
+     *
+     * @param porta Porta para bind do servidor
+     * @param amostragem Registrar um datagrama a cada N (0 = sem log)
+     * @throws IOException se houver erro na criação do canal
+     */
+    public void iniciarMotor(int porta, int amostragem) throws IOException {
+        System.out.println("=== Servidor UDP de Eco (motor) ===");
+        System.out.println("Porta: " + porta);
+        System.out.println("Buffer direto: " + TAMANHO_BUFFER + " bytes");
+        System.out.println("Log: " + (amostragem == 0 ? "desativado" : "1 a cada " + amostragem + " datagramas"));
+        System.out.println();
+
+        try {
+            motor = new MotorEcoUDP(porta, TAMANHO_BUFFER, amostragem);
+            executando = true;
+
+            System.out.println("✓ Motor de eco iniciado com sucesso!");
+            System.out.println("✓ Pressione Ctrl+C para parar o servidor");
+            System.out.println();
+
+            LOGGER.info("Motor de eco UDP iniciado na porta " + porta);
+
+            configurarShutdownHook();
+            motor.run();
+
+        } catch (IOException e) {
+            System.err.println("✗ Erro ao criar canal UDP: " + e.getMessage());
+            throw e;
+        } finally {
+            pararServidor();
+        }
+    }
+
+    /**
+     * Inicia o servidor no modo grupo: N motores de eco na mesma porta, cada
+     * um com seu socket (SO_REUSEPORT) e sua thread, até o encerramento.
+     *
+     * @param porta Porta compartilhada pelos sockets
+     * @param sockets Número de sockets e threads
+     * @param amostragem Registrar um datagrama a cada N, em cada socket (0 = sem log)
+     * @throws IOException se houver erro na criação dos canais
+     * @throws InterruptedException se a espera pelas threads for interrompida
+     */
+    public void iniciarGrupo(int porta, int sockets, int amostragem) throws IOException, InterruptedException {
+        System.out.println("=== Servidor UDP de Eco (grupo SO_REUSEPORT) ===");
+        System.out.println("Porta: " + porta);
+        System.out.println("Sockets/threads: " + sockets);
+        System.out.println("Buffer direto: " + TAMANHO_BUFFER + " bytes por socket");
+        System.out.println();
+
+        try {
+            grupo = new GrupoSocketsUDP(porta, sockets, TAMANHO_BUFFER, amostragem, MotorEcoUDP.ECO);
+            executando = true;
+            grupo.iniciar();
+
+            System.out.println("✓ " + sockets + " socket(s) de eco na porta " + porta);
+            System.out.println("✓ Pressione Ctrl+C para parar o servidor");
+            System.out.println();
+
+            LOGGER.info("Grupo de " + sockets + " sockets de eco iniciado na porta " + porta);
+
+            configurarShutdownHook();
+            grupo.aguardar();
+
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("✗ Erro ao criar o grupo de sockets: " + e.getMessage());
+            throw e;
+        } finally {
+            pararServidor();
+        }
+    }
+
+    /**
+     * Inicia o servidor no modo confiável: eco de cada mensagem no mesmo
+     * fluxo, pelo CanalConfiavelUDP, até o encerramento.
+     *
+     * @param porta Porta do servidor
+     * @param amostragem Registrar uma mensagem a cada N (0 = sem log)
+     * @param perda Fração dos datagramas enviados descartada de propósito
+     * @throws IOException se houver erro na criação do canal
+     * @throws InterruptedException se a espera pelo encerramento for interrompida
+     */
+    public void iniciarConfiavel(int porta, int amostragem, double perda) throws IOException, InterruptedException {
+        System.out.println("=== Servidor UDP de Eco (confiável) ===");
+        System.out.println("Porta: " + porta);
+        System.out.println("Janela: " + CanalConfiavelUDP.JANELA + " segmentos por fluxo");
+        System.out.println("Perda emulada: " + (perda * 100) + "%");
+        System.out.println();
+
+        try {
+            amostragemConfiavel = amostragem;
+            canalConfiavel = new CanalConfiavelUDP(porta, this::ecoarConfiavel);
+            canalConfiavel.setPerdaEmulada(perda);
+            executando = true;
+
+            System.out.println("✓ Canal confiável iniciado com sucesso!");
+            System.out.println("✓ Pressione Ctrl+C para parar o servidor");
+            System.out.println();
+
+            LOGGER.info("Servidor UDP confiável iniciado na porta " + porta);
+
+            configurarShutdownHook();
+            synchronized (this) {
+                while (executando) {
+                    wait();
+                }
+            }
+
+        } catch (IOException e) {
+            System.err.println("✗ Erro ao criar canal confiável: " + e.getMessage());
+            throw e;
+        } finally {
+            pararServidor();
+        }
+    }
+
+    /**
+     * Devolve uma mensagem recebida pelo canal confiável no mesmo fluxo.
+     */
+    private void ecoarConfiavel(CanalConfiavelUDP canal, SocketAddress origem, int fluxo, byte[] dados) {
+        long numero = ecosConfiaveis.incrementAndGet();
+        if (amostragemConfiavel > 0 && numero % amostragemConfiavel == 0) {
+            System.out.println("[#" + numero + "] " + origem + " fluxo " + fluxo + " - " + dados.length + " bytes");
+        }
+        try {
+            canal.enviar(origem, fluxo, dados);
+        } catch (IOException | InterruptedException e) {
+            LOGGER.log(Level.WARNING, "Erro no eco confiável para " + origem, e);
+        }
+    }
+
     /**
      * Executa o loop principal de atendimento de clientes.
      */
@@ -149,10 +366,27 @@ public class ServidorUDP {
 
                 // Receber datagrama (bloqueante)
                 socket.receive(pacoteRequest);
+                long recebidoNanos = System.nanoTime();
+
+                // Fragmento: só processa quando a mensagem estiver completa
+                if (FragmentadorUDP.isFragmento(pacoteRequest)) {
+                    RemontadorUDP.Mensagem mensagem = remontador.receber(pacoteRequest, recebidoNanos);
+                    if (mensagem != null) {
+                        try {
+                            contadorMensagens++;
+                            DatagramPacket pacoteMensagem = mensagem.comoPacote();
+                            CabecalhoUDP cabecalho = CabecalhoUDP.ler(pacoteMensagem, mensagem.getInicioNanos());
+                            processarRequest(pacoteMensagem, cabecalho, mensagem.getMaiorDatagrama());
+                        } finally {
+                            remontador.liberar(mensagem);
+                        }
+                    }
+                    continue;
+                }
                 contadorMensagens++;
 
                 // Processar e responder
-                processarRequest(pacoteRequest);
+                processarRequest(pacoteRequest, CabecalhoUDP.ler(pacoteRequest, recebidoNanos), 0);
 
             } catch (SocketException e) {
                 if (executando) {
@@ -174,40 +408,55 @@ public class ServidorUDP {
      * Processa request de cliente e envia resposta (eco).
      * 
      * @param pacoteRequest Datagrama recebido do cliente
+     * @param cabecalho Cabeçalho da requisição (prazo e posição da carga útil)
+     * @param tamanhoFragmento Maior fragmento da requisição, se veio fragmentada (0 = datagrama único)
      * @throws IOException se houver erro no envio da resposta
      */
-    private void processarRequest(DatagramPacket pacoteRequest) throws IOException {
+    private void processarRequest(DatagramPacket pacoteRequest, CabecalhoUDP cabecalho, int tamanhoFragmento)
+            throws IOException {
         // Extrair informações do request
         InetAddress enderecoCliente = pacoteRequest.getAddress();
         int portaCliente = pacoteRequest.getPort();
-        int tamanhoMensagem = pacoteRequest.getLength();
+        int tamanhoMensagem = cabecalho.getTamanhoCarga();
 
         String identificador = "[#" + contadorMensagens + "]";
 
         System.out.println(identificador + " Request recebido:");
         System.out.println("  - Cliente: " + enderecoCliente.getHostAddress() + ":" + portaCliente);
-        System.out.println("  - Tamanho: " + tamanhoMensagem + " bytes");
+        System.out.println("  - Tamanho: " + tamanhoMensagem + " bytes" + (tamanhoFragmento > 0
+                ? " (remontada de fragmentos de até " + tamanhoFragmento + " bytes)" : ""));
+
+        // O cliente já desistiu: não vale a pena responder
+        if (cabecalho.isExpirado()) {
+            contadorExpiradas++;
+            System.out.println(identificador + " ⏱️  Prazo expirado - requisição descartada");
+            LOGGER.info("Requisição descartada por prazo expirado: " + enderecoCliente + ":" + portaCliente);
+            return;
+        }
 
         try {
             // Extrair conteúdo da mensagem
-            String mensagemRecebida = new String(
-                    pacoteRequest.getData(),
-                    0,
-                    tamanhoMensagem,
-                    "UTF-8");
+            String mensagemRecebida = cabecalho.getResumo(pacoteRequest, BYTES_EXIBIDOS);
 
             System.out.println("  - Conteúdo: \"" + mensagemRecebida + "\"");
 
-            // Preparar resposta (eco)
-            DatagramPacket pacoteResposta = new DatagramPacket(
-                    pacoteRequest.getData(),
-                    tamanhoMensagem,
-                    enderecoCliente,
-                    portaCliente);
-
-            // Enviar resposta
+            // Enviar resposta (eco da carga útil, sem o cabeçalho), fragmentada como a requisição
             System.out.print(identificador + " Enviando eco...");
-            socket.send(pacoteResposta);
+            if (tamanhoFragmento > 0) {
+                if (fragmentadorResposta == null || fragmentadorResposta.getTamanhoDatagrama() != tamanhoFragmento) {
+                    fragmentadorResposta = new FragmentadorUDP(tamanhoFragmento);
+                }
+                fragmentadorResposta.enviarMensagem(socket, pacoteRequest.getData(), cabecalho.getInicioCarga(),
+                                                    tamanhoMensagem, pacoteRequest.getSocketAddress());
+            } else {
+                DatagramPacket pacoteResposta = new DatagramPacket(
+                        pacoteRequest.getData(),
+                        cabecalho.getInicioCarga(),
+                        tamanhoMensagem,
+                        enderecoCliente,
+                        portaCliente);
+                socket.send(pacoteResposta);
+            }
             System.out.println(" ✓ Enviado!");
 
             LOGGER.info("Eco enviado para " + enderecoCliente + ":" + portaCliente +
@@ -233,8 +482,41 @@ public class ServidorUDP {
             socket.close();
             System.out.println("✓ Servidor UDP encerrado com sucesso!");
             System.out.println("✓ Total de mensagens processadas: " + contadorMensagens);
+            System.out.println("✓ Requisições descartadas por prazo: " + contadorExpiradas);
+            System.out.println("✓ Remontagem: " + remontador.gerarRelatorio());
             LOGGER.info("Servidor UDP encerrado. Mensagens processadas: " + contadorMensagens);
         }
+
+        synchronized (this) {
+            if (motor != null) {
+                try {
+                    motor.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Erro ao fechar o motor de eco", e);
+                }
+                System.out.println("✓ Motor de eco encerrado: " + motor.gerarRelatorio());
+                LOGGER.info("Motor de eco encerrado. " + motor.gerarRelatorio());
+                motor = null;
+            }
+            if (grupo != null) {
+                grupo.close();
+                System.out.println("✓ Grupo de sockets encerrado: " + grupo.gerarRelatorio());
+                LOGGER.info("Grupo de sockets encerrado. " + grupo.gerarRelatorio());
+                grupo = null;
+            }
+            if (canalConfiavel != null) {
+                try {
+                    canalConfiavel.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Erro ao fechar o canal confiável", e);
+                }
+                System.out.println("✓ Canal confiável encerrado: " + ecosConfiaveis.get() + " eco(s); " +
+                                   canalConfiavel.gerarRelatorio());
+                LOGGER.info("Canal confiável encerrado. " + canalConfiavel.gerarRelatorio());
+                canalConfiavel = null;
+            }
+            notifyAll();
+        }
     }
 
     // ==================== MÉTODOS AUXILIARES ====================
@@ -253,11 +535,21 @@ public class ServidorUDP {
      * Exibe ajuda sobre uso do programa.
      */
     private static void exibirAjuda() {
-        System.out.println("\nUso: java ServidorUDP [porta]");
-        System.out.println("  porta: Porta do servidor (padrão: 6789)");
+        System.out.println("\nUso: java ServidorUDP [porta] [classico|motor|grupo|confiavel] [amostragem] " +
+                           "[sockets|perda]");
+        System.out.println("  porta:      Porta do servidor (padrão: 6789)");
+        System.out.println("  modo:       classico (log por datagrama), motor (buffer direto, sem alocação)");
+        System.out.println("              grupo (vários motores na mesma porta, SO_REUSEPORT)");
+        System.out.println("              ou confiavel (entrega confiável e ordenada por fluxo)");
+        System.out.println("  amostragem: Exceto no modo classico, registrar 1 a cada N datagramas (padrão: 0)");
+        System.out.println("  sockets:    No modo grupo, número de sockets/threads (padrão: núcleos)");
+        System.out.println("  perda:      No modo confiavel, fração de perda emulada no envio (padrão: 0)");
         System.out.println("\nExemplos:");
         System.out.println("  java ServidorUDP");
         System.out.println("  java ServidorUDP 8080");
+        System.out.println("  java ServidorUDP 6789 motor 100000");
+        System.out.println("  java ServidorUDP 6789 grupo 0 4");
+        System.out.println("  java ServidorUDP 6789 confiavel 1000 0.05");
     }
 
     // ==================== MÉTODOS DE INFORMAÇÃO ====================
@@ -271,6 +563,15 @@ public class ServidorUDP {
         return contadorMensagens;
     }
 
+    /**
+     * Retorna o número de requisições descartadas por prazo expirado.
+     * 
+     * @return Número de requisições expiradas
+     */
+    public int getContadorExpiradas() {
+        return contadorExpiradas;
+    }
+
     /**
      * Verifica se o servidor está executando.
      * 
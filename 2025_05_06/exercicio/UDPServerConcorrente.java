@@ -12,6 +12,14 @@
  * - Processamento concorrente de clientes
  * - Logs detalhados de atividade por thread
  * - Tratamento robusto de exceções
+ * - Prazo por requisição (CabecalhoUDP): requisições expiradas são descartadas
+ *   antes do processamento ou recusadas quando o trabalho não cabe no tempo restante
+ * - Cache de respostas (CacheRespostasUDP): uma requisição repetida pelo
+ *   cliente (mesmo identificador no CabecalhoUDP) é respondida com a resposta
+ *   já calculada, ou ignorada se ainda estiver em processamento
+ * 
+ * Compilação: javac -sourcepath .:.. UDPServerConcorrente.java
+ * Execução:   java -cp .:.. UDPServerConcorrente
  * 
  * @author Sistema de Comunicação UDP Concorrente
  * @version 2.0
@@ -37,6 +45,14 @@ public class UDPServerConcorrente {
     /** Tamanho do buffer para recepção */
     private static final int TAMANHO_BUFFER = 1000;
 
+    /** Tempo de processamento simulado por requisição, em milissegundos */
+    private static final int TEMPO_PROCESSAMENTO_MS = 100;
+
+    /** Parâmetros do cache de respostas */
+    private static final int CAPACIDADE_CACHE = 4096;
+    private static final int PARTICOES_CACHE = 16;
+    private static final long TTL_CACHE_MS = 30_000;
+
     /** Logger para registrar eventos do servidor */
     private static final Logger LOGGER = Logger.getLogger(UDPServerConcorrente.class.getName());
 
@@ -48,6 +64,16 @@ public class UDPServerConcorrente {
     /** Contador global de threads ativas */
     private static final AtomicInteger threadsAtivas = new AtomicInteger(0);
 
+    /** Requisições descartadas antes do processamento (prazo já expirado) */
+    private static final AtomicInteger expiradasAntes = new AtomicInteger(0);
+
+    /** Requisições recusadas porque o processamento não caberia no prazo restante */
+    private static final AtomicInteger recusadasPorPrazo = new AtomicInteger(0);
+
+    /** Respostas de requisições repetidas, por (endereço, porta, identificador) */
+    private static final CacheRespostasUDP cacheRespostas =
+            new CacheRespostasUDP(CAPACIDADE_CACHE, PARTICOES_CACHE, TTL_CACHE_MS, TAMANHO_BUFFER * 2);
+
     // ==================== MÉTODO PRINCIPAL ====================
 
     /**
@@ -86,6 +112,9 @@ public class UDPServerConcorrente {
                 serverSocket.close();
                 System.out.println("\n✓ Servidor encerrado");
                 System.out.println("✓ Total de clientes atendidos: " + contadorClientes.get());
+                System.out.println("✓ Descartadas por prazo: " + expiradasAntes.get() + " antes e " +
+                                   recusadasPorPrazo.get() + " por não caberem no prazo");
+                System.out.println("✓ Cache de respostas: " + cacheRespostas.gerarRelatorio());
                 LOGGER.info("Servidor encerrado. Clientes atendidos: " + contadorClientes.get());
             }
         }
@@ -99,15 +128,22 @@ public class UDPServerConcorrente {
      * @param serverSocket Socket do servidor
      */
     private static void executarLoopPrincipal(DatagramSocket serverSocket) {
-        byte[] buffer = new byte[TAMANHO_BUFFER];
-
         while (!serverSocket.isClosed()) {
             try {
-                // Preparar datagrama para recepção
+                // Preparar datagrama para recepção, com buffer próprio: a thread do
+                // handler lê os dados enquanto este laço já recebe o próximo
+                byte[] buffer = new byte[TAMANHO_BUFFER];
                 DatagramPacket receivePacket = new DatagramPacket(buffer, buffer.length);
 
                 // Receber requisição (bloqueante)
                 serverSocket.receive(receivePacket);
+                long recebidoNanos = System.nanoTime();
+                CabecalhoUDP cabecalho = CabecalhoUDP.ler(receivePacket, recebidoNanos);
+
+                // Repetição de uma requisição já vista: não refaz o trabalho
+                if (cabecalho.temId() && responderRepeticao(serverSocket, receivePacket, cabecalho)) {
+                    continue;
+                }
 
                 int numeroCliente = contadorClientes.incrementAndGet();
 
@@ -115,7 +151,7 @@ public class UDPServerConcorrente {
                 System.out.println("  - Threads ativas: " + threadsAtivas.get());
 
                 // Criar thread para processar cliente
-                ClientHandler handler = new ClientHandler(serverSocket, receivePacket, numeroCliente);
+                ClientHandler handler = new ClientHandler(serverSocket, receivePacket, numeroCliente, cabecalho);
                 Thread clientThread = new Thread(handler, "ClientHandler-" + numeroCliente);
                 clientThread.start();
 
@@ -130,6 +166,36 @@ public class UDPServerConcorrente {
         }
     }
 
+    /**
+     * Consulta o cache de respostas e reserva a entrada de uma requisição nova.
+     * Chamado só na thread de recepção, para que duas cópias da mesma
+     * requisição nunca sejam reservadas ao mesmo tempo.
+     * 
+     * @param serverSocket Socket do servidor
+     * @param receivePacket Requisição recebida
+     * @param cabecalho Cabeçalho da requisição, com identificador
+     * @return true se era uma repetição (já respondida aqui ou ainda em processamento)
+     * @throws IOException se houver erro no reenvio da resposta
+     */
+    private static boolean responderRepeticao(DatagramSocket serverSocket, DatagramPacket receivePacket,
+                                              CabecalhoUDP cabecalho) throws IOException {
+        byte[] resposta = cacheRespostas.reservar(receivePacket.getAddress(), receivePacket.getPort(),
+                                                  cabecalho.getIdRequisicao());
+        if (resposta == null) {
+            return false;
+        }
+        if (resposta == CacheRespostasUDP.EM_ANDAMENTO) {
+            System.out.println("[Repetição] Requisição " + cabecalho.getIdRequisicao() + " de " +
+                               receivePacket.getSocketAddress() + " ainda em processamento - ignorada");
+            return true;
+        }
+        serverSocket.send(new DatagramPacket(resposta, resposta.length, receivePacket.getSocketAddress()));
+        System.out.println("[Repetição] Requisição " + cabecalho.getIdRequisicao() + " de " +
+                           receivePacket.getSocketAddress() + " respondida pelo cache");
+        LOGGER.info("Resposta reenviada do cache para " + receivePacket.getSocketAddress());
+        return true;
+    }
+
     /**
      * Configura hook para encerramento gracioso.
      * 
@@ -162,6 +228,9 @@ public class UDPServerConcorrente {
         /** Número identificador do cliente */
         private final int numeroCliente;
 
+        /** Cabeçalho da requisição, com o prazo convertido para o relógio local */
+        private final CabecalhoUDP cabecalho;
+
         /** Identificador da thread para logs */
         private final String identificadorThread;
 
@@ -173,11 +242,14 @@ public class UDPServerConcorrente {
          * @param serverSocket  Socket do servidor
          * @param receivePacket Datagrama recebido
          * @param numeroCliente Número do cliente
+         * @param cabecalho     Cabeçalho lido na recepção
          */
-        public ClientHandler(DatagramSocket serverSocket, DatagramPacket receivePacket, int numeroCliente) {
+        public ClientHandler(DatagramSocket serverSocket, DatagramPacket receivePacket, int numeroCliente,
+                             CabecalhoUDP cabecalho) {
             this.serverSocket = serverSocket;
             this.receivePacket = receivePacket;
             this.numeroCliente = numeroCliente;
+            this.cabecalho = cabecalho;
             this.identificadorThread = "[Thread-" + numeroCliente + "]";
         }
 
@@ -195,13 +267,21 @@ public class UDPServerConcorrente {
                 LOGGER.info(identificadorThread + " Thread iniciada");
 
                 // Processar requisição do cliente
-                processarRequisicao();
+                if (!processarRequisicao() && cabecalho.temId()) {
+                    // Sem resposta: uma repetição deve ser processada de novo
+                    cacheRespostas.cancelar(receivePacket.getAddress(), receivePacket.getPort(),
+                                            cabecalho.getIdRequisicao());
+                }
 
                 System.out.println(identificadorThread + " ✓ Processamento concluído");
 
             } catch (IOException e) {
                 System.err.println(identificadorThread + " ✗ Erro: " + e.getMessage());
                 LOGGER.log(Level.SEVERE, identificadorThread + " Erro no processamento", e);
+                if (cabecalho.temId()) {
+                    cacheRespostas.cancelar(receivePacket.getAddress(), receivePacket.getPort(),
+                                            cabecalho.getIdRequisicao());
+                }
             } finally {
                 int threadsRestantes = threadsAtivas.decrementAndGet();
                 System.out.println(identificadorThread + " Finalizada (threads ativas: " + threadsRestantes + ")");
@@ -212,34 +292,47 @@ public class UDPServerConcorrente {
         /**
          * Processa a requisição do cliente.
          * 
+         * @return true se a resposta foi calculada (e guardada no cache, se a requisição tem identificador)
          * @throws IOException se houver erro na comunicação
          */
-        private void processarRequisicao() throws IOException {
+        private boolean processarRequisicao() throws IOException {
             // Extrair informações do cliente
             InetAddress clientAddress = receivePacket.getAddress();
             int clientPort = receivePacket.getPort();
 
-            // Extrair mensagem recebida
-            String receivedMessage = new String(
-                    receivePacket.getData(),
-                    0,
-                    receivePacket.getLength(),
-                    "UTF-8").trim();
+            // Extrair mensagem recebida (sem o cabeçalho)
+            String receivedMessage = cabecalho.getTexto(receivePacket).trim();
 
             System.out.println(identificadorThread + " Processando requisição:");
             System.out.println("  - Cliente: " + clientAddress.getHostAddress() + ":" + clientPort);
             System.out.println("  - Mensagem original: \"" + receivedMessage + "\"");
 
+            // Não inicia trabalho para um cliente que já desistiu
+            if (cabecalho.isExpirado()) {
+                expiradasAntes.incrementAndGet();
+                System.out.println(identificadorThread + " ⏱️  Prazo expirado antes do processamento - descartada");
+                LOGGER.info(identificadorThread + " Requisição descartada: prazo expirado");
+                return false;
+            }
+
             try {
-                // Simular algum processamento (opcional)
-                Thread.sleep(100);
+                // Simular algum processamento, recusado se não couber no prazo restante
+                if (!cabecalho.aguardarDentroDoPrazo(TEMPO_PROCESSAMENTO_MS)) {
+                    recusadasPorPrazo.incrementAndGet();
+                    System.out.println(identificadorThread + " ⏱️  Prazo não comporta o processamento - recusada");
+                    LOGGER.info(identificadorThread + " Requisição recusada: prazo insuficiente");
+                    return false;
+                }
 
                 // Inverter a string recebida
                 String reversedMessage = new StringBuilder(receivedMessage).reverse().toString();
                 System.out.println("  - Mensagem invertida: \"" + reversedMessage + "\"");
 
-                // Preparar resposta
+                // Preparar resposta e guardá-la antes do envio: se ela se perder, a repetição sai do cache
                 byte[] sendBuffer = reversedMessage.getBytes("UTF-8");
+                if (cabecalho.temId()) {
+                    cacheRespostas.completar(clientAddress, clientPort, cabecalho.getIdRequisicao(), sendBuffer);
+                }
                 DatagramPacket sendPacket = new DatagramPacket(
                         sendBuffer,
                         sendBuffer.length,
@@ -253,6 +346,7 @@ public class UDPServerConcorrente {
 
                 LOGGER.info(identificadorThread + " Resposta enviada para " +
                         clientAddress + ":" + clientPort + " - " + reversedMessage);
+                return true;
 
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
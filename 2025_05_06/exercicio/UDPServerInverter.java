@@ -12,6 +12,15 @@
  * - Logs detalhados de atividade
  * - Tratamento robusto de exceções
  * - Estatísticas de processamento
+ * - Descarte de requisições cujo prazo (CabecalhoUDP) já expirou
+ * - Strings maiores que um datagrama, recebidas em fragmentos (RemontadorUDP)
+ *   e devolvidas invertidas em fragmentos do mesmo tamanho (FragmentadorUDP)
+ * - Modo grupo (GrupoSocketsUDP): N sockets na mesma porta com SO_REUSEPORT,
+ *   uma thread por socket, invertendo no próprio buffer sem alocação
+ * - Modo confiável (CanalConfiavelUDP): entrega confiável e ordenada por fluxo
+ * 
+ * Compilação: javac -sourcepath .:.. UDPServerInverter.java
+ * Execução:   java -cp .:.. UDPServerInverter [grupo [sockets] | confiavel [perda]]
  * 
  * @author Sistema de Comunicação UDP
  * @version 2.0
@@ -20,6 +29,7 @@
 
 import java.net.*;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -33,8 +43,11 @@ public class UDPServerInverter {
     /** Porta padrão do servidor */
     private static final int PORTA_SERVIDOR = 6789;
 
-    /** Tamanho do buffer para recepção */
-    private static final int TAMANHO_BUFFER = 1000;
+    /** Tamanho do buffer para recepção (o maior datagrama UDP, para nunca truncar) */
+    private static final int TAMANHO_BUFFER = FragmentadorUDP.DATAGRAMA_MAXIMO;
+
+    /** Caracteres exibidos de uma string remontada */
+    private static final int CARACTERES_EXIBIDOS = 200;
 
     /** Logger para registrar eventos do servidor */
     private static final Logger LOGGER = Logger.getLogger(UDPServerInverter.class.getName());
@@ -44,9 +57,24 @@ public class UDPServerInverter {
     /** Socket do servidor UDP */
     private DatagramSocket serverSocket;
 
+    /** Grupo de sockets (modo grupo; null nos demais) */
+    private GrupoSocketsUDP grupo;
+
+    /** Canal confiável (modo confiavel; null nos demais) */
+    private CanalConfiavelUDP canalConfiavel;
+
+    /** Remontagem das strings fragmentadas (modo sequencial) */
+    private final RemontadorUDP remontador = new RemontadorUDP();
+
+    /** Fragmentador das respostas, no tamanho dos fragmentos recebidos */
+    private FragmentadorUDP fragmentadorResposta;
+
     /** Contador de mensagens processadas */
     private int contadorMensagens;
 
+    /** Contador de requisições descartadas por prazo expirado */
+    private int contadorExpiradas;
+
     /** Flag para controlar execução do servidor */
     private volatile boolean executando;
 
@@ -55,13 +83,26 @@ public class UDPServerInverter {
     /**
      * Método principal do servidor.
      * 
-     * @param args Argumentos da linha de comando (não utilizados)
+     * Argumentos aceitos:
+     * - args[0]: "grupo" para o modo com vários sockets, "confiavel" para o modo confiável (opcional)
+     * - args[1]: Número de sockets do grupo (opcional, padrão: núcleos disponíveis), ou
+     *            fração de perda emulada no modo confiável (opcional, padrão: 0)
+     * 
+     * @param args Argumentos da linha de comando
      */
     public static void main(String[] args) {
         UDPServerInverter servidor = new UDPServerInverter();
 
         try {
-            servidor.iniciarServidor();
+            if (args.length > 0 && args[0].equals("grupo")) {
+                int sockets = args.length > 1 ? Integer.parseInt(args[1])
+                                              : Runtime.getRuntime().availableProcessors();
+                servidor.iniciarGrupo(sockets);
+            } else if (args.length > 0 && args[0].equals("confiavel")) {
+                servidor.iniciarConfiavel(args.length > 1 ? Double.parseDouble(args[1]) : 0);
+            } else {
+                servidor.iniciarServidor();
+            }
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Erro crítico no servidor", e);
             System.err.println("Erro crítico: " + e.getMessage());
@@ -85,6 +126,7 @@ public class UDPServerInverter {
         try {
             // Criar socket do servidor
             serverSocket = new DatagramSocket(PORTA_SERVIDOR);
+            serverSocket.setReceiveBufferSize(FragmentadorUDP.BUFFER_SOCKET);
             executando = true;
             contadorMensagens = 0;
 
@@ -107,6 +149,88 @@ public class UDPServerInverter {
         }
     }
 
+    /**
+     * Inicia o servidor no modo grupo: N sockets na mesma porta (SO_REUSEPORT),
+     * cada um com sua thread, invertendo as strings sem log por requisição.
+     * 
+     * @param sockets Número de sockets e threads
+     * @throws IOException se houver erro na criação dos canais
+     * @throws InterruptedException se a espera pelas threads for interrompida
+     */
+    public void iniciarGrupo(int sockets) throws IOException, InterruptedException {
+        System.out.println("=== Servidor UDP de Inversão (grupo SO_REUSEPORT) ===");
+        System.out.println("Porta: " + PORTA_SERVIDOR);
+        System.out.println("Sockets/threads: " + sockets);
+        System.out.println("Pressione Ctrl+C para parar o servidor\n");
+
+        try {
+            grupo = new GrupoSocketsUDP(PORTA_SERVIDOR, sockets, TAMANHO_BUFFER, 0, MotorEcoUDP.INVERSAO);
+            executando = true;
+            grupo.iniciar();
+
+            System.out.println("✓ " + sockets + " socket(s) de inversão iniciados com sucesso!\n");
+            LOGGER.info("Grupo de " + sockets + " sockets de inversão iniciado na porta " + PORTA_SERVIDOR);
+
+            configurarShutdownHook();
+            grupo.aguardar();
+
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("✗ Erro ao criar o grupo de sockets: " + e.getMessage());
+            throw e;
+        } finally {
+            pararServidor();
+        }
+    }
+
+    /**
+     * Inicia o servidor no modo confiável: cada mensagem recebida pelo
+     * CanalConfiavelUDP volta invertida no mesmo fluxo.
+     * 
+     * @param perda Fração dos datagramas enviados descartada de propósito
+     * @throws IOException se houver erro na criação do canal
+     * @throws InterruptedException se a espera pelo encerramento for interrompida
+     */
+    public void iniciarConfiavel(double perda) throws IOException, InterruptedException {
+        System.out.println("=== Servidor UDP de Inversão (confiável) ===");
+        System.out.println("Porta: " + PORTA_SERVIDOR);
+        System.out.println("Perda emulada: " + (perda * 100) + "%");
+        System.out.println("Pressione Ctrl+C para parar o servidor\n");
+
+        try {
+            canalConfiavel = new CanalConfiavelUDP(PORTA_SERVIDOR, UDPServerInverter::inverterConfiavel);
+            canalConfiavel.setPerdaEmulada(perda);
+            executando = true;
+
+            System.out.println("✓ Canal confiável de inversão iniciado com sucesso!\n");
+            LOGGER.info("Servidor UDP de inversão confiável iniciado na porta " + PORTA_SERVIDOR);
+
+            configurarShutdownHook();
+            synchronized (this) {
+                while (executando) {
+                    wait();
+                }
+            }
+
+        } catch (IOException e) {
+            System.err.println("✗ Erro ao criar canal confiável: " + e.getMessage());
+            throw e;
+        } finally {
+            pararServidor();
+        }
+    }
+
+    /**
+     * Devolve invertida uma mensagem recebida pelo canal confiável, no mesmo fluxo.
+     */
+    private static void inverterConfiavel(CanalConfiavelUDP canal, SocketAddress origem, int fluxo, byte[] dados) {
+        MotorEcoUDP.INVERSAO.aplicar(ByteBuffer.wrap(dados));
+        try {
+            canal.enviar(origem, fluxo, dados);
+        } catch (IOException | InterruptedException e) {
+            LOGGER.log(Level.WARNING, "Erro ao enviar inversão confiável para " + origem, e);
+        }
+    }
+
     /**
      * Executa o loop principal de processamento de requisições.
      */
@@ -122,10 +246,27 @@ public class UDPServerInverter {
 
                 // Receber requisição (bloqueante)
                 serverSocket.receive(receivePacket);
+                long recebidoNanos = System.nanoTime();
+
+                // Fragmento: só processa quando a string estiver completa
+                if (FragmentadorUDP.isFragmento(receivePacket)) {
+                    RemontadorUDP.Mensagem mensagem = remontador.receber(receivePacket, recebidoNanos);
+                    if (mensagem != null) {
+                        try {
+                            contadorMensagens++;
+                            DatagramPacket pacoteMensagem = mensagem.comoPacote();
+                            CabecalhoUDP cabecalho = CabecalhoUDP.ler(pacoteMensagem, mensagem.getInicioNanos());
+                            processarInversaoFragmentada(pacoteMensagem, cabecalho, mensagem.getMaiorDatagrama());
+                        } finally {
+                            remontador.liberar(mensagem);
+                        }
+                    }
+                    continue;
+                }
                 contadorMensagens++;
 
                 // Processar requisição
-                processarRequisicaoInversao(receivePacket);
+                processarRequisicaoInversao(receivePacket, CabecalhoUDP.ler(receivePacket, recebidoNanos));
 
             } catch (SocketException e) {
                 if (executando) {
@@ -147,19 +288,17 @@ public class UDPServerInverter {
      * Processa uma requisição de inversão de string.
      * 
      * @param receivePacket Datagrama recebido do cliente
+     * @param cabecalho Cabeçalho da requisição (prazo e posição da carga útil)
      * @throws IOException se houver erro na comunicação
      */
-    private void processarRequisicaoInversao(DatagramPacket receivePacket) throws IOException {
+    private void processarRequisicaoInversao(DatagramPacket receivePacket, CabecalhoUDP cabecalho)
+            throws IOException {
         // Extrair informações do cliente
         InetAddress clientAddress = receivePacket.getAddress();
         int clientPort = receivePacket.getPort();
 
-        // Extrair mensagem original
-        String receivedMessage = new String(
-                receivePacket.getData(),
-                0,
-                receivePacket.getLength(),
-                "UTF-8");
+        // Extrair mensagem original (sem o cabeçalho)
+        String receivedMessage = cabecalho.getTexto(receivePacket);
 
         String identificador = "[#" + contadorMensagens + "]";
 
@@ -168,6 +307,13 @@ public class UDPServerInverter {
         System.out.println("  - Mensagem original: \"" + receivedMessage + "\"");
         System.out.println("  - Tamanho: " + receivedMessage.length() + " caracteres");
 
+        if (cabecalho.isExpirado()) {
+            contadorExpiradas++;
+            System.out.println(identificador + " ⏱️  Prazo expirado - requisição descartada\n");
+            LOGGER.info("Requisição descartada por prazo expirado: " + clientAddress + ":" + clientPort);
+            return;
+        }
+
         try {
             // Inverter a string recebida
             String reversedMessage = new StringBuilder(receivedMessage).reverse().toString();
@@ -197,6 +343,54 @@ public class UDPServerInverter {
         System.out.println(identificador + " ✓ Inversão processada com sucesso\n");
     }
 
+    /**
+     * Processa uma string remontada de fragmentos: inverte no próprio buffer
+     * do remontador, sem criar Strings do tamanho da mensagem, e devolve a
+     * resposta em fragmentos do tamanho dos recebidos.
+     * 
+     * @param pacote Mensagem remontada (sobre o buffer do remontador)
+     * @param cabecalho Cabeçalho da requisição (prazo e posição da carga útil)
+     * @param tamanhoFragmento Maior fragmento recebido
+     * @throws IOException se houver erro na comunicação
+     */
+    private void processarInversaoFragmentada(DatagramPacket pacote, CabecalhoUDP cabecalho, int tamanhoFragmento)
+            throws IOException {
+        String identificador = "[#" + contadorMensagens + "]";
+        int tamanho = cabecalho.getTamanhoCarga();
+
+        System.out.println(identificador + " Requisição de inversão fragmentada recebida:");
+        System.out.println("  - Cliente: " + pacote.getAddress().getHostAddress() + ":" + pacote.getPort());
+        System.out.println("  - Tamanho: " + tamanho + " bytes em fragmentos de até " + tamanhoFragmento + " bytes");
+
+        if (cabecalho.isExpirado()) {
+            contadorExpiradas++;
+            System.out.println(identificador + " ⏱️  Prazo expirado - requisição descartada\n");
+            LOGGER.info("Requisição fragmentada descartada por prazo expirado: " + pacote.getSocketAddress());
+            return;
+        }
+
+        MotorEcoUDP.INVERSAO.aplicar(ByteBuffer.wrap(pacote.getData(), cabecalho.getInicioCarga(), tamanho));
+        int exibidos = Math.min(tamanho, CARACTERES_EXIBIDOS);
+        System.out.println("  - Início invertido: \"" +
+                           new String(pacote.getData(), cabecalho.getInicioCarga(), exibidos, "UTF-8") + "\"");
+
+        if (fragmentadorResposta == null || fragmentadorResposta.getTamanhoDatagrama() != tamanhoFragmento) {
+            fragmentadorResposta = new FragmentadorUDP(tamanhoFragmento);
+        }
+        System.out.print(identificador + " Enviando string invertida...");
+        try {
+            fragmentadorResposta.enviarMensagem(serverSocket, pacote.getData(), cabecalho.getInicioCarga(), tamanho,
+                                                pacote.getSocketAddress());
+        } catch (IOException e) {
+            System.out.println(" ✗ Erro no envio!");
+            throw new IOException("Erro ao enviar string invertida: " + e.getMessage(), e);
+        }
+        System.out.println(" ✓ Enviado!");
+        LOGGER.info("String fragmentada de " + tamanho + " bytes invertida para " + pacote.getSocketAddress());
+
+        System.out.println(identificador + " ✓ Inversão processada com sucesso\n");
+    }
+
     /**
      * Para o servidor de forma gracioso.
      */
@@ -207,9 +401,33 @@ public class UDPServerInverter {
         if (serverSocket != null && !serverSocket.isClosed()) {
             serverSocket.close();
             System.out.println("✓ Servidor de inversão encerrado com sucesso!");
-            System.out.println("✓ Total de strings invertidas: " + contadorMensagens);
+            System.out.println("✓ Total de strings invertidas: " + (contadorMensagens - contadorExpiradas));
+            System.out.println("✓ Requisições descartadas por prazo: " + contadorExpiradas);
+            System.out.println("✓ Remontagem: " + remontador.gerarRelatorio());
             LOGGER.info("Servidor de inversão encerrado. Strings processadas: " + contadorMensagens);
         }
+
+        synchronized (this) {
+            if (grupo != null) {
+                grupo.close();
+                System.out.println("✓ Strings invertidas pelo grupo: " + grupo.getEnviados());
+                System.out.println("✓ Requisições descartadas por prazo: " + grupo.getExpiradas());
+                System.out.println("✓ Distribuição: " + grupo.gerarRelatorio());
+                LOGGER.info("Grupo de inversão encerrado. " + grupo.gerarRelatorio());
+                grupo = null;
+            }
+            if (canalConfiavel != null) {
+                try {
+                    canalConfiavel.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Erro ao fechar o canal confiável", e);
+                }
+                System.out.println("✓ Canal confiável encerrado: " + canalConfiavel.gerarRelatorio());
+                LOGGER.info("Canal confiável de inversão encerrado. " + canalConfiavel.gerarRelatorio());
+                canalConfiavel = null;
+            }
+            notifyAll();
+        }
     }
 
     // ==================== MÉTODOS AUXILIARES ====================